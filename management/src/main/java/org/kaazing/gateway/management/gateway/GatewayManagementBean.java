@@ -67,6 +67,54 @@ public interface GatewayManagementBean extends ManagementBean {
 
     long getTotalExceptions();
 
+    long getBufferPoolHitCount();
+
+    long getBufferPoolMissCount();
+
+    long getAuthenticationCacheHitCount();
+
+    long getAuthenticationCacheMissCount();
+
+    long getAuthenticationCacheSize();
+
+    long getAddressCacheHitCount();
+
+    long getAddressCacheMissCount();
+
+    long getAddressCacheSize();
+
+    long getSslHandshakeQueueDepth();
+
+    long getSslHandshakeCount();
+
+    long getSslHandshakeAverageLatency();
+
+    long getSslHandshakeMaximumLatency();
+
+    long getSslFullHandshakeCount();
+
+    long getSslResumedHandshakeCount();
+
+    double getSslResumptionRatio();
+
+    long getLoginCount();
+
+    long getLoginRejectedCount();
+
+    double getLoginQueueDepthMean();
+
+    long getLoginQueueDepth99thPercentile();
+
+    double getLoginLatencyMean();
+
+    long getLoginLatency99thPercentile();
+
+    long getPersistentConnectionCount();
+
+    double getPersistentConnectionReuseRate();
+
+    int getLoginQueueDepth(String realmName);
+
     long getUptime();
 
     long getStartTime();
@@ -29,6 +29,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.core.write.WriteRequest;
@@ -43,7 +44,9 @@ import org.kaazing.gateway.management.Utils.ManagementSessionType;
 import org.kaazing.gateway.management.context.ManagementContext;
 import org.kaazing.gateway.management.update.check.ManagementUpdateCheck;
 import org.kaazing.gateway.management.update.check.ManagementUpdateCheckFactory;
+import org.kaazing.gateway.resource.address.ResourceAddressCache;
 import org.kaazing.gateway.server.context.GatewayContext;
+import org.kaazing.gateway.server.context.resolve.DefaultTransportContext;
 import org.kaazing.gateway.server.impl.VersionUtils;
 import org.kaazing.gateway.service.cluster.BalancerMapListener;
 import org.kaazing.gateway.service.cluster.ClusterContext;
@@ -52,6 +55,18 @@ import org.kaazing.gateway.service.cluster.MemberId;
 import org.kaazing.gateway.service.cluster.MembershipEventListener;
 import org.kaazing.gateway.service.http.balancer.HttpBalancerService;
 import org.kaazing.gateway.service.messaging.collections.CollectionsFactory;
+import org.kaazing.gateway.transport.BridgeAcceptor;
+import org.kaazing.gateway.transport.BridgeConnector;
+import org.kaazing.gateway.transport.http.HttpAcceptor;
+import org.kaazing.gateway.transport.http.HttpConnector;
+import org.kaazing.gateway.transport.http.bridge.filter.HttpAuthenticationCache;
+import org.kaazing.gateway.transport.http.bridge.filter.HttpLoginExecutor;
+import org.kaazing.gateway.transport.nio.NioSocketAcceptor;
+import org.kaazing.gateway.transport.ssl.SslAcceptor;
+import org.kaazing.gateway.transport.ssl.SslConnector;
+import org.kaazing.gateway.transport.ssl.bridge.filter.SslHandshakeExecutor;
+import org.kaazing.gateway.transport.ssl.bridge.filter.SslSessionStatistics;
+import org.kaazing.mina.netty.ChannelIoBufferPool;
 import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -202,6 +217,253 @@ public class GatewayManagementBeanImpl extends AbstractManagementBean
         return total;
     }
 
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getBufferPoolHitCount() {
+        ChannelIoBufferPool bufferPool = getBufferPool();
+        return bufferPool != null ? bufferPool.getHitCount() : 0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getBufferPoolMissCount() {
+        ChannelIoBufferPool bufferPool = getBufferPool();
+        return bufferPool != null ? bufferPool.getMissCount() : 0;
+    }
+
+    private ChannelIoBufferPool getBufferPool() {
+        DefaultTransportContext transport = gatewayContext.getTransportForScheme("tcp");
+        BridgeAcceptor acceptor = (transport != null) ? transport.getAcceptor() : null;
+        return (acceptor instanceof NioSocketAcceptor) ? ((NioSocketAcceptor) acceptor).getBufferPool() : null;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getAuthenticationCacheHitCount() {
+        HttpAuthenticationCache authenticationCache = getAuthenticationCache();
+        return authenticationCache != null ? authenticationCache.getHitCount() : 0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getAuthenticationCacheMissCount() {
+        HttpAuthenticationCache authenticationCache = getAuthenticationCache();
+        return authenticationCache != null ? authenticationCache.getMissCount() : 0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getAuthenticationCacheSize() {
+        HttpAuthenticationCache authenticationCache = getAuthenticationCache();
+        return authenticationCache != null ? authenticationCache.size() : 0;
+    }
+
+    private HttpAuthenticationCache getAuthenticationCache() {
+        HttpAcceptor acceptor = getHttpAcceptor();
+        return (acceptor != null) ? acceptor.getAuthenticationCache() : null;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getAddressCacheHitCount() {
+        ResourceAddressCache addressCache = getAddressCache();
+        return addressCache != null ? addressCache.getHitCount() : 0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getAddressCacheMissCount() {
+        ResourceAddressCache addressCache = getAddressCache();
+        return addressCache != null ? addressCache.getMissCount() : 0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getAddressCacheSize() {
+        ResourceAddressCache addressCache = getAddressCache();
+        return addressCache != null ? addressCache.size() : 0;
+    }
+
+    private ResourceAddressCache getAddressCache() {
+        HttpAcceptor acceptor = getHttpAcceptor();
+        return (acceptor != null) ? acceptor.getAddressCache() : null;
+    }
+
+    private HttpAcceptor getHttpAcceptor() {
+        DefaultTransportContext transport = gatewayContext.getTransportForScheme("http");
+        BridgeAcceptor acceptor = (transport != null) ? transport.getAcceptor() : null;
+        return (acceptor instanceof HttpAcceptor) ? (HttpAcceptor) acceptor : null;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getSslHandshakeQueueDepth() {
+        long queueDepth = 0;
+        for (SslHandshakeExecutor handshakeExecutor : getSslHandshakeExecutors()) {
+            queueDepth += handshakeExecutor.getQueueDepth();
+        }
+        return queueDepth;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getSslHandshakeCount() {
+        long handshakeCount = 0;
+        for (SslHandshakeExecutor handshakeExecutor : getSslHandshakeExecutors()) {
+            handshakeCount += handshakeExecutor.getHandshakeCount();
+        }
+        return handshakeCount;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getSslHandshakeAverageLatency() {
+        // weigh the accept and connect averages by their handshake counts
+        long handshakeCount = 0;
+        long handshakeNanos = 0;
+        for (SslHandshakeExecutor handshakeExecutor : getSslHandshakeExecutors()) {
+            long count = handshakeExecutor.getHandshakeCount();
+            handshakeCount += count;
+            handshakeNanos += handshakeExecutor.getAverageHandshakeLatency(TimeUnit.NANOSECONDS) * count;
+        }
+        return handshakeCount != 0 ? TimeUnit.NANOSECONDS.toMillis(handshakeNanos / handshakeCount) : 0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getSslHandshakeMaximumLatency() {
+        long maximumLatency = 0;
+        for (SslHandshakeExecutor handshakeExecutor : getSslHandshakeExecutors()) {
+            maximumLatency = Math.max(maximumLatency, handshakeExecutor.getMaximumHandshakeLatency(TimeUnit.MILLISECONDS));
+        }
+        return maximumLatency;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getSslFullHandshakeCount() {
+        SslSessionStatistics sessionStatistics = getSslSessionStatistics();
+        return sessionStatistics != null ? sessionStatistics.getFullHandshakeCount() : 0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getSslResumedHandshakeCount() {
+        SslSessionStatistics sessionStatistics = getSslSessionStatistics();
+        return sessionStatistics != null ? sessionStatistics.getResumedHandshakeCount() : 0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public double getSslResumptionRatio() {
+        SslSessionStatistics sessionStatistics = getSslSessionStatistics();
+        return sessionStatistics != null ? sessionStatistics.getResumptionRatio() : 0.0;
+    }
+
+    private SslSessionStatistics getSslSessionStatistics() {
+        SslAcceptor acceptor = getSslAcceptor();
+        return (acceptor != null) ? acceptor.getSessionStatistics() : null;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getLoginCount() {
+        HttpLoginExecutor loginExecutor = getLoginExecutor();
+        return loginExecutor != null ? loginExecutor.getLoginLatencyHistogram().getCount() : 0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getLoginRejectedCount() {
+        HttpLoginExecutor loginExecutor = getLoginExecutor();
+        return loginExecutor != null ? loginExecutor.getRejectedCount() : 0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public double getLoginQueueDepthMean() {
+        HttpLoginExecutor loginExecutor = getLoginExecutor();
+        return loginExecutor != null ? loginExecutor.getQueueDepthHistogram().getMean() : 0.0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getLoginQueueDepth99thPercentile() {
+        HttpLoginExecutor loginExecutor = getLoginExecutor();
+        return loginExecutor != null ? loginExecutor.getQueueDepthHistogram().getValueAtPercentile(99) : 0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public double getLoginLatencyMean() {
+        HttpLoginExecutor loginExecutor = getLoginExecutor();
+        return loginExecutor != null ? loginExecutor.getLoginLatencyHistogram().getMean() : 0.0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getLoginLatency99thPercentile() {
+        HttpLoginExecutor loginExecutor = getLoginExecutor();
+        return loginExecutor != null ? loginExecutor.getLoginLatencyHistogram().getValueAtPercentile(99) : 0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public int getLoginQueueDepth(String realmName) {
+        HttpLoginExecutor loginExecutor = getLoginExecutor();
+        return loginExecutor != null ? loginExecutor.getQueueDepth(realmName) : 0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public long getPersistentConnectionCount() {
+        HttpConnector connector = getHttpConnector();
+        return connector != null ? connector.getPersistentConnectionCount() : 0;
+    }
+
+    // XXX This runs OFF the IO thread
+    @Override
+    public double getPersistentConnectionReuseRate() {
+        HttpConnector connector = getHttpConnector();
+        return connector != null ? connector.getPersistentConnectionReuseRate() : 0.0;
+    }
+
+    private HttpConnector getHttpConnector() {
+        DefaultTransportContext transport = gatewayContext.getTransportForScheme("http");
+        BridgeConnector connector = (transport != null) ? transport.getConnector() : null;
+        return (connector instanceof HttpConnector) ? (HttpConnector) connector : null;
+    }
+
+    private HttpLoginExecutor getLoginExecutor() {
+        HttpAcceptor acceptor = getHttpAcceptor();
+        return (acceptor != null) ? acceptor.getLoginExecutor() : null;
+    }
+
+    private List<SslHandshakeExecutor> getSslHandshakeExecutors() {
+        List<SslHandshakeExecutor> handshakeExecutors = new ArrayList<>(2);
+        SslAcceptor acceptor = getSslAcceptor();
+        if (acceptor != null && acceptor.getHandshakeExecutor() != null) {
+            handshakeExecutors.add(acceptor.getHandshakeExecutor());
+        }
+        SslConnector connector = getSslConnector();
+        if (connector != null && connector.getHandshakeExecutor() != null) {
+            handshakeExecutors.add(connector.getHandshakeExecutor());
+        }
+        return handshakeExecutors;
+    }
+
+    private SslAcceptor getSslAcceptor() {
+        DefaultTransportContext transport = gatewayContext.getTransportForScheme("ssl");
+        BridgeAcceptor acceptor = (transport != null) ? transport.getAcceptor() : null;
+        return (acceptor instanceof SslAcceptor) ? (SslAcceptor) acceptor : null;
+    }
+
+    private SslConnector getSslConnector() {
+        DefaultTransportContext transport = gatewayContext.getTransportForScheme("ssl");
+        BridgeConnector connector = (transport != null) ? transport.getConnector() : null;
+        return (connector instanceof SslConnector) ? (SslConnector) connector : null;
+    }
+
     @Override
     public long getUptime() {
         return System.currentTimeMillis() - startTime;
@@ -86,6 +86,121 @@ public class GatewayMXBeanImpl implements GatewayMXBean {
         return gatewayManagementBean.getTotalBytesSent();
     }
 
+    @Override
+    public long getBufferPoolHitCount() {
+        return gatewayManagementBean.getBufferPoolHitCount();
+    }
+
+    @Override
+    public long getBufferPoolMissCount() {
+        return gatewayManagementBean.getBufferPoolMissCount();
+    }
+
+    @Override
+    public long getAuthenticationCacheHitCount() {
+        return gatewayManagementBean.getAuthenticationCacheHitCount();
+    }
+
+    @Override
+    public long getAuthenticationCacheMissCount() {
+        return gatewayManagementBean.getAuthenticationCacheMissCount();
+    }
+
+    @Override
+    public long getAuthenticationCacheSize() {
+        return gatewayManagementBean.getAuthenticationCacheSize();
+    }
+
+    @Override
+    public long getAddressCacheHitCount() {
+        return gatewayManagementBean.getAddressCacheHitCount();
+    }
+
+    @Override
+    public long getAddressCacheMissCount() {
+        return gatewayManagementBean.getAddressCacheMissCount();
+    }
+
+    @Override
+    public long getAddressCacheSize() {
+        return gatewayManagementBean.getAddressCacheSize();
+    }
+
+    @Override
+    public long getSslHandshakeQueueDepth() {
+        return gatewayManagementBean.getSslHandshakeQueueDepth();
+    }
+
+    @Override
+    public long getSslHandshakeCount() {
+        return gatewayManagementBean.getSslHandshakeCount();
+    }
+
+    @Override
+    public long getSslHandshakeAverageLatency() {
+        return gatewayManagementBean.getSslHandshakeAverageLatency();
+    }
+
+    @Override
+    public long getSslHandshakeMaximumLatency() {
+        return gatewayManagementBean.getSslHandshakeMaximumLatency();
+    }
+
+    @Override
+    public long getSslFullHandshakeCount() {
+        return gatewayManagementBean.getSslFullHandshakeCount();
+    }
+
+    @Override
+    public long getSslResumedHandshakeCount() {
+        return gatewayManagementBean.getSslResumedHandshakeCount();
+    }
+
+    @Override
+    public double getSslResumptionRatio() {
+        return gatewayManagementBean.getSslResumptionRatio();
+    }
+
+    @Override
+    public long getLoginCount() {
+        return gatewayManagementBean.getLoginCount();
+    }
+
+    @Override
+    public long getLoginRejectedCount() {
+        return gatewayManagementBean.getLoginRejectedCount();
+    }
+
+    @Override
+    public double getLoginQueueDepthMean() {
+        return gatewayManagementBean.getLoginQueueDepthMean();
+    }
+
+    @Override
+    public long getLoginQueueDepth99thPercentile() {
+        return gatewayManagementBean.getLoginQueueDepth99thPercentile();
+    }
+
+    @Override
+    public double getLoginLatencyMean() {
+        return gatewayManagementBean.getLoginLatencyMean();
+    }
+
+    @Override
+    public long getLoginLatency99thPercentile() {
+        return gatewayManagementBean.getLoginLatency99thPercentile();
+    }
+
+    @Override
+    public long getPersistentConnectionCount() {
+        return gatewayManagementBean.getPersistentConnectionCount();
+    }
+
+    @Override
+    public double getPersistentConnectionReuseRate() {
+        return gatewayManagementBean.getPersistentConnectionReuseRate();
+    }
+
     @Override
     public long getUptime() {
         return gatewayManagementBean.getUptime();
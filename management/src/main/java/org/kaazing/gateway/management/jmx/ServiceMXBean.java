@@ -74,6 +74,24 @@ public interface ServiceMXBean {
 
     boolean isHeartbeatRunning();
 
+    long getPreparedConnectionsUsedCount();
+
+    long getPreparedConnectionLatency();
+
+    long getOnDemandConnectionCount();
+
+    long getOnDemandConnectionLatency();
+
+    long getResponseCacheHitCount();
+
+    long getResponseCacheMissCount();
+
+    long getResponseCacheBytesServed();
+
+    long getResponseCacheSize();
+
+    int getLoginQueueDepth();
+
     // -----------------------------------------------------------------
     // end of proxy-style service data
     // -----------------------------------------------------------------
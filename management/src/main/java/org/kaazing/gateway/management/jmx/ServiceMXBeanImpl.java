@@ -220,6 +220,51 @@ public class ServiceMXBeanImpl implements ServiceMXBean {
         return serviceManagementBean.isHeartbeatRunning();
     }
 
+    @Override
+    public long getPreparedConnectionsUsedCount() {
+        return serviceManagementBean.getPreparedConnectionsUsedCount();
+    }
+
+    @Override
+    public long getPreparedConnectionLatency() {
+        return serviceManagementBean.getPreparedConnectionLatency();
+    }
+
+    @Override
+    public long getOnDemandConnectionCount() {
+        return serviceManagementBean.getOnDemandConnectionCount();
+    }
+
+    @Override
+    public long getOnDemandConnectionLatency() {
+        return serviceManagementBean.getOnDemandConnectionLatency();
+    }
+
+    @Override
+    public long getResponseCacheHitCount() {
+        return serviceManagementBean.getResponseCacheHitCount();
+    }
+
+    @Override
+    public long getResponseCacheMissCount() {
+        return serviceManagementBean.getResponseCacheMissCount();
+    }
+
+    @Override
+    public long getResponseCacheBytesServed() {
+        return serviceManagementBean.getResponseCacheBytesServed();
+    }
+
+    @Override
+    public long getResponseCacheSize() {
+        return serviceManagementBean.getResponseCacheSize();
+    }
+
+    @Override
+    public int getLoginQueueDepth() {
+        return serviceManagementBean.getLoginQueueDepth();
+    }
+
     // Some lifecycle methods for the service, called from
     // the management platform (e.g. JConsole.)
     @Override
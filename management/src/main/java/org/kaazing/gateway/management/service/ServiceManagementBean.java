@@ -46,6 +46,7 @@ import org.kaazing.gateway.security.RealmContext;
 import org.kaazing.gateway.service.Service;
 import org.kaazing.gateway.service.ServiceContext;
 import org.kaazing.gateway.service.proxy.ProxyService;
+import org.kaazing.gateway.service.proxy.ResponseCacheStatistics;
 import org.kaazing.gateway.service.proxy.ServiceConnectManager;
 import org.kaazing.gateway.transport.AbstractBridgeSession;
 import org.kaazing.mina.core.session.IoSessionEx;
@@ -165,6 +166,24 @@ public interface ServiceManagementBean extends ManagementBean {
 
     boolean isHeartbeatRunning();
 
+    long getPreparedConnectionsUsedCount();
+
+    long getPreparedConnectionLatency();
+
+    long getOnDemandConnectionCount();
+
+    long getOnDemandConnectionLatency();
+
+    long getResponseCacheHitCount();
+
+    long getResponseCacheMissCount();
+
+    long getResponseCacheBytesServed();
+
+    long getResponseCacheSize();
+
+    int getLoginQueueDepth();
+
     // -----------------------------------------------------------------
     // end of proxy-style service data
     // -----------------------------------------------------------------
@@ -253,6 +272,7 @@ public interface ServiceManagementBean extends ManagementBean {
         private final GatewayManagementBean gatewayManagementBean;
         private final ServiceContext serviceContext;
         private final ServiceConnectManager serviceConnectManager;
+        private final ResponseCacheStatistics responseCacheStatistics;
 
         private final Set<String> userPrincipalClasses;
 
@@ -294,6 +314,8 @@ public interface ServiceManagementBean extends ManagementBean {
             } else {
                 this.serviceConnectManager = null;
             }
+            this.responseCacheStatistics =
+                    (service instanceof ResponseCacheStatistics) ? (ResponseCacheStatistics) service : null;
 
             userPrincipalClasses = new HashSet<>();
             RealmContext realmContext = serviceContext.getServiceRealm();
@@ -605,6 +627,61 @@ public interface ServiceManagementBean extends ManagementBean {
             return serviceConnectManager != null && serviceConnectManager.isHeartbeatRunning();
         }
 
+        // XXX This runs OFF the IO thread
+        @Override
+        public long getPreparedConnectionsUsedCount() {
+            return serviceConnectManager != null ? serviceConnectManager.getPreparedConnectionsUsedCount() : 0;
+        }
+
+        // XXX This runs OFF the IO thread
+        @Override
+        public long getPreparedConnectionLatency() {
+            return serviceConnectManager != null ? serviceConnectManager.getPreparedConnectionLatency() : 0;
+        }
+
+        // XXX This runs OFF the IO thread
+        @Override
+        public long getOnDemandConnectionCount() {
+            return serviceConnectManager != null ? serviceConnectManager.getOnDemandConnectionCount() : 0;
+        }
+
+        // XXX This runs OFF the IO thread
+        @Override
+        public long getOnDemandConnectionLatency() {
+            return serviceConnectManager != null ? serviceConnectManager.getOnDemandConnectionLatency() : 0;
+        }
+
+        // XXX This runs OFF the IO thread
+        @Override
+        public long getResponseCacheHitCount() {
+            return responseCacheStatistics != null ? responseCacheStatistics.getResponseCacheHitCount() : 0;
+        }
+
+        // XXX This runs OFF the IO thread
+        @Override
+        public long getResponseCacheMissCount() {
+            return responseCacheStatistics != null ? responseCacheStatistics.getResponseCacheMissCount() : 0;
+        }
+
+        // XXX This runs OFF the IO thread
+        @Override
+        public long getResponseCacheBytesServed() {
+            return responseCacheStatistics != null ? responseCacheStatistics.getResponseCacheBytesServed() : 0;
+        }
+
+        // XXX This runs OFF the IO thread
+        @Override
+        public long getResponseCacheSize() {
+            return responseCacheStatistics != null ? responseCacheStatistics.getResponseCacheSize() : 0;
+        }
+
+        // XXX This runs OFF the IO thread
+        @Override
+        public int getLoginQueueDepth() {
+            RealmContext realmContext = serviceContext.getServiceRealm();
+            return realmContext != null ? gatewayManagementBean.getLoginQueueDepth(realmContext.getName()) : 0;
+        }
+
         @Override
         public IoSessionEx getSession(long sessionId) {
             return serviceContext.getActiveSession(sessionId);
@@ -48,25 +48,32 @@ import static org.jboss.netty.channel.Channels.fireExceptionCaught;
 import static org.jboss.netty.channel.Channels.fireExceptionCaughtLater;
 import static org.jboss.netty.channel.Channels.fireWriteCompleteLater;
 import static org.jboss.netty.channel.Channels.succeededFuture;
+import static org.kaazing.mina.netty.config.InternalSystemProperty.GATHERING_WRITE_MAXIMUM_BYTES;
+import static org.kaazing.mina.netty.config.InternalSystemProperty.GATHERING_WRITE_MAXIMUM_MESSAGES;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousCloseException;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.NotYetConnectedException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.channel.socket.Worker;
+import org.jboss.netty.channel.socket.nio.SocketSendBufferPool.GatheringMessageSendBuffer;
 import org.jboss.netty.channel.socket.nio.SocketSendBufferPool.SendBuffer;
 import org.jboss.netty.util.ThreadNameDeterminer;
 import org.jboss.netty.util.ThreadRenamingRunnable;
@@ -75,9 +82,19 @@ import org.kaazing.mina.netty.channel.DefaultWriteCompletionEventEx;
 
 abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
 
+    private static final int GATHERING_WRITE_MAXIMUM_MESSAGES_COUNT =
+            GATHERING_WRITE_MAXIMUM_MESSAGES.getIntProperty(System.getProperties());
+    private static final int GATHERING_WRITE_MAXIMUM_BYTES_COUNT =
+            GATHERING_WRITE_MAXIMUM_BYTES.getIntProperty(System.getProperties());
+
     protected final SocketSendBufferPool sendBufferPool = new SocketSendBufferPool();
     private final DefaultWriteCompletionEventEx writeCompletionEvent = new DefaultWriteCompletionEventEx();
 
+    // note: gathering scratch space only accessed from the I/O thread
+    private final boolean gatheringWrites = GATHERING_WRITE_MAXIMUM_MESSAGES_COUNT > 1;
+    private final MessageEvent[] gatheringEvents = new MessageEvent[Math.max(GATHERING_WRITE_MAXIMUM_MESSAGES_COUNT, 1)];
+    private final ByteBuffer[] gatheringBuffers = new ByteBuffer[Math.max(GATHERING_WRITE_MAXIMUM_MESSAGES_COUNT, 1)];
+
     AbstractNioWorker(Executor executor) {
         super(executor);
     }
@@ -236,7 +253,11 @@ abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
                         }
                         future = evt.getFuture();
 
-                        channel.currentWriteBuffer = buf = sendBufferPool.acquire(channel, evt.getMessage());
+                        if (gatheringWrites && ch instanceof GatheringByteChannel && isGatherable(writeBuffer.peek())) {
+                            channel.currentWriteBuffer = buf = gather(channel, evt, writeBuffer);
+                        } else {
+                            channel.currentWriteBuffer = buf = sendBufferPool.acquire(channel, evt.getMessage());
+                        }
                     } else {
                         future = evt.getFuture();
                         buf = channel.currentWriteBuffer;
@@ -254,6 +275,11 @@ abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
                         }
                     }
 
+                    if (buf instanceof GatheringMessageSendBuffer) {
+                        // Complete the futures of all fully written messages, even if not finished
+                        ((GatheringMessageSendBuffer) buf).setSuccess();
+                    }
+
                     if (buf.finished()) {
                         // Successful write - proceed to the next message.
                         buf.release();
@@ -262,14 +288,16 @@ abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
                         // Mark the event object for garbage collection.
                         //noinspection UnusedAssignment
                         evt = null;
+                        if (!(buf instanceof GatheringMessageSendBuffer)) {
+                            future.setSuccess();
+                        }
                         buf = null;
-                        future.setSuccess();
                     } else {
                         // Not written fully - perhaps the kernel buffer is full.
                         addOpWrite = true;
                         channel.writeSuspended = true;
 
-                        if (localWrittenBytes > 0) {
+                        if (localWrittenBytes > 0 && !(buf instanceof GatheringMessageSendBuffer)) {
                             // Notify progress listeners if necessary.
                             future.setProgress(
                                     localWrittenBytes,
@@ -280,6 +308,11 @@ abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
                 } catch (AsynchronousCloseException e) {
                     // Doesn't need a user attention - ignore.
                 } catch (Throwable t) {
+                    if (buf instanceof GatheringMessageSendBuffer) {
+                        ((GatheringMessageSendBuffer) buf).setFailure(t);
+                        // futures of coalesced messages already failed
+                        future = null;
+                    }
                     if (buf != null) {
                         buf.release();
                     }
@@ -331,6 +364,53 @@ abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
         }
     }
 
+    private static boolean isGatherable(MessageEvent evt) {
+        return evt != null && evt.getMessage() instanceof ChannelBuffer;
+    }
+
+    // coalesce the first message with following queued messages, bounded by message count and bytes
+    private SendBuffer gather(AbstractNioChannel<?> channel, MessageEvent first, Queue<MessageEvent> writeBuffer) {
+        final MessageEvent[] events = gatheringEvents;
+        final ByteBuffer[] buffers = gatheringBuffers;
+
+        Object message = first.getMessage();
+        if (!(message instanceof ChannelBuffer)) {
+            return sendBufferPool.acquire(channel, message);
+        }
+
+        ChannelBuffer channelBuf = (ChannelBuffer) message;
+        int count = 0;
+        long bytes = channelBuf.readableBytes();
+        events[count] = first;
+        buffers[count++] = channelBuf.toByteBuffer();
+
+        while (count < events.length) {
+            MessageEvent next = writeBuffer.peek();
+            if (!isGatherable(next)) {
+                break;
+            }
+            channelBuf = (ChannelBuffer) next.getMessage();
+            int readableBytes = channelBuf.readableBytes();
+            if (bytes + readableBytes > GATHERING_WRITE_MAXIMUM_BYTES_COUNT) {
+                break;
+            }
+            bytes += readableBytes;
+            events[count] = writeBuffer.poll();
+            buffers[count++] = channelBuf.toByteBuffer();
+        }
+
+        SendBuffer buf;
+        if (count == 1) {
+            buf = sendBufferPool.acquire(channel, message);
+        } else {
+            buf = new GatheringMessageSendBuffer(Arrays.copyOf(events, count), Arrays.copyOf(buffers, count));
+        }
+
+        Arrays.fill(events, 0, count, null);
+        Arrays.fill(buffers, 0, count, null);
+        return buf;
+    }
+
     static boolean isIoThread(AbstractNioChannel<?> channel) {
         AbstractNioSelector worker = channel.worker;
         return worker != null && Thread.currentThread() == worker.thread;
@@ -436,15 +516,20 @@ abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
                 }
 
                 ChannelFuture future = evt.getFuture();
-                if (channel.currentWriteBuffer != null) {
-                    channel.currentWriteBuffer.release();
+                SendBuffer buf = channel.currentWriteBuffer;
+                if (buf != null) {
+                    buf.release();
                     channel.currentWriteBuffer = null;
                 }
                 channel.currentWriteEvent = null;
                 // Mark the event object for garbage collection.
                 //noinspection UnusedAssignment
                 evt = null;
-                future.setFailure(cause);
+                if (buf instanceof GatheringMessageSendBuffer) {
+                    ((GatheringMessageSendBuffer) buf).setFailure(cause);
+                } else {
+                    future.setFailure(cause);
+                }
                 fireExceptionCaught = true;
             }
 
@@ -62,11 +62,13 @@ import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ReceiveBufferSizePredictor;
 import org.jboss.netty.util.ThreadNameDeterminer;
 
+import org.kaazing.mina.netty.buffer.PooledChannelBuffer;
 import org.kaazing.mina.netty.config.InternalSystemProperty;
 
 public class NioWorker extends AbstractNioWorker {
 
     private final SocketReceiveBufferAllocator recvBufferPool = new SocketReceiveBufferAllocator();
+    private final SocketReceiveBufferPool pooledRecvBuffers = new SocketReceiveBufferPool(this);
 
     // Avoid static variables to facilitate unit tests
     private final long MAXIMUM_PROCESS_TASKS_TIME_MILLIS
@@ -78,6 +80,9 @@ public class NioWorker extends AbstractNioWorker {
     private final long QUICK_SELECT_TIMEOUT =
             InternalSystemProperty.QUICK_SELECT_TIMEOUT.getLongProperty(System.getProperties());
 
+    private final boolean POOLED_READ_BUFFERS =
+            Boolean.parseBoolean(InternalSystemProperty.POOLED_READ_BUFFERS.getProperty(System.getProperties()));
+
     {
         // Always report when any of the tuning features are active, irrespective of log4j configuration
         if (MAXIMUM_PROCESS_TASKS_TIME_MILLIS > 0) {
@@ -108,6 +113,10 @@ public class NioWorker extends AbstractNioWorker {
 
     @Override
     protected boolean read(SelectionKey k) {
+        if (POOLED_READ_BUFFERS) {
+            return readPooled(k);
+        }
+
         final SocketChannel ch = (SocketChannel) k.channel();
         final NioSocketChannel channel = (NioSocketChannel) k.attachment();
 
@@ -158,6 +167,63 @@ public class NioWorker extends AbstractNioWorker {
         return true;
     }
 
+    // reads into a pooled buffer handed upstream without copying, returned to the pool after messageReceived
+    private boolean readPooled(SelectionKey k) {
+        final SocketChannel ch = (SocketChannel) k.channel();
+        final NioSocketChannel channel = (NioSocketChannel) k.attachment();
+
+        final ReceiveBufferSizePredictor predictor =
+            channel.getConfig().getReceiveBufferSizePredictor();
+        final int predictedRecvBufSize = predictor.nextReceiveBufferSize();
+        final ChannelBufferFactory bufferFactory = channel.getConfig().getBufferFactory();
+
+        int ret = 0;
+        int readBytes = 0;
+        boolean failure = true;
+
+        PooledChannelBuffer buffer = pooledRecvBuffers.acquire(predictedRecvBufSize);
+        ByteBuffer bb = buffer.acquire();
+        bb.limit(predictedRecvBufSize);
+        bb.order(bufferFactory.getDefaultOrder());
+        try {
+            while ((ret = ch.read(bb)) > 0) {
+                readBytes += ret;
+                if (!bb.hasRemaining()) {
+                    break;
+                }
+            }
+            failure = false;
+        } catch (ClosedChannelException e) {
+            // Can happen, and does not need a user attention.
+        } catch (Throwable t) {
+            fireExceptionCaught(channel, t);
+        }
+
+        try {
+            if (readBytes > 0) {
+                bb.flip();
+                buffer.wrap(bb);
+
+                // Update the predictor.
+                predictor.previousReceiveBufferSize(readBytes);
+
+                // Fire the event.
+                fireMessageReceived(channel, buffer);
+            }
+        }
+        finally {
+            buffer.release();
+        }
+
+        if (ret < 0 || failure) {
+            k.cancel(); // Some JDK implementations run into an infinite loop without this.
+            close(channel, succeededFuture(channel));
+            return false;
+        }
+
+        return true;
+    }
+
     @Override
     protected boolean scheduleWriteIfNecessary(final AbstractNioChannel<?> channel) {
         final Thread currentThread = Thread.currentThread();
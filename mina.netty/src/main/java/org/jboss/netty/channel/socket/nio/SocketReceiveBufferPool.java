@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jboss.netty.channel.socket.nio;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+import org.kaazing.mina.netty.buffer.PooledChannelBuffer;
+
+/**
+ * Pool of direct read buffers owned by a single {@link NioWorker}, handed upstream without copying.
+ */
+final class SocketReceiveBufferPool implements PooledChannelBuffer.Pool {
+
+    private static final int MINIMUM_CAPACITY = 1024;
+    private static final int DEFAULT_MAXIMUM_POOLED = 64;
+
+    private final AbstractNioSelector worker;
+    private final ArrayDeque<PooledChannelBuffer> buffers;
+    private final int maximumPooled;
+
+    SocketReceiveBufferPool(AbstractNioSelector worker) {
+        this(worker, DEFAULT_MAXIMUM_POOLED);
+    }
+
+    SocketReceiveBufferPool(AbstractNioSelector worker, int maximumPooled) {
+        this.worker = worker;
+        this.buffers = new ArrayDeque<PooledChannelBuffer>(maximumPooled);
+        this.maximumPooled = maximumPooled;
+    }
+
+    PooledChannelBuffer acquire(int size) {
+        PooledChannelBuffer buffer = buffers.pollLast();
+        if (buffer == null || buffer.pooledBuf().capacity() < size) {
+            // smaller pooled buffers are left to the GC as the predicted receive size grows
+            buffer = new PooledChannelBuffer(this, ByteBuffer.allocateDirect(normalizeCapacity(size)));
+        }
+        return buffer;
+    }
+
+    @Override
+    public void release(PooledChannelBuffer buffer) {
+        // note: buffers retained upstream and released on another thread are left to the GC
+        if (worker.isIoThread() && buffers.size() < maximumPooled) {
+            buffers.offerLast(buffer);
+        }
+    }
+
+    int size() {
+        return buffers.size();
+    }
+
+    private static int normalizeCapacity(int capacity) {
+        int normalizedCapacity = MINIMUM_CAPACITY;
+        while (normalizedCapacity < capacity) {
+            normalizedCapacity <<= 1;
+        }
+        return normalizedCapacity;
+    }
+}
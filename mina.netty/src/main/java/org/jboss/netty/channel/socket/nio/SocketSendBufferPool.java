@@ -46,8 +46,10 @@ import java.nio.channels.WritableByteChannel;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.CompositeChannelBuffer;
+import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.DefaultFileRegion;
 import org.jboss.netty.channel.FileRegion;
+import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.util.ExternalResourceReleasable;
 import org.jboss.netty.util.internal.ByteBufferUtil;
 
@@ -441,6 +443,50 @@ final class SocketSendBufferPool implements ExternalResourceReleasable {
         }
     }
 
+    /**
+     * Gathering send buffer for messages coalesced from the channel write queue, completing the future
+     * of each message as soon as all of its bytes have been written.
+     */
+    static final class GatheringMessageSendBuffer extends GatheringSendBuffer {
+
+        private final MessageEvent[] events;
+        private final long[] endOffsets;
+        private int completed;
+
+        GatheringMessageSendBuffer(MessageEvent[] events, ByteBuffer[] buffers) {
+            super(buffers);
+            this.events = events;
+            this.endOffsets = new long[events.length];
+            long endOffset = 0;
+            for (int i = 0; i < buffers.length; i++) {
+                endOffset += buffers[i].remaining();
+                endOffsets[i] = endOffset;
+            }
+        }
+
+        @Override
+        public boolean finished() {
+            return writtenBytes() >= totalBytes();
+        }
+
+        void setSuccess() {
+            long written = writtenBytes();
+            while (completed < events.length && endOffsets[completed] <= written) {
+                ChannelFuture future = events[completed].getFuture();
+                events[completed++] = null;
+                future.setSuccess();
+            }
+        }
+
+        void setFailure(Throwable cause) {
+            while (completed < events.length) {
+                ChannelFuture future = events[completed].getFuture();
+                events[completed++] = null;
+                future.setFailure(cause);
+            }
+        }
+    }
+
     final class FileSendBuffer implements SendBuffer {
 
         private final FileRegion file;
@@ -67,6 +67,7 @@ public abstract class ChannelIoAcceptor<C extends IoSessionConfigEx, F extends C
     private final IoAcceptorChannelHandler parentHandler;
     private final ChannelGroup channelGroup;
     private final IoProcessorEx<ChannelIoSession<? extends ChannelConfig>> processor = new ChannelIoProcessor();
+    private volatile ChannelIoBufferAllocator bufferAllocator = ChannelIoSession.DEFAULT_BUFFER_ALLOCATOR;
     private final List<IoSessionIdleTracker> sessionIdleTrackers
         = Collections.synchronizedList(new ArrayList<IoSessionIdleTracker>());
     private final ThreadLocal<IoSessionIdleTracker> currentSessionIdleTracker
@@ -115,6 +116,18 @@ public abstract class ChannelIoAcceptor<C extends IoSessionConfigEx, F extends C
         parentHandler.setPipelineFactory(pipelineFactory);
     }
 
+    @Override
+    public ChannelIoBufferAllocator getBufferAllocator() {
+        return bufferAllocator;
+    }
+
+    public void setBufferAllocator(ChannelIoBufferAllocator bufferAllocator) {
+        if (bufferAllocator == null) {
+            throw new NullPointerException("bufferAllocator");
+        }
+        this.bufferAllocator = bufferAllocator;
+    }
+
     @Override
     public IoSessionIdleTracker getSessionIdleTracker() {
         return currentSessionIdleTracker.get();
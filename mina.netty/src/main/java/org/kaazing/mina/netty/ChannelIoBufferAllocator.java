@@ -21,42 +21,170 @@
 
 package org.kaazing.mina.netty;
 
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.kaazing.mina.core.buffer.AbstractIoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.AbstractIoBufferEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
 import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
+import org.kaazing.mina.netty.buffer.PooledChannelBuffer;
 import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
 
+/**
+ * Allocates the buffers used by {@link ChannelIoSession}s.
+ *
+ * When constructed with a {@link ChannelIoBufferPool}, buffers obtained via {@link #allocate(int, int)} and then
+ * passed directly to {@link #wrap(ByteBuffer, int)} are reference counted and returned to the pool once the last
+ * reference is released by {@link IoBufferEx#free()}.  Derived buffers, such as duplicates, slices and shared or
+ * unshared conversions, hold their own reference to the pooled memory and must be freed as well.
+ *
+ * Writing an unshared pooled buffer to a session transfers its reference to the session, so the buffer is released
+ * when the write completes and must not be written again.  Writing a shared pooled buffer retains it for the
+ * duration of the write only, so the caller remains responsible for freeing it once it has been written to every
+ * session, typically straight after the writes have been requested.
+ *
+ * Pooled read buffers are wrapped without copying by {@link IoSessionChannelHandler}, which holds a reference for the
+ * duration of messageReceived.  Derived buffers, writes and buffers re-wrapped from the received NIO buffer during
+ * messageReceived hold their own reference, so the read buffer is only returned to its worker once none remain.
+ */
 public final class ChannelIoBufferAllocator extends AbstractIoBufferAllocatorEx<ChannelIoBuffer> {
 
+    // buffer being delivered by messageReceived on the current thread, if wrapping a pooled read buffer
+    private static final ThreadLocal<ChannelIoBuffer> RECEIVED = new VicariousThreadLocal<ChannelIoBuffer>();
+
+    private final ChannelIoBufferPool pool;
+
+    public ChannelIoBufferAllocator() {
+        this(null);
+    }
+
+    public ChannelIoBufferAllocator(ChannelIoBufferPool pool) {
+        this.pool = pool;
+    }
+
+    public ChannelIoBufferPool getPool() {
+        return pool;
+    }
+
     @Override
     public ByteBuffer allocate(int capacity, int flags) {
-        return allocateNioBuffer0(capacity, flags);
+        return (pool != null) ? pool.acquire(capacity, flags) : allocateNioBuffer0(capacity, flags);
     }
 
     @Override
     public ChannelIoBuffer wrap(ByteBuffer nioBuffer, int flags) {
         boolean shared = (flags & IoBufferEx.FLAG_SHARED) != IoBufferEx.FLAG_NONE;
-        return shared ? new ChannelIoSharedBuffer(nioBuffer) : new ChannelIoUnsharedBuffer(nioBuffer);
+        ChannelIoBuffer received = RECEIVED.get();
+        if (received != null && received.buf() == nioBuffer) {
+            // re-wrapping the received buffer, for example to write it to another session
+            return shared ? new ChannelIoSharedBuffer(nioBuffer, received)
+                          : new ChannelIoUnsharedBuffer(nioBuffer, received);
+        }
+        ChannelIoBufferPool pool = (this.pool != null && this.pool.claim(nioBuffer)) ? this.pool : null;
+        return shared ? new ChannelIoSharedBuffer(nioBuffer, pool) : new ChannelIoUnsharedBuffer(nioBuffer, pool);
+    }
+
+    /**
+     * Wraps the readable bytes of a pooled read buffer without copying, retaining it until the returned buffer
+     * and every buffer derived from it have been freed.
+     */
+    static ChannelIoBuffer wrap(PooledChannelBuffer buf) {
+        return new ChannelIoUnsharedBuffer(buf.toByteBuffer().slice(), buf.retain());
+    }
+
+    /**
+     * Sets the buffer being delivered by messageReceived on the current thread, returning the previous one.
+     */
+    static ChannelIoBuffer setReceived(ChannelIoBuffer received) {
+        ChannelIoBuffer previous = RECEIVED.get();
+        RECEIVED.set(received);
+        return previous;
     }
 
     abstract static class ChannelIoBuffer extends AbstractIoBufferEx {
-        protected ChannelIoBuffer(int capacity) {
-            super(capacity);
+        private static final AtomicIntegerFieldUpdater<ChannelIoBuffer> REFERENCES =
+                newUpdater(ChannelIoBuffer.class, "references");
+
+        private final ChannelIoBufferPool pool;
+        private final ByteBuffer pooledBuf;
+        // pooled read buffer wrapped by this buffer, owned by the reading session during messageReceived
+        private final PooledChannelBuffer pooledRead;
+        // buffer counting the references to the pooled memory, null if not pooled
+        private final ChannelIoBuffer root;
+        private volatile int references;
+
+        protected ChannelIoBuffer(ByteBuffer buf, ChannelIoBufferPool pool) {
+            super(buf.capacity());
+            this.pool = pool;
+            this.pooledBuf = (pool != null) ? buf : null;
+            this.pooledRead = null;
+            this.root = (pool != null) ? this : null;
+            this.references = 1;
+        }
+
+        protected ChannelIoBuffer(ByteBuffer buf, PooledChannelBuffer pooledRead) {
+            super(buf.capacity());
+            this.pool = null;
+            this.pooledBuf = null;
+            this.pooledRead = pooledRead;
+            this.root = this;
+            this.references = 1;
+        }
+
+        protected ChannelIoBuffer(ByteBuffer buf, ChannelIoBuffer source) {
+            super(buf.capacity());
+            this.pool = null;
+            this.pooledBuf = null;
+            this.pooledRead = null;
+            // shared and unshared conversions keep the pooled memory of their source referenced until they are freed
+            this.root = source.root;
+            retain();
         }
 
         protected ChannelIoBuffer(ChannelIoBuffer parent) {
             super(parent);
+            this.pool = null;
+            this.pooledBuf = null;
+            this.pooledRead = null;
+            // derived buffers keep the pooled memory of their parent referenced until they are freed
+            this.root = parent.root;
+            retain();
         }
 
         public abstract void buf(ByteBuffer newBuf);
 
+        final boolean isPooled() {
+            return root != null;
+        }
+
+        /**
+         * Returns true if a write must retain this buffer until it completes, rather than taking over its reference,
+         * because the buffer is shared or still owned by the session that received it.
+         */
+        final boolean retainOnWrite() {
+            return isShared() || pooledRead != null;
+        }
+
+        final void retain() {
+            if (root != null) {
+                REFERENCES.incrementAndGet(root);
+            }
+        }
+
         @Override
         public void free() {
-            // Do nothing
+            if (root != null && REFERENCES.decrementAndGet(root) == 0) {
+                if (root.pooledRead != null) {
+                    root.pooledRead.release();
+                }
+                else {
+                    root.pool.release(root.pooledBuf);
+                }
+            }
         }
     }
 
@@ -64,8 +192,19 @@ public final class ChannelIoBufferAllocator extends AbstractIoBufferAllocatorEx<
     static final class ChannelIoSharedBuffer extends ChannelIoBuffer {
         private final ThreadLocal<ByteBuffer> bufRef;
 
-        private ChannelIoSharedBuffer(final ByteBuffer buf) {
-            super(buf.capacity());
+        private ChannelIoSharedBuffer(final ByteBuffer buf, ChannelIoBufferPool pool) {
+            super(buf, pool);
+
+            this.bufRef = new VicariousThreadLocal<ByteBuffer>() {
+                @Override
+                protected ByteBuffer initialValue() {
+                    return buf.duplicate();
+                }
+            };
+        }
+
+        private ChannelIoSharedBuffer(final ByteBuffer buf, ChannelIoBuffer source) {
+            super(buf, source);
 
             this.bufRef = new VicariousThreadLocal<ByteBuffer>() {
                 @Override
@@ -123,7 +262,7 @@ public final class ChannelIoBufferAllocator extends AbstractIoBufferAllocatorEx<
 
         @Override
         protected ChannelIoBuffer asUnsharedBuffer0() {
-            return new ChannelIoUnsharedBuffer(buf());
+            return new ChannelIoUnsharedBuffer(buf(), this);
         }
 
         @Override
@@ -146,8 +285,20 @@ public final class ChannelIoBufferAllocator extends AbstractIoBufferAllocatorEx<
     static final class ChannelIoUnsharedBuffer extends ChannelIoBuffer {
         private ByteBuffer buf;
 
-        private ChannelIoUnsharedBuffer(ByteBuffer buf) {
-            super(buf.capacity());
+        private ChannelIoUnsharedBuffer(ByteBuffer buf, ChannelIoBufferPool pool) {
+            super(buf, pool);
+            this.buf = buf;
+            buf.order(ByteOrder.BIG_ENDIAN);
+        }
+
+        private ChannelIoUnsharedBuffer(ByteBuffer buf, ChannelIoBuffer source) {
+            super(buf, source);
+            this.buf = buf;
+            buf.order(ByteOrder.BIG_ENDIAN);
+        }
+
+        private ChannelIoUnsharedBuffer(ByteBuffer buf, PooledChannelBuffer pooledRead) {
+            super(buf, pooledRead);
             this.buf = buf;
             buf.order(ByteOrder.BIG_ENDIAN);
         }
@@ -191,7 +342,7 @@ public final class ChannelIoBufferAllocator extends AbstractIoBufferAllocatorEx<
 
         @Override
         protected ChannelIoSharedBuffer asSharedBuffer0() {
-            return new ChannelIoSharedBuffer(buf());
+            return new ChannelIoSharedBuffer(buf(), this);
         }
 
         @Override
@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty;
+
+import static java.lang.Integer.numberOfLeadingZeros;
+import static java.lang.String.format;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
+
+/**
+ * Pool of NIO buffers used by {@link ChannelIoBufferAllocator} to recycle the buffers allocated on the I/O hot path.
+ *
+ * Buffers are grouped in power-of-two size classes and cached in per-thread arenas, so that allocation and release
+ * from an I/O worker thread never contend with other workers.  Requests larger than the maximum size class are
+ * not pooled and always counted as a miss.  Arenas of threads that have exited are retired, leaving their buffers
+ * to the GC while keeping their hit/miss counts.
+ *
+ * Pooled buffers have the capacity of their size class, with the limit set to the requested capacity.
+ * Callers must only release buffers they have {@link #claim(ByteBuffer) claimed}.
+ */
+public final class ChannelIoBufferPool {
+
+    public static final int DEFAULT_MINIMUM_CAPACITY = 64;
+    public static final int DEFAULT_MAXIMUM_CAPACITY = 64 * 1024;
+    public static final int DEFAULT_MAXIMUM_POOLED_PER_CLASS = 256;
+
+    private final boolean direct;
+    private final int minimumShift;
+    private final int maximumCapacity;
+    private final int maximumPooledPerClass;
+    private final List<Arena> arenas = new CopyOnWriteArrayList<Arena>();
+    private final AtomicLong retiredHits = new AtomicLong();
+    private final AtomicLong retiredMisses = new AtomicLong();
+    private final ThreadLocal<Arena> currentArena = new VicariousThreadLocal<Arena>() {
+        @Override
+        protected Arena initialValue() {
+            retireArenas();
+            Arena arena = new Arena(Thread.currentThread(), sizeClass(maximumCapacity) + 1);
+            arenas.add(arena);
+            return arena;
+        }
+    };
+
+    public ChannelIoBufferPool(boolean direct) {
+        this(direct, DEFAULT_MINIMUM_CAPACITY, DEFAULT_MAXIMUM_CAPACITY, DEFAULT_MAXIMUM_POOLED_PER_CLASS);
+    }
+
+    public ChannelIoBufferPool(boolean direct, int minimumCapacity, int maximumCapacity, int maximumPooledPerClass) {
+        if (Integer.bitCount(minimumCapacity) != 1 || Integer.bitCount(maximumCapacity) != 1) {
+            throw new IllegalArgumentException(format("Size class capacities must be powers of two: %d, %d",
+                    minimumCapacity, maximumCapacity));
+        }
+        if (minimumCapacity > maximumCapacity) {
+            throw new IllegalArgumentException(format("Minimum capacity %d exceeds maximum capacity %d",
+                    minimumCapacity, maximumCapacity));
+        }
+        if (maximumPooledPerClass < 0) {
+            throw new IllegalArgumentException("maximumPooledPerClass: " + maximumPooledPerClass);
+        }
+        this.direct = direct;
+        this.minimumShift = Integer.numberOfTrailingZeros(minimumCapacity);
+        this.maximumCapacity = maximumCapacity;
+        this.maximumPooledPerClass = maximumPooledPerClass;
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Acquires a buffer of at least the requested capacity, limited to that capacity.
+     * Direct buffers are used if either this pool is direct or {@link IoBufferEx#FLAG_DIRECT} is requested.
+     */
+    public ByteBuffer acquire(int capacity, int flags) {
+        boolean direct = this.direct || (flags & IoBufferEx.FLAG_DIRECT) != IoBufferEx.FLAG_NONE;
+        Arena arena = currentArena.get();
+
+        if (capacity > maximumCapacity) {
+            arena.misses.lazySet(arena.misses.get() + 1);
+            return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        }
+
+        int sizeClass = sizeClass(capacity);
+        ArrayDeque<ByteBuffer> buffers = direct ? arena.direct[sizeClass] : arena.heap[sizeClass];
+        ByteBuffer buf = buffers.pollLast();
+        if (buf == null) {
+            arena.misses.lazySet(arena.misses.get() + 1);
+            int classCapacity = 1 << (sizeClass + minimumShift);
+            buf = direct ? ByteBuffer.allocateDirect(classCapacity) : ByteBuffer.allocate(classCapacity);
+        }
+        else {
+            arena.hits.lazySet(arena.hits.get() + 1);
+        }
+
+        buf.clear();
+        buf.limit(capacity);
+        arena.lastAcquired = buf;
+        return buf;
+    }
+
+    /**
+     * Claims ownership of a buffer just returned by {@link #acquire(int, int)} on the current thread, so that it can
+     * later be {@link #release(ByteBuffer) released}.  Buffers from other sources are never claimed, which prevents
+     * wrapped application byte arrays from leaking into the pool.
+     */
+    public boolean claim(ByteBuffer buf) {
+        Arena arena = currentArena.get();
+        boolean claimed = arena.lastAcquired == buf;
+        arena.lastAcquired = null;
+        return claimed;
+    }
+
+    /**
+     * Returns a buffer previously obtained from {@link #acquire(int, int)} to the arena of the current thread.
+     * Buffers that do not match a size class, or that would exceed the per-class limit, are left to the GC.
+     */
+    public void release(ByteBuffer buf) {
+        int capacity = buf.capacity();
+        if (capacity > maximumCapacity || buf.isReadOnly()) {
+            return;
+        }
+
+        int sizeClass = sizeClass(capacity);
+        if ((1 << (sizeClass + minimumShift)) != capacity) {
+            return;
+        }
+
+        Arena arena = currentArena.get();
+        ArrayDeque<ByteBuffer> buffers = buf.isDirect() ? arena.direct[sizeClass] : arena.heap[sizeClass];
+        if (buffers.size() < maximumPooledPerClass) {
+            buffers.offerLast(buf);
+        }
+    }
+
+    public long getHitCount() {
+        retireArenas();
+        long hits = retiredHits.get();
+        for (Arena arena : arenas) {
+            hits += arena.hits.get();
+        }
+        return hits;
+    }
+
+    public long getMissCount() {
+        retireArenas();
+        long misses = retiredMisses.get();
+        for (Arena arena : arenas) {
+            misses += arena.misses.get();
+        }
+        return misses;
+    }
+
+    int getArenaCount() {
+        return arenas.size();
+    }
+
+    // drops the arenas of exited threads, so their pooled buffers can be garbage collected
+    private void retireArenas() {
+        for (Arena arena : arenas) {
+            Thread owner = arena.owner.get();
+            if ((owner == null || !owner.isAlive()) && arenas.remove(arena)) {
+                retiredHits.addAndGet(arena.hits.get());
+                retiredMisses.addAndGet(arena.misses.get());
+            }
+        }
+    }
+
+    private int sizeClass(int capacity) {
+        if (capacity <= (1 << minimumShift)) {
+            return 0;
+        }
+        // round up to next power of two, relative to the minimum size class
+        return (32 - numberOfLeadingZeros(capacity - 1)) - minimumShift;
+    }
+
+    static final class Arena {
+        // single writer (owning thread), so lazySet avoids a full fence on the hot path
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final ArrayDeque<ByteBuffer>[] heap;
+        final ArrayDeque<ByteBuffer>[] direct;
+        final WeakReference<Thread> owner;
+        ByteBuffer lastAcquired;
+
+        @SuppressWarnings("unchecked")
+        Arena(Thread owner, int sizeClasses) {
+            this.owner = new WeakReference<Thread>(owner);
+            heap = new ArrayDeque[sizeClasses];
+            direct = new ArrayDeque[sizeClasses];
+            for (int i = 0; i < sizeClasses; i++) {
+                heap[i] = new ArrayDeque<ByteBuffer>();
+                direct[i] = new ArrayDeque<ByteBuffer>();
+            }
+        }
+    }
+}
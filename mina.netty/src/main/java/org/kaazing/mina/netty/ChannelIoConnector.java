@@ -58,6 +58,7 @@ public abstract
     private ChannelPipelineFactory pipelineFactory;
     private final ChannelGroup channelGroup;
     private final IoProcessorEx<ChannelIoSession<? extends ChannelConfig>> processor = new ChannelIoProcessor();
+    private volatile ChannelIoBufferAllocator bufferAllocator = ChannelIoSession.DEFAULT_BUFFER_ALLOCATOR;
     private final ClientBootstrapFactory bootstrapFactory;
     private final IoConnectorChannelHandlerFactory handlerFactory;
     private final List<IoSessionIdleTracker> sessionIdleTrackers
@@ -163,6 +164,18 @@ public abstract
         return connectFuture;
     }
 
+    @Override
+    public ChannelIoBufferAllocator getBufferAllocator() {
+        return bufferAllocator;
+    }
+
+    public void setBufferAllocator(ChannelIoBufferAllocator bufferAllocator) {
+        if (bufferAllocator == null) {
+            throw new NullPointerException("bufferAllocator");
+        }
+        this.bufferAllocator = bufferAllocator;
+    }
+
     @Override
     protected IoFuture dispose0() throws Exception {
         channelGroup.close().await();
@@ -235,7 +235,15 @@ final class ChannelIoProcessor extends AbstractIoProcessor<ChannelIoSession<? ex
                 if (message instanceof ChannelIoBuffer) {
                     ChannelIoBuffer channelIoBuf = (ChannelIoBuffer) message;
                     if (channelIoBuf.remaining() == 0) {
-                        filterChain.fireMessageSent(req);
+                        try {
+                            filterChain.fireMessageSent(req);
+                        }
+                        finally {
+                            // unshared buffer reference was handed over to this write, see ChannelIoBufferAllocator
+                            if (!channelIoBuf.retainOnWrite()) {
+                                channelIoBuf.free();
+                            }
+                        }
                     }
                     else {
                         // 1. detect shared buffer
@@ -244,7 +252,8 @@ final class ChannelIoProcessor extends AbstractIoProcessor<ChannelIoSession<? ex
                             ByteBuffer sharedBuf = channelIoBuf.buf();
                             int position = sharedBuf.position();
 
-                            // write shared buffer to channel
+                            // write shared buffer to channel, retaining pooled buffer until write completes
+                            channelIoBuf.retain();
                             DownstreamMessageEventEx writeRequest = writeRequestEx.get();
                             if (!writeRequest.isResetable()) {
                                 writeRequest = writeRequestEx.reset();
@@ -279,8 +288,12 @@ final class ChannelIoProcessor extends AbstractIoProcessor<ChannelIoSession<? ex
                         }
                         else {
                             // 1b. buffer is unshared
-                            // write unshared buffer to channel
+                            // write unshared buffer to channel (pooled buffer is released when write completes)
                             ByteBuffer unsharedBuf = channelIoBuf.buf();
+                            if (channelIoBuf.retainOnWrite()) {
+                                // received buffer is still owned by the reading session
+                                channelIoBuf.retain();
+                            }
 
                             DownstreamMessageEventEx writeRequest = writeRequestEx.get();
                             if (!writeRequest.isResetable()) {
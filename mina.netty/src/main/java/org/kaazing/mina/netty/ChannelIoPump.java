@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty;
+
+import static java.lang.System.currentTimeMillis;
+
+import org.apache.mina.core.session.IoSession;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelConfig;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.channel.WriteCompletionEvent;
+import org.jboss.netty.channel.socket.SocketChannel;
+
+import org.kaazing.mina.netty.buffer.PooledChannelBuffer;
+import org.kaazing.mina.netty.channel.DownstreamMessageEventEx;
+
+/**
+ * Moves bytes between the channels of two socket sessions sharing an I/O thread, bypassing their filter chains.
+ *
+ * Each buffer read from one channel is written as is to the other channel with a reusable write event, so
+ * nothing is allocated per message unless the write cannot complete immediately.  Reads from a channel are
+ * suspended while more than maximumPendingBytes are scheduled for write on the other channel, and resumed once
+ * at most half of them are.  All other events, including close and exceptions, still reach the sessions, and
+ * session read and write statistics are maintained so idle timeouts are unaffected.
+ */
+public final class ChannelIoPump {
+
+    private static final String PUMP_HANDLER = "mina-pump";
+
+    private ChannelIoPump() {
+    }
+
+    /**
+     * Returns true if the session is backed by a connected socket channel that can be pumped.
+     */
+    public static boolean isPumpable(IoSession session) {
+        if (!(session instanceof ChannelIoSession)) {
+            return false;
+        }
+        Channel channel = ((ChannelIoSession<?>) session).getChannel();
+        return channel instanceof SocketChannel && channel.isConnected();
+    }
+
+    /**
+     * Starts pumping bytes between two sessions, in both directions, until either is closed.  Must be called on
+     * the I/O thread of both sessions, once nothing remains in their write request queues.
+     *
+     * @return false if the sessions cannot be pumped, in which case neither session is changed
+     */
+    public static boolean start(IoSession session, IoSession otherSession, int maximumPendingBytes) {
+        if (!isPumpable(session) || !isPumpable(otherSession)) {
+            return false;
+        }
+
+        ChannelIoSession<? extends ChannelConfig> channelSession = (ChannelIoSession<?>) session;
+        ChannelIoSession<? extends ChannelConfig> otherChannelSession = (ChannelIoSession<?>) otherSession;
+        Thread ioThread = channelSession.getIoThread();
+        if (ioThread != Thread.currentThread() || otherChannelSession.getIoThread() != ioThread) {
+            return false;
+        }
+        if (!channelSession.getWriteRequestQueue().isEmpty(channelSession) ||
+                !otherChannelSession.getWriteRequestQueue().isEmpty(otherChannelSession)) {
+            return false;
+        }
+
+        PumpHandler handler = new PumpHandler(channelSession, otherChannelSession, maximumPendingBytes);
+        PumpHandler otherHandler = new PumpHandler(otherChannelSession, channelSession, maximumPendingBytes);
+        handler.reverse = otherHandler;
+        otherHandler.reverse = handler;
+
+        // first in the pipeline, ahead of the handler delivering events to the session
+        channelSession.getChannel().getPipeline().addFirst(PUMP_HANDLER, handler);
+        otherChannelSession.getChannel().getPipeline().addFirst(PUMP_HANDLER, otherHandler);
+        return true;
+    }
+
+    // Handles reads from the source channel, and write completions on the source channel for the reverse direction.
+    // Confined to the I/O thread shared by both channels.
+    private static final class PumpHandler extends SimpleChannelUpstreamHandler {
+        private final ChannelIoSession<? extends ChannelConfig> source;
+        private final ChannelIoSession<? extends ChannelConfig> target;
+        private final int maximumPendingBytes;
+        private final int thresholdPendingBytes;
+        private DownstreamMessageEventEx writeRequest;
+        private boolean readSuspended;
+        private PumpHandler reverse;
+
+        PumpHandler(ChannelIoSession<? extends ChannelConfig> source, ChannelIoSession<? extends ChannelConfig> target,
+                    int maximumPendingBytes) {
+            this.source = source;
+            this.target = target;
+            this.maximumPendingBytes = maximumPendingBytes;
+            this.thresholdPendingBytes = maximumPendingBytes / 2;
+            this.writeRequest = new DownstreamMessageEventEx();
+        }
+
+        @Override
+        public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+            Object message = e.getMessage();
+            if (!(message instanceof ChannelBuffer)) {
+                ctx.sendUpstream(e);
+                return;
+            }
+
+            ChannelBuffer buf = (ChannelBuffer) message;
+            int readableBytes = buf.readableBytes();
+            if (readableBytes == 0) {
+                return;
+            }
+
+            source.increaseReadBytes(readableBytes, currentTimeMillis());
+
+            // decremented as the bytes are written, see IoSessionChannelHandler.writeComplete
+            target.increaseScheduledWriteBytes(readableBytes);
+
+            DownstreamMessageEventEx writeRequest = this.writeRequest;
+            if (!writeRequest.isResetable()) {
+                // previous write still incomplete, leave its event on the target channel write queue
+                writeRequest = new DownstreamMessageEventEx();
+                this.writeRequest = writeRequest;
+            }
+            Channel targetChannel = target.getChannel();
+            writeRequest.reset(targetChannel, buf.toByteBuffer(), null, false);
+            targetChannel.getPipeline().sendDownstream(writeRequest);
+
+            ChannelFuture future = writeRequest.getFuture();
+            if (!future.isDone()) {
+                if (buf instanceof PooledChannelBuffer) {
+                    // pooled read buffer is recycled when messageReceived returns, so keep it until written
+                    future.addListener(new ReleaseBufferListener(((PooledChannelBuffer) buf).retain()));
+                }
+                if (!readSuspended && target.getScheduledWriteBytes() > maximumPendingBytes) {
+                    readSuspended = true;
+                    source.suspendRead();
+                }
+            }
+            buf.skipBytes(readableBytes);
+        }
+
+        @Override
+        public void writeComplete(ChannelHandlerContext ctx, WriteCompletionEvent e) throws Exception {
+            ctx.sendUpstream(e);
+
+            // bytes were written to the target of the reverse direction
+            reverse.resumeReadIfDrained();
+        }
+
+        private void resumeReadIfDrained() {
+            // Use <= to ensure we resume read in case where both values are 0
+            if (readSuspended && target.getScheduledWriteBytes() <= thresholdPendingBytes) {
+                readSuspended = false;
+                source.resumeRead();
+            }
+        }
+    }
+
+    private static final class ReleaseBufferListener implements ChannelFutureListener {
+        private final PooledChannelBuffer buf;
+
+        ReleaseBufferListener(PooledChannelBuffer buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture future) throws Exception {
+            buf.release();
+        }
+    }
+}
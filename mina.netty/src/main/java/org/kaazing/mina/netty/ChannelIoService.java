@@ -33,6 +33,8 @@ public interface ChannelIoService extends IoServiceEx {
 
     IoSessionIdleTracker getSessionIdleTracker();
 
+    ChannelIoBufferAllocator getBufferAllocator();
+
     void initializeSession(ChannelIoSession<?> session, IoFuture future, IoSessionInitializer<?> sessionInitializer);
 
 }
@@ -36,7 +36,7 @@ import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
 
 public class ChannelIoSession<C extends ChannelConfig> extends AbstractIoSessionEx {
 
-    private static final IoBufferAllocatorEx<ChannelIoBuffer> BUFFER_ALLOCATOR = new ChannelIoBufferAllocator();
+    static final ChannelIoBufferAllocator DEFAULT_BUFFER_ALLOCATOR = new ChannelIoBufferAllocator();
 
     private final ChannelIoService service;
     private final Channel channel;
@@ -44,6 +44,7 @@ public class ChannelIoSession<C extends ChannelConfig> extends AbstractIoSession
     private final IoHandler handler;
     private final IoProcessorEx<ChannelIoSession<? extends ChannelConfig>> processor;
     private final TransportMetadata transportMetadata;
+    private final IoBufferAllocatorEx<ChannelIoBuffer> bufferAllocator;
 
     public ChannelIoSession(ChannelIoService service, IoProcessorEx<ChannelIoSession<? extends ChannelConfig>> processor,
             Channel channel, ChannelIoSessionConfig<C> config, Thread ioThread, Executor ioExecutor) {
@@ -55,11 +56,12 @@ public class ChannelIoSession<C extends ChannelConfig> extends AbstractIoSession
         this.handler = service.getHandler();
         this.processor = processor;
         this.transportMetadata = service.getTransportMetadata();
+        this.bufferAllocator = service.getBufferAllocator();
     }
 
     @Override
     public IoBufferAllocatorEx<ChannelIoBuffer> getBufferAllocator() {
-        return BUFFER_ALLOCATOR;
+        return bufferAllocator;
     }
 
     public ChannelIoService getService() {
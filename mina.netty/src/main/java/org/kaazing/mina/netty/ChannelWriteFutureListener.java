@@ -27,6 +27,8 @@ import org.apache.mina.core.write.WriteRequest;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelFutureListener;
 
+import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
+
 final class ChannelWriteFutureListener implements ChannelFutureListener {
     private final IoFilterChain filterChain;
     private final WriteRequest request;
@@ -42,12 +44,22 @@ final class ChannelWriteFutureListener implements ChannelFutureListener {
     }
 
     public static void operationComplete(ChannelFuture future, IoFilterChain filterChain, WriteRequest request) {
-        if (future.isSuccess()) {
-//            filterChain.fireMessageSent(request);
-            setFutureWritten(filterChain, request.getFuture());
+        // captured first, as a shareable write request may be reused by a write from a future listener
+        Object message = request.getMessage();
+        try {
+            if (future.isSuccess()) {
+//                filterChain.fireMessageSent(request);
+                setFutureWritten(filterChain, request.getFuture());
+            }
+            else {
+                filterChain.fireExceptionCaught(future.getCause());
+            }
         }
-        else {
-            filterChain.fireExceptionCaught(future.getCause());
+        finally {
+            // release pooled buffer once write future listeners are done with it, see ChannelIoBufferAllocator
+            if (message instanceof ChannelIoBuffer) {
+                ((ChannelIoBuffer) message).free();
+            }
         }
     }
 
@@ -37,6 +37,8 @@ import org.jboss.netty.channel.SimpleChannelHandler;
 import org.jboss.netty.channel.WriteCompletionEvent;
 
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
+import org.kaazing.mina.netty.buffer.PooledChannelBuffer;
 
 
 public class IoSessionChannelHandler extends SimpleChannelHandler {
@@ -84,6 +86,11 @@ public class IoSessionChannelHandler extends SimpleChannelHandler {
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e)
             throws Exception {
         Object message = e.getMessage();
+        if (message instanceof PooledChannelBuffer) {
+            messageReceived((PooledChannelBuffer) message);
+            return;
+        }
+
         if (message instanceof ChannelBuffer) {
             ChannelBuffer buf = (ChannelBuffer) message;
             // note: read as unshared buffer
@@ -97,6 +104,24 @@ public class IoSessionChannelHandler extends SimpleChannelHandler {
         filterChain.fireMessageReceived(message);
     }
 
+    private void messageReceived(PooledChannelBuffer buf) {
+        // note: wraps the pooled read buffer without copying, holding a reference until the filter chain is done
+        //       with it, buffers kept beyond messageReceived retain it themselves, see ChannelIoBufferAllocator
+        ChannelIoBuffer received = ChannelIoBufferAllocator.wrap(buf);
+        buf.skipBytes(buf.readableBytes());
+
+        ChannelIoBuffer previous = ChannelIoBufferAllocator.setReceived(received);
+        try {
+            // filter chain can change if session is re-aligned
+            IoFilterChain filterChain = session.getFilterChain();
+            filterChain.fireMessageReceived(received);
+        }
+        finally {
+            ChannelIoBufferAllocator.setReceived(previous);
+            received.free();
+        }
+    }
+
     @Override
     public void writeComplete(ChannelHandlerContext ctx, WriteCompletionEvent e) throws Exception {
         int writtenBytes = (int) e.getWrittenAmount();
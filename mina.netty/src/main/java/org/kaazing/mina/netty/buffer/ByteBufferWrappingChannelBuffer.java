@@ -42,7 +42,7 @@ import org.jboss.netty.buffer.HeapChannelBufferFactory;
 /**
  * A NIO {@link ByteBuffer} based buffer.
  */
-public final class ByteBufferWrappingChannelBuffer extends AbstractChannelBuffer {
+public class ByteBufferWrappingChannelBuffer extends AbstractChannelBuffer {
 
     private ByteBuffer buffer;
     private ByteOrder order;
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty.buffer;
+
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A reference counted {@link ByteBufferWrappingChannelBuffer} over a pooled NIO buffer.
+ *
+ * The buffer is returned to its pool when the last reference is released.  Consumers that need the contents
+ * beyond the scope in which the buffer was handed to them must either {@link #retain()} it, and later
+ * {@link #release()} it, or copy the contents.
+ */
+public final class PooledChannelBuffer extends ByteBufferWrappingChannelBuffer {
+
+    public interface Pool {
+        void release(PooledChannelBuffer buffer);
+    }
+
+    private static final AtomicIntegerFieldUpdater<PooledChannelBuffer> REFERENCES =
+            newUpdater(PooledChannelBuffer.class, "references");
+
+    private final Pool pool;
+    private final ByteBuffer pooledBuf;
+    private volatile int references;
+
+    public PooledChannelBuffer(Pool pool, ByteBuffer pooledBuf) {
+        if (pool == null) {
+            throw new NullPointerException("pool");
+        }
+        this.pool = pool;
+        this.pooledBuf = pooledBuf;
+    }
+
+    /**
+     * Returns the pooled NIO buffer, cleared and with a single reference held by the caller.
+     */
+    public ByteBuffer acquire() {
+        references = 1;
+        pooledBuf.clear();
+        return pooledBuf;
+    }
+
+    public ByteBuffer pooledBuf() {
+        return pooledBuf;
+    }
+
+    public PooledChannelBuffer retain() {
+        REFERENCES.incrementAndGet(this);
+        return this;
+    }
+
+    public boolean release() {
+        int newReferences = REFERENCES.decrementAndGet(this);
+        if (newReferences == 0) {
+            pool.release(this);
+            return true;
+        }
+        if (newReferences < 0) {
+            throw new IllegalStateException("Pooled buffer released too many times");
+        }
+        return false;
+    }
+
+    public int references() {
+        return references;
+    }
+}
@@ -37,7 +37,21 @@ public enum InternalSystemProperty {
     // The value used should be large enough to guarantee we do get socket readable/writable notification from
     // the kernel (selectNow, done if the value is 0, does not always seem to achieve this) but small enough
     // not to waste too much time if there are no ready ops.
-    QUICK_SELECT_TIMEOUT("org.kaazing.netty.QUICK_SELECT_TIMEOUT", "0"); // use selectNow by default
+    QUICK_SELECT_TIMEOUT("org.kaazing.netty.QUICK_SELECT_TIMEOUT", "0"), // use selectNow by default
+
+    // Maximum number of queued messages coalesced into a single gathering write by the NIO worker.
+    // Value one means always write messages individually.
+    GATHERING_WRITE_MAXIMUM_MESSAGES("org.kaazing.netty.GATHERING_WRITE_MAXIMUM_MESSAGES", "1"), // disabled by default
+
+    // Maximum number of bytes coalesced into a single gathering write, only used when
+    // GATHERING_WRITE_MAXIMUM_MESSAGES is greater than one.
+    GATHERING_WRITE_MAXIMUM_BYTES("org.kaazing.netty.GATHERING_WRITE_MAXIMUM_BYTES", "65536"),
+
+    // Hand the pooled NIO worker read buffer upstream instead of copying it into a new ChannelBuffer.
+    // The buffer is returned to the worker pool when messageReceived completes, so upstream handlers
+    // must copy (or retain) any bytes they keep. IoSessionChannelHandler wraps it without copying and
+    // retains it for as long as the session filter chain keeps buffers derived from it.
+    POOLED_READ_BUFFERS("org.kaazing.netty.POOLED_READ_BUFFERS", "false"); // disabled by default
 
     private final String name;
     private final String defaultValue;
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jboss.netty.channel.socket.nio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.socket.nio.SocketSendBufferPool.GatheringMessageSendBuffer;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.junit.Test;
+
+public class SocketSendBufferPoolTest {
+
+    @Test
+    public void gatheringMessageSendBufferShouldCompleteFullyWrittenMessages() throws Exception {
+        Mockery context = new Mockery();
+        final MessageEvent event1 = context.mock(MessageEvent.class, "event1");
+        final MessageEvent event2 = context.mock(MessageEvent.class, "event2");
+        final ChannelFuture future1 = context.mock(ChannelFuture.class, "future1");
+        final ChannelFuture future2 = context.mock(ChannelFuture.class, "future2");
+
+        context.checking(new Expectations() {
+            {
+                allowing(event1).getFuture(); will(returnValue(future1));
+                allowing(event2).getFuture(); will(returnValue(future2));
+                oneOf(future1).setSuccess();
+            }
+        });
+
+        GatheringMessageSendBuffer buf = new GatheringMessageSendBuffer(
+                new MessageEvent[] { event1, event2 },
+                new ByteBuffer[] { ByteBuffer.allocate(4), ByteBuffer.allocate(6) });
+
+        // first write is partial, only covering the first message
+        assertEquals(5L, buf.transferTo(new LimitedGatheringByteChannel(5)));
+        buf.setSuccess();
+        assertFalse(buf.finished());
+        context.assertIsSatisfied();
+
+        context.checking(new Expectations() {
+            {
+                oneOf(future2).setSuccess();
+            }
+        });
+
+        assertEquals(5L, buf.transferTo(new LimitedGatheringByteChannel(5)));
+        buf.setSuccess();
+        assertTrue(buf.finished());
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void gatheringMessageSendBufferShouldFailIncompleteMessages() throws Exception {
+        Mockery context = new Mockery();
+        final MessageEvent event1 = context.mock(MessageEvent.class, "event1");
+        final MessageEvent event2 = context.mock(MessageEvent.class, "event2");
+        final ChannelFuture future1 = context.mock(ChannelFuture.class, "future1");
+        final ChannelFuture future2 = context.mock(ChannelFuture.class, "future2");
+        final IOException cause = new IOException();
+
+        context.checking(new Expectations() {
+            {
+                allowing(event1).getFuture(); will(returnValue(future1));
+                allowing(event2).getFuture(); will(returnValue(future2));
+                oneOf(future1).setSuccess();
+                oneOf(future2).setFailure(cause);
+            }
+        });
+
+        GatheringMessageSendBuffer buf = new GatheringMessageSendBuffer(
+                new MessageEvent[] { event1, event2 },
+                new ByteBuffer[] { ByteBuffer.allocate(4), ByteBuffer.allocate(6) });
+
+        buf.transferTo(new LimitedGatheringByteChannel(4));
+        buf.setSuccess();
+        buf.setFailure(cause);
+        context.assertIsSatisfied();
+    }
+
+    private static final class LimitedGatheringByteChannel implements GatheringByteChannel {
+
+        private int available;
+
+        LimitedGatheringByteChannel(int available) {
+            this.available = available;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int written = Math.min(available, src.remaining());
+            src.position(src.position() + written);
+            available -= written;
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            long written = 0;
+            for (int i = offset; i < offset + length; i++) {
+                written += write(srcs[i]);
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) throws IOException {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
+import org.kaazing.mina.netty.buffer.PooledChannelBuffer;
+
+public class ChannelIoBufferAllocatorTest {
+
+    private final List<PooledChannelBuffer> released = new ArrayList<PooledChannelBuffer>();
+
+    private final PooledChannelBuffer.Pool pool = new PooledChannelBuffer.Pool() {
+        @Override
+        public void release(PooledChannelBuffer buffer) {
+            released.add(buffer);
+        }
+    };
+
+    @Test
+    public void shouldWrapPooledReadWithoutCopying() {
+        PooledChannelBuffer read = newPooledRead("abc");
+
+        ChannelIoBuffer received = ChannelIoBufferAllocator.wrap(read);
+        read.pooledBuf().put(0, (byte) 'x');
+
+        assertEquals(3, received.remaining());
+        assertEquals('x', received.get(0));
+        assertEquals(2, read.references());
+        assertTrue(received.retainOnWrite());
+    }
+
+    @Test
+    public void shouldReleasePooledReadWhenLastDerivedBufferFreed() {
+        PooledChannelBuffer read = newPooledRead("abc");
+
+        ChannelIoBuffer received = ChannelIoBufferAllocator.wrap(read);
+        IoBufferEx slice = received.slice();
+        read.release();
+        received.free();
+
+        assertTrue(released.isEmpty());
+        assertEquals('a', slice.get(0));
+
+        slice.free();
+        assertEquals(1, released.size());
+        assertSame(read, released.get(0));
+    }
+
+    @Test
+    public void shouldRetainPooledReadWhenReceivedBufferReWrapped() {
+        PooledChannelBuffer read = newPooledRead("abc");
+        ChannelIoBufferAllocator allocator = new ChannelIoBufferAllocator();
+
+        ChannelIoBuffer received = ChannelIoBufferAllocator.wrap(read);
+        ChannelIoBuffer previous = ChannelIoBufferAllocator.setReceived(received);
+        ChannelIoBuffer rewrapped;
+        try {
+            rewrapped = allocator.wrap(received.buf(), received.flags());
+        }
+        finally {
+            ChannelIoBufferAllocator.setReceived(previous);
+        }
+        read.release();
+        received.free();
+
+        assertNull(previous);
+        assertTrue(rewrapped.isPooled());
+        assertFalse(rewrapped.retainOnWrite());
+        assertTrue(released.isEmpty());
+
+        rewrapped.free();
+        assertEquals(1, released.size());
+    }
+
+    private PooledChannelBuffer newPooledRead(String data) {
+        PooledChannelBuffer read = new PooledChannelBuffer(pool, ByteBuffer.allocate(16));
+        ByteBuffer bb = read.acquire();
+        bb.put(data.getBytes());
+        bb.flip();
+        read.wrap(bb);
+        return read;
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
+
+public class ChannelIoBufferPoolTest {
+
+    @Test
+    public void shouldRoundUpToSizeClass() {
+        ChannelIoBufferPool pool = new ChannelIoBufferPool(false);
+
+        ByteBuffer buf = pool.acquire(100, IoBufferEx.FLAG_NONE);
+
+        assertEquals(128, buf.capacity());
+        assertEquals(100, buf.limit());
+        assertEquals(0, buf.position());
+    }
+
+    @Test
+    public void shouldReuseReleasedBuffer() {
+        ChannelIoBufferPool pool = new ChannelIoBufferPool(false);
+
+        ByteBuffer buf = pool.acquire(100, IoBufferEx.FLAG_NONE);
+        pool.release(buf);
+        ByteBuffer reused = pool.acquire(120, IoBufferEx.FLAG_NONE);
+
+        assertSame(buf, reused);
+        assertEquals(120, reused.limit());
+        assertEquals(1L, pool.getHitCount());
+        assertEquals(1L, pool.getMissCount());
+    }
+
+    @Test
+    public void shouldNotPoolOversizedBuffer() {
+        ChannelIoBufferPool pool = new ChannelIoBufferPool(false, 64, 1024, 16);
+
+        ByteBuffer buf = pool.acquire(2048, IoBufferEx.FLAG_NONE);
+        pool.release(buf);
+        ByteBuffer other = pool.acquire(2048, IoBufferEx.FLAG_NONE);
+
+        assertNotSame(buf, other);
+        assertEquals(0L, pool.getHitCount());
+        assertEquals(2L, pool.getMissCount());
+    }
+
+    @Test
+    public void shouldAllocateDirectBuffers() {
+        ChannelIoBufferPool pool = new ChannelIoBufferPool(true);
+
+        ByteBuffer buf = pool.acquire(100, IoBufferEx.FLAG_NONE);
+
+        assertTrue(buf.isDirect());
+    }
+
+    @Test
+    public void shouldClaimOnlyLastAcquiredBuffer() {
+        ChannelIoBufferPool pool = new ChannelIoBufferPool(false);
+
+        ByteBuffer buf = pool.acquire(100, IoBufferEx.FLAG_NONE);
+
+        assertFalse(pool.claim(ByteBuffer.allocate(128)));
+        assertFalse(pool.claim(buf));
+    }
+
+    @Test
+    public void shouldReleaseToPoolWhenFreed() {
+        ChannelIoBufferPool pool = new ChannelIoBufferPool(false);
+        ChannelIoBufferAllocator allocator = new ChannelIoBufferAllocator(pool);
+
+        ByteBuffer nioBuf = allocator.allocate(100);
+        ChannelIoBuffer buf = allocator.wrap(nioBuf);
+        buf.retain();
+        buf.free();
+
+        assertNotSame(nioBuf, allocator.allocate(100));
+
+        buf.free();
+
+        assertSame(nioBuf, allocator.allocate(100));
+    }
+
+    @Test
+    public void shouldReleaseSharedBufferOnLastReference() {
+        ChannelIoBufferPool pool = new ChannelIoBufferPool(false);
+        ChannelIoBufferAllocator allocator = new ChannelIoBufferAllocator(pool);
+
+        ByteBuffer nioBuf = allocator.allocate(100);
+        ChannelIoBuffer shared = allocator.wrap(nioBuf, IoBufferEx.FLAG_SHARED);
+        ChannelIoBuffer duplicate = (ChannelIoBuffer) shared.duplicate();
+        assertTrue(duplicate.isPooled());
+
+        shared.free();
+        assertNotSame(nioBuf, allocator.allocate(100));
+
+        duplicate.free();
+        assertSame(nioBuf, allocator.allocate(100));
+    }
+
+    @Test
+    public void shouldKeepPoolReferenceWhenConvertedToShared() {
+        ChannelIoBufferPool pool = new ChannelIoBufferPool(false);
+        ChannelIoBufferAllocator allocator = new ChannelIoBufferAllocator(pool);
+
+        ByteBuffer nioBuf = allocator.allocate(100);
+        ChannelIoBuffer unshared = allocator.wrap(nioBuf);
+        ChannelIoBuffer shared = (ChannelIoBuffer) unshared.asSharedBuffer();
+        assertTrue(shared.isPooled());
+
+        unshared.free();
+        assertNotSame(nioBuf, allocator.allocate(100));
+
+        shared.free();
+        assertSame(nioBuf, allocator.allocate(100));
+    }
+
+    @Test
+    public void shouldRetireArenaOfExitedThread() throws Exception {
+        final ChannelIoBufferPool pool = new ChannelIoBufferPool(false);
+        pool.acquire(100, IoBufferEx.FLAG_NONE);
+
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                pool.release(pool.acquire(100, IoBufferEx.FLAG_NONE));
+                pool.acquire(100, IoBufferEx.FLAG_NONE);
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertEquals(2, pool.getArenaCount());
+        assertEquals(1L, pool.getHitCount());
+        assertEquals(2L, pool.getMissCount());
+        assertEquals(1, pool.getArenaCount());
+    }
+
+    @Test
+    public void shouldNotReleaseWrappedApplicationBuffer() {
+        ChannelIoBufferPool pool = new ChannelIoBufferPool(false);
+        ChannelIoBufferAllocator allocator = new ChannelIoBufferAllocator(pool);
+
+        ByteBuffer nioBuf = ByteBuffer.allocate(128);
+        ChannelIoBuffer buf = allocator.wrap(nioBuf);
+        buf.free();
+
+        assertFalse(buf.isPooled());
+        assertNotSame(nioBuf, allocator.allocate(100));
+    }
+
+}
@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty;
+
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.mina.core.filterchain.DefaultIoFilterChainBuilder;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.jboss.netty.channel.socket.ServerSocketChannelFactory;
+import org.jboss.netty.channel.socket.SocketChannelConfig;
+import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.jboss.netty.channel.socket.nio.NioWorker;
+import org.jboss.netty.channel.socket.nio.NioWorkerPool;
+import org.jboss.netty.channel.socket.nio.WorkerPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.netty.config.InternalSystemProperty;
+import org.kaazing.mina.netty.socket.SocketChannelIoSessionConfig;
+import org.kaazing.mina.netty.socket.nio.DefaultNioSocketChannelIoSessionConfig;
+import org.kaazing.mina.netty.socket.nio.NioSocketChannelIoAcceptor;
+
+public class NioSocketPooledReadIT {
+
+    private static final String POOLED_READ_BUFFERS = InternalSystemProperty.POOLED_READ_BUFFERS.getPropertyName();
+
+    private static final String BENCHMARK_FILENAME = "pooled-read-benchmark.csv";
+    private static final int BENCHMARK_RUNS = 5;
+    private static final int BENCHMARK_BYTES = 256 * 1024 * 1024;
+    private static final int BENCHMARK_WRITE_SIZE = 8192;
+
+    private ChannelIoAcceptor<SocketChannelIoSessionConfig<? extends SocketChannelConfig>, ServerSocketChannelFactory,
+                                        InetSocketAddress> acceptor;
+    private Socket first;
+    private Socket second;
+
+    public static void main(String[] args) throws Throwable {
+        new NioSocketPooledReadIT().benchmark();
+    }
+
+    /**
+     * Compares the throughput of pooled reads, wrapped without copying, with reads into a new buffer per read.
+     */
+    public void benchmark() throws Throwable {
+        PrintWriter writer = new PrintWriter(BENCHMARK_FILENAME, "UTF-8");
+        try {
+            writer.write("POOLED_READ_BUFFERS,BYTES,MILLIS,MB_PER_SEC\n");
+            for (int run = 0; run < BENCHMARK_RUNS; run++) {
+                benchmark0(writer, false);
+                benchmark0(writer, true);
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private void benchmark0(PrintWriter writer, boolean pooled) throws Throwable {
+        // read by each NioWorker when constructed
+        System.setProperty(POOLED_READ_BUFFERS, Boolean.toString(pooled));
+        acceptor = newAcceptor();
+        first = new Socket();
+        second = new Socket();
+        try {
+            CountingHandler handler = new CountingHandler(BENCHMARK_BYTES);
+            acceptor.setFilterChainBuilder(new DefaultIoFilterChainBuilder());
+            acceptor.setHandler(handler);
+
+            InetSocketAddress bindAddress = new InetSocketAddress("localhost", PortUtil.nextPort(8170, 50));
+            acceptor.bind(bindAddress);
+            first.connect(bindAddress);
+
+            byte[] data = new byte[BENCHMARK_WRITE_SIZE];
+            OutputStream output = first.getOutputStream();
+            long start = System.nanoTime();
+            for (int written = 0; written < BENCHMARK_BYTES; written += data.length) {
+                output.write(data);
+            }
+            output.flush();
+            assertTrue("Bytes not received", handler.received.await(60, SECONDS));
+            long millis = NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            long megabytesPerSecond = (millis > 0) ? (BENCHMARK_BYTES / (1024L * 1024L)) * 1000L / millis : 0L;
+            writer.write(String.format("%s,%d,%d,%d\n", pooled, BENCHMARK_BYTES, millis, megabytesPerSecond));
+        }
+        finally {
+            destroy();
+        }
+    }
+
+    @Before
+    public void init() throws Exception {
+        // read by each NioWorker when constructed
+        System.setProperty(POOLED_READ_BUFFERS, "true");
+
+        acceptor = newAcceptor();
+        first = new Socket();
+        second = new Socket();
+        // small receive window, so writes to the second session queue up while it is not read
+        second.setReceiveBufferSize(4096);
+    }
+
+    @After
+    public void destroy() throws Exception {
+        System.clearProperty(POOLED_READ_BUFFERS);
+        first.close();
+        second.close();
+        acceptor.dispose();
+    }
+
+    private static ChannelIoAcceptor<SocketChannelIoSessionConfig<? extends SocketChannelConfig>,
+                                     ServerSocketChannelFactory, InetSocketAddress> newAcceptor() {
+        WorkerPool<NioWorker> workerPool = new NioWorkerPool(newCachedThreadPool(), 1);
+        NioServerSocketChannelFactory serverChannelFactory = new NioServerSocketChannelFactory(newCachedThreadPool(),
+                workerPool);
+        return new NioSocketChannelIoAcceptor(new DefaultNioSocketChannelIoSessionConfig(), serverChannelFactory);
+    }
+
+    @Test
+    public void shouldNotCorruptMessagesQueuedForSlowWriter() throws Exception {
+        ForwardHandler handler = new ForwardHandler();
+        acceptor.setFilterChainBuilder(new DefaultIoFilterChainBuilder());
+        acceptor.setHandler(handler);
+
+        InetSocketAddress bindAddress = new InetSocketAddress("localhost", PortUtil.nextPort(8170, 50));
+        acceptor.bind(bindAddress);
+        first.connect(bindAddress);
+        second.connect(bindAddress);
+        assertTrue("Sessions not opened", handler.opened.await(10, SECONDS));
+
+        final byte[] data = new byte[1024 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 251);
+        }
+
+        // write everything before reading any of it, so the forwarded messages stay queued
+        final AtomicReference<Exception> writeFailure = new AtomicReference<>();
+        final OutputStream output = first.getOutputStream();
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    output.write(data);
+                    output.flush();
+                } catch (Exception e) {
+                    writeFailure.set(e);
+                }
+            }
+        };
+        writer.start();
+        writer.join(SECONDS.toMillis(10));
+        Thread.sleep(500);
+
+        byte[] received = new byte[data.length];
+        new DataInputStream(second.getInputStream()).readFully(received);
+        assertNull("Write failed", writeFailure.get());
+        assertArrayEquals(data, received);
+    }
+
+    private static class CountingHandler extends IoHandlerAdapter {
+        final CountDownLatch received = new CountDownLatch(1);
+
+        private final long expected;
+        private final AtomicLong count = new AtomicLong();
+
+        CountingHandler(long expected) {
+            this.expected = expected;
+        }
+
+        @Override
+        public void messageReceived(IoSession session, Object message) throws Exception {
+            IoBufferEx buf = (IoBufferEx) message;
+            int remaining = buf.remaining();
+            buf.skip(remaining);
+            if (count.addAndGet(remaining) >= expected) {
+                received.countDown();
+            }
+        }
+    }
+
+    private static class ForwardHandler extends IoHandlerAdapter {
+        final CountDownLatch opened = new CountDownLatch(2);
+
+        private volatile IoSession firstSession;
+        private volatile IoSession secondSession;
+
+        @Override
+        public void sessionOpened(IoSession session) throws Exception {
+            if (firstSession == null) {
+                firstSession = session;
+            }
+            else {
+                secondSession = session;
+            }
+            opened.countDown();
+        }
+
+        @Override
+        public void messageReceived(IoSession session, Object message) throws Exception {
+            // keeps the received buffer past messageReceived, as the proxy DuplicateBufferFilter does
+            if (session == firstSession) {
+                secondSession.write(((IoBufferEx) message).duplicate());
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty;
+
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.mina.core.filterchain.DefaultIoFilterChainBuilder;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.jboss.netty.channel.socket.ServerSocketChannelFactory;
+import org.jboss.netty.channel.socket.SocketChannelConfig;
+import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.jboss.netty.channel.socket.nio.NioWorker;
+import org.jboss.netty.channel.socket.nio.NioWorkerPool;
+import org.jboss.netty.channel.socket.nio.WorkerPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.kaazing.mina.netty.socket.SocketChannelIoSessionConfig;
+import org.kaazing.mina.netty.socket.nio.DefaultNioSocketChannelIoSessionConfig;
+import org.kaazing.mina.netty.socket.nio.NioSocketChannelIoAcceptor;
+
+public class NioSocketPumpIT {
+
+    private ChannelIoAcceptor<SocketChannelIoSessionConfig<? extends SocketChannelConfig>, ServerSocketChannelFactory,
+                                        InetSocketAddress> acceptor;
+    private Socket first;
+    private Socket second;
+
+    @Before
+    public void init() {
+        // single worker so both accepted sessions share an I/O thread
+        WorkerPool<NioWorker> workerPool = new NioWorkerPool(newCachedThreadPool(), 1);
+        NioServerSocketChannelFactory serverChannelFactory = new NioServerSocketChannelFactory(newCachedThreadPool(),
+                workerPool);
+        acceptor = new NioSocketChannelIoAcceptor(new DefaultNioSocketChannelIoSessionConfig(), serverChannelFactory);
+        first = new Socket();
+        second = new Socket();
+    }
+
+    @After
+    public void destroy() throws Exception {
+        first.close();
+        second.close();
+        acceptor.dispose();
+    }
+
+    @Test
+    public void shouldPumpBytesInBothDirections() throws Exception {
+        PumpHandler handler = new PumpHandler(1024);
+        acceptor.setFilterChainBuilder(new DefaultIoFilterChainBuilder());
+        acceptor.setHandler(handler);
+
+        InetSocketAddress bindAddress = new InetSocketAddress("localhost", PortUtil.nextPort(8120, 50));
+        acceptor.bind(bindAddress);
+        first.connect(bindAddress);
+        second.connect(bindAddress);
+        assertTrue("Pump not started", handler.started.await(10, SECONDS));
+
+        // large enough to exceed maximum pending bytes and suspend reads on the way
+        byte[] data = new byte[256 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        assertTransferred(data, first.getOutputStream(), second.getInputStream());
+        assertTransferred(data, second.getOutputStream(), first.getInputStream());
+        assertEquals("Messages should not reach the handler", 0, handler.messagesReceived.get());
+    }
+
+    private static void assertTransferred(final byte[] data, final OutputStream output, InputStream input)
+            throws Exception {
+        final AtomicReference<Exception> writeFailure = new AtomicReference<>();
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    output.write(data);
+                    output.flush();
+                } catch (Exception e) {
+                    writeFailure.set(e);
+                }
+            }
+        };
+        writer.start();
+
+        byte[] received = new byte[data.length];
+        new DataInputStream(input).readFully(received);
+        writer.join(SECONDS.toMillis(10));
+        assertNull("Write failed", writeFailure.get());
+        assertArrayEquals(data, received);
+    }
+
+    private static class PumpHandler extends IoHandlerAdapter {
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicInteger messagesReceived = new AtomicInteger();
+
+        private final int maximumPendingBytes;
+        private IoSession firstSession;
+
+        PumpHandler(int maximumPendingBytes) {
+            this.maximumPendingBytes = maximumPendingBytes;
+        }
+
+        @Override
+        public void sessionOpened(IoSession session) throws Exception {
+            // called on the single I/O thread
+            if (firstSession == null) {
+                firstSession = session;
+            }
+            else if (ChannelIoPump.start(firstSession, session, maximumPendingBytes)) {
+                started.countDown();
+            }
+        }
+
+        @Override
+        public void messageReceived(IoSession session, Object message) throws Exception {
+            messagesReceived.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty.buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PooledChannelBufferTest {
+
+    private final List<PooledChannelBuffer> released = new ArrayList<PooledChannelBuffer>();
+
+    private final PooledChannelBuffer.Pool pool = new PooledChannelBuffer.Pool() {
+        @Override
+        public void release(PooledChannelBuffer buffer) {
+            released.add(buffer);
+        }
+    };
+
+    @Test
+    public void shouldReleaseToPoolOnLastReference() {
+        PooledChannelBuffer buffer = new PooledChannelBuffer(pool, ByteBuffer.allocate(16));
+        buffer.acquire();
+        buffer.retain();
+
+        assertFalse(buffer.release());
+        assertTrue(released.isEmpty());
+
+        assertTrue(buffer.release());
+        assertEquals(1, released.size());
+        assertSame(buffer, released.get(0));
+    }
+
+    @Test
+    public void shouldWrapReadBytes() {
+        PooledChannelBuffer buffer = new PooledChannelBuffer(pool, ByteBuffer.allocate(16));
+        ByteBuffer bb = buffer.acquire();
+        bb.put("abc".getBytes());
+        bb.flip();
+        buffer.wrap(bb);
+
+        assertEquals(3, buffer.readableBytes());
+        assertEquals('a', buffer.getByte(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectExcessRelease() {
+        PooledChannelBuffer buffer = new PooledChannelBuffer(pool, ByteBuffer.allocate(16));
+        buffer.acquire();
+        buffer.release();
+        buffer.release();
+    }
+}
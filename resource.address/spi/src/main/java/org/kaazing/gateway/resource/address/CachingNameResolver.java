@@ -0,0 +1,345 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.resource.address;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Name resolver that looks up host names on background threads and caches the results.
+ *
+ * Successful lookups are cached for the positive TTL and refreshed in the background once they are
+ * past three quarters of it, so callers keep being answered from the cache while the refresh is in
+ * flight.  Once past the TTL, successful lookups are still served while they are refreshed, so only
+ * the first lookup of a host waits for the delegate resolver.  Failed lookups are cached for the
+ * negative TTL.  Concurrent lookups of the same host share a single request to the delegate resolver.
+ *
+ * {@link #resolve(String)} never blocks, and is used by connectors.  {@link #getAllByName(String)}
+ * only blocks when no lookup of the host has succeeded yet.
+ */
+public class CachingNameResolver implements NameResolver {
+
+    // defaults follow the JVM name service cache policy, when one is configured
+    private static final long DEFAULT_TTL_SECONDS = securityProperty("networkaddress.cache.ttl", 30L);
+    private static final long DEFAULT_NEGATIVE_TTL_SECONDS = securityProperty("networkaddress.cache.negative.ttl", 10L);
+    private static final int DEFAULT_MAXIMUM_SIZE = 4096;
+    private static final int DEFAULT_RESOLVER_THREADS = 4;
+
+    private static final NameResolver INET_ADDRESS_RESOLVER = new NameResolver() {
+
+        @Override
+        public Collection<InetAddress> getAllByName(String host) throws UnknownHostException {
+            return asList(InetAddress.getAllByName(host));
+        }
+    };
+
+    private static volatile NameResolver defaultNameResolver;
+
+    private final NameResolver delegate;
+    private final Executor executor;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final int maximumSize;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, Entry> entries;
+
+    public CachingNameResolver(NameResolver delegate, long ttl, long negativeTtl, TimeUnit unit) {
+        this(delegate, newResolverExecutor(DEFAULT_RESOLVER_THREADS), unit.toMillis(ttl), unit.toMillis(negativeTtl),
+                DEFAULT_MAXIMUM_SIZE, CachingNameResolver::currentTimeMillis);
+    }
+
+    CachingNameResolver(NameResolver delegate, Executor executor, long ttlMillis, long negativeTtlMillis,
+                        int maximumSize, LongSupplier clock) {
+        if (delegate == null) {
+            throw new NullPointerException("delegate");
+        }
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        this.delegate = delegate;
+        this.executor = executor;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.maximumSize = maximumSize;
+        this.clock = clock;
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns a name resolver for resource addresses, with null settings taking their default values.
+     *
+     * @param enabled  whether lookups are cached, if not host names are looked up on the calling thread
+     * @param ttlSeconds  seconds successful lookups are cached, following networkaddress.cache.ttl by default
+     * @param negativeTtlSeconds  seconds failed lookups are cached, following networkaddress.cache.negative.ttl
+     *                            by default
+     * @param maximumSize  maximum number of cached host names
+     * @param resolverThreads  number of threads looking up host names
+     */
+    public static NameResolver newDefaultNameResolver(boolean enabled, Integer ttlSeconds, Integer negativeTtlSeconds,
+                                                      Integer maximumSize, Integer resolverThreads) {
+        if (!enabled) {
+            return INET_ADDRESS_RESOLVER;
+        }
+
+        long ttl = (ttlSeconds != null) ? ttlSeconds : DEFAULT_TTL_SECONDS;
+        long negativeTtl = (negativeTtlSeconds != null) ? negativeTtlSeconds : DEFAULT_NEGATIVE_TTL_SECONDS;
+        int size = (maximumSize != null) ? maximumSize : DEFAULT_MAXIMUM_SIZE;
+        int threads = (resolverThreads != null) ? resolverThreads : DEFAULT_RESOLVER_THREADS;
+
+        return new CachingNameResolver(INET_ADDRESS_RESOLVER, newResolverExecutor(threads), SECONDS.toMillis(ttl),
+                SECONDS.toMillis(negativeTtl), size, CachingNameResolver::currentTimeMillis);
+    }
+
+    /**
+     * Returns the name resolver used for host names of resource addresses, caching lookups with the default
+     * settings unless the gateway configured another one.
+     */
+    public static NameResolver getDefaultNameResolver() {
+        NameResolver resolver = defaultNameResolver;
+        if (resolver == null) {
+            synchronized (CachingNameResolver.class) {
+                resolver = defaultNameResolver;
+                if (resolver == null) {
+                    resolver = newDefaultNameResolver(true, null, null, null, null);
+                    defaultNameResolver = resolver;
+                }
+            }
+        }
+        return resolver;
+    }
+
+    /**
+     * Sets the name resolver used for host names of resource addresses, as configured for the gateway.
+     */
+    public static void setDefaultNameResolver(NameResolver resolver) {
+        if (resolver == null) {
+            throw new NullPointerException("resolver");
+        }
+        defaultNameResolver = resolver;
+    }
+
+    @Override
+    public Collection<InetAddress> getAllByName(String host) throws UnknownHostException {
+        try {
+            return resolve(host).get();
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UnknownHostException) {
+                // new instance so the stack trace reflects this caller
+                UnknownHostException uhe = new UnknownHostException(cause.getMessage());
+                uhe.initCause(cause);
+                throw uhe;
+            }
+            UnknownHostException uhe = new UnknownHostException(host);
+            uhe.initCause(cause);
+            throw uhe;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            UnknownHostException uhe = new UnknownHostException(host);
+            uhe.initCause(e);
+            throw uhe;
+        }
+    }
+
+    /**
+     * Resolves the host name without blocking.
+     *
+     * @return a future for the addresses of the host, completed exceptionally with an
+     *         {@link UnknownHostException} if the host cannot be resolved
+     */
+    public CompletableFuture<Collection<InetAddress>> resolve(String host) {
+        if (host == null) {
+            throw new NullPointerException("host");
+        }
+
+        for (;;) {
+            long now = clock.getAsLong();
+            Entry entry = entries.get(host);
+            if (entry != null && (!entry.isExpired(now) || entry.isResolved())) {
+                // stale addresses are still served while they are refreshed
+                if (entry.isRefreshDue(now) && entry.refreshing.compareAndSet(false, true)) {
+                    lookup(host, entry, new Entry());
+                }
+                return entry.addresses;
+            }
+
+            if (entry == null) {
+                evictIfNecessary(now);
+            }
+
+            Entry newEntry = new Entry();
+            boolean installed = (entry == null) ? entries.putIfAbsent(host, newEntry) == null
+                                                : entries.replace(host, entry, newEntry);
+            if (installed) {
+                lookup(host, newEntry, newEntry);
+                return newEntry.addresses;
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void lookup(final String host, final Entry entry, final Entry newEntry) {
+        try {
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    lookup0(host, entry, newEntry);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            entries.remove(host, newEntry);
+            entry.refreshing.set(false);
+            newEntry.addresses.completeExceptionally(e);
+        }
+    }
+
+    private void lookup0(String host, Entry entry, Entry newEntry) {
+        try {
+            Collection<InetAddress> addresses = unmodifiableList(new ArrayList<>(delegate.getAllByName(host)));
+            long now = clock.getAsLong();
+            newEntry.refreshAt = now + ttlMillis - (ttlMillis >> 2);
+            newEntry.expiresAt = now + ttlMillis;
+            newEntry.addresses.complete(addresses);
+            if (newEntry != entry) {
+                // refreshed, replaces the entry still being served
+                entries.replace(host, entry, newEntry);
+            }
+        }
+        catch (UnknownHostException e) {
+            newEntry.expiresAt = clock.getAsLong() + negativeTtlMillis;
+            newEntry.addresses.completeExceptionally(e);
+            if (newEntry != entry) {
+                entries.replace(host, entry, newEntry);
+            }
+        }
+        catch (RuntimeException e) {
+            if (newEntry != entry) {
+                // keep serving the previous addresses, refresh again on a later lookup
+                entry.refreshing.set(false);
+            }
+            else {
+                entries.remove(host, newEntry);
+                newEntry.addresses.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void evictIfNecessary(long now) {
+        if (entries.size() < maximumSize) {
+            return;
+        }
+
+        for (Iterator<Entry> i = entries.values().iterator(); i.hasNext();) {
+            if (i.next().isExpired(now)) {
+                i.remove();
+            }
+        }
+
+        // no expired entries, evict arbitrary entries
+        for (Iterator<Entry> i = entries.values().iterator(); i.hasNext() && entries.size() >= maximumSize;) {
+            i.next();
+            i.remove();
+        }
+    }
+
+    private static long currentTimeMillis() {
+        return NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private static long securityProperty(String name, long defaultValue) {
+        try {
+            String value = Security.getProperty(name);
+            long seconds = (value != null) ? Long.parseLong(value.trim()) : defaultValue;
+            // negative means cache forever for the JVM, use the default instead
+            return (seconds >= 0L) ? seconds : defaultValue;
+        }
+        catch (NumberFormatException | SecurityException e) {
+            return defaultValue;
+        }
+    }
+
+    private static Executor newResolverExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "name-resolver-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static final class Entry {
+        final CompletableFuture<Collection<InetAddress>> addresses = new CompletableFuture<>();
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        // written before the addresses future completes
+        volatile long refreshAt = Long.MAX_VALUE;
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        boolean isExpired(long now) {
+            return addresses.isDone() && now >= expiresAt;
+        }
+
+        boolean isRefreshDue(long now) {
+            return addresses.isDone() && now >= refreshAt;
+        }
+
+        boolean isResolved() {
+            return addresses.isDone() && !addresses.isCompletedExceptionally();
+        }
+    }
+}
@@ -499,7 +499,7 @@ public abstract class ResourceAddress extends SocketAddress implements ResourceO
                         return wildcard.getAllByName(host);
                     }
 
-                    return asList(InetAddress.getAllByName(host));
+                    return CachingNameResolver.getDefaultNameResolver().getAllByName(host);
                 }
             });
         }
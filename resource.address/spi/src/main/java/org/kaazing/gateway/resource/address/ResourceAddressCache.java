@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.resource.address;
+
+import static org.kaazing.gateway.resource.address.ResourceAddress.NEXT_PROTOCOL;
+import static org.kaazing.gateway.resource.address.ResourceAddress.TRANSPORT;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of resource addresses built on hot paths, such as per-request candidate addresses.
+ *
+ * Resource addresses are read-only once constructed, so the same instance is handed back for repeated
+ * lookups.  Option maps and transport addresses are matched by identity rather than by value, since
+ * resource address equality walks the whole transport chain.  Owners should {@link #invalidate()} the
+ * cache when addresses are bound or unbound.
+ */
+public final class ResourceAddressCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private static final int KIND_TRANSPORT = 0;
+    private static final int KIND_OPTIONS = 1;
+    private static final int KIND_RESOLVE = 2;
+
+    private final ResourceAddressFactory addressFactory;
+    private final int maximumSize;
+    private final ConcurrentMap<Key, ResourceAddress> addresses;
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+
+    public ResourceAddressCache(ResourceAddressFactory addressFactory) {
+        this(addressFactory, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public ResourceAddressCache(ResourceAddressFactory addressFactory, int maximumSize) {
+        if (addressFactory == null) {
+            throw new NullPointerException("addressFactory");
+        }
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.addressFactory = addressFactory;
+        this.maximumSize = maximumSize;
+        this.addresses = new ConcurrentHashMap<>();
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+    }
+
+    /**
+     * Returns a resource address for the given location, transport and next protocol.
+     *
+     * @param transport  the transport address, matched by identity
+     */
+    public ResourceAddress newResourceAddress(URI location, ResourceAddress transport, String nextProtocol) {
+        Key key = new Key(KIND_TRANSPORT, location, transport, nextProtocol);
+        ResourceAddress address = addresses.get(key);
+        if (address == null) {
+            ResourceOptions options = ResourceOptions.FACTORY.newResourceOptions();
+            options.setOption(TRANSPORT, transport);
+            options.setOption(NEXT_PROTOCOL, nextProtocol);
+            address = cache(key, addressFactory.newResourceAddress(location, options));
+        }
+        else {
+            hitCount.increment();
+        }
+        return address;
+    }
+
+    /**
+     * Returns a resource address for the given location and options.
+     *
+     * @param options  the options by name, matched by identity and never modified
+     */
+    public ResourceAddress newResourceAddress(URI location, Map<String, Object> options) {
+        Key key = new Key(KIND_OPTIONS, location, options, null);
+        ResourceAddress address = addresses.get(key);
+        if (address == null) {
+            // resource address factories consume the options they recognize
+            Map<String, Object> newOptions = new HashMap<>(options);
+            address = cache(key, addressFactory.newResourceAddress(location, newOptions));
+        }
+        else {
+            hitCount.increment();
+        }
+        return address;
+    }
+
+    /**
+     * Returns the given address resolved to a new path.
+     *
+     * @param address  the address to resolve, matched by identity
+     * @see ResourceAddress#resolve(String)
+     */
+    public ResourceAddress resolve(ResourceAddress address, String newPath) {
+        Key key = new Key(KIND_RESOLVE, newPath, address, null);
+        ResourceAddress resolved = addresses.get(key);
+        if (resolved == null) {
+            resolved = cache(key, address.resolve(newPath));
+        }
+        else {
+            hitCount.increment();
+        }
+        return resolved;
+    }
+
+    public void invalidate() {
+        addresses.clear();
+    }
+
+    public int size() {
+        return addresses.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long lookups = hits + missCount.sum();
+        return (lookups != 0L) ? (double) hits / lookups : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [size=%d, hits=%d, misses=%d]", getClass().getSimpleName(),
+                addresses.size(), getHitCount(), getMissCount());
+    }
+
+    private ResourceAddress cache(Key key, ResourceAddress newAddress) {
+        missCount.increment();
+
+        if (addresses.size() >= maximumSize) {
+            // evict an arbitrary entry, enough to keep per-connection addresses from growing the cache
+            Iterator<Key> keys = addresses.keySet().iterator();
+            if (keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+
+        ResourceAddress address = addresses.putIfAbsent(key, newAddress);
+        return (address != null) ? address : newAddress;
+    }
+
+    private static final class Key {
+        private final int kind;
+        private final Object resource;
+        private final Object identity;
+        private final String nextProtocol;
+        private final int hashCode;
+
+        Key(int kind, Object resource, Object identity, String nextProtocol) {
+            if (resource == null) {
+                throw new NullPointerException("resource");
+            }
+            this.kind = kind;
+            this.resource = resource;
+            this.identity = identity;
+            this.nextProtocol = nextProtocol;
+
+            int hashCode = kind;
+            hashCode = 31 * hashCode + resource.hashCode();
+            hashCode = 31 * hashCode + System.identityHashCode(identity);
+            hashCode = 31 * hashCode + Objects.hashCode(nextProtocol);
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return this.kind == that.kind &&
+                    this.identity == that.identity &&
+                    this.resource.equals(that.resource) &&
+                    Objects.equals(this.nextProtocol, that.nextProtocol);
+        }
+    }
+}
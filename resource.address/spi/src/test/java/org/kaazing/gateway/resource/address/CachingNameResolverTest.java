@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.resource.address;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingNameResolverTest {
+
+    private StubNameResolver stub;
+    private QueuedExecutor executor;
+    private AtomicLong clock;
+    private CachingNameResolver resolver;
+
+    @Before
+    public void setup() throws Exception {
+        stub = new StubNameResolver();
+        stub.addresses.put("example.com", singletonList(InetAddress.getByAddress("example.com", new byte[] { 10, 0, 0, 1 })));
+        executor = new QueuedExecutor();
+        clock = new AtomicLong();
+        resolver = new CachingNameResolver(stub, executor, 1000L, 100L, 2, clock::get);
+    }
+
+    @Test
+    public void shouldResolveWithoutBlocking() throws Exception {
+        CompletableFuture<Collection<InetAddress>> addresses = resolver.resolve("example.com");
+        assertFalse(addresses.isDone());
+
+        executor.runAll();
+        assertEquals(stub.addresses.get("example.com"), addresses.get());
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentLookups() throws Exception {
+        CompletableFuture<Collection<InetAddress>> addresses1 = resolver.resolve("example.com");
+        CompletableFuture<Collection<InetAddress>> addresses2 = resolver.resolve("example.com");
+        assertSame(addresses1, addresses2);
+
+        executor.runAll();
+        assertEquals(1, stub.lookups);
+    }
+
+    @Test
+    public void shouldServeExpiredAddressesWhileRefreshing() throws Exception {
+        resolver.resolve("example.com");
+        executor.runAll();
+
+        clock.set(500L);
+        assertEquals(stub.addresses.get("example.com"), resolver.getAllByName("example.com"));
+        assertTrue(executor.tasks.isEmpty());
+
+        clock.set(1000L);
+        CompletableFuture<Collection<InetAddress>> addresses = resolver.resolve("example.com");
+        assertTrue(addresses.isDone());
+        assertEquals(stub.addresses.get("example.com"), addresses.get());
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        assertEquals(2, stub.lookups);
+    }
+
+    @Test
+    public void shouldRefreshAddressesInBackground() throws Exception {
+        resolver.resolve("example.com");
+        executor.runAll();
+
+        InetAddress newAddress = InetAddress.getByAddress("example.com", new byte[] { 10, 0, 0, 2 });
+        stub.addresses.put("example.com", singletonList(newAddress));
+
+        // past three quarters of the TTL, the cached addresses are still served during the refresh
+        clock.set(800L);
+        CompletableFuture<Collection<InetAddress>> addresses = resolver.resolve("example.com");
+        assertTrue(addresses.isDone());
+        assertEquals(1, executor.tasks.size());
+        resolver.resolve("example.com");
+        assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+        assertEquals(singletonList(newAddress), resolver.resolve("example.com").get());
+
+        clock.set(1500L);
+        assertTrue(resolver.resolve("example.com").isDone());
+    }
+
+    @Test
+    public void shouldCacheUnknownHostUntilExpired() throws Exception {
+        CompletableFuture<Collection<InetAddress>> addresses = resolver.resolve("unknown.example.com");
+        executor.runAll();
+        try {
+            addresses.get();
+            fail();
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof UnknownHostException);
+        }
+
+        clock.set(50L);
+        try {
+            resolver.getAllByName("unknown.example.com");
+            fail();
+        }
+        catch (UnknownHostException e) {
+            assertEquals(1, stub.lookups);
+        }
+
+        clock.set(100L);
+        resolver.resolve("unknown.example.com");
+        executor.runAll();
+        assertEquals(2, stub.lookups);
+    }
+
+    @Test
+    public void shouldBoundCacheSize() throws Exception {
+        for (String host : asList("a", "b", "c", "d")) {
+            stub.addresses.put(host, singletonList(InetAddress.getByAddress(host, new byte[] { 10, 0, 0, 3 })));
+            resolver.resolve(host);
+            executor.runAll();
+        }
+        assertTrue(resolver.size() <= 2);
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() throws Exception {
+        NameResolver resolver = CachingNameResolver.newDefaultNameResolver(false, null, null, null, null);
+        assertFalse(resolver instanceof CachingNameResolver);
+        assertEquals(asList(InetAddress.getAllByName("127.0.0.1")), resolver.getAllByName("127.0.0.1"));
+    }
+
+    private static final class StubNameResolver implements NameResolver {
+        private final Map<String, Collection<InetAddress>> addresses = new HashMap<>();
+        private int lookups;
+
+        @Override
+        public Collection<InetAddress> getAllByName(String host) throws UnknownHostException {
+            lookups++;
+            Collection<InetAddress> hostAddresses = addresses.get(host);
+            if (hostAddresses == null) {
+                throw new UnknownHostException(host);
+            }
+            return hostAddresses;
+        }
+    }
+
+    private static final class QueuedExecutor implements Executor {
+        private final Queue<Runnable> tasks = new LinkedList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+                task.run();
+            }
+        }
+    }
+
+}
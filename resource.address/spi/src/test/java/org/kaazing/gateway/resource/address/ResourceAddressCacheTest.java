@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.resource.address;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.resource.address.ResourceAddress.NEXT_PROTOCOL;
+import static org.kaazing.gateway.resource.address.ResourceAddress.TRANSPORT;
+import static org.kaazing.gateway.resource.address.ResourceAddressFactory.newResourceAddressFactory;
+
+import java.io.PrintWriter;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResourceAddressCacheTest {
+
+    private static final String BENCHMARK_FILENAME = "address-cache-benchmark.csv";
+    private static final int BENCHMARK_ITERATIONS = 1000000;
+    private static final int[] BENCHMARK_TRANSPORTS = {1, 16, 256, 4096};
+
+    private ResourceAddressFactory addressFactory;
+    private ResourceAddressCache addressCache;
+    private ResourceAddress transport;
+
+    public static void main(String[] args) throws Throwable {
+        ResourceAddressCacheTest obj = new ResourceAddressCacheTest();
+        obj.setup();
+        obj.benchmark();
+    }
+
+    /**
+     * Compares building addresses with the factory against looking them up in the cache, keyed on as many
+     * distinct transports as there are connections sharing a key (one for shared local transports, one per
+     * connection for remote transports).
+     */
+    public void benchmark() throws Throwable {
+        PrintWriter writer = new PrintWriter(BENCHMARK_FILENAME, "UTF-8");
+        try {
+            writer.write("TRANSPORTS,FACTORY_NS_PER_OP,CACHE_NS_PER_OP,CACHE_HIT_RATE\n");
+            for (int transports : BENCHMARK_TRANSPORTS) {
+                benchmark0(writer, transports);
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private void benchmark0(PrintWriter writer, int transportCount) {
+        URI location = URI.create("test://opaque");
+        ResourceAddress[] transports = new ResourceAddress[transportCount];
+        for (int i = 0; i < transportCount; i++) {
+            transports[i] = addressFactory.newResourceAddress(URI.create("test://transport" + i));
+        }
+
+        ResourceAddressCache addressCache = new ResourceAddressCache(addressFactory);
+        long factoryNanos = 0L;
+        long cacheNanos = 0L;
+        for (int round = 0; round < 2; round++) {
+            // first round warms up
+            addressCache.invalidate();
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                ResourceOptions options = ResourceOptions.FACTORY.newResourceOptions();
+                options.setOption(TRANSPORT, transports[i % transportCount]);
+                options.setOption(NEXT_PROTOCOL, "nextProtocol");
+                addressFactory.newResourceAddress(location, options);
+            }
+            factoryNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                addressCache.newResourceAddress(location, transports[i % transportCount], "nextProtocol");
+            }
+            cacheNanos = System.nanoTime() - start;
+        }
+
+        writer.write(String.format("%d,%.1f,%.1f,%.3f\n", transportCount,
+                (double) factoryNanos / BENCHMARK_ITERATIONS, (double) cacheNanos / BENCHMARK_ITERATIONS,
+                addressCache.getHitRate()));
+    }
+
+    @Before
+    public void setup() throws Exception {
+        addressFactory = newResourceAddressFactory();
+        addressCache = new ResourceAddressCache(addressFactory, 2);
+        transport = addressFactory.newResourceAddress(URI.create("test://transport"));
+    }
+
+    @Test
+    public void shouldReuseAddressForSameTransportAndNextProtocol() {
+        URI location = URI.create("test://opaque");
+        ResourceAddress address = addressCache.newResourceAddress(location, transport, "nextProtocol");
+        assertEquals(location, address.getResource());
+        assertEquals(transport, address.getOption(TRANSPORT));
+        assertEquals("nextProtocol", address.getOption(NEXT_PROTOCOL));
+
+        assertSame(address, addressCache.newResourceAddress(URI.create("test://opaque"), transport, "nextProtocol"));
+        assertEquals(1L, addressCache.getHitCount());
+        assertEquals(1L, addressCache.getMissCount());
+        assertEquals(0.5, addressCache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void shouldNotReuseAddressForDifferentNextProtocol() {
+        URI location = URI.create("test://opaque");
+        ResourceAddress address = addressCache.newResourceAddress(location, transport, "nextProtocol");
+        ResourceAddress newAddress = addressCache.newResourceAddress(location, transport, null);
+        assertNotSame(address, newAddress);
+        assertEquals(null, newAddress.getOption(NEXT_PROTOCOL));
+        assertEquals(0L, addressCache.getHitCount());
+    }
+
+    @Test
+    public void shouldReuseAddressForSameOptionsInstance() {
+        URI location = URI.create("test://opaque");
+        Map<String, Object> options = new HashMap<>();
+        options.put(TRANSPORT.name(), URI.create("test://transport"));
+        options.put(NEXT_PROTOCOL.name(), "nextProtocol");
+
+        ResourceAddress address = addressCache.newResourceAddress(location, options);
+        assertEquals("nextProtocol", address.getOption(NEXT_PROTOCOL));
+        assertEquals(2, options.size());
+
+        assertSame(address, addressCache.newResourceAddress(location, options));
+        assertNotSame(address, addressCache.newResourceAddress(location, new HashMap<>(options)));
+    }
+
+    @Test
+    public void shouldReuseResolvedAddress() {
+        Map<String, Object> options = new HashMap<>();
+        options.put(TRANSPORT.name(), URI.create("test://transport/path"));
+        ResourceAddress address = addressFactory.newResourceAddress(URI.create("test://opaque/path"), options);
+
+        ResourceAddress resolved = addressCache.resolve(address, "/other");
+        assertEquals("/other", resolved.getResource().getPath());
+        assertSame(resolved, addressCache.resolve(address, "/other"));
+    }
+
+    @Test
+    public void shouldCreateNewAddressAfterInvalidate() {
+        URI location = URI.create("test://opaque");
+        ResourceAddress address = addressCache.newResourceAddress(location, transport, null);
+        addressCache.invalidate();
+        assertEquals(0, addressCache.size());
+        assertNotSame(address, addressCache.newResourceAddress(location, transport, null));
+    }
+
+    @Test
+    public void shouldBoundCacheSize() {
+        for (int i = 0; i < 10; i++) {
+            addressCache.newResourceAddress(URI.create("test://opaque" + i), transport, null);
+        }
+        assertTrue(addressCache.size() <= 2);
+        assertEquals(10L, addressCache.getMissCount());
+    }
+
+}
@@ -33,6 +33,8 @@ import static org.kaazing.gateway.resource.address.ResourceAddress.TRANSPORT;
 import static org.kaazing.gateway.resource.address.ResourceAddress.TRANSPORT_URI;
 import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.CIPHERS;
 import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.PROTOCOLS;
+import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.SESSION_CACHE_SIZE;
+import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.SESSION_TIMEOUT;
 import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.ENCRYPTION_ENABLED;
 import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.KEY_SELECTOR;
 import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.NEED_CLIENT_AUTH;
@@ -62,6 +64,8 @@ public class SslResourceAddressFactorySpiTest {
         options.put("ssl.encryptionEnabled", Boolean.FALSE);
         options.put("ssl.transport", URI.create("tcp://localhost:2121"));
         options.put("ssl.protocols", new String[] { "SSLv3" });
+        options.put("ssl.sessionCacheSize", 1000);
+        options.put("ssl.sessionTimeout", 600);
     }
 
     @Test
@@ -113,5 +117,7 @@ public class SslResourceAddressFactorySpiTest {
         assertEquals(URI.create("tcp://localhost:2121"), address.getOption(TRANSPORT_URI));
         assertFalse(address.getOption(ENCRYPTION_ENABLED));
         assertArrayEquals(new String[] { "SSLv3" }, address.getOption(PROTOCOLS));
+        assertEquals(Integer.valueOf(1000), address.getOption(SESSION_CACHE_SIZE));
+        assertEquals(Integer.valueOf(600), address.getOption(SESSION_TIMEOUT));
     }
 }
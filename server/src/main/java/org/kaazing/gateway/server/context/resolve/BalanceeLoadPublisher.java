@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.server.context.resolve;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.kaazing.gateway.server.context.resolve.DefaultClusterContext.CLUSTER_LOGGER_NAME;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.service.cluster.BalanceeLoad;
+import org.kaazing.gateway.service.messaging.collections.CollectionsFactory;
+import org.kaazing.gateway.util.GL;
+
+/**
+ * Periodically publishes the load of a balanced service to the cluster, keyed by each of the service's
+ * accept URIs, so that balancers can select balancees by load rather than at random.
+ */
+final class BalanceeLoadPublisher implements Runnable {
+
+    private final ServiceContext serviceContext;
+    private final CollectionsFactory collectionsFactory;
+    private final Collection<URI> accepts;
+    private final int publishInterval;
+    private final OperatingSystemMXBean operatingSystem;
+    private ScheduledFuture<?> publication;
+
+    BalanceeLoadPublisher(ServiceContext serviceContext,
+                          CollectionsFactory collectionsFactory,
+                          Collection<URI> accepts,
+                          int publishInterval) {
+        this.serviceContext = serviceContext;
+        this.collectionsFactory = collectionsFactory;
+        this.accepts = new ArrayList<>(accepts);
+        this.publishInterval = publishInterval;
+        this.operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+    }
+
+    synchronized void start(ScheduledExecutorService scheduler) {
+        if (publication == null) {
+            publication = scheduler.scheduleAtFixedRate(this, 0L, publishInterval, MILLISECONDS);
+        }
+    }
+
+    synchronized void stop() {
+        if (publication != null) {
+            publication.cancel(false);
+            publication = null;
+        }
+
+        // withdraw the load so that balancers do not act on it until it goes stale
+        Map<URI, BalanceeLoad> loads = collectionsFactory.getMap(DefaultServiceContext.BALANCEE_LOAD_MAP_NAME);
+        for (URI accept : accepts) {
+            loads.remove(accept);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            int sessionCount = serviceContext.getActiveSessions().size();
+            double loadAverage = operatingSystem.getSystemLoadAverage();
+            float cpuLoad = (loadAverage < 0.0) ? -1.0f : (float) (loadAverage / operatingSystem.getAvailableProcessors());
+            BalanceeLoad load = new BalanceeLoad(sessionCount, cpuLoad, System.currentTimeMillis(), publishInterval);
+
+            Map<URI, BalanceeLoad> loads = collectionsFactory.getMap(DefaultServiceContext.BALANCEE_LOAD_MAP_NAME);
+            for (URI accept : accepts) {
+                loads.put(accept, load);
+            }
+        }
+        catch (RuntimeException e) {
+            // keep publishing, a cluster hiccup should not cancel the periodic task
+            GL.debug(CLUSTER_LOGGER_NAME, "Unable to publish balancee load for {}: {}", accepts, e);
+        }
+    }
+}
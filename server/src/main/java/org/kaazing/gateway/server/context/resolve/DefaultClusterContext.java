@@ -59,6 +59,7 @@ import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import org.kaazing.gateway.server.messaging.buffer.ClusterMemoryMessageBufferFactory;
 import org.kaazing.gateway.server.messaging.collections.ClusterCollectionsFactory;
+import org.kaazing.gateway.service.cluster.BalanceeLoad;
 import org.kaazing.gateway.service.cluster.BalancerMapListener;
 import org.kaazing.gateway.service.cluster.ClusterConnectOptionsContext;
 import org.kaazing.gateway.service.cluster.ClusterContext;
@@ -76,6 +77,7 @@ import org.kaazing.gateway.util.aws.AwsUtils;
 import org.kaazing.gateway.util.scheduler.SchedulerProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import static org.kaazing.gateway.server.context.resolve.DefaultServiceContext.BALANCEE_LOAD_MAP_NAME;
 import static org.kaazing.gateway.server.context.resolve.DefaultServiceContext.BALANCER_MAP_NAME;
 import static org.kaazing.gateway.server.context.resolve.DefaultServiceContext.MEMBERID_BALANCER_MAP_NAME;
 
@@ -519,6 +521,11 @@ public class DefaultClusterContext implements ClusterContext, LogListener {
                             }
                         } while (!sharedBalanceUriMap.replace(key, globalBalancedUris, newGlobalBalancedUris));
 
+                        Map<URI, BalanceeLoad> balanceeLoadMap = getCollectionsFactory().getMap(BALANCEE_LOAD_MAP_NAME);
+                        for (URI memberBalancedUri : memberBalancedUris) {
+                            balanceeLoadMap.remove(memberBalancedUri);
+                        }
+
                         GL.debug(CLUSTER_LOGGER_NAME, "Removed balanced URIs for cluster member {}, new global list: {}",
                                 removedMember, newGlobalBalancedUris);
                     }
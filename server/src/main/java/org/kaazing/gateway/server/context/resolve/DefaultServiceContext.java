@@ -26,6 +26,7 @@ import static java.util.Arrays.asList;
 import static org.kaazing.gateway.resource.address.ResourceAddress.CONNECT_REQUIRES_INIT;
 import static org.kaazing.gateway.resource.address.ResourceAddress.TRANSPORT;
 import static org.kaazing.gateway.server.context.resolve.DefaultClusterContext.CLUSTER_LOGGER_NAME;
+import static org.kaazing.gateway.util.InternalSystemProperty.BALANCEE_LOAD_PUBLISH_INTERVAL;
 
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
@@ -62,6 +63,7 @@ import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.session.IoSessionInitializer;
 import org.kaazing.gateway.resource.address.Protocol;
 import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.resource.address.ResourceAddressCache;
 import org.kaazing.gateway.resource.address.ResourceAddressFactory;
 import org.kaazing.gateway.resource.address.URLUtils;
 import org.kaazing.gateway.security.AuthenticationContext;
@@ -96,6 +98,7 @@ public class DefaultServiceContext implements ServiceContext {
 
     public static final String BALANCER_MAP_NAME = "balancerMap";
     public static final String MEMBERID_BALANCER_MAP_NAME = "memberIdBalancerMap";
+    public static final String BALANCEE_LOAD_MAP_NAME = "balanceeLoadMap";
 
     private static final Charset UTF_8 = Charset.forName("UTF-8");
     private static final String[] EMPTY_REQUIRE_ROLES = new String[]{};
@@ -147,9 +150,12 @@ public class DefaultServiceContext implements ServiceContext {
     private final ConnectOptionsContext connectOptionsContext;
     private final RealmContext serviceRealmContext;
     private final ResourceAddressFactory resourceAddressFactory;
+    private final ResourceAddressCache connectAddresses;
+    private volatile Map<String, Object> connectOptions;
     private final Key encryptionKey;
     private final Logger logger;
     private final SchedulerProvider schedulerProvider;
+    private BalanceeLoadPublisher balanceeLoadPublisher;
     private final boolean supportsAccepts;
     private final boolean supportsConnects;
     private final boolean supportsMimeMappings;
@@ -265,6 +271,7 @@ public class DefaultServiceContext implements ServiceContext {
         this.processorCount = processorCount;
         this.transportFactory = transportFactory;
         this.resourceAddressFactory = resourceAddressFactory;
+        this.connectAddresses = new ResourceAddressCache(resourceAddressFactory);
         this.serviceSpecificObjects = new HashMap<>();
     }
 
@@ -517,6 +524,8 @@ public class DefaultServiceContext implements ServiceContext {
             throw new IllegalArgumentException("Cannot bind without handler");
         }
 
+        connectAddresses.invalidate();
+
         for (URI uri : bindURIs) {
             bindHandlers.put(uri, handler);
         }
@@ -602,10 +611,27 @@ public class DefaultServiceContext implements ServiceContext {
                 }
 
                 memberIdBalancerUriMap.put(localMember, memberBalanceUriMap);
+
+                startBalanceeLoadPublisher(factory);
             }
         }
     }
 
+    private synchronized void startBalanceeLoadPublisher(CollectionsFactory factory) {
+        int publishInterval = BALANCEE_LOAD_PUBLISH_INTERVAL.getIntProperty(System.getProperties());
+        if (balanceeLoadPublisher == null && publishInterval > 0 && accepts != null && schedulerProvider != null) {
+            balanceeLoadPublisher = new BalanceeLoadPublisher(this, factory, accepts, publishInterval);
+            balanceeLoadPublisher.start(schedulerProvider.getScheduler("balanceeLoad", false));
+        }
+    }
+
+    private synchronized void stopBalanceeLoadPublisher() {
+        if (balanceeLoadPublisher != null) {
+            balanceeLoadPublisher.stop();
+            balanceeLoadPublisher = null;
+        }
+    }
+
     private Map<String, Object> buildResourceAddressOptions(URI transportURI, AcceptOptionsContext acceptOptionsContext) {
         // options is a new HashMap
         final Map<String, Object> options = acceptOptionsContext.asOptionsMap();
@@ -847,6 +873,7 @@ public class DefaultServiceContext implements ServiceContext {
         if (handler == null) {
             throw new IllegalArgumentException("Cannot unbind without handler");
         } else {
+            connectAddresses.invalidate();
             for (URI uri : bindURIs) {
                 IoHandler bindHandler = bindHandlers.get(uri);
                 if (bindHandler != null) {
@@ -869,6 +896,8 @@ public class DefaultServiceContext implements ServiceContext {
         if (balances != null && balances.size() > 0) {
             CollectionsFactory factory = clusterContext.getCollectionsFactory();
             if (factory != null) {
+                stopBalanceeLoadPublisher();
+
                 Map<MemberId, Map<URI, List<URI>>> memberIdBalancerUriMap = factory
                         .getMap(MEMBERID_BALANCER_MAP_NAME);
                 if (memberIdBalancerUriMap == null) {
@@ -935,7 +964,12 @@ public class DefaultServiceContext implements ServiceContext {
     @Override
     public ConnectFuture connect(URI connectURI, final IoHandler connectHandler,
                                  final IoSessionInitializer<ConnectFuture> connectSessionInitializer) {
-        ResourceAddress address = resourceAddressFactory.newResourceAddress(connectURI, connectOptionsContext.asOptionsMap());
+        Map<String, Object> connectOptions = this.connectOptions;
+        if (connectOptions == null) {
+            // built once so that connect addresses can be cached by options identity
+            connectOptions = this.connectOptions = connectOptionsContext.asOptionsMap();
+        }
+        ResourceAddress address = connectAddresses.newResourceAddress(connectURI, connectOptions);
         return connect(address, connectHandler, connectSessionInitializer);
     }
 
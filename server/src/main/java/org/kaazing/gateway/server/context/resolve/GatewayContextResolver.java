@@ -47,6 +47,8 @@ import javax.security.auth.login.AppConfigurationEntry;
 import javax.security.auth.login.AppConfigurationEntry.LoginModuleControlFlag;
 import javax.security.auth.login.Configuration;
 
+import org.kaazing.gateway.resource.address.CachingNameResolver;
+import org.kaazing.gateway.resource.address.NameResolver;
 import org.kaazing.gateway.resource.address.ResourceAddressFactory;
 import org.kaazing.gateway.security.AuthenticationContext;
 import org.kaazing.gateway.security.CrossSiteConstraintContext;
@@ -220,6 +222,7 @@ public class GatewayContextResolver {
         ClusterType[] clusterConfigs = gatewayConfig.getClusterArray();
         ClusterType clusterConfig = (clusterConfigs.length > 0) ? clusterConfigs[clusterConfigs.length - 1] : null;
 
+        CachingNameResolver.setDefaultNameResolver(resolveNameResolver(configuration));
         DefaultSecurityContext securityContext = securityResolver.resolve(securityConfig);
         RealmsContext realmsContext = resolveRealms(securityConfig, securityContext, configuration);
         DefaultServiceDefaultsContext serviceDefaultsContext = resolveServiceDefaults(serviceDefaults);
@@ -427,6 +430,15 @@ public class GatewayContextResolver {
     }
 
     @SuppressWarnings("unchecked")
+    private NameResolver resolveNameResolver(Properties configuration) {
+        return CachingNameResolver.newDefaultNameResolver(
+                InternalSystemProperty.DNS_CACHE_ENABLED.getBooleanProperty(configuration),
+                InternalSystemProperty.DNS_CACHE_TTL.getIntProperty(configuration),
+                InternalSystemProperty.DNS_CACHE_NEGATIVE_TTL.getIntProperty(configuration),
+                InternalSystemProperty.DNS_CACHE_MAXIMUM_SIZE.getIntProperty(configuration),
+                InternalSystemProperty.DNS_RESOLVER_THREADS.getIntProperty(configuration));
+    }
+
     private Collection<ServiceContext> resolveServices(ServiceRegistry serviceRegistry,
                                                        File webDir,
                                                        File tempDir,
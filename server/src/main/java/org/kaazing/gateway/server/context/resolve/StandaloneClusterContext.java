@@ -29,7 +29,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import org.kaazing.gateway.server.messaging.buffer.MemoryMessageBufferFactory;
+import org.kaazing.gateway.server.messaging.buffer.RingMessageBufferFactory;
 import org.kaazing.gateway.service.cluster.BalancerMapListener;
 import org.kaazing.gateway.service.cluster.ClusterConnectOptionsContext;
 import org.kaazing.gateway.service.cluster.ClusterContext;
@@ -56,7 +56,7 @@ public class StandaloneClusterContext implements ClusterContext {
     private final String localInstanceKey = Utils.randomHexString(16);
 
     public StandaloneClusterContext() {
-        this.messageBufferFactory = new MemoryMessageBufferFactory();
+        this.messageBufferFactory = new RingMessageBufferFactory();
         this.collectionsFactory = new MemoryCollectionsFactory();
         this.locks = new ConcurrentHashMap<>();
         this.idGenerators = new ConcurrentHashMap<>();
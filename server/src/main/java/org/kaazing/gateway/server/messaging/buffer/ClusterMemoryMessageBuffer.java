@@ -68,7 +68,7 @@ public class ClusterMemoryMessageBuffer implements MessageBuffer, Serializable {
     }
 
     private void init(int capacity) {
-        buffer = new MemoryMessageBuffer(capacity);
+        buffer = new RingMessageBuffer(capacity);
         GL.debug("messaging", "Cluster message buffer listening on {}", topicName);
         topic = cluster.getTopic(topicName);
         topic.addMessageListener(new MessageListener<MessageBufferEntry>() {
@@ -78,7 +78,7 @@ public class ClusterMemoryMessageBuffer implements MessageBuffer, Serializable {
                     GL.debug("messaing", "Received null entry");
                     return;
                 }
-                int id = entry.getId();
+                long id = entry.getId();
                 if (id > buffer.getYoungestId()) {
                     GL.debug("messaging", "Received message entry {}", entry);
                     buffer.set(id, entry.getMessage());
@@ -102,22 +102,22 @@ public class ClusterMemoryMessageBuffer implements MessageBuffer, Serializable {
     }
 
     @Override
-    public MessageBufferEntry get(int id) {
+    public MessageBufferEntry get(long id) {
         return buffer.get(id);
     }
 
     @Override
-    public MessageBufferEntry set(int index, MessagingMessage message) {
+    public MessageBufferEntry set(long index, MessagingMessage message) {
         return buffer.set(index, message);
     }
 
     @Override
-    public int getYoungestId() {
+    public long getYoungestId() {
         return buffer.getYoungestId();
     }
 
     @Override
-    public int getOldestId() {
+    public long getOldestId() {
         return buffer.getOldestId();
     }
 
@@ -31,8 +31,6 @@ import org.kaazing.gateway.service.messaging.buffer.MessageBufferListener;
 
 // TODO: could abstract into RingArray or RingArrayList in the future to use this more general purpose
 //       might need that anyway for iteration?
-// TODO: currently can only store up to MAX_INT messages and then nextId will wrap over to negative so need to
-//       account for that
 public class MemoryMessageBuffer implements MessageBuffer {
 
     private final MessageBufferListenerSupport listenerSupport;
@@ -45,7 +43,7 @@ public class MemoryMessageBuffer implements MessageBuffer {
     private final MessageBufferEntry[] messages;
     private final int capacity;
 
-    private int nextId;
+    private long nextId;
 
     public MemoryMessageBuffer(int capacity) {
         listenerSupport = new MessageBufferListenerSupport();
@@ -63,9 +61,9 @@ public class MemoryMessageBuffer implements MessageBuffer {
     public MessageBufferEntry add(MessagingMessage message) {
         writeLock.lock();
         try {
-            int id = nextId++;
+            long id = nextId++;
             MessageBufferEntry m = new MessageBufferEntry(id, message);
-            messages[id % capacity] = m;
+            messages[slot(id)] = m;
             listenerSupport.messageAdded(m);
             return m;
         } finally {
@@ -74,14 +72,14 @@ public class MemoryMessageBuffer implements MessageBuffer {
     }
 
     @Override
-    public MessageBufferEntry set(int index, MessagingMessage message) {
+    public MessageBufferEntry set(long index, MessagingMessage message) {
         writeLock.lock();
         try {
             if (nextId <= index) {
                 nextId = index + 1;
             }
             MessageBufferEntry m = new MessageBufferEntry(index, message);
-            messages[index % capacity] = m;
+            messages[slot(index)] = m;
             listenerSupport.messageAdded(m);
             return m;
         } finally {
@@ -90,17 +88,16 @@ public class MemoryMessageBuffer implements MessageBuffer {
     }
 
     @Override
-    public MessageBufferEntry get(int id) {
+    public MessageBufferEntry get(long id) {
         if (id < 1) {
             return null;
         }
         readLock.lock();
         try {
-            // TODO: verify this works with adjustment of wrapping nextId
             if (id >= nextId || id < (nextId - capacity)) {
                 return null;
             }
-            MessageBufferEntry message = messages[id % capacity];
+            MessageBufferEntry message = messages[slot(id)];
             return message;
         } finally {
             readLock.unlock();
@@ -108,7 +105,7 @@ public class MemoryMessageBuffer implements MessageBuffer {
     }
 
     @Override
-    public int getYoungestId() {
+    public long getYoungestId() {
         readLock.lock();
         try {
             return nextId - 1;
@@ -118,10 +115,10 @@ public class MemoryMessageBuffer implements MessageBuffer {
     }
 
     @Override
-    public int getOldestId() {
+    public long getOldestId() {
         readLock.lock();
         try {
-            int id = nextId - capacity;
+            long id = nextId - capacity;
             return (id < 1) ? 1 : id;
         } finally {
             readLock.unlock();
@@ -143,4 +140,8 @@ public class MemoryMessageBuffer implements MessageBuffer {
         listenerSupport.removeMessageBufferListener(listener);
     }
 
+    private int slot(long id) {
+        return (int) (id % capacity);
+    }
+
 }
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.server.messaging.buffer;
+
+import org.kaazing.gateway.service.messaging.MessagingMessage;
+import org.kaazing.gateway.service.messaging.buffer.MessageBuffer;
+import org.kaazing.gateway.service.messaging.buffer.MessageBufferEntry;
+import org.kaazing.gateway.service.messaging.buffer.MessageBufferListener;
+
+/**
+ * Ring of the most recent messages, read without locking.
+ *
+ * Writers are serialized on the buffer, which is uncontended for the usual single publisher.
+ * Each slot is preallocated and reused as the entry for every message written to it, so adding
+ * a message allocates nothing.  A slot is marked as being written before its message changes and
+ * stamped with the new id afterwards, so a reader that reads the message of an entry and then
+ * finds the id it asked for has read that message; otherwise the entry was overtaken by a newer
+ * message and is treated as expired.  Ids are longs, so they do not wrap in the lifetime of the
+ * buffer.
+ */
+public class RingMessageBuffer implements MessageBuffer {
+
+    private static final long WRITING = -1L;
+
+    private final MessageBufferListenerSupport listenerSupport;
+
+    private final Slot[] slots;
+    private final int capacity;
+
+    // written only while holding the writer lock, published after the slot is written
+    private volatile long youngestId;
+
+    public RingMessageBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+
+        listenerSupport = new MessageBufferListenerSupport();
+        this.capacity = capacity;
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    @Override
+    public synchronized MessageBufferEntry add(MessagingMessage message) {
+        return put(youngestId + 1, message);
+    }
+
+    @Override
+    public synchronized MessageBufferEntry set(long index, MessagingMessage message) {
+        return put(index, message);
+    }
+
+    /**
+     * Returns the entry for the given id, or null if it has expired.  The entry is reused once
+     * {@link #getCapacity()} newer messages have been added, so readers holding on to it should
+     * check {@link MessageBufferEntry#getId()} after {@link MessageBufferEntry#getMessage()}.
+     */
+    @Override
+    public MessageBufferEntry get(long id) {
+        if (id < 1) {
+            return null;
+        }
+
+        long youngestId = this.youngestId;
+        if (id > youngestId || id <= youngestId - capacity) {
+            return null;
+        }
+
+        // slot may since have been overwritten by a newer message
+        Slot slot = slots[slot(id)];
+        return (slot.id == id) ? slot : null;
+    }
+
+    @Override
+    public long getYoungestId() {
+        return youngestId;
+    }
+
+    @Override
+    public long getOldestId() {
+        long id = youngestId + 1 - capacity;
+        return (id < 1) ? 1 : id;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void addMessageBufferListener(MessageBufferListener listener) {
+        listenerSupport.addMessageBufferListener(listener);
+    }
+
+    @Override
+    public void removeMessageBufferListener(MessageBufferListener listener) {
+        listenerSupport.removeMessageBufferListener(listener);
+    }
+
+    // caller holds the writer lock
+    private MessageBufferEntry put(long id, MessagingMessage message) {
+        Slot slot = slots[slot(id)];
+        slot.id = WRITING;
+        slot.message = message;
+        slot.id = id;
+        if (youngestId < id) {
+            youngestId = id;
+        }
+        listenerSupport.messageAdded(slot);
+        return slot;
+    }
+
+    private int slot(long id) {
+        return (int) (id % capacity);
+    }
+
+    private static final class Slot extends MessageBufferEntry {
+
+        private static final long serialVersionUID = 1L;
+
+        private volatile long id;
+        private volatile MessagingMessage message;
+
+        Slot() {
+            super(0L, null);
+        }
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public MessagingMessage getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return snapshot().toString();
+        }
+
+        // serialized as the entry it currently holds
+        private Object writeReplace() {
+            return snapshot();
+        }
+
+        private MessageBufferEntry snapshot() {
+            MessagingMessage message = this.message;
+            return new MessageBufferEntry(id, message);
+        }
+    }
+}
@@ -219,6 +219,12 @@ public class AcceptOptionsTest {
         expectParseFailure("ssl.encryption", "badvalue");
     }
 
+    @Test
+    public void testSslSessionOptions() throws Exception {
+        expectSuccess("ssl.session.cache.size", "1000", TransportOptionNames.SSL_SESSION_CACHE_SIZE, 1000);
+        expectSuccess("ssl.session.timeout", "10 minutes", TransportOptionNames.SSL_SESSION_TIMEOUT, 600);
+    }
+
     @Test(expected = GatewayConfigParserException.class)
     public void testNegativeHttpKeepaliveTimeout() throws Exception {
         File configFile = null;
@@ -120,7 +120,7 @@ public class TestMemoryMessageBuffer {
         MessageBuffer buffer = new MemoryMessageBuffer(1000);
         for (int i = 0; i < 20000; i++) {
             buffer.add(new DefaultMessagingMessage());
-            int lastMessageId = buffer.getYoungestId();
+            long lastMessageId = buffer.getYoungestId();
             assertTrue(lastMessageId == i + 1);
         }
 
@@ -0,0 +1,244 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.server.messaging.buffer;
+
+import java.io.PrintWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.kaazing.gateway.server.messaging.DefaultMessagingMessage;
+import org.kaazing.gateway.service.messaging.MessagingMessage;
+import org.kaazing.gateway.service.messaging.buffer.MessageBuffer;
+import org.kaazing.gateway.service.messaging.buffer.MessageBufferEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestRingMessageBuffer {
+
+    private static final String BENCHMARK_FILENAME = "message-buffer-benchmark.csv";
+    private static final int BENCHMARK_READERS = 32;
+    private static final int BENCHMARK_MESSAGES = 1000000;
+    private static final int BENCHMARK_CAPACITY = 1024;
+
+    public static void main(String[] args) throws Throwable {
+        new TestRingMessageBuffer().benchmark();
+    }
+
+    /**
+     * Compares the ring buffer with the read/write locked memory buffer for one writer adding
+     * messages while readers repeatedly read every buffered message.
+     */
+    public void benchmark() throws Throwable {
+        PrintWriter writer = new PrintWriter(BENCHMARK_FILENAME, "UTF-8");
+        try {
+            writer.write("BUFFER,READERS,MESSAGES,WRITE_NS_PER_OP,READS_PER_MS\n");
+            for (int round = 0; round < 2; round++) {
+                // first round warms up
+                benchmark0(writer, new MemoryMessageBuffer(BENCHMARK_CAPACITY));
+                benchmark0(writer, new RingMessageBuffer(BENCHMARK_CAPACITY));
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private void benchmark0(PrintWriter writer, final MessageBuffer buffer) throws Exception {
+        final AtomicBoolean done = new AtomicBoolean();
+        final CountDownLatch started = new CountDownLatch(BENCHMARK_READERS);
+        final MessagingMessage message = new DefaultMessagingMessage();
+
+        ExecutorService executor = Executors.newFixedThreadPool(BENCHMARK_READERS);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < BENCHMARK_READERS; i++) {
+                futures.add(executor.submit(() -> {
+                    started.countDown();
+                    long reads = 0;
+                    while (!done.get()) {
+                        long youngestId = buffer.getYoungestId();
+                        for (long id = buffer.getOldestId(); id <= youngestId; id++) {
+                            if (buffer.get(id) != null) {
+                                reads++;
+                            }
+                        }
+                    }
+                    return reads;
+                }));
+            }
+
+            started.await();
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_MESSAGES; i++) {
+                buffer.add(message);
+            }
+            long elapsed = System.nanoTime() - start;
+            done.set(true);
+
+            long reads = 0;
+            for (Future<Long> future : futures) {
+                reads += future.get(10, TimeUnit.SECONDS);
+            }
+
+            writer.write(String.format("%s,%d,%d,%.1f,%d\n", buffer.getClass().getSimpleName(), BENCHMARK_READERS,
+                    BENCHMARK_MESSAGES, (double) elapsed / BENCHMARK_MESSAGES, reads / Math.max(TimeUnit.NANOSECONDS.toMillis(elapsed), 1L)));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBuffer() throws Exception {
+        MessageBuffer buffer = new RingMessageBuffer(10);
+        assertEquals(0, buffer.getYoungestId());
+        assertEquals(1, buffer.getOldestId());
+
+        for (int i = 0; i < 20; i++) {
+            buffer.add(new DefaultMessagingMessage());
+        }
+
+        assertNull(buffer.get(-1));
+        assertNull(buffer.get(0));
+        assertNull(buffer.get(10));
+        assertNull(buffer.get(21));
+
+        assertNotNull(buffer.get(11));
+        assertEquals(11, buffer.get(11).getId());
+        assertNotNull(buffer.get(20));
+        assertEquals(20, buffer.get(20).getId());
+
+        assertEquals(20, buffer.getYoungestId());
+        assertEquals(11, buffer.getOldestId());
+    }
+
+    @Test
+    public void testSet() throws Exception {
+        MessageBuffer buffer = new RingMessageBuffer(10);
+        buffer.set(5, new DefaultMessagingMessage());
+
+        assertEquals(5, buffer.getYoungestId());
+        assertEquals(5, buffer.get(5).getId());
+        assertNull(buffer.get(4));
+
+        MessageBufferEntry entry = buffer.add(new DefaultMessagingMessage());
+        assertEquals(6, entry.getId());
+    }
+
+    @Test
+    public void testIdsBeyondIntegerRange() throws Exception {
+        MessageBuffer buffer = new RingMessageBuffer(10);
+        buffer.set(Integer.MAX_VALUE, new DefaultMessagingMessage());
+
+        MessageBufferEntry entry = buffer.add(new DefaultMessagingMessage());
+        assertEquals(Integer.MAX_VALUE + 1L, entry.getId());
+        assertEquals(Integer.MAX_VALUE + 1L, buffer.getYoungestId());
+        assertEquals(Integer.MAX_VALUE - 8L, buffer.getOldestId());
+        assertEquals(Integer.MAX_VALUE, buffer.get(Integer.MAX_VALUE).getId());
+        assertEquals(Integer.MAX_VALUE + 1L, buffer.get(Integer.MAX_VALUE + 1L).getId());
+    }
+
+    @Test
+    public void testAddReusesSlots() throws Exception {
+        MessageBuffer buffer = new RingMessageBuffer(10);
+        MessagingMessage message = new DefaultMessagingMessage();
+        MessageBufferEntry entry = buffer.add(message);
+        assertSame(message, entry.getMessage());
+
+        for (int i = 0; i < 9; i++) {
+            buffer.add(new DefaultMessagingMessage());
+        }
+
+        // the eleventh message overwrites the slot of the first
+        MessagingMessage newMessage = new DefaultMessagingMessage();
+        assertSame(entry, buffer.add(newMessage));
+        assertEquals(11, entry.getId());
+        assertSame(newMessage, entry.getMessage());
+        assertNull(buffer.get(1));
+    }
+
+    @Test
+    public void testConcurrentReaders() throws Exception {
+        final int readers = 32;
+        final int messages = 100000;
+        final MessageBuffer buffer = new RingMessageBuffer(64);
+        final AtomicBoolean done = new AtomicBoolean();
+        final CountDownLatch started = new CountDownLatch(readers);
+        final MessagingMessage[] messagesById = new MessagingMessage[messages + 1];
+        for (int i = 1; i <= messages; i++) {
+            messagesById[i] = new DefaultMessagingMessage();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                futures.add(executor.submit(() -> {
+                    started.countDown();
+                    long reads = 0;
+                    while (!done.get()) {
+                        long youngestId = buffer.getYoungestId();
+                        for (long id = buffer.getOldestId(); id <= youngestId; id++) {
+                            MessageBufferEntry entry = buffer.get(id);
+                            if (entry != null) {
+                                MessagingMessage message = entry.getMessage();
+                                // overtaken entries read as expired, never as a different message
+                                if (entry.getId() == id) {
+                                    assertSame(messagesById[(int) id], message);
+                                }
+                            }
+                            reads++;
+                        }
+                    }
+                    return reads;
+                }));
+            }
+
+            started.await();
+            for (int i = 1; i <= messages; i++) {
+                buffer.add(messagesById[i]);
+            }
+            done.set(true);
+
+            long reads = 0;
+            for (Future<Long> future : futures) {
+                reads += future.get(10, TimeUnit.SECONDS);
+            }
+
+            assertEquals(messages, buffer.getYoungestId());
+            assertTrue("readers should have read entries", reads > 0);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.mina.core.session.IoSession;
+
+import org.kaazing.gateway.transport.TypedAttributeKey;
+
+/**
+ * Per-client broadcast state: the messages held back while the client is a slow consumer, the bytes
+ * written to the client that it has not sent yet, and the cached root transport session used to
+ * measure how far behind the client is.
+ */
+final class BroadcastClientState {
+
+    private static final TypedAttributeKey<BroadcastClientState> CLIENT_STATE =
+            new TypedAttributeKey<>(BroadcastClientState.class, "clientState");
+
+    private final Deque<Object> pending;
+    private volatile RootSession rootSession;
+    private long droppedMessages;
+    private long unsentBytes;
+
+    private BroadcastClientState() {
+        this.pending = new ArrayDeque<>();
+    }
+
+    static BroadcastClientState get(IoSession client) {
+        BroadcastClientState state = CLIENT_STATE.get(client);
+        if (state == null) {
+            BroadcastClientState newState = new BroadcastClientState();
+            state = CLIENT_STATE.setIfAbsent(client, newState);
+            if (state == null) {
+                state = newState;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Returns the root session cached for the given parent, or null when the parent has changed
+     * since the root was cached (e.g. a new downstream for an emulated WebSocket client).
+     */
+    IoSession getRootSession(IoSession parent) {
+        RootSession rootSession = this.rootSession;
+        return (rootSession != null && rootSession.parent == parent) ? rootSession.root : null;
+    }
+
+    void setRootSession(IoSession parent, IoSession root) {
+        this.rootSession = new RootSession(parent, root);
+    }
+
+    /**
+     * Queues a message, discarding the oldest queued messages beyond the given capacity.
+     */
+    synchronized void offer(Object message, int capacity) {
+        pending.addLast(message);
+        while (pending.size() > capacity) {
+            pending.removeFirst();
+            droppedMessages++;
+        }
+    }
+
+    synchronized Object poll() {
+        return pending.pollFirst();
+    }
+
+    synchronized boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    synchronized void written(long bytes) {
+        unsentBytes += bytes;
+    }
+
+    synchronized void sent(long bytes) {
+        unsentBytes = Math.max(unsentBytes - bytes, 0L);
+    }
+
+    synchronized long getUnsentBytes() {
+        return unsentBytes;
+    }
+
+    synchronized void drop() {
+        droppedMessages++;
+    }
+
+    synchronized long getDroppedMessages() {
+        return droppedMessages;
+    }
+
+    private static final class RootSession {
+        private final IoSession parent;
+        private final IoSession root;
+
+        RootSession(IoSession parent, IoSession root) {
+            this.parent = parent;
+            this.root = root;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+import static java.util.Collections.unmodifiableCollection;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.util.ConcurrentHashSet;
+
+import org.kaazing.mina.core.session.IoSessionEx;
+
+/**
+ * Broadcast client sessions, partitioned by the I/O thread that owns them so that each
+ * broadcast message can be written by each I/O thread to its own sessions only.
+ */
+final class BroadcastClients extends AbstractCollection<IoSession> {
+
+    private final ConcurrentMap<Thread, Partition> partitions;
+    private final Partition unaligned;
+    private final boolean modifiable;
+
+    BroadcastClients() {
+        this(new ConcurrentHashMap<Thread, Partition>(), new Partition(null, null), true);
+    }
+
+    private BroadcastClients(ConcurrentMap<Thread, Partition> partitions, Partition unaligned, boolean modifiable) {
+        this.partitions = partitions;
+        this.unaligned = unaligned;
+        this.modifiable = modifiable;
+    }
+
+    /**
+     * Returns a read-only view of these clients, which reflects later additions and removals.
+     */
+    BroadcastClients unmodifiableView() {
+        return new BroadcastClients(partitions, unaligned, false);
+    }
+
+    /**
+     * Returns the partitions of I/O aligned clients, each with the executor of its I/O thread.
+     */
+    Collection<Partition> getPartitions() {
+        return unmodifiableCollection(partitions.values());
+    }
+
+    /**
+     * Returns the partition of clients that are not aligned with an I/O thread.
+     */
+    Partition getUnalignedPartition() {
+        return unaligned;
+    }
+
+    @Override
+    public boolean add(IoSession session) {
+        checkModifiable();
+        return partitionOf(session).sessions.add(session);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        checkModifiable();
+        if (!(o instanceof IoSession)) {
+            return false;
+        }
+
+        IoSession session = (IoSession) o;
+        if (partitionOf(session).sessions.remove(session)) {
+            return true;
+        }
+
+        // session may have been realigned since it was added
+        for (Partition partition : partitions.values()) {
+            if (partition.sessions.remove(session)) {
+                return true;
+            }
+        }
+        return unaligned.sessions.remove(session);
+    }
+
+    @Override
+    public Iterator<IoSession> iterator() {
+        List<IoSession> snapshot = new ArrayList<>(unaligned.sessions);
+        for (Partition partition : partitions.values()) {
+            snapshot.addAll(partition.sessions);
+        }
+        return unmodifiableList(snapshot).iterator();
+    }
+
+    @Override
+    public int size() {
+        int size = unaligned.sessions.size();
+        for (Partition partition : partitions.values()) {
+            size += partition.sessions.size();
+        }
+        return size;
+    }
+
+    private void checkModifiable() {
+        if (!modifiable) {
+            throw new UnsupportedOperationException("Broadcast clients view is read-only");
+        }
+    }
+
+    private Partition partitionOf(IoSession session) {
+        if (!(session instanceof IoSessionEx)) {
+            return unaligned;
+        }
+
+        IoSessionEx sessionEx = (IoSessionEx) session;
+        Thread ioThread = sessionEx.getIoThread();
+        if (ioThread == null || !sessionEx.isIoAligned()) {
+            return unaligned;
+        }
+
+        Partition partition = partitions.get(ioThread);
+        if (partition == null) {
+            Partition newPartition = new Partition(ioThread, sessionEx.getIoExecutor());
+            partition = partitions.putIfAbsent(ioThread, newPartition);
+            if (partition == null) {
+                partition = newPartition;
+            }
+        }
+        return partition;
+    }
+
+    static final class Partition {
+        private final Thread ioThread;
+        private final Executor ioExecutor;
+        private final Collection<IoSession> sessions;
+        private final Collection<IoSession> unmodifiableSessions;
+
+        Partition(Thread ioThread, Executor ioExecutor) {
+            this.ioThread = ioThread;
+            this.ioExecutor = ioExecutor;
+            this.sessions = new ConcurrentHashSet<>();
+            this.unmodifiableSessions = unmodifiableCollection(sessions);
+        }
+
+        Thread getIoThread() {
+            return ioThread;
+        }
+
+        Executor getIoExecutor() {
+            return ioExecutor;
+        }
+
+        Collection<IoSession> getSessions() {
+            return unmodifiableSessions;
+        }
+    }
+}
@@ -21,32 +21,45 @@
 
 package org.kaazing.gateway.service.broadcast;
 
+import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_SHARED;
+
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.core.service.IoHandlerAdapter;
 import org.apache.mina.core.session.IoSession;
 import org.slf4j.Logger;
 
+import org.kaazing.gateway.service.broadcast.BroadcastClients.Partition;
 import org.kaazing.gateway.transport.BridgeSession;
 import org.kaazing.gateway.transport.bridge.Message;
+import org.kaazing.gateway.transport.bridge.MessageBuffer;
 import org.kaazing.gateway.transport.io.filter.IoMessageCodecFilter;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.IoSessionEx;
 
 public class BroadcastListenHandler extends IoHandlerAdapter {
 
-    private final Collection<IoSession> clients;
+    private final BroadcastClients clients;
     private final IoMessageCodecFilter codec;
     private final boolean disconnectClientsOnReconnect;
     private final long maximumScheduledWriteBytes;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final int slowConsumerQueueSize;
     private final Logger logger;
 	
-	public BroadcastListenHandler(Collection<IoSession> clients, boolean disconnectClientsOnReconnect, long maximumScheduledWriteBytes, Logger logger) {
+	public BroadcastListenHandler(BroadcastClients clients, boolean disconnectClientsOnReconnect, long maximumScheduledWriteBytes,
+	        SlowConsumerPolicy slowConsumerPolicy, int slowConsumerQueueSize, Logger logger) {
 		this.clients = clients;
 		this.codec = new IoMessageCodecFilter();
 		this.disconnectClientsOnReconnect = disconnectClientsOnReconnect;
 		this.logger = logger;
 		this.maximumScheduledWriteBytes = maximumScheduledWriteBytes;
+		this.slowConsumerPolicy = slowConsumerPolicy;
+		this.slowConsumerQueueSize = slowConsumerQueueSize;
 	}
 
 	@Override
@@ -67,24 +80,48 @@ public class BroadcastListenHandler extends IoHandlerAdapter {
 
     @Override
 	public void messageReceived(IoSession session, Object message) throws Exception {
-        if (message instanceof IoBuffer) {
-			IoBuffer buf = (IoBuffer) message;
-			for (IoSession client : clients) {
-			    writeOrClose(client, buf);
-			}
+        if (message instanceof IoBufferEx) {
+			IoBufferEx buf = (IoBufferEx) message;
+			fanout(new SharedFrame(buf.duplicate()));
 			buf.skip(buf.remaining());
 		}
 		else {
 	        if (message instanceof Message) {
+	            // encoded at most once per wire format
 	            ((Message)message).initCache();
 	        }
-	        
-			for (IoSession client : clients) {
-			    writeOrClose(client, message);
-			}
+
+			fanout(message);
 		}
 	}
- 
+
+    // each I/O thread writes the message to its own client sessions only, so writes to a client
+    // never hop threads, while the encoding cache of the message is shared by all clients
+    private void fanout(Object message) {
+        Thread currentThread = Thread.currentThread();
+        for (Partition partition : clients.getPartitions()) {
+            Collection<IoSession> sessions = partition.getSessions();
+            if (sessions.isEmpty()) {
+                continue;
+            }
+
+            if (partition.getIoThread() == currentThread) {
+                writeOrClose(sessions, message);
+            }
+            else {
+                partition.getIoExecutor().execute(new FanoutTask(sessions, message));
+            }
+        }
+
+        writeOrClose(clients.getUnalignedPartition().getSessions(), message);
+    }
+
+    private void writeOrClose(Collection<IoSession> sessions, Object message) {
+        for (IoSession client : sessions) {
+            writeOrClose(client, message);
+        }
+    }
+
     @Override
     public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
         if (logger.isDebugEnabled()) {
@@ -96,28 +133,174 @@ public class BroadcastListenHandler extends IoHandlerAdapter {
     }
 
     private void writeOrClose(IoSession client, Object message) {
-        long scheduledWriteBytes = getScheduledWriteBytes(client);
-        if (logger.isDebugEnabled()) {
-            logger.debug(String.format("BroadcastListenHandler: session %d: scheduledWriteBytes = %d", client.getId(), scheduledWriteBytes));
+        if (client.isClosing()) {
+            return;
         }
 
-        if (!client.isClosing()) {
+        if (message instanceof SharedFrame) {
+            message = ((SharedFrame) message).get(client);
+        }
+
+        BroadcastClientState state = BroadcastClientState.get(client);
+        synchronized (state) {
+            long scheduledWriteBytes = getScheduledWriteBytes(client, state);
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("BroadcastListenHandler: session %d: scheduledWriteBytes = %d", client.getId(), scheduledWriteBytes));
+            }
+
             if (scheduledWriteBytes > maximumScheduledWriteBytes) {
-                if (logger.isInfoEnabled()) {
-                    String logMessage = String.format("Closing client session %s because scheduled write bytes %d exceeds the configured limit of %d",
-                            client, scheduledWriteBytes, maximumScheduledWriteBytes); 
-                    logger.info(logMessage);
-                }
-                client.close(true); 
-                // BroadcastServiceHandler.sessionClosed(IoSession) will take care of removing client from clients
+                slowConsumer(client, state, message, scheduledWriteBytes);
             }
             else {
-                client.write(message);
+                // keep messages in order behind any held back while the client was slow
+                flushPending(client, state);
+                write(client, state, message);
+            }
+        }
+    }
+
+    private void write(IoSession client, BroadcastClientState state, Object message) {
+        if (isQueueing()) {
+            state.written(sizeOf(message));
+        }
+        client.write(message);
+    }
+
+    private void slowConsumer(IoSession client, BroadcastClientState state, Object message, long scheduledWriteBytes) {
+        switch (slowConsumerPolicy) {
+        case DROP_NEWEST:
+            state.drop();
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("Dropping message for client session %s because scheduled write bytes %d exceeds the configured limit of %d",
+                        client, scheduledWriteBytes, maximumScheduledWriteBytes));
+            }
+            break;
+        case DROP_OLDEST:
+            state.offer(message, slowConsumerQueueSize);
+            break;
+        case CONFLATE:
+            state.offer(message, 1);
+            break;
+        default:
+            if (logger.isInfoEnabled()) {
+                String logMessage = String.format("Closing client session %s because scheduled write bytes %d exceeds the configured limit of %d",
+                        client, scheduledWriteBytes, maximumScheduledWriteBytes); 
+                logger.info(logMessage);
+            }
+            client.close(true); 
+            // BroadcastServiceHandler.sessionClosed(IoSession) will take care of removing client from clients
+            break;
+        }
+    }
+
+    /**
+     * Called when a message written to the client has been sent, writes messages held back for the client
+     * for as long as it stays within the configured limit.
+     */
+    void messageSent(IoSession client, Object message) {
+        if (isQueueing()) {
+            BroadcastClientState state = BroadcastClientState.get(client);
+            synchronized (state) {
+                state.sent(sizeOf(message));
+                flushPending(client, state);
+            }
+        }
+    }
+
+    private void flushPending(IoSession client, BroadcastClientState state) {
+        while (state.hasPending() && !client.isClosing() &&
+                getScheduledWriteBytes(client, state) <= maximumScheduledWriteBytes) {
+            write(client, state, state.poll());
+        }
+    }
+
+    // queued messages are only drained by messageSent on the client, so the client's own unsent bytes
+    // decide both when messages are held back and when they are written again
+    private boolean isQueueing() {
+        return slowConsumerPolicy == SlowConsumerPolicy.DROP_OLDEST || slowConsumerPolicy == SlowConsumerPolicy.CONFLATE;
+    }
+
+    private static long sizeOf(Object message) {
+        return (message instanceof IoBufferEx) ? ((IoBufferEx) message).remaining() : 0L;
+    }
+
+    /**
+     * Bytes received by the listen session, wrapped once per client buffer allocator as a shared buffer.
+     *
+     * Clients with the same allocator write the same frame, so the message created by the first write of the frame
+     * is shared by every client, and each wire format is encoded once into a shared buffer that is then written to
+     * each client's transport session.
+     */
+    static final class SharedFrame {
+        private final IoBufferEx buf;
+        private final ConcurrentMap<Class<?>, IoBufferEx> frames;
+
+        SharedFrame(IoBufferEx buf) {
+            this.buf = buf;
+            this.frames = new ConcurrentHashMap<>();
+        }
+
+        IoBufferEx get(IoSession client) {
+            if (!(client instanceof IoSessionEx)) {
+                return buf.duplicate();
+            }
+
+            IoBufferAllocatorEx<?> allocator = ((IoSessionEx) client).getBufferAllocator();
+            Class<?> allocatorClass = allocator.getClass();
+            IoBufferEx frame = frames.get(allocatorClass);
+            if (frame == null) {
+                // each frame has its own NIO buffer position, as message buffers do not keep a view per thread
+                IoBufferEx newFrame = allocator.wrap(buf.buf().duplicate(), FLAG_SHARED);
+                if (newFrame instanceof MessageBuffer) {
+                    // cache the encoding of the message created for the first write of the frame
+                    ((MessageBuffer<?>) newFrame).setAutoCache(true);
+                }
+                frame = frames.putIfAbsent(allocatorClass, newFrame);
+                if (frame == null) {
+                    frame = newFrame;
+                }
+            }
+            return frame;
+        }
+    }
+
+    private final class FanoutTask implements Runnable {
+        private final Collection<IoSession> sessions;
+        private final Object message;
+
+        FanoutTask(Collection<IoSession> sessions, Object message) {
+            this.sessions = sessions;
+            this.message = message;
+        }
+
+        @Override
+        public void run() {
+            writeOrClose(sessions, message);
+        }
+    }
+
+    private long getScheduledWriteBytes(IoSession client, BroadcastClientState state) {
+        if (isQueueing()) {
+            return state.getUnsentBytes();
+        }
+
+        if (!(client instanceof BridgeSession)) {
+            return client.getScheduledWriteBytes();
+        }
+
+        // only the nearest parent can change during the life of a client (e.g. emulated WebSocket downstreams)
+        IoSession parent = ((BridgeSession) client).getParent();
+        IoSession root = state.getRootSession(parent);
+        if (root == null) {
+            root = getRootSession(client);
+            if (parent != null) {
+                state.setRootSession(parent, root);
             }
         }
+        return root.getScheduledWriteBytes();
     }
 
-    private long getScheduledWriteBytes(IoSession client) {
+    private IoSession getRootSession(IoSession client) {
         IoSession session = client;
         while (session instanceof BridgeSession) {
             IoSession parent = ((BridgeSession)session).getParent();
@@ -129,7 +312,7 @@ public class BroadcastListenHandler extends IoHandlerAdapter {
             }
             session = parent; 
         }
-        return session.getScheduledWriteBytes();
+        return session;
     }
 
 }
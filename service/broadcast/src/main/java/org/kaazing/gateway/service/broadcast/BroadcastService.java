@@ -118,11 +118,24 @@ public class BroadcastService implements Service {
             gatewayLogger.info(String.format("Broadcast service: limiting maximum scheduled write bytes to %d",
                     maximumScheduledWriteBytes));
         }
+
+        ServiceProperties properties = serviceContext.getProperties();
+        String slowConsumerPolicyName = properties.get("slow.consumer.policy");
+        SlowConsumerPolicy slowConsumerPolicy = (slowConsumerPolicyName != null) ?
+                SlowConsumerPolicy.fromString(slowConsumerPolicyName) : SlowConsumerPolicy.CLOSE;
+        String slowConsumerQueueSize = properties.get("slow.consumer.queue.size");
+        int queueSize = (slowConsumerQueueSize != null) ? Integer.parseInt(slowConsumerQueueSize) : 16;
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("slow.consumer.queue.size must be positive: " + queueSize);
+        }
+        if (slowConsumerPolicy != SlowConsumerPolicy.CLOSE) {
+            gatewayLogger.info(String.format("Broadcast service: using slow consumer policy %s", slowConsumerPolicy));
+        }
+
         this.handler = new BroadcastServiceHandler(disconnectClientsOnReconnect, maximumScheduledWriteBytes,
-                serviceContext.getLogger());
+                slowConsumerPolicy, queueSize, serviceContext.getLogger());
 
         Collection<URI> connectURIs = serviceContext.getConnects();
-        ServiceProperties properties = serviceContext.getProperties();
         String accept = properties.get("accept");
         String reconnectDelay = properties.get("reconnect.delay");
         // TODO: change error message when connect property is documented
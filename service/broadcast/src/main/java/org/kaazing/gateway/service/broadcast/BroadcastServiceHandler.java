@@ -22,14 +22,11 @@
 package org.kaazing.gateway.service.broadcast;
 
 import java.nio.channels.ClosedChannelException;
-import java.util.Collection;
-import java.util.Collections;
 
 import org.apache.mina.core.filterchain.IoFilter;
 import org.apache.mina.core.service.IoHandler;
 import org.apache.mina.core.service.IoHandlerAdapter;
 import org.apache.mina.core.session.IoSession;
-import org.apache.mina.util.ConcurrentHashSet;
 import org.slf4j.Logger;
 
 import org.kaazing.gateway.transport.io.filter.IoMessageCodecFilter;
@@ -37,16 +34,16 @@ import org.kaazing.gateway.transport.io.filter.IoMessageCodecFilter;
 class BroadcastServiceHandler extends IoHandlerAdapter {
 
     private final IoFilter codec;
-    private final Collection<IoSession> clients;
-    private final IoHandler handler;
+    private final BroadcastClients clients;
+    private final BroadcastListenHandler handler;
     private final Logger logger;
     private IoSession connectSession;
 
-    BroadcastServiceHandler(boolean disconnectClientsOnReconnect, long maximumScheduledWriteBytes, Logger logger)
-            throws Exception {
-        this.clients = new ConcurrentHashSet<>();
-        this.handler = new BroadcastListenHandler(Collections.unmodifiableCollection(clients),
-                disconnectClientsOnReconnect, maximumScheduledWriteBytes, logger);
+    BroadcastServiceHandler(boolean disconnectClientsOnReconnect, long maximumScheduledWriteBytes,
+            SlowConsumerPolicy slowConsumerPolicy, int slowConsumerQueueSize, Logger logger) throws Exception {
+        this.clients = new BroadcastClients();
+        this.handler = new BroadcastListenHandler(clients.unmodifiableView(), disconnectClientsOnReconnect,
+                maximumScheduledWriteBytes, slowConsumerPolicy, slowConsumerQueueSize, logger);
         this.codec = new IoMessageCodecFilter();
         this.logger = logger;
     }
@@ -84,10 +81,17 @@ class BroadcastServiceHandler extends IoHandlerAdapter {
         clients.add(session);
     }
 
+    @Override
+    public void messageSent(IoSession session, Object message) throws Exception {
+        handler.messageSent(session, message);
+    }
+
     @Override
     public void sessionClosed(IoSession session) throws Exception {
         if (logger.isDebugEnabled()) {
-            logger.debug(String.format("BroadcastServiceHandler: session closed on %s", session.toString()));
+            long droppedMessages = BroadcastClientState.get(session).getDroppedMessages();
+            logger.debug(String.format("BroadcastServiceHandler: session closed on %s, %d message(s) dropped",
+                    session.toString(), droppedMessages));
         }
 
         clients.remove(session);
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+/**
+ * What the broadcast service does with a message for a client whose scheduled write bytes
+ * exceed the configured maximum.
+ */
+enum SlowConsumerPolicy {
+
+    /**
+     * Close the client session (the default).
+     */
+    CLOSE("close"),
+
+    /**
+     * Discard the new message, keeping the messages already scheduled for the client.
+     */
+    DROP_NEWEST("drop-newest"),
+
+    /**
+     * Queue the new message in a bounded per-client backlog, discarding the oldest queued
+     * message when the backlog is full.
+     */
+    DROP_OLDEST("drop-oldest"),
+
+    /**
+     * Keep only the latest message for the client, replacing any message already queued.
+     */
+    CONFLATE("conflate");
+
+    private final String name;
+
+    private SlowConsumerPolicy(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    static SlowConsumerPolicy fromString(String name) {
+        for (SlowConsumerPolicy policy : values()) {
+            if (policy.name.equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unrecognized slow consumer policy: " + name);
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.mina.core.session.IoSession;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BroadcastClientStateTest {
+
+    private Mockery context;
+    private BroadcastClientState state;
+
+    @Before
+    public void setup() {
+        context = new Mockery();
+        final IoSession client = context.mock(IoSession.class);
+        context.checking(new Expectations() {
+            {
+                allowing(client).getAttribute(with(any(Object.class))); will(returnValue(null));
+                allowing(client).setAttributeIfAbsent(with(any(Object.class)), with(any(Object.class))); will(returnValue(null));
+            }
+        });
+        state = BroadcastClientState.get(client);
+    }
+
+    @Test
+    public void shouldDropOldestBeyondCapacity() throws Exception {
+        state.offer("one", 2);
+        state.offer("two", 2);
+        state.offer("three", 2);
+
+        assertEquals(1, state.getDroppedMessages());
+        assertEquals("two", state.poll());
+        assertEquals("three", state.poll());
+        assertFalse(state.hasPending());
+        assertNull(state.poll());
+    }
+
+    @Test
+    public void shouldConflateToLatest() throws Exception {
+        state.offer("one", 1);
+        state.offer("two", 1);
+
+        assertEquals(1, state.getDroppedMessages());
+        assertTrue(state.hasPending());
+        assertEquals("two", state.poll());
+    }
+
+    @Test
+    public void shouldCacheRootSessionForSameParent() throws Exception {
+        IoSession parent = context.mock(IoSession.class, "parent");
+        IoSession root = context.mock(IoSession.class, "root");
+        IoSession newParent = context.mock(IoSession.class, "newParent");
+
+        assertNull(state.getRootSession(parent));
+        state.setRootSession(parent, root);
+        assertSame(root, state.getRootSession(parent));
+        assertNull(state.getRootSession(newParent));
+    }
+
+    @Test
+    public void shouldParseSlowConsumerPolicy() throws Exception {
+        assertSame(SlowConsumerPolicy.DROP_OLDEST, SlowConsumerPolicy.fromString("drop-oldest"));
+        assertSame(SlowConsumerPolicy.CONFLATE, SlowConsumerPolicy.fromString("CONFLATE"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownSlowConsumerPolicy() throws Exception {
+        SlowConsumerPolicy.fromString("unknown");
+    }
+}
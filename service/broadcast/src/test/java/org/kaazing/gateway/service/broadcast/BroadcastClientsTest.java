@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Executor;
+
+import org.apache.mina.core.session.IoSession;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.concurrent.Synchroniser;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Test;
+
+import org.kaazing.gateway.service.broadcast.BroadcastClients.Partition;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+public class BroadcastClientsTest {
+
+    @Test
+    public void shouldPartitionAlignedClientsByIoThread() throws Exception {
+        Mockery context = new Mockery() {
+            {
+                setImposteriser(ClassImposteriser.INSTANCE);
+                setThreadingPolicy(new Synchroniser());
+            }
+        };
+        final IoSessionEx session1 = context.mock(IoSessionEx.class, "session1");
+        final IoSessionEx session2 = context.mock(IoSessionEx.class, "session2");
+        final IoSession session3 = context.mock(IoSession.class, "session3");
+        final Executor ioExecutor = context.mock(Executor.class);
+        final Thread ioThread = Thread.currentThread();
+
+        context.checking(new Expectations() {
+            {
+                allowing(session1).getIoThread(); will(returnValue(ioThread));
+                allowing(session1).isIoAligned(); will(returnValue(true));
+                allowing(session1).getIoExecutor(); will(returnValue(ioExecutor));
+                allowing(session2).getIoThread(); will(returnValue(null));
+                allowing(session2).isIoAligned(); will(returnValue(false));
+            }
+        });
+
+        BroadcastClients clients = new BroadcastClients();
+        assertTrue(clients.add(session1));
+        assertTrue(clients.add(session2));
+        assertTrue(clients.add(session3));
+        assertEquals(3, clients.size());
+
+        assertEquals(1, clients.getPartitions().size());
+        Partition partition = clients.getPartitions().iterator().next();
+        assertSame(ioThread, partition.getIoThread());
+        assertSame(ioExecutor, partition.getIoExecutor());
+        assertTrue(partition.getSessions().contains(session1));
+        assertTrue(clients.getUnalignedPartition().getSessions().contains(session2));
+        assertTrue(clients.getUnalignedPartition().getSessions().contains(session3));
+
+        BroadcastClients view = clients.unmodifiableView();
+        assertEquals(3, view.size());
+        try {
+            view.remove(session1);
+            fail("view should be read-only");
+        }
+        catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        assertTrue(clients.remove(session1));
+        assertFalse(clients.remove(session1));
+        assertTrue(partition.getSessions().isEmpty());
+        assertEquals(2, clients.size());
+        context.assertIsSatisfied();
+    }
+}
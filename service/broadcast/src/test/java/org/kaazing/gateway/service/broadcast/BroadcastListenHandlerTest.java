@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_SHARED;
+
+import java.nio.ByteBuffer;
+
+import org.apache.mina.core.session.IoSession;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.concurrent.Synchroniser;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import org.kaazing.gateway.transport.bridge.Message;
+import org.kaazing.gateway.transport.bridge.MessageBuffer;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+public class BroadcastListenHandlerTest {
+
+    @Test
+    public void shouldWrapSharedFrameOnceForAllClients() throws Exception {
+        Mockery context = new Mockery() {
+            {
+                setImposteriser(ClassImposteriser.INSTANCE);
+                setThreadingPolicy(new Synchroniser());
+            }
+        };
+        final IoSession listenSession = context.mock(IoSession.class, "listenSession");
+        final IoBufferAllocatorEx<?> allocator = context.mock(IoBufferAllocatorEx.class);
+        final TestFrame frame = new TestFrame(ByteBuffer.wrap("hello".getBytes()));
+
+        BroadcastClients clients = new BroadcastClients();
+        for (int i = 0; i < 3; i++) {
+            final IoSessionEx client = context.mock(IoSessionEx.class, "client" + i);
+            context.checking(new Expectations() {
+                {
+                    allowing(client).getIoThread(); will(returnValue(null));
+                    allowing(client).isIoAligned(); will(returnValue(false));
+                    allowing(client).isClosing(); will(returnValue(false));
+                    allowing(client).getId(); will(returnValue(0L));
+                    allowing(client).getAttribute(with(any(Object.class))); will(returnValue(null));
+                    allowing(client).setAttributeIfAbsent(with(any(Object.class)), with(any(Object.class)));
+                    will(returnValue(null));
+                    allowing(client).getScheduledWriteBytes(); will(returnValue(0L));
+                    allowing(client).getBufferAllocator(); will(returnValue(allocator));
+                    oneOf(client).write(frame);
+                }
+            });
+            clients.add(client);
+        }
+
+        context.checking(new Expectations() {
+            {
+                oneOf(allocator).wrap(with(any(ByteBuffer.class)), with(equal(FLAG_SHARED))); will(returnValue(frame));
+            }
+        });
+
+        BroadcastListenHandler handler = new BroadcastListenHandler(clients.unmodifiableView(), false, 1024,
+                SlowConsumerPolicy.CLOSE, 0, LoggerFactory.getLogger(BroadcastListenHandlerTest.class));
+        IoBufferEx buf = SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap("hello".getBytes()));
+        handler.messageReceived(listenSession, buf);
+
+        context.assertIsSatisfied();
+        assertTrue("frame should cache its encoding", frame.isAutoCache());
+        assertEquals(0, buf.remaining());
+    }
+
+    @Test
+    public void shouldWriteQueuedMessagesWhenSlowClientDrains() throws Exception {
+        Mockery context = new Mockery();
+        final IoSession listenSession = context.mock(IoSession.class, "listenSession");
+        final IoSession client = context.mock(IoSession.class, "client");
+        final IoSession stateSession = context.mock(IoSession.class, "stateSession");
+        context.checking(new Expectations() {
+            {
+                allowing(stateSession).getAttribute(with(any(Object.class))); will(returnValue(null));
+                allowing(stateSession).setAttributeIfAbsent(with(any(Object.class)), with(any(Object.class)));
+                will(returnValue(null));
+            }
+        });
+        final BroadcastClientState state = BroadcastClientState.get(stateSession);
+
+        context.checking(new Expectations() {
+            {
+                allowing(client).isClosing(); will(returnValue(false));
+                allowing(client).getId(); will(returnValue(0L));
+                allowing(client).getAttribute(with(any(Object.class))); will(returnValue(state));
+                oneOf(client).write(with(any(IoBufferEx.class)));
+            }
+        });
+
+        BroadcastClients clients = new BroadcastClients();
+        clients.add(client);
+        BroadcastListenHandler handler = new BroadcastListenHandler(clients.unmodifiableView(), false, 2,
+                SlowConsumerPolicy.DROP_OLDEST, 16, LoggerFactory.getLogger(BroadcastListenHandlerTest.class));
+
+        // the first message is written, the client is then behind until it has been sent
+        handler.messageReceived(listenSession, newMessage("one"));
+        handler.messageReceived(listenSession, newMessage("two"));
+        handler.messageReceived(listenSession, newMessage("three"));
+        context.assertIsSatisfied();
+        assertEquals(3, state.getUnsentBytes());
+        assertTrue(state.hasPending());
+
+        context.checking(new Expectations() {
+            {
+                oneOf(client).write(with(bufferOf("two")));
+            }
+        });
+        handler.messageSent(client, newMessage("one"));
+        context.assertIsSatisfied();
+        assertTrue(state.hasPending());
+
+        context.checking(new Expectations() {
+            {
+                oneOf(client).write(with(bufferOf("three")));
+            }
+        });
+        handler.messageSent(client, newMessage("two"));
+        context.assertIsSatisfied();
+        assertFalse(state.hasPending());
+
+        handler.messageSent(client, newMessage("three"));
+        assertEquals(0, state.getUnsentBytes());
+        assertEquals(0, state.getDroppedMessages());
+    }
+
+    private static IoBufferEx newMessage(String text) {
+        return SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(text.getBytes()));
+    }
+
+    private static Matcher<IoBufferEx> bufferOf(final String text) {
+        return new BaseMatcher<IoBufferEx>() {
+
+            @Override
+            public boolean matches(Object item) {
+                return (item instanceof IoBufferEx) && ((IoBufferEx) item).buf().equals(ByteBuffer.wrap(text.getBytes()));
+            }
+
+            @Override
+            public void describeTo(Description description) {
+                description.appendText("buffer of ").appendValue(text);
+            }
+        };
+    }
+
+    private static final class TestFrame extends MessageBuffer<Message> {
+
+        TestFrame(ByteBuffer buf) {
+            super(buf);
+        }
+
+        TestFrame(MessageBuffer<Message> parent, ByteBuffer buf) {
+            super(parent, buf);
+        }
+
+        @Override
+        public int flags() {
+            return FLAG_SHARED;
+        }
+
+        @Override
+        protected TestFrame asSharedBuffer0() {
+            return this;
+        }
+
+        @Override
+        protected TestFrame asUnsharedBuffer0() {
+            return new TestFrame(buf());
+        }
+
+        @Override
+        protected TestFrame create0(MessageBuffer<Message> parent, ByteBuffer buf) {
+            return new TestFrame(parent, buf);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.http.balancer;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.kaazing.gateway.service.cluster.BalanceeLoad;
+
+/**
+ * How the balancer picks one of the available balancee URIs for a new connection, configured with the
+ * "selection.strategy" service property.  Balancees without a published load (for example a newly joined
+ * member) are treated as idle, so they are favoured until their load catches up with the rest of the cluster.
+ */
+enum BalanceeSelectionStrategy {
+
+    /**
+     * Pick a balancee uniformly at random (the default).
+     */
+    RANDOM("random") {
+        @Override
+        URI select(List<URI> balanceeURIs, Map<URI, BalanceeLoad> loads, Random random) {
+            return balanceeURIs.get(random.nextInt(balanceeURIs.size()));
+        }
+    },
+
+    /**
+     * Pick the balancee carrying the fewest sessions, breaking ties at random.
+     */
+    LEAST_CONNECTIONS("least-connections") {
+        @Override
+        URI select(List<URI> balanceeURIs, Map<URI, BalanceeLoad> loads, Random random) {
+            URI selected = null;
+            int minimum = Integer.MAX_VALUE;
+            int ties = 0;
+            for (URI balanceeURI : balanceeURIs) {
+                int sessionCount = sessionCount(loads.get(balanceeURI));
+                if (sessionCount < minimum) {
+                    selected = balanceeURI;
+                    minimum = sessionCount;
+                    ties = 1;
+                }
+                else if (sessionCount == minimum && random.nextInt(++ties) == 0) {
+                    // reservoir sampling keeps the choice among equally loaded balancees uniform
+                    selected = balanceeURI;
+                }
+            }
+            return selected;
+        }
+    },
+
+    /**
+     * Pick a balancee at random, weighted by spare capacity as published in its session count and CPU load.
+     */
+    WEIGHTED("weighted") {
+        @Override
+        URI select(List<URI> balanceeURIs, Map<URI, BalanceeLoad> loads, Random random) {
+            int size = balanceeURIs.size();
+            double[] weights = new double[size];
+            double total = 0.0;
+            for (int i = 0; i < size; i++) {
+                weights[i] = weight(loads.get(balanceeURIs.get(i)));
+                total += weights[i];
+            }
+
+            double target = random.nextDouble() * total;
+            for (int i = 0; i < size; i++) {
+                target -= weights[i];
+                if (target < 0.0) {
+                    return balanceeURIs.get(i);
+                }
+            }
+            return balanceeURIs.get(size - 1);
+        }
+    },
+
+    /**
+     * Pick two balancees at random and keep the one carrying fewer sessions, which avoids the herd behaviour
+     * of least-connections when several balancers act on the same slightly stale loads.
+     */
+    POWER_OF_TWO_CHOICES("power-of-two-choices") {
+        @Override
+        URI select(List<URI> balanceeURIs, Map<URI, BalanceeLoad> loads, Random random) {
+            int size = balanceeURIs.size();
+            if (size == 1) {
+                return balanceeURIs.get(0);
+            }
+
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+
+            URI firstURI = balanceeURIs.get(first);
+            URI secondURI = balanceeURIs.get(second);
+            return (sessionCount(loads.get(secondURI)) < sessionCount(loads.get(firstURI))) ? secondURI : firstURI;
+        }
+    };
+
+    private final String name;
+
+    private BalanceeSelectionStrategy(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param balanceeURIs  the available balancee URIs, never empty
+     * @param loads         the current published loads by balancee URI, missing for unknown or stale loads
+     */
+    abstract URI select(List<URI> balanceeURIs, Map<URI, BalanceeLoad> loads, Random random);
+
+    boolean isLoadAware() {
+        return this != RANDOM;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    static BalanceeSelectionStrategy fromString(String name) {
+        for (BalanceeSelectionStrategy strategy : values()) {
+            if (strategy.name.equalsIgnoreCase(name)) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException("Unrecognized balancee selection strategy: " + name);
+    }
+
+    private static int sessionCount(BalanceeLoad load) {
+        return (load != null) ? load.getSessionCount() : 0;
+    }
+
+    private static double weight(BalanceeLoad load) {
+        if (load == null) {
+            return 1.0;
+        }
+
+        // keep a small share for saturated balancees so a bad CPU sample cannot starve them completely
+        double cpuLoad = load.getCpuLoad();
+        double spareCpu = (cpuLoad < 0.0f) ? 1.0 : Math.max(1.0 - cpuLoad, 0.05);
+        return spareCpu / (1.0 + load.getSessionCount());
+    }
+}
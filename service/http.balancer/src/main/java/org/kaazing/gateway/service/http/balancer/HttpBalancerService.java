@@ -38,6 +38,7 @@ import org.kaazing.gateway.resource.address.URLUtils;
 import org.kaazing.gateway.service.AcceptOptionsContext;
 import org.kaazing.gateway.service.Service;
 import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.service.ServiceProperties;
 import org.kaazing.gateway.service.cluster.ClusterContext;
 import org.kaazing.gateway.transport.BridgeSessionInitializer;
 import org.kaazing.gateway.transport.BridgeSessionInitializerAdapter;
@@ -56,6 +57,7 @@ import org.kaazing.gateway.transport.wsn.WsnSession;
 public class HttpBalancerService implements Service {
     public static final String BALANCER_MAP_NAME = "balancerMap";
     public static final String MEMBERID_BALANCER_MAP_NAME = "memberIdBalancerMap";
+    public static final String BALANCEE_LOAD_MAP_NAME = "balanceeLoadMap";
 
     private static final AttributeKey BALANCEES_KEY = new AttributeKey(HttpBalancerService.class, "balancees");
 
@@ -89,6 +91,12 @@ public class HttpBalancerService implements Service {
         wsebHandler = new WsebBalancerServiceHandler();
         wsebHandler.setAccepts(serviceContext.getAccepts());
         wsebHandler.setClusterContext(clusterContext);
+
+        ServiceProperties properties = serviceContext.getProperties();
+        String selectionStrategyName = properties.get("selection.strategy");
+        if (selectionStrategyName != null) {
+            wsebHandler.setSelectionStrategy(BalanceeSelectionStrategy.fromString(selectionStrategyName));
+        }
         wsnHandler = new WsnBalancerServiceHandler();
 
         // Register the Gateway's connection capabilities with the handlers so that session counts are tracked
@@ -108,7 +116,7 @@ public class HttpBalancerService implements Service {
                     if (availableBalanceeURIs.isEmpty()) {
                         selectedBalanceeURIs = Collections.emptyList();
                     } else {
-                        URI selectedBalanceeURI = availableBalanceeURIs.get((int) (Math.random() * availableBalanceeURIs.size()));
+                        URI selectedBalanceeURI = wsebHandler.selectBalanceeURI(availableBalanceeURIs);
                         selectedBalanceeURIs = new ArrayList<>(1);
                         selectedBalanceeURIs.add(selectedBalanceeURI);
                     }
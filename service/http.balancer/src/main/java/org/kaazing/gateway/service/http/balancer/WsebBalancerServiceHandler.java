@@ -24,11 +24,15 @@ package org.kaazing.gateway.service.http.balancer;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.locks.Lock;
 
 import org.kaazing.gateway.resource.address.Protocol;
+import org.kaazing.gateway.service.cluster.BalanceeLoad;
 import org.kaazing.gateway.service.cluster.ClusterContext;
 import org.kaazing.gateway.service.messaging.collections.CollectionsFactory;
 import org.kaazing.gateway.transport.IoHandlerAdapter;
@@ -42,6 +46,7 @@ class WsebBalancerServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
     private Collection<URI> accepts;
     private ClusterContext clusterContext;
     private TransportFactory transportFactory;
+    private BalanceeSelectionStrategy selectionStrategy = BalanceeSelectionStrategy.RANDOM;
 
     WsebBalancerServiceHandler() {
     }
@@ -66,6 +71,10 @@ class WsebBalancerServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
         this.transportFactory = transportFactory;
     }
 
+    void setSelectionStrategy(BalanceeSelectionStrategy selectionStrategy) {
+        this.selectionStrategy = selectionStrategy;
+    }
+
     @Override
     protected void doExceptionCaught(HttpAcceptSession session, Throwable cause) throws Exception {
         // trigger sessionClosed to update connection capabilities accordingly
@@ -82,7 +91,7 @@ class WsebBalancerServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
             session.setStatus(HttpStatus.CLIENT_NOT_FOUND);
         } else {
 
-            URI selectedBalanceeURI = availableBalanceeURIs.get((int) (Math.random() * availableBalanceeURIs.size()));
+            URI selectedBalanceeURI = selectBalanceeURI(availableBalanceeURIs);
             GL.info("ha", "Selected Balancee URI: {}", selectedBalanceeURI);
 
             URI requestURI = session.getRequestURI();
@@ -168,6 +177,32 @@ class WsebBalancerServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
         return balanceeURIs;
     }
 
+    /**
+     * Picks one of the given (non-empty) balancee URIs using the configured selection strategy.
+     */
+    URI selectBalanceeURI(List<URI> balanceeURIs) {
+        Map<URI, BalanceeLoad> loads = selectionStrategy.isLoadAware() ?
+                getBalanceeLoads(balanceeURIs) : Collections.<URI, BalanceeLoad>emptyMap();
+        return selectionStrategy.select(balanceeURIs, loads, ThreadLocalRandom.current());
+    }
+
+    private Map<URI, BalanceeLoad> getBalanceeLoads(List<URI> balanceeURIs) {
+        CollectionsFactory collectionsFactory = (clusterContext != null) ? clusterContext.getCollectionsFactory() : null;
+        if (collectionsFactory == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<URI, BalanceeLoad> publishedLoads = collectionsFactory.getMap(HttpBalancerService.BALANCEE_LOAD_MAP_NAME);
+        Map<URI, BalanceeLoad> loads = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (URI balanceeURI : balanceeURIs) {
+            BalanceeLoad load = publishedLoads.get(balanceeURI);
+            if (load != null && !load.isStale(now)) {
+                loads.put(balanceeURI, load);
+            }
+        }
+        return loads;
+    }
 
     public Lock getLock(Object obj) {
         return clusterContext.getLock(obj);
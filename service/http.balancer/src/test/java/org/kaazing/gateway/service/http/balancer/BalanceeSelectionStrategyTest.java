@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.http.balancer;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import org.kaazing.gateway.service.cluster.BalanceeLoad;
+
+public class BalanceeSelectionStrategyTest {
+
+    private static final URI BUSY = URI.create("ws://busy.example.com:8001/echo");
+    private static final URI IDLE = URI.create("ws://idle.example.com:8001/echo");
+    private static final URI JOINED = URI.create("ws://joined.example.com:8001/echo");
+
+    private final List<URI> balanceeURIs = asList(BUSY, IDLE, JOINED);
+    private final Random random = new Random(42L);
+
+    @Test
+    public void shouldParseStrategyNames() {
+        assertEquals(BalanceeSelectionStrategy.RANDOM, BalanceeSelectionStrategy.fromString("random"));
+        assertEquals(BalanceeSelectionStrategy.LEAST_CONNECTIONS, BalanceeSelectionStrategy.fromString("Least-Connections"));
+        assertEquals(BalanceeSelectionStrategy.WEIGHTED, BalanceeSelectionStrategy.fromString("weighted"));
+        assertEquals(BalanceeSelectionStrategy.POWER_OF_TWO_CHOICES,
+                BalanceeSelectionStrategy.fromString("power-of-two-choices"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownStrategyName() {
+        BalanceeSelectionStrategy.fromString("round-robin");
+    }
+
+    @Test
+    public void shouldSelectLeastConnections() {
+        Map<URI, BalanceeLoad> loads = new HashMap<>();
+        loads.put(BUSY, load(500, 0.5f));
+        loads.put(IDLE, load(20, 0.1f));
+        loads.put(JOINED, load(30, 0.0f));
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(IDLE, BalanceeSelectionStrategy.LEAST_CONNECTIONS.select(balanceeURIs, loads, random));
+        }
+    }
+
+    @Test
+    public void shouldFavourBalanceeWithoutPublishedLoad() {
+        Map<URI, BalanceeLoad> loads = new HashMap<>();
+        loads.put(BUSY, load(500, 0.5f));
+        loads.put(IDLE, load(20, 0.1f));
+
+        assertEquals(JOINED, BalanceeSelectionStrategy.LEAST_CONNECTIONS.select(balanceeURIs, loads, random));
+        assertTrue(count(BalanceeSelectionStrategy.WEIGHTED, loads, JOINED) > 900);
+    }
+
+    @Test
+    public void shouldWeightByPublishedLoad() {
+        Map<URI, BalanceeLoad> loads = new HashMap<>();
+        loads.put(BUSY, load(99, 0.9f));
+        loads.put(IDLE, load(9, 0.1f));
+        loads.put(JOINED, load(9, -1.0f));
+
+        int busy = count(BalanceeSelectionStrategy.WEIGHTED, loads, BUSY);
+        int idle = count(BalanceeSelectionStrategy.WEIGHTED, loads, IDLE);
+        assertTrue("busy=" + busy, busy < 20);
+        assertTrue("idle=" + idle, idle > 350);
+    }
+
+    @Test
+    public void shouldNeverSelectMostLoadedWithTwoChoices() {
+        Map<URI, BalanceeLoad> loads = new HashMap<>();
+        loads.put(BUSY, load(500, 0.5f));
+        loads.put(IDLE, load(20, 0.1f));
+        loads.put(JOINED, load(30, 0.0f));
+
+        assertEquals(0, count(BalanceeSelectionStrategy.POWER_OF_TWO_CHOICES, loads, BUSY));
+        assertTrue(count(BalanceeSelectionStrategy.POWER_OF_TWO_CHOICES, loads, IDLE) > 600);
+    }
+
+    @Test
+    public void shouldSelectSingleBalancee() {
+        Map<URI, BalanceeLoad> loads = Collections.emptyMap();
+        for (BalanceeSelectionStrategy strategy : BalanceeSelectionStrategy.values()) {
+            assertEquals(IDLE, strategy.select(asList(IDLE), loads, random));
+        }
+    }
+
+    @Test
+    public void shouldDetectStaleLoad() {
+        BalanceeLoad load = new BalanceeLoad(10, 0.2f, 1000L, 5000);
+        assertEquals(false, load.isStale(16000L));
+        assertEquals(true, load.isStale(16001L));
+    }
+
+    private int count(BalanceeSelectionStrategy strategy, Map<URI, BalanceeLoad> loads, URI balanceeURI) {
+        int count = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (balanceeURI.equals(strategy.select(balanceeURIs, loads, random))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static BalanceeLoad load(int sessionCount, float cpuLoad) {
+        return new BalanceeLoad(sessionCount, cpuLoad, System.currentTimeMillis(), 5000);
+    }
+}
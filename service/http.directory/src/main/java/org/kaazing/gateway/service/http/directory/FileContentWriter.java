@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.http.directory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.future.WriteFuture;
+import org.kaazing.gateway.transport.http.HttpAcceptSession;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams a region of a file to an HTTP session in bounded chunks, writing the next chunk only
+ * once the previous write has completed so that at most one chunk per session is held in memory.
+ */
+final class FileContentWriter implements IoFutureListener<WriteFuture> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("service.directory");
+
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private final HttpAcceptSession session;
+    private final FileChannel channel;
+    private final int chunkSize;
+    private final AtomicInteger pendingChunks;
+    private long position;
+    private long remaining;
+
+    FileContentWriter(HttpAcceptSession session, File file, long start, long end, int chunkSize) throws IOException {
+        this.session = session;
+        this.channel = new RandomAccessFile(file, "r").getChannel();
+        this.chunkSize = chunkSize;
+        this.pendingChunks = new AtomicInteger();
+        this.position = start;
+        this.remaining = end - start + 1;
+    }
+
+    void start() {
+        writeNextChunk();
+    }
+
+    @Override
+    public void operationComplete(WriteFuture future) {
+        if (!future.isWritten()) {
+            close();
+            return;
+        }
+
+        if (remaining > 0) {
+            writeNextChunk();
+        }
+        else {
+            close();
+        }
+    }
+
+    // writes complete synchronously on some transports, so loop here rather than recursing from the listener
+    private void writeNextChunk() {
+        if (pendingChunks.getAndIncrement() != 0) {
+            return;
+        }
+
+        do {
+            try {
+                writeChunk();
+            }
+            catch (IOException e) {
+                LOGGER.debug(String.format("Unable to read %d bytes at offset %d", remaining, position), e);
+                close();
+                session.close(true);
+                return;
+            }
+        } while (pendingChunks.decrementAndGet() != 0);
+    }
+
+    private void writeChunk() throws IOException {
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        ByteBuffer nioBuf = allocator.allocate((int) Math.min(chunkSize, remaining));
+        int pos = nioBuf.position();
+        while (nioBuf.hasRemaining()) {
+            int bytesRead = channel.read(nioBuf, position + nioBuf.position() - pos);
+            if (bytesRead == -1) {
+                throw new IOException("File truncated while streaming");
+            }
+        }
+        nioBuf.flip();
+        nioBuf.position(pos);
+
+        position += nioBuf.remaining();
+        remaining -= nioBuf.remaining();
+        boolean last = remaining == 0;
+
+        WriteFuture future = session.write(allocator.wrap(nioBuf));
+        if (last) {
+            // flushes the final chunk before closing
+            session.close(false);
+        }
+        future.addListener(this);
+    }
+
+    private void close() {
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+            LOGGER.debug("Unable to close file channel", e);
+        }
+    }
+}
@@ -21,10 +21,16 @@
 
 package org.kaazing.gateway.service.http.directory;
 
+import static org.kaazing.gateway.util.InternalSystemProperty.DIRECTORY_SERVICE_FILE_CACHE_MAXIMUM_ENTRY_SIZE;
+import static org.kaazing.gateway.util.InternalSystemProperty.DIRECTORY_SERVICE_FILE_CACHE_SIZE;
+
 import java.io.File;
 import java.net.URI;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Properties;
+
+import javax.annotation.Resource;
 
 import org.apache.mina.core.session.IoSession;
 import org.kaazing.gateway.service.Service;
@@ -41,10 +47,16 @@ public class HttpDirectoryService implements Service {
 
     private HttpDirectoryServiceHandler handler;
     private ServiceContext serviceContext;
+    private Properties configuration;
 
     public HttpDirectoryService() {
     }
 
+    @Resource(name = "configuration")
+    public void setConfiguration(Properties configuration) {
+        this.configuration = configuration;
+    }
+
     @Override
     public String getType() {
         return "directory";
@@ -108,6 +120,11 @@ public class HttpDirectoryService implements Service {
             handler.setIndexes(true);
         }
 
+        Properties configuration = (this.configuration != null) ? this.configuration : System.getProperties();
+        long fileCacheSize = Long.parseLong(DIRECTORY_SERVICE_FILE_CACHE_SIZE.getProperty(configuration));
+        int fileCacheMaximumEntrySize = DIRECTORY_SERVICE_FILE_CACHE_MAXIMUM_ENTRY_SIZE.getIntProperty(configuration);
+        handler.setFileCache(new StaticFileCache(fileCacheSize, fileCacheMaximumEntrySize));
+
         // Register the Gateway's connection capabilities with the handler so that session counts are tracked
     }
 
@@ -162,5 +179,8 @@ public class HttpDirectoryService implements Service {
 
     @Override
     public void destroy() throws Exception {
+        if (handler != null) {
+            handler.getFileCache().close();
+        }
     }
 }
@@ -22,15 +22,18 @@
 package org.kaazing.gateway.service.http.directory;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.text.DateFormat;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 import java.util.TreeMap;
 
 import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.service.http.directory.StaticFileCache.StaticFile;
 import org.kaazing.gateway.transport.IoHandlerAdapter;
 import org.kaazing.gateway.transport.http.HttpAcceptSession;
 import org.kaazing.gateway.transport.http.HttpHeaders;
@@ -48,6 +51,7 @@ class HttpDirectoryServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
     private String welcomeFile;
     private File errorPagesDir;
     private boolean indexes;
+    private StaticFileCache fileCache = new StaticFileCache(0, 0);
 
     HttpDirectoryServiceHandler() {
     }
@@ -88,6 +92,14 @@ class HttpDirectoryServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
         this.indexes = indexes;
     }
 
+    void setFileCache(StaticFileCache fileCache) {
+        this.fileCache = fileCache;
+    }
+
+    StaticFileCache getFileCache() {
+        return fileCache;
+    }
+
     @Override
     public void doSessionCreated(HttpAcceptSession session) throws Exception {
     	// NOOP no license check needed
@@ -193,10 +205,31 @@ class HttpDirectoryServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
             return;
         }
 
-        
+        // precomputed validators, and content for small files
+        StaticFile staticFile = fileCache.get(requestFile);
+        String contentType = serviceContext.getContentType(FileUtils.getFileExtension(requestFile));
+
+        // select a compressed representation when the client accepts one
+        boolean compressible = staticFile.hasContent() && isCompressible(contentType);
+        boolean varies = compressible || staticFile.hasSiblings();
+        StaticFile representation = staticFile;
+        String contentEncoding = null;
+        if (varies) {
+            List<String> acceptEncodings = session.getReadHeaders("Accept-Encoding");
+            contentEncoding = selectContentEncoding(acceptEncodings, staticFile, compressible);
+            representation = getRepresentation(staticFile, contentEncoding);
+            if (representation == staticFile) {
+                contentEncoding = null;
+            }
+        }
+
         // check to see if the file has been modified sense last request
-        String etag = HttpUtils.getETagHeaderValue(requestFile);
-        boolean modified = HttpUtils.hasBeenModified(session, etag, requestFile);
+        String etag = (contentEncoding != null) ? StaticFileCache.getVariantETag(staticFile.getETag(), contentEncoding)
+                                                : staticFile.getETag();
+        if (varies) {
+            session.setWriteHeader("Vary", "Accept-Encoding");
+        }
+        boolean modified = HttpUtils.hasBeenModified(session, etag, staticFile.getLastModified());
         if (!modified) {
             // file has not been modified so set status and close session
             session.setWriteHeader("ETag", etag);
@@ -206,26 +239,164 @@ class HttpDirectoryServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
         }
 
         // add cached content file headers.
-        HttpUtils.addLastModifiedHeader(session, requestFile);
+        session.setWriteHeader("Last-Modified", staticFile.getLastModifiedHeader());
         HttpUtils.addExpiresHeader(session);
         session.setWriteHeader("ETag", etag);
+        session.setWriteHeader("Accept-Ranges", "bytes");
 
         // add the content type, based on file extension.
-        String contentType = serviceContext.getContentType(FileUtils.getFileExtension(requestFile));
         if (contentType != null) {
             session.setWriteHeader("Content-Type", contentType);
         }
+        if (contentEncoding != null) {
+            session.setWriteHeader("Content-Encoding", contentEncoding);
+        }
 
-        // get io buffer for file
-        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
-        IoBufferEx buf = HttpUtils.getBufferForFile(allocator, requestFile);
+        // serve the requested byte range of the selected representation, if any
+        long length = representation.getLength();
+        ByteRange range = getRange(session, etag, staticFile.getLastModifiedHeader(), length);
+        if (range == ByteRange.UNSATISFIABLE) {
+            session.setStatus(HttpStatus.CLIENT_REQUEST_RANGE_NOT_SATISFIABLE);
+            session.setWriteHeader("Content-Range", "bytes */" + length);
+            session.setWriteHeader(HttpHeaders.HEADER_CONTENT_LENGTH, "0");
+            session.close(false);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        if (range != null) {
+            start = range.getStart();
+            end = range.getEnd();
+            session.setStatus(HttpStatus.SUCCESS_PARTIAL_CONTENT);
+            session.setWriteHeader("Content-Range", String.format("bytes %d-%d/%d", start, end, length));
+        }
 
         // add content length
-        session.setWriteHeader(HttpHeaders.HEADER_CONTENT_LENGTH, Integer.toString(buf.remaining()));
+        session.setWriteHeader(HttpHeaders.HEADER_CONTENT_LENGTH, Long.toString(end - start + 1));
+
+        // no content for HEAD or empty files
+        if (method == HttpMethod.HEAD || end < start) {
+            session.close(false);
+            return;
+        }
+
+        if (representation.hasContent()) {
+            // write cached buffer and close session
+            IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+            IoBufferEx buf = allocator.wrap(representation.getContent(start, end));
+            session.write(buf);
+            session.close(false);
+        }
+        else {
+            // stream large files from disk, session is closed after the last chunk
+            File contentFile = representation.getPath().toFile();
+            FileContentWriter writer = new FileContentWriter(session, contentFile, start, end,
+                    FileContentWriter.DEFAULT_CHUNK_SIZE);
+            writer.start();
+        }
+    }
+
+    private StaticFile getRepresentation(StaticFile staticFile, String contentEncoding) throws IOException {
+        if (contentEncoding == null) {
+            return staticFile;
+        }
+
+        File sibling = staticFile.getSibling(contentEncoding);
+        if (sibling == null) {
+            return fileCache.getCompressed(staticFile);
+        }
+
+        try {
+            return fileCache.get(sibling);
+        }
+        catch (FileNotFoundException e) {
+            // sibling removed since the file was cached, serve the file itself
+            return staticFile;
+        }
+    }
+
+    private ByteRange getRange(HttpAcceptSession session, String etag, String lastModifiedHeader, long length) {
+        if (session.getMethod() != HttpMethod.GET) {
+            return null;
+        }
 
-        // write buffer and close session
-        session.write(buf);
-        session.close(false);
+        String rangeHeader = session.getReadHeader("Range");
+        if (rangeHeader == null) {
+            return null;
+        }
+
+        // If-Range makes the range conditional on the representation being unchanged
+        String ifRange = session.getReadHeader("If-Range");
+        if (ifRange != null && !ifRange.equals(etag) && !ifRange.equals(lastModifiedHeader)) {
+            return null;
+        }
+
+        return ByteRange.parse(rangeHeader, length);
+    }
+
+    // content types worth compressing on the fly, others are typically compressed already
+    static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase();
+        return type.startsWith("text/") || type.contains("javascript") || type.contains("json")
+                || type.contains("xml") || type.contains("svg");
+    }
+
+    // picks the available content coding with the highest quality in the Accept-Encoding header values
+    static String selectContentEncoding(List<String> acceptEncodings, StaticFile staticFile, boolean compressible) {
+        if (acceptEncodings == null || acceptEncodings.isEmpty()) {
+            return null;
+        }
+
+        String selected = null;
+        double selectedQuality = 0;
+        for (String contentEncoding : StaticFileCache.SIBLING_EXTENSIONS.keySet()) {
+            boolean available = staticFile.getSibling(contentEncoding) != null
+                    || (compressible && StaticFileCache.ENCODING_GZIP.equals(contentEncoding));
+            if (available) {
+                double quality = getQuality(acceptEncodings, contentEncoding);
+                if (quality > selectedQuality) {
+                    selected = contentEncoding;
+                    selectedQuality = quality;
+                }
+            }
+        }
+        return selected;
+    }
+
+    // header values are combined as a single comma separated list, see RFC 7230 section 3.2.2
+    static double getQuality(List<String> acceptEncodings, String contentEncoding) {
+        double wildcardQuality = 0;
+        for (String acceptEncoding : acceptEncodings) {
+            for (String coding : acceptEncoding.split(",")) {
+                String[] params = coding.split(";");
+                String name = params[0].trim();
+                double quality = 1;
+                for (int i = 1; i < params.length; i++) {
+                    String param = params[i].trim();
+                    if (param.startsWith("q=")) {
+                        try {
+                            quality = Double.parseDouble(param.substring(2));
+                        }
+                        catch (NumberFormatException e) {
+                            quality = 0;
+                        }
+                    }
+                }
+
+                if (name.equalsIgnoreCase(contentEncoding)
+                        || (StaticFileCache.ENCODING_GZIP.equals(contentEncoding) && name.equalsIgnoreCase("x-gzip"))) {
+                    return quality;
+                }
+                if ("*".equals(name)) {
+                    wildcardQuality = quality;
+                }
+            }
+        }
+        return wildcardQuality;
     }
 
     @Override
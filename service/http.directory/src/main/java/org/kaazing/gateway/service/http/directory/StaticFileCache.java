@@ -0,0 +1,467 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.http.directory;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.kaazing.gateway.transport.http.HttpUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Size-bounded LRU cache of static file metadata and, for small files, file content.
+ * <p>
+ * Entries are invalidated by a {@link WatchService} registered on the parent directory of each cached file.
+ * When a directory cannot be watched, cached entries from that directory are verified against the file
+ * length and modification time on each lookup instead.
+ * <p>
+ * Each entry also records pre-compressed sibling files (for example {@code app.js.gz}) and holds a gzip
+ * compressed copy of its content once one has been requested, so compression happens once per file version.
+ */
+final class StaticFileCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("service.directory");
+
+    // approximate memory used by an entry in addition to its content
+    static final int ENTRY_OVERHEAD = 256;
+
+    static final String ENCODING_BROTLI = "br";
+    static final String ENCODING_GZIP = "gzip";
+
+    // content codings in order of preference, with the file extension of pre-compressed siblings
+    static final Map<String, String> SIBLING_EXTENSIONS;
+    static {
+        Map<String, String> extensions = new LinkedHashMap<>();
+        extensions.put(ENCODING_BROTLI, ".br");
+        extensions.put(ENCODING_GZIP, ".gz");
+        SIBLING_EXTENSIONS = Collections.unmodifiableMap(extensions);
+    }
+
+    private final long maximumSize;
+    private final int maximumEntrySize;
+
+    // access ordered for LRU eviction, guarded by "this"
+    private final LinkedHashMap<Path, StaticFile> entries;
+    private final Map<Path, WatchKey> watchedDirectories;
+    private long size;
+    private long generation;
+
+    private WatchService watchService;
+    private Thread watcher;
+    private boolean closed;
+
+    StaticFileCache(long maximumSize, int maximumEntrySize) {
+        this.maximumSize = maximumSize;
+        this.maximumEntrySize = maximumEntrySize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.watchedDirectories = new HashMap<>();
+    }
+
+    /**
+     * Returns the cached descriptor of the given file, loading it on a cache miss.
+     *
+     * @param file  the requested file, which must exist
+     * @return the descriptor of the file, with content when the file is small enough to cache
+     */
+    StaticFile get(File file) throws IOException {
+        Path path = file.toPath().toAbsolutePath().normalize();
+
+        boolean watched;
+        long loadGeneration;
+        synchronized (this) {
+            StaticFile entry = entries.get(path);
+            if (entry != null) {
+                if (!entry.verify || entry.matches(file)) {
+                    return entry;
+                }
+                remove(path);
+            }
+
+            // watch before loading so that changes made while loading are not missed
+            watched = !closed && maximumSize > 0 && watch(path.getParent());
+            loadGeneration = generation;
+        }
+
+        StaticFile entry = load(path, file, !watched);
+
+        synchronized (this) {
+            // skip caching if closed, too large, or invalidated while loading
+            if (closed || maximumSize <= 0 || weigh(entry) > maximumSize || loadGeneration != generation) {
+                return entry;
+            }
+
+            StaticFile previous = entries.put(path, entry);
+            if (previous != null) {
+                size -= weigh(previous);
+            }
+            size += weigh(entry);
+            evict(entry);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Returns the gzip compressed representation of a file with cached content, compressing it on first use.
+     *
+     * @param source  the descriptor of the file, which must have content
+     * @return the compressed representation, or the source itself when compression does not reduce its size
+     */
+    StaticFile getCompressed(StaticFile source) throws IOException {
+        StaticFile compressed = source.compressed;
+        if (compressed != null) {
+            return compressed;
+        }
+
+        ByteBuffer content = source.content;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.remaining() / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+        }
+
+        if (out.size() < content.remaining()) {
+            ByteBuffer compressedContent = ByteBuffer.wrap(out.toByteArray());
+            compressed = new StaticFile(source.path, compressedContent.remaining(), source.lastModified,
+                    getVariantETag(source.etag, ENCODING_GZIP), source.lastModifiedHeader, compressedContent,
+                    false, Collections.<String, File>emptyMap());
+        }
+        else {
+            compressed = source;
+        }
+
+        synchronized (this) {
+            if (source.compressed == null) {
+                source.compressed = compressed;
+
+                // account for the compressed copy while the source is still cached
+                if (compressed != source && entries.get(source.path) == source) {
+                    size += compressed.content.capacity();
+                    evict(source);
+                }
+            }
+            return source.compressed;
+        }
+    }
+
+    /**
+     * Derives the entity tag of an encoded representation from the entity tag of the file.
+     */
+    static String getVariantETag(String etag, String contentEncoding) {
+        int quote = etag.lastIndexOf('"');
+        if (quote <= 0) {
+            return etag + "-" + contentEncoding;
+        }
+        return etag.substring(0, quote) + "-" + contentEncoding + etag.substring(quote);
+    }
+
+    synchronized void invalidate(Path path) {
+        generation++;
+        remove(path.toAbsolutePath().normalize());
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        size = 0;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getContentSize() {
+        return size;
+    }
+
+    synchronized void close() {
+        closed = true;
+        invalidateAll();
+        watchedDirectories.clear();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            }
+            catch (IOException e) {
+                LOGGER.debug("Unable to close file watcher", e);
+            }
+            watchService = null;
+            watcher = null;
+        }
+    }
+
+    private StaticFile load(Path path, File file, boolean verify) throws IOException {
+        long lastModified = file.lastModified();
+        long length = file.length();
+        String etag = HttpUtils.getETagHeaderValue(path.toString(), lastModified);
+        String lastModifiedHeader = HttpUtils.formatDateHeader(lastModified);
+
+        ByteBuffer content = null;
+        if (maximumSize > 0 && length <= maximumEntrySize) {
+            try (FileInputStream in = new FileInputStream(file)) {
+                FileChannel channel = in.getChannel();
+                content = ByteBuffer.allocate((int) channel.size());
+                while (content.hasRemaining() && channel.read(content) != -1) {
+                    // keep reading until buffer is full or end of file
+                }
+                content.flip();
+            }
+            length = content.remaining();
+        }
+
+        return new StaticFile(path, length, lastModified, etag, lastModifiedHeader, content, verify,
+                findSiblings(file, lastModified));
+    }
+
+    // pre-compressed siblings older than the file itself are stale and ignored
+    private static Map<String, File> findSiblings(File file, long lastModified) {
+        Map<String, File> siblings = null;
+        for (Map.Entry<String, String> extension : SIBLING_EXTENSIONS.entrySet()) {
+            File sibling = new File(file.getPath() + extension.getValue());
+            if (sibling.isFile() && sibling.lastModified() >= lastModified) {
+                if (siblings == null) {
+                    siblings = new LinkedHashMap<>();
+                }
+                siblings.put(extension.getKey(), sibling);
+            }
+        }
+        return (siblings != null) ? siblings : Collections.<String, File>emptyMap();
+    }
+
+    private void evict(StaticFile keep) {
+        Iterator<StaticFile> iterator = entries.values().iterator();
+        while (size > maximumSize && iterator.hasNext()) {
+            StaticFile eldest = iterator.next();
+            if (eldest != keep) {
+                iterator.remove();
+                size -= weigh(eldest);
+            }
+        }
+    }
+
+    private void remove(Path path) {
+        StaticFile entry = entries.remove(path);
+        if (entry != null) {
+            size -= weigh(entry);
+        }
+    }
+
+    private void invalidateDirectory(Path directory) {
+        Iterator<Path> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            Path path = iterator.next();
+            if (directory.equals(path.getParent())) {
+                size -= weigh(entries.get(path));
+                iterator.remove();
+            }
+        }
+    }
+
+    // returns false when the directory cannot be watched and entries must be verified on lookup
+    private boolean watch(Path directory) {
+        if (directory == null) {
+            return false;
+        }
+
+        if (watchedDirectories.containsKey(directory)) {
+            return true;
+        }
+
+        try {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                watcher = new Thread(new Watcher(watchService), "directory-service-file-watcher");
+                watcher.setDaemon(true);
+                watcher.start();
+            }
+            WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            watchedDirectories.put(directory, key);
+            return true;
+        }
+        catch (IOException | UnsupportedOperationException e) {
+            LOGGER.debug(String.format("Unable to watch %s, cached files will be checked on each request", directory), e);
+            return false;
+        }
+    }
+
+    private synchronized void onEvents(WatchKey key) {
+        Path directory = (Path) key.watchable();
+        generation++;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                invalidateDirectory(directory);
+            }
+            else {
+                Path path = directory.resolve((Path) event.context());
+                remove(path);
+
+                // a changed pre-compressed sibling also invalidates the file it was compressed from
+                String fileName = path.getFileName().toString();
+                for (String extension : SIBLING_EXTENSIONS.values()) {
+                    if (fileName.endsWith(extension)) {
+                        remove(path.resolveSibling(fileName.substring(0, fileName.length() - extension.length())));
+                    }
+                }
+            }
+        }
+
+        if (!key.reset()) {
+            // directory no longer accessible
+            watchedDirectories.remove(directory);
+            invalidateDirectory(directory);
+        }
+    }
+
+    private static long weigh(StaticFile entry) {
+        ByteBuffer content = entry.content;
+        StaticFile compressed = entry.compressed;
+        long weight = ENTRY_OVERHEAD + (content != null ? content.capacity() : 0);
+        if (compressed != null && compressed != entry) {
+            weight += compressed.content.capacity();
+        }
+        return weight;
+    }
+
+    private final class Watcher implements Runnable {
+        private final WatchService watchService;
+
+        Watcher(WatchService watchService) {
+            this.watchService = watchService;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    onEvents(watchService.take());
+                }
+            }
+            catch (ClosedWatchServiceException | InterruptedException e) {
+                // cache closed
+            }
+        }
+    }
+
+    /**
+     * Immutable descriptor of a static file, with precomputed validators.
+     */
+    static final class StaticFile {
+        private final Path path;
+        private final long length;
+        private final long lastModified;
+        private final String etag;
+        private final String lastModifiedHeader;
+        private final ByteBuffer content;
+        private final boolean verify;
+        private final Map<String, File> siblings;
+
+        // written once, under the cache lock
+        private volatile StaticFile compressed;
+
+        StaticFile(Path path, long length, long lastModified, String etag, String lastModifiedHeader,
+                   ByteBuffer content, boolean verify, Map<String, File> siblings) {
+            this.path = path;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.etag = etag;
+            this.lastModifiedHeader = lastModifiedHeader;
+            this.content = content;
+            this.verify = verify;
+            this.siblings = siblings;
+        }
+
+        Path getPath() {
+            return path;
+        }
+
+        long getLength() {
+            return length;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+
+        String getETag() {
+            return etag;
+        }
+
+        String getLastModifiedHeader() {
+            return lastModifiedHeader;
+        }
+
+        boolean hasContent() {
+            return content != null;
+        }
+
+        /**
+         * Returns the pre-compressed sibling of this file for the given content coding, or null if none.
+         */
+        File getSibling(String contentEncoding) {
+            return siblings.get(contentEncoding);
+        }
+
+        boolean hasSiblings() {
+            return !siblings.isEmpty();
+        }
+
+        /**
+         * Returns a view of the cached content between the given inclusive offsets, or null if not cached.
+         * The view shares the cached bytes and must not be modified; it is not read-only so that transports
+         * can still reach the backing array.
+         */
+        ByteBuffer getContent(long start, long end) {
+            if (content == null) {
+                return null;
+            }
+            ByteBuffer view = content.duplicate();
+            view.limit((int) end + 1);
+            view.position((int) start);
+            return view.slice();
+        }
+
+        boolean matches(File file) {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.http.directory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class ByteRangeTest {
+
+    @Test
+    public void shouldParseClosedRange() {
+        ByteRange range = ByteRange.parse("bytes=10-19", 100);
+        assertEquals(10, range.getStart());
+        assertEquals(19, range.getEnd());
+        assertEquals(10, range.getLength());
+    }
+
+    @Test
+    public void shouldParseOpenRange() {
+        ByteRange range = ByteRange.parse("bytes=90-", 100);
+        assertEquals(90, range.getStart());
+        assertEquals(99, range.getEnd());
+    }
+
+    @Test
+    public void shouldParseSuffixRange() {
+        ByteRange range = ByteRange.parse("bytes=-500", 100);
+        assertEquals(0, range.getStart());
+        assertEquals(99, range.getEnd());
+    }
+
+    @Test
+    public void shouldClampRangeEnd() {
+        ByteRange range = ByteRange.parse("bytes=50-1000", 100);
+        assertEquals(99, range.getEnd());
+    }
+
+    @Test
+    public void shouldRejectRangeBeyondLength() {
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=100-", 100));
+    }
+
+    @Test
+    public void shouldIgnoreMultipleRanges() {
+        assertNull(ByteRange.parse("bytes=0-1,5-6", 100));
+    }
+
+    @Test
+    public void shouldIgnoreMalformedRanges() {
+        assertNull(ByteRange.parse("items=0-1", 100));
+        assertNull(ByteRange.parse("bytes=5-1", 100));
+        assertNull(ByteRange.parse("bytes=a-b", 100));
+    }
+}
@@ -21,10 +21,16 @@
 
 package org.kaazing.gateway.service.http.directory;
 
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.net.URI;
+import java.nio.file.Files;
 
 import org.jmock.Expectations;
 import org.jmock.Mockery;
@@ -33,6 +39,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestRule;
+import org.kaazing.gateway.service.ServiceContext;
 import org.kaazing.gateway.transport.http.HttpAcceptSession;
 import org.kaazing.gateway.transport.http.HttpMethod;
 import org.kaazing.gateway.transport.http.HttpStatus;
@@ -101,4 +108,77 @@ public class HttpDirectoryServiceHandlerTest {
         }
         mockery.assertIsSatisfied();
     }
+
+    @Test
+    public void shouldWeighAcceptedContentEncodings() {
+        assertEquals(1.0, HttpDirectoryServiceHandler.getQuality(asList("gzip, deflate, br"), "br"), 0.0);
+        assertEquals(0.5, HttpDirectoryServiceHandler.getQuality(asList("br;q=0.5, gzip"), "br"), 0.0);
+        assertEquals(1.0, HttpDirectoryServiceHandler.getQuality(asList("x-gzip"), "gzip"), 0.0);
+        assertEquals(0.1, HttpDirectoryServiceHandler.getQuality(asList("identity, *;q=0.1"), "br"), 0.0);
+        assertEquals(0.0, HttpDirectoryServiceHandler.getQuality(asList("gzip;q=0, *"), "gzip"), 0.0);
+        assertEquals(0.0, HttpDirectoryServiceHandler.getQuality(asList("identity"), "gzip"), 0.0);
+        assertEquals(0.9, HttpDirectoryServiceHandler.getQuality(asList("gzip", "br;q=0.9"), "br"), 0.0);
+        assertEquals(0.2, HttpDirectoryServiceHandler.getQuality(asList("identity", "*;q=0.2"), "br"), 0.0);
+    }
+
+    @Test
+    public void shouldSelectContentEncodingFromEveryAcceptEncodingHeader() throws Exception {
+        File baseDir = Files.createTempDirectory("directory").toFile();
+        final File file = new File(baseDir, "index.txt");
+        File sibling = new File(baseDir, "index.txt.br");
+        try {
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(new byte[64]);
+            }
+            try (FileOutputStream out = new FileOutputStream(sibling)) {
+                out.write(new byte[16]);
+            }
+
+            StaticFileCache fileCache = new StaticFileCache(1024, 128);
+            final ServiceContext serviceContext = mockery.mock(ServiceContext.class);
+            final HttpAcceptSession session = mockery.mock(HttpAcceptSession.class);
+            mockery.checking(new Expectations() {
+                {
+                    allowing(serviceContext).getContentType(with(any(String.class)));
+                    will(returnValue("text/plain"));
+                    allowing(session).getMethod();
+                    will(returnValue(HttpMethod.HEAD));
+                    allowing(session).getPathInfo();
+                    will(returnValue(URI.create("/index.txt")));
+                    allowing(session).getReadHeaders("Accept-Encoding");
+                    will(returnValue(asList("gzip;q=0.5", "br")));
+                    allowing(session).getReadHeader(with(any(String.class)));
+                    will(returnValue(null));
+                    oneOf(session).setWriteHeader("Content-Encoding", "br");
+                    allowing(session).setWriteHeader(with(any(String.class)), with(any(String.class)));
+                    oneOf(session).close(false);
+                }
+            });
+
+            handler.setBaseDir(baseDir);
+            handler.setServiceContext(serviceContext);
+            handler.setFileCache(fileCache);
+            try {
+                handler.doSessionOpened(session);
+            }
+            finally {
+                fileCache.close();
+            }
+            mockery.assertIsSatisfied();
+        }
+        finally {
+            sibling.delete();
+            file.delete();
+            baseDir.delete();
+        }
+    }
+
+    @Test
+    public void shouldCompressTextualContentTypes() {
+        assertTrue(HttpDirectoryServiceHandler.isCompressible("application/javascript"));
+        assertTrue(HttpDirectoryServiceHandler.isCompressible("text/html; charset=UTF-8"));
+        assertTrue(HttpDirectoryServiceHandler.isCompressible("image/svg+xml"));
+        assertFalse(HttpDirectoryServiceHandler.isCompressible("image/png"));
+        assertFalse(HttpDirectoryServiceHandler.isCompressible(null));
+    }
 }
@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.http.directory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.kaazing.gateway.service.http.directory.StaticFileCache.StaticFile;
+import org.kaazing.test.util.MethodExecutionTrace;
+
+public class StaticFileCacheTest {
+    @Rule
+    public TestRule testExecutionTrace = new MethodExecutionTrace();
+
+    private StaticFileCache cache;
+    private File small;
+    private File large;
+
+    @Before
+    public void setup() throws IOException {
+        cache = new StaticFileCache(1024, 64);
+        small = createFile("small", 16);
+        large = createFile("large", 128);
+    }
+
+    @After
+    public void tearDown() {
+        cache.close();
+        small.delete();
+        large.delete();
+    }
+
+    @Test
+    public void shouldCacheSmallFileContent() throws Exception {
+        StaticFile staticFile = cache.get(small);
+        assertTrue(staticFile.hasContent());
+        assertEquals(16, staticFile.getLength());
+        assertEquals(small.lastModified(), staticFile.getLastModified());
+
+        ByteBuffer content = staticFile.getContent(4, 7);
+        assertEquals(4, content.remaining());
+        assertEquals(4, content.get());
+
+        assertSame(staticFile, cache.get(small));
+    }
+
+    @Test
+    public void shouldNotCacheLargeFileContent() throws Exception {
+        StaticFile staticFile = cache.get(large);
+        assertFalse(staticFile.hasContent());
+        assertNull(staticFile.getContent(0, 127));
+        assertEquals(128, staticFile.getLength());
+        assertSame(staticFile, cache.get(large));
+    }
+
+    @Test
+    public void shouldReloadInvalidatedFile() throws Exception {
+        StaticFile staticFile = cache.get(small);
+        cache.invalidate(small.toPath());
+        assertEquals(0, cache.size());
+        StaticFile reloaded = cache.get(small);
+        assertEquals(staticFile.getETag(), reloaded.getETag());
+        assertFalse(staticFile == reloaded);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() throws Exception {
+        cache.close();
+        cache = new StaticFileCache(2 * (StaticFileCache.ENTRY_OVERHEAD + 16), 64);
+        File other = createFile("other", 16);
+        File third = createFile("third", 16);
+        try {
+            StaticFile first = cache.get(small);
+            cache.get(other);
+            cache.get(small);
+            cache.get(third);
+
+            assertEquals(2, cache.size());
+            assertSame(first, cache.get(small));
+        }
+        finally {
+            other.delete();
+            third.delete();
+        }
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() throws Exception {
+        cache.close();
+        cache = new StaticFileCache(0, 0);
+        StaticFile staticFile = cache.get(small);
+        assertFalse(staticFile.hasContent());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldFindPreCompressedSiblings() throws Exception {
+        File gzipped = new File(small.getPath() + ".gz");
+        createFile(gzipped, 8);
+        try {
+            StaticFile staticFile = cache.get(small);
+            assertTrue(staticFile.hasSiblings());
+            assertEquals(gzipped, staticFile.getSibling(StaticFileCache.ENCODING_GZIP));
+            assertNull(staticFile.getSibling(StaticFileCache.ENCODING_BROTLI));
+        }
+        finally {
+            gzipped.delete();
+        }
+    }
+
+    @Test
+    public void shouldCompressOncePerFileVersion() throws Exception {
+        File text = File.createTempFile("text", ".txt");
+        try (FileOutputStream out = new FileOutputStream(text)) {
+            for (int i = 0; i < 4; i++) {
+                out.write("0123456789abcdef".getBytes("UTF-8"));
+            }
+        }
+        try {
+            StaticFile staticFile = cache.get(text);
+            StaticFile compressed = cache.getCompressed(staticFile);
+            assertTrue(compressed.getLength() < staticFile.getLength());
+            assertEquals(StaticFileCache.getVariantETag(staticFile.getETag(), "gzip"), compressed.getETag());
+            assertSame(compressed, cache.getCompressed(staticFile));
+            assertTrue(cache.getContentSize() > StaticFileCache.ENTRY_OVERHEAD + staticFile.getLength());
+        }
+        finally {
+            text.delete();
+        }
+    }
+
+    @Test
+    public void shouldNotCompressIncompressibleContent() throws Exception {
+        StaticFile staticFile = cache.get(small);
+        assertSame(staticFile, cache.getCompressed(staticFile));
+    }
+
+    @Test
+    public void shouldDeriveVariantETag() {
+        assertEquals("W/\"abc-gzip\"", StaticFileCache.getVariantETag("W/\"abc\"", "gzip"));
+    }
+
+    private static File createFile(String prefix, int length) throws IOException {
+        return createFile(File.createTempFile(prefix, ".txt"), length);
+    }
+
+    private static File createFile(File file, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) i;
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+        return file;
+    }
+}
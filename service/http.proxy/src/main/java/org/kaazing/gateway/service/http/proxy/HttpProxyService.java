@@ -22,15 +22,30 @@
 package org.kaazing.gateway.service.http.proxy;
 
 import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.service.ServiceProperties;
 import org.kaazing.gateway.service.proxy.AbstractProxyService;
+import org.kaazing.gateway.service.proxy.ResponseCacheStatistics;
 
+import java.io.File;
 import java.net.URI;
 import java.util.Collection;
 
+import static org.kaazing.gateway.service.util.ServiceUtils.getOptionalDataSizeProperty;
+import static org.kaazing.gateway.service.util.ServiceUtils.getOptionalProperty;
+
 /**
  * Http proxy service
  */
-public class HttpProxyService extends AbstractProxyService<HttpProxyServiceHandler> {
+public class HttpProxyService extends AbstractProxyService<HttpProxyServiceHandler> implements ResponseCacheStatistics {
+    private static final String PROPERTY_CACHE_MAXIMUM_SIZE = "cache.maximum.size";
+    private static final String PROPERTY_CACHE_MAXIMUM_ENTRY_SIZE = "cache.maximum.entry.size";
+    private static final String PROPERTY_CACHE_SPILL_SIZE = "cache.spill.size";
+    private static final String PROPERTY_CACHE_SPILL_DIRECTORY = "cache.spill.directory";
+    private static final int PROPERTY_CACHE_MAXIMUM_SIZE_DEFAULT = 0;
+    private static final int PROPERTY_CACHE_MAXIMUM_ENTRY_SIZE_DEFAULT = 1024 * 1024;
+    private static final int PROPERTY_CACHE_SPILL_SIZE_DEFAULT = 0;
+
+    private HttpResponseCache responseCache;
 
     @Override
     public String getType() {
@@ -47,6 +62,68 @@ public class HttpProxyService extends AbstractProxyService<HttpProxyServiceHandl
         HttpProxyServiceHandler handler = getHandler();
         handler.setConnectURIs(connectURIs);
         handler.initServiceConnectManager();
+
+        responseCache = createResponseCache(serviceContext.getProperties());
+        handler.setResponseCache(responseCache);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        super.destroy();
+        if (responseCache != null) {
+            responseCache.close();
+        }
+    }
+
+    @Override
+    public long getResponseCacheHitCount() {
+        return (responseCache != null) ? responseCache.getResponseCacheHitCount() : 0;
+    }
+
+    @Override
+    public long getResponseCacheMissCount() {
+        return (responseCache != null) ? responseCache.getResponseCacheMissCount() : 0;
+    }
+
+    @Override
+    public long getResponseCacheBytesServed() {
+        return (responseCache != null) ? responseCache.getResponseCacheBytesServed() : 0;
+    }
+
+    @Override
+    public long getResponseCacheSize() {
+        return (responseCache != null) ? responseCache.getResponseCacheSize() : 0;
+    }
+
+    /*
+     * The response cache is disabled unless cache.maximum.size is configured.
+     */
+    private HttpResponseCache createResponseCache(ServiceProperties properties) throws Exception {
+        int maximumSize = getOptionalDataSizeProperty(properties, PROPERTY_CACHE_MAXIMUM_SIZE,
+                PROPERTY_CACHE_MAXIMUM_SIZE_DEFAULT);
+        if (maximumSize <= 0) {
+            return null;
+        }
+
+        int maximumEntrySize = getOptionalDataSizeProperty(properties, PROPERTY_CACHE_MAXIMUM_ENTRY_SIZE,
+                Math.min(PROPERTY_CACHE_MAXIMUM_ENTRY_SIZE_DEFAULT, maximumSize));
+        if (maximumEntrySize > maximumSize) {
+            throw new IllegalArgumentException(String.format("%s (%d) must not exceed %s (%d)",
+                    PROPERTY_CACHE_MAXIMUM_ENTRY_SIZE, maximumEntrySize, PROPERTY_CACHE_MAXIMUM_SIZE, maximumSize));
+        }
+
+        MappedBodyStore spillStore = null;
+        int spillSize = getOptionalDataSizeProperty(properties, PROPERTY_CACHE_SPILL_SIZE,
+                PROPERTY_CACHE_SPILL_SIZE_DEFAULT);
+        if (spillSize > 0) {
+            String spillDirectory = getOptionalProperty(properties, PROPERTY_CACHE_SPILL_DIRECTORY,
+                    System.getProperty("java.io.tmpdir"));
+            File spillFile = File.createTempFile("http.proxy-cache-", ".bin", new File(spillDirectory));
+            spillFile.deleteOnExit();
+            spillStore = new MappedBodyStore(spillFile, spillSize, MappedBodyStore.DEFAULT_BLOCK_SIZE);
+        }
+
+        return new HttpResponseCache(maximumSize, maximumEntrySize, spillStore);
     }
 
     @Override
@@ -28,6 +28,7 @@ import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.session.IoSessionInitializer;
 import org.kaazing.gateway.resource.address.ResourceAddress;
 import org.kaazing.gateway.resource.address.http.HttpResourceAddress;
+import org.kaazing.gateway.service.http.proxy.HttpResponseCache.Entry;
 import org.kaazing.gateway.service.proxy.AbstractProxyAcceptHandler;
 import org.kaazing.gateway.service.proxy.AbstractProxyHandler;
 import org.kaazing.gateway.transport.IoHandlerAdapter;
@@ -58,6 +59,7 @@ class HttpProxyServiceHandler extends AbstractProxyAcceptHandler {
     private static final String VIA_HEADER_VALUE = "1.1 kaazing";
 
     private URI connectURI;
+    private HttpResponseCache responseCache;
 
     @Override
     protected AbstractProxyHandler createConnectHandler() {
@@ -68,17 +70,79 @@ class HttpProxyServiceHandler extends AbstractProxyAcceptHandler {
         connectURI = getConnectURIs().iterator().next();
     }
 
+    void setResponseCache(HttpResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    HttpResponseCache getResponseCache() {
+        return responseCache;
+    }
+
     @Override
     public void sessionOpened(IoSession session) {
         if (!session.isClosing()) {
             final DefaultHttpSession acceptSession = (DefaultHttpSession) session;
             //final Subject subject = ((IoSessionEx) acceptSession).getSubject();
 
-            ConnectSessionInitializer sessionInitializer = new ConnectSessionInitializer(acceptSession);
-            ConnectFuture future = getServiceContext().connect(connectURI, getConnectHandler(), sessionInitializer);
-            future.addListener(new ConnectListener(acceptSession));
+            String cacheKey = (responseCache != null) ? HttpResponseCache.getKey(acceptSession) : null;
+            if (cacheKey != null) {
+                super.sessionOpened(acceptSession);
+                openCacheable(acceptSession, cacheKey);
+            } else {
+                connect(acceptSession, null);
+                super.sessionOpened(acceptSession);
+            }
+        }
+    }
+
+    /*
+     * Answers from the response cache when possible, otherwise requests the origin (conditionally for a
+     * stale cached response) or waits for an identical request already sent to the origin.
+     */
+    private void openCacheable(DefaultHttpSession acceptSession, String cacheKey) {
+        Entry entry = responseCache.get(cacheKey, acceptSession);
+        if (entry != null && entry.isFresh(System.currentTimeMillis())
+                && !HttpResponseCache.requiresRevalidation(acceptSession)
+                && responseCache.serve(acceptSession, entry)) {
+            return;
+        }
+
+        // revalidate only on behalf of clients that did not send their own validators
+        if (entry != null && (!entry.hasValidators() || HttpResponseCache.isConditional(acceptSession))) {
+            entry = null;
+        }
 
-            super.sessionOpened(acceptSession);
+        HttpResponseCache.Fetch fetch = responseCache.join(cacheKey, new CachedResponseWaiter(acceptSession));
+        if (fetch != null) {
+            connect(acceptSession, new HttpResponseRecorder(responseCache, fetch, acceptSession, entry));
+        }
+    }
+
+    private void connect(DefaultHttpSession acceptSession, HttpResponseRecorder recorder) {
+        ConnectSessionInitializer sessionInitializer = new ConnectSessionInitializer(acceptSession, recorder);
+        ConnectFuture future = getServiceContext().connect(connectURI, getConnectHandler(), sessionInitializer);
+        future.addListener(new ConnectListener(acceptSession, recorder));
+    }
+
+    /*
+     * Request waiting for the response to an identical request, it goes to the origin itself if that
+     * response cannot be used.
+     */
+    private class CachedResponseWaiter implements HttpResponseCache.Waiter {
+        private final DefaultHttpSession acceptSession;
+
+        CachedResponseWaiter(DefaultHttpSession acceptSession) {
+            this.acceptSession = acceptSession;
+        }
+
+        @Override
+        public void fetched(Entry entry) {
+            if (acceptSession.isClosing()) {
+                return;
+            }
+            if (entry == null || !entry.matches(acceptSession) || !responseCache.serve(acceptSession, entry)) {
+                connect(acceptSession, null);
+            }
         }
     }
 
@@ -88,9 +152,11 @@ class HttpProxyServiceHandler extends AbstractProxyAcceptHandler {
      */
     private static class ConnectSessionInitializer implements IoSessionInitializer<ConnectFuture> {
         private final DefaultHttpSession acceptSession;
+        private final HttpResponseRecorder recorder;
 
-        ConnectSessionInitializer(DefaultHttpSession acceptSession) {
+        ConnectSessionInitializer(DefaultHttpSession acceptSession, HttpResponseRecorder recorder) {
             this.acceptSession = acceptSession;
+            this.recorder = recorder;
         }
 
         @Override
@@ -100,15 +166,20 @@ class HttpProxyServiceHandler extends AbstractProxyAcceptHandler {
             connectSession.setMethod(acceptSession.getMethod());
             connectSession.setRequestURI(acceptSession.getRequestURI());
             processRequestHeaders(acceptSession, connectSession);
+            if (recorder != null) {
+                recorder.initialize(connectSession);
+            }
         }
 
     }
 
     private class ConnectListener implements IoFutureListener<ConnectFuture> {
         private final DefaultHttpSession acceptSession;
+        private final HttpResponseRecorder recorder;
 
-        ConnectListener(DefaultHttpSession acceptSession) {
+        ConnectListener(DefaultHttpSession acceptSession, HttpResponseRecorder recorder) {
             this.acceptSession = acceptSession;
+            this.recorder = recorder;
         }
 
         @Override
@@ -120,6 +191,9 @@ class HttpProxyServiceHandler extends AbstractProxyAcceptHandler {
                     LOGGER.trace("Connected to " + getConnectURIs().iterator().next() + " ["+acceptSession+"->"+connectSession+"]");
                 }
                 if (acceptSession == null || acceptSession.isClosing()) {
+                    if (recorder != null) {
+                        recorder.abort();
+                    }
                     connectSession.close(true);
                 } else {
                     AttachedSessionManager attachedSessionManager = attachSessions(acceptSession, connectSession);
@@ -129,6 +203,9 @@ class HttpProxyServiceHandler extends AbstractProxyAcceptHandler {
                 }
             } else {
                 LOGGER.warn("Connection to " + getConnectURIs().iterator().next() + " failed ["+acceptSession+"->]");
+                if (recorder != null) {
+                    recorder.abort();
+                }
                 acceptSession.close(true);
             }
         }
@@ -139,18 +216,61 @@ class HttpProxyServiceHandler extends AbstractProxyAcceptHandler {
 
         @Override
         public void messageReceived(IoSession session, Object message) {
+            HttpResponseRecorder recorder = HttpResponseRecorder.getRecorder(session);
+            if (recorder != null) {
+                if (recorder.isNotModified((HttpSession) session)) {
+                    // cached response is served when the origin response completes
+                    return;
+                }
+                recorder.record(message);
+            }
             processResponseHeaders(session);
             super.messageReceived(session, message);
         }
 
+        @Override
+        public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+            HttpResponseRecorder recorder = HttpResponseRecorder.getRecorder(session);
+            if (recorder != null) {
+                recorder.abort();
+            }
+            super.exceptionCaught(session, cause);
+        }
+
         @Override
         public void sessionClosed(IoSession session) {
+            HttpResponseRecorder recorder = HttpResponseRecorder.getRecorder(session);
+            if (recorder != null) {
+                completeRecording(session, recorder);
+            }
             processResponseHeaders(session);
             super.sessionClosed(session);
         }
 
+        private void completeRecording(IoSession session, HttpResponseRecorder recorder) {
+            HttpConnectSession connectSession = (HttpConnectSession) session;
+            AttachedSessionManager attachedSessionManager = getAttachedSessionManager(session);
+            HttpAcceptSession acceptSession = (attachedSessionManager != null)
+                    ? (HttpAcceptSession) attachedSessionManager.getAttachedSession() : null;
+
+            if (recorder.isNotModified(connectSession)) {
+                Entry entry = recorder.completeNotModified(connectSession);
+                if (acceptSession != null && !acceptSession.isClosing()
+                        && !recorder.getCache().serve(acceptSession, entry)) {
+                    // cached body dropped meanwhile, let the client retry
+                    acceptSession.close(true);
+                }
+            } else {
+                recorder.complete(connectSession, acceptSession != null);
+            }
+        }
+
         private void processResponseHeaders(IoSession session) {
             HttpConnectSession connectSession = (HttpConnectSession) session;
+            HttpResponseRecorder recorder = HttpResponseRecorder.getRecorder(session);
+            if (recorder != null && recorder.isNotModified(connectSession)) {
+                return;
+            }
             AttachedSessionManager attachedSessionManager = getAttachedSessionManager(session);
             if (attachedSessionManager != null) {
                 HttpAcceptSession acceptSession = (HttpAcceptSession) attachedSessionManager.getAttachedSession();
@@ -0,0 +1,778 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.http.proxy;
+
+import static java.lang.String.CASE_INSENSITIVE_ORDER;
+import static org.kaazing.gateway.transport.http.HttpStatus.REDIRECT_NOT_MODIFIED;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.future.WriteFuture;
+import org.kaazing.gateway.service.http.proxy.MappedBodyStore.MappedBody;
+import org.kaazing.gateway.service.proxy.ResponseCacheStatistics;
+import org.kaazing.gateway.transport.http.HttpAcceptSession;
+import org.kaazing.gateway.transport.http.HttpMethod;
+import org.kaazing.gateway.transport.http.HttpSession;
+import org.kaazing.gateway.transport.http.HttpStatus;
+import org.kaazing.gateway.transport.http.HttpUtils;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+
+/**
+ * Shared cache of origin responses for the http.proxy service.
+ * <p>
+ * Successful GET responses are stored according to their {@code Cache-Control}, {@code Expires} and validator
+ * headers, with a single variant per request URI selected by the {@code Vary} header. Stale responses with a
+ * validator are revalidated with a conditional request, and concurrent misses for the same URI are coalesced
+ * into a single origin request.
+ * <p>
+ * Bodies are held in the heap up to the configured size. When a {@link MappedBodyStore} is configured, the
+ * least recently used bodies are moved there instead of being dropped.
+ */
+final class HttpResponseCache implements ResponseCacheStatistics {
+
+    private static final String HEADER_AGE = "Age";
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    private static final String HEADER_CONNECTION = "Connection";
+    private static final String HEADER_CONTENT_LENGTH = "Content-Length";
+    private static final String HEADER_DATE = "Date";
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_EXPIRES = "Expires";
+    private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    private static final String HEADER_VARY = "Vary";
+
+    // headers of a 304 response that replace the stored ones
+    // headers that only apply to a single connection, never stored
+    private static final String[] HOP_BY_HOP_HEADERS = { HEADER_CONNECTION, "Keep-Alive", "Proxy-Authenticate",
+        "Proxy-Authorization", "Proxy-Connection", "TE", "Trailer", "Transfer-Encoding", "Upgrade" };
+
+    private static final String[] REVALIDATION_HEADERS = { HEADER_CACHE_CONTROL, HEADER_DATE, HEADER_ETAG,
+        HEADER_EXPIRES, HEADER_LAST_MODIFIED };
+
+    private final long maximumSize;
+    private final int maximumEntrySize;
+    private final MappedBodyStore spillStore;
+
+    // access ordered for LRU eviction, guarded by "this"
+    private final LinkedHashMap<String, Entry> entries;
+    private long heapSize;
+    private long spillSize;
+
+    private final ConcurrentMap<String, Fetch> fetches;
+
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private final AtomicLong bytesServed;
+
+    HttpResponseCache(long maximumSize, int maximumEntrySize, MappedBodyStore spillStore) {
+        this.maximumSize = maximumSize;
+        this.maximumEntrySize = maximumEntrySize;
+        this.spillStore = spillStore;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.fetches = new ConcurrentHashMap<>();
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.bytesServed = new AtomicLong();
+    }
+
+    int getMaximumEntrySize() {
+        return maximumEntrySize;
+    }
+
+    /**
+     * Returns the cached response for the request, or null if none is cached or the cached variant does not match.
+     */
+    synchronized Entry get(String key, HttpSession request) {
+        Entry entry = entries.get(key);
+        return (entry != null && entry.matches(request)) ? entry : null;
+    }
+
+    synchronized void put(Entry entry) {
+        Entry previous = entries.remove(entry.key);
+        boolean sharesBody = previous != null && previous.body == entry.body;
+        if (previous != null) {
+            removed(previous, entry.body);
+        }
+
+        // a revalidated entry whose previous version was evicted needs its own reference to the body
+        if (!sharesBody && !entry.body.retain()) {
+            return;
+        }
+
+        entries.put(entry.key, entry);
+        added(entry);
+        enforceLimits();
+    }
+
+    synchronized void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            removed(entry, null);
+        }
+    }
+
+    synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            removed(entry, null);
+        }
+        entries.clear();
+    }
+
+    void close() {
+        clear();
+        if (spillStore != null) {
+            spillStore.close();
+        }
+    }
+
+    /**
+     * Joins the in-flight origin request for the given key, or starts one.
+     *
+     * @return the new fetch for which the caller must request the origin, or null if the waiter was
+     *         registered with an in-flight fetch
+     */
+    Fetch join(String key, Waiter waiter) {
+        Fetch fetch = new Fetch(key);
+        for (;;) {
+            Fetch existing = fetches.putIfAbsent(key, fetch);
+            if (existing == null) {
+                missCount.incrementAndGet();
+                return fetch;
+            }
+            if (existing.addWaiter(waiter)) {
+                return null;
+            }
+            // fetch completed concurrently
+            fetches.remove(key, existing);
+        }
+    }
+
+    /**
+     * Writes a cached response to the session and closes it.
+     *
+     * @return false if the body was dropped concurrently and the request must go to the origin
+     */
+    boolean serve(HttpAcceptSession session, Entry entry) {
+        final Body body = entry.body;
+        if (!body.retain()) {
+            return false;
+        }
+
+        session.setStatus(entry.status);
+        session.setReason(entry.reason);
+        for (Map.Entry<String, List<String>> header : entry.headers.entrySet()) {
+            session.setWriteHeaders(header.getKey(), header.getValue());
+        }
+        session.setWriteHeader(HEADER_AGE, Long.toString(entry.getAge(System.currentTimeMillis()) / 1000L));
+
+        if (isNotModified(session, entry)) {
+            body.release();
+            session.setStatus(REDIRECT_NOT_MODIFIED);
+            session.setReason(REDIRECT_NOT_MODIFIED.reason());
+            hitCount.incrementAndGet();
+            session.close(false);
+            return true;
+        }
+
+        session.setWriteHeader(HEADER_CONTENT_LENGTH, Integer.toString(body.getLength()));
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        WriteFuture lastWrite = null;
+        for (ByteBuffer content : body.getContent()) {
+            lastWrite = session.write(allocator.wrap(content));
+        }
+        if (lastWrite != null) {
+            // writes complete in order, so the body is no longer in use once the last one completes
+            lastWrite.addListener(new IoFutureListener<WriteFuture>() {
+                @Override
+                public void operationComplete(WriteFuture future) {
+                    body.release();
+                }
+            });
+        }
+        else {
+            body.release();
+        }
+
+        hitCount.incrementAndGet();
+        bytesServed.addAndGet(body.getLength());
+        session.close(false);
+        return true;
+    }
+
+    /**
+     * Creates a cache entry for an origin response, if it may be stored.
+     *
+     * @return the entry, or null if the response is not storable
+     */
+    Entry newEntry(String key, HttpSession request, HttpSession response, Map<String, List<String>> headers,
+                   byte[] content, int length) {
+        if (response.getStatus() != HttpStatus.SUCCESS_OK || !isStorable(request, response)) {
+            return null;
+        }
+
+        long responseTime = System.currentTimeMillis();
+        Map<String, String> varyValues = getVaryValues(request, response);
+        return new Entry(key, response.getStatus(), response.getReason(), copyHeaders(headers), varyValues,
+                responseTime, getFreshnessLifetime(response, responseTime), getAge(response),
+                new HeapBody(content, length));
+    }
+
+    /**
+     * Creates the entry resulting from a successful revalidation of a cached response.
+     */
+    Entry revalidated(Entry entry, HttpSession response) {
+        long responseTime = System.currentTimeMillis();
+        Map<String, List<String>> headers = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+        headers.putAll(entry.headers);
+        for (String name : REVALIDATION_HEADERS) {
+            List<String> values = response.getReadHeaders(name);
+            if (values != null && !values.isEmpty()) {
+                headers.put(name, new ArrayList<>(values));
+            }
+        }
+
+        long freshnessLifetime = getFreshnessLifetime(response, responseTime);
+        if (freshnessLifetime == 0 && !hasFreshnessHeaders(response)) {
+            // no new freshness information, keep the stored lifetime
+            freshnessLifetime = entry.freshnessLifetime;
+        }
+        return new Entry(entry.key, entry.status, entry.reason, Collections.unmodifiableMap(headers), entry.varyValues,
+                responseTime, freshnessLifetime, getAge(response), entry.body);
+    }
+
+    @Override
+    public long getResponseCacheHitCount() {
+        return hitCount.get();
+    }
+
+    @Override
+    public long getResponseCacheMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public long getResponseCacheBytesServed() {
+        return bytesServed.get();
+    }
+
+    @Override
+    public synchronized long getResponseCacheSize() {
+        return heapSize + spillSize;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getSpilledSize() {
+        return spillSize;
+    }
+
+    /**
+     * Returns the cache key of a request that may be answered from the cache, or null if the request must
+     * bypass the cache.
+     */
+    static String getKey(HttpSession request) {
+        if (request.getMethod() != HttpMethod.GET
+                || request.getReadHeader("Upgrade") != null
+                || request.getReadHeader("Range") != null
+                || getCacheControl(request).containsKey("no-store")) {
+            return null;
+        }
+        return request.getRequestURI().toString();
+    }
+
+    /**
+     * Returns true if the client asked for the response to be validated with the origin.
+     */
+    static boolean requiresRevalidation(HttpSession request) {
+        Map<String, String> cacheControl = getCacheControl(request);
+        return cacheControl.containsKey("no-cache") || "0".equals(cacheControl.get("max-age"))
+                || "no-cache".equalsIgnoreCase(request.getReadHeader("Pragma"));
+    }
+
+    static boolean isConditional(HttpSession request) {
+        return request.getReadHeader("If-None-Match") != null || request.getReadHeader("If-Modified-Since") != null;
+    }
+
+    static Map<String, String> getCacheControl(HttpSession session) {
+        List<String> values = session.getReadHeaders(HEADER_CACHE_CONTROL);
+        if (values == null || values.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> directives = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+        for (String value : values) {
+            for (String directive : value.split(",")) {
+                String trimmed = directive.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                int equals = trimmed.indexOf('=');
+                if (equals == -1) {
+                    directives.put(trimmed, "");
+                }
+                else {
+                    String argument = trimmed.substring(equals + 1).trim();
+                    if (argument.length() > 1 && argument.startsWith("\"") && argument.endsWith("\"")) {
+                        argument = argument.substring(1, argument.length() - 1);
+                    }
+                    directives.put(trimmed.substring(0, equals).trim(), argument);
+                }
+            }
+        }
+        return directives;
+    }
+
+    /**
+     * Returns the freshness lifetime of a response in milliseconds, zero if it must be revalidated before use.
+     */
+    static long getFreshnessLifetime(HttpSession response, long responseTime) {
+        Map<String, String> cacheControl = getCacheControl(response);
+        if (cacheControl.containsKey("no-cache")) {
+            return 0;
+        }
+
+        Long maxAge = parseSeconds(cacheControl.get("s-maxage"));
+        if (maxAge == null) {
+            maxAge = parseSeconds(cacheControl.get("max-age"));
+        }
+        if (maxAge != null) {
+            return maxAge * 1000L;
+        }
+
+        String expires = response.getReadHeader(HEADER_EXPIRES);
+        if (expires != null) {
+            try {
+                long date = responseTime;
+                String dateHeader = response.getReadHeader(HEADER_DATE);
+                if (dateHeader != null) {
+                    date = HttpUtils.parseDateHeader(dateHeader);
+                }
+                return Math.max(0, HttpUtils.parseDateHeader(expires) - date);
+            }
+            catch (IllegalArgumentException e) {
+                // invalid dates mean already expired
+                return 0;
+            }
+        }
+
+        return 0;
+    }
+
+    private static boolean hasFreshnessHeaders(HttpSession response) {
+        return response.getReadHeader(HEADER_CACHE_CONTROL) != null || response.getReadHeader(HEADER_EXPIRES) != null;
+    }
+
+    private static boolean isStorable(HttpSession request, HttpSession response) {
+        Map<String, String> cacheControl = getCacheControl(response);
+        if (cacheControl.containsKey("no-store") || cacheControl.containsKey("private")) {
+            return false;
+        }
+
+        // responses to authenticated requests are only shared when explicitly allowed
+        if (request.getReadHeader("Authorization") != null && !cacheControl.containsKey("public")
+                && !cacheControl.containsKey("s-maxage")) {
+            return false;
+        }
+
+        // never hand one client's cookies to another
+        if (response.getReadHeader("Set-Cookie") != null) {
+            return false;
+        }
+
+        String vary = response.getReadHeader(HEADER_VARY);
+        if (vary != null && vary.contains("*")) {
+            return false;
+        }
+
+        // responses that expire immediately are only worth storing when they can be revalidated
+        return cacheControl.containsKey("max-age") || cacheControl.containsKey("s-maxage")
+                || response.getReadHeader(HEADER_EXPIRES) != null || response.getReadHeader(HEADER_ETAG) != null
+                || response.getReadHeader(HEADER_LAST_MODIFIED) != null;
+    }
+
+    private static boolean isNotModified(HttpSession request, Entry entry) {
+        String ifNoneMatch = request.getReadHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            String etag = entry.getETag();
+            if (etag == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String trimmed = candidate.trim();
+                if (trimmed.equals("*") || trimmed.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String ifModifiedSince = request.getReadHeader("If-Modified-Since");
+        return ifModifiedSince != null && ifModifiedSince.equals(entry.getLastModified());
+    }
+
+    private static Map<String, String> getVaryValues(HttpSession request, HttpSession response) {
+        List<String> varyHeaders = response.getReadHeaders(HEADER_VARY);
+        if (varyHeaders == null || varyHeaders.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> varyValues = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+        for (String varyHeader : varyHeaders) {
+            for (String name : varyHeader.split(",")) {
+                String trimmed = name.trim();
+                if (!trimmed.isEmpty()) {
+                    varyValues.put(trimmed, request.getReadHeader(trimmed));
+                }
+            }
+        }
+        return varyValues;
+    }
+
+    /*
+     * Copies the end-to-end headers of a response to be stored. Hop-by-hop headers (RFC 7230 section 6.1),
+     * including the ones listed in Connection, only apply to the origin connection and are not stored.
+     */
+    static Map<String, List<String>> copyHeaders(Map<String, List<String>> headers) {
+        Set<String> excluded = new TreeSet<>(CASE_INSENSITIVE_ORDER);
+        excluded.addAll(Arrays.asList(HOP_BY_HOP_HEADERS));
+        excluded.add(HEADER_CONTENT_LENGTH);
+        excluded.add(HEADER_AGE);
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (HEADER_CONNECTION.equalsIgnoreCase(header.getKey())) {
+                for (String value : header.getValue()) {
+                    for (String name : value.split(",")) {
+                        String trimmed = name.trim();
+                        if (!trimmed.isEmpty()) {
+                            excluded.add(trimmed);
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<String, List<String>> copy = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            String name = header.getKey();
+            if (!excluded.contains(name)) {
+                copy.put(name, new ArrayList<>(header.getValue()));
+            }
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static long getAge(HttpSession response) {
+        Long age = parseSeconds(response.getReadHeader(HEADER_AGE));
+        return (age != null) ? age * 1000L : 0L;
+    }
+
+    private static Long parseSeconds(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Math.max(0L, Long.parseLong(value.trim()));
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void added(Entry entry) {
+        if (entry.body instanceof MappedBody) {
+            spillSize += entry.body.getLength();
+        }
+        else {
+            heapSize += entry.body.getLength();
+        }
+    }
+
+    // releases the body of a removed entry unless the replacement shares it
+    private void removed(Entry entry, Body replacementBody) {
+        if (entry.body instanceof MappedBody) {
+            spillSize -= entry.body.getLength();
+        }
+        else {
+            heapSize -= entry.body.getLength();
+        }
+        if (entry.body != replacementBody) {
+            entry.body.release();
+        }
+    }
+
+    private void enforceLimits() {
+        while (heapSize > maximumSize) {
+            Entry victim = null;
+            for (Entry entry : entries.values()) {
+                if (!(entry.body instanceof MappedBody)) {
+                    victim = entry;
+                    break;
+                }
+            }
+            if (victim == null) {
+                break;
+            }
+
+            entries.remove(victim.key);
+            removed(victim, null);
+
+            MappedBody spilled = spill(victim.body);
+            if (spilled != null) {
+                // spilled entries are treated as recently used
+                Entry entry = victim.withBody(spilled);
+                entries.put(entry.key, entry);
+                added(entry);
+            }
+        }
+    }
+
+    private MappedBody spill(Body body) {
+        if (spillStore == null || !spillStore.canStore(body.getLength())) {
+            return null;
+        }
+
+        ByteBuffer content = ((HeapBody) body).getBuffer();
+        MappedBody spilled = spillStore.store(content);
+        while (spilled == null) {
+            Entry eldest = null;
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.body instanceof MappedBody) {
+                    eldest = entry;
+                    iterator.remove();
+                    break;
+                }
+            }
+            if (eldest == null) {
+                return null;
+            }
+            removed(eldest, null);
+            spilled = spillStore.store(content);
+        }
+        return spilled;
+    }
+
+    /**
+     * Response body held by the cache.
+     */
+    interface Body {
+
+        int getLength();
+
+        /**
+         * Acquires the body for writing, failing if it has already been dropped.
+         */
+        boolean retain();
+
+        void release();
+
+        ByteBuffer[] getContent();
+    }
+
+    private static final class HeapBody implements Body {
+        private final byte[] content;
+        private final int length;
+
+        HeapBody(byte[] content, int length) {
+            this.content = content;
+            this.length = length;
+        }
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+
+        @Override
+        public boolean retain() {
+            return true;
+        }
+
+        @Override
+        public void release() {
+            // garbage collected
+        }
+
+        @Override
+        public ByteBuffer[] getContent() {
+            return (length == 0) ? new ByteBuffer[0] : new ByteBuffer[] { getBuffer() };
+        }
+
+        ByteBuffer getBuffer() {
+            return ByteBuffer.wrap(content, 0, length);
+        }
+    }
+
+    /**
+     * Cached response. Immutable, revalidation creates a new entry sharing the body.
+     */
+    static final class Entry {
+        private final String key;
+        private final HttpStatus status;
+        private final String reason;
+        private final Map<String, List<String>> headers;
+        private final Map<String, String> varyValues;
+        private final long responseTime;
+        private final long freshnessLifetime;
+        private final long initialAge;
+        private final Body body;
+
+        Entry(String key, HttpStatus status, String reason, Map<String, List<String>> headers,
+              Map<String, String> varyValues, long responseTime, long freshnessLifetime, long initialAge, Body body) {
+            this.key = key;
+            this.status = status;
+            this.reason = reason;
+            this.headers = headers;
+            this.varyValues = varyValues;
+            this.responseTime = responseTime;
+            this.freshnessLifetime = freshnessLifetime;
+            this.initialAge = initialAge;
+            this.body = body;
+        }
+
+        Entry withBody(Body body) {
+            return new Entry(key, status, reason, headers, varyValues, responseTime, freshnessLifetime, initialAge, body);
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        Body getBody() {
+            return body;
+        }
+
+        long getAge(long now) {
+            return initialAge + Math.max(0, now - responseTime);
+        }
+
+        boolean isFresh(long now) {
+            return getAge(now) < freshnessLifetime;
+        }
+
+        boolean hasValidators() {
+            return getETag() != null || getLastModified() != null;
+        }
+
+        String getETag() {
+            return getHeader(HEADER_ETAG);
+        }
+
+        String getLastModified() {
+            return getHeader(HEADER_LAST_MODIFIED);
+        }
+
+        boolean matches(HttpSession request) {
+            for (Map.Entry<String, String> vary : varyValues.entrySet()) {
+                if (!Objects.equals(vary.getValue(), request.getReadHeader(vary.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String getHeader(String name) {
+            List<String> values = headers.get(name);
+            return (values != null && !values.isEmpty()) ? values.get(0) : null;
+        }
+    }
+
+    /**
+     * Callback of a request waiting for the origin response fetched for another request.
+     */
+    interface Waiter {
+
+        /**
+         * @param entry  the fetched response, or null if it could not be cached
+         */
+        void fetched(Entry entry);
+    }
+
+    /**
+     * In-flight origin request that concurrent requests for the same key wait for.
+     */
+    final class Fetch {
+        private final String key;
+        private List<Waiter> waiters;
+        private boolean completed;
+
+        Fetch(String key) {
+            this.key = key;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        private synchronized boolean addWaiter(Waiter waiter) {
+            if (completed) {
+                return false;
+            }
+            if (waiters == null) {
+                waiters = new ArrayList<>(4);
+            }
+            waiters.add(waiter);
+            return true;
+        }
+
+        /**
+         * Completes the fetch, storing the fetched response if any and releasing the waiters.
+         */
+        void complete(Entry entry) {
+            List<Waiter> waiters;
+            synchronized (this) {
+                if (completed) {
+                    return;
+                }
+                completed = true;
+                waiters = this.waiters;
+            }
+
+            if (entry != null) {
+                put(entry);
+            }
+            fetches.remove(key, this);
+
+            if (waiters != null) {
+                for (Waiter waiter : waiters) {
+                    waiter.fetched(entry);
+                }
+            }
+        }
+    }
+}
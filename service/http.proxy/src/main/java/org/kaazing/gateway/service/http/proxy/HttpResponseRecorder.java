@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.http.proxy;
+
+import static org.kaazing.gateway.transport.http.HttpStatus.REDIRECT_NOT_MODIFIED;
+import static org.kaazing.gateway.transport.http.HttpStatus.SUCCESS_OK;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.mina.core.session.AttributeKey;
+import org.apache.mina.core.session.IoSession;
+import org.kaazing.gateway.service.http.proxy.HttpResponseCache.Entry;
+import org.kaazing.gateway.service.http.proxy.HttpResponseCache.Fetch;
+import org.kaazing.gateway.transport.http.HttpAcceptSession;
+import org.kaazing.gateway.transport.http.HttpConnectSession;
+import org.kaazing.gateway.transport.http.HttpSession;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+
+/**
+ * Records the origin response proxied on a connect session so that it can be stored in the
+ * {@link HttpResponseCache}, and completes the corresponding {@link Fetch}.
+ */
+final class HttpResponseRecorder {
+
+    private static final AttributeKey RECORDER_KEY = new AttributeKey(HttpResponseRecorder.class, "recorder");
+
+    private final HttpResponseCache cache;
+    private final Fetch fetch;
+    private final HttpAcceptSession request;
+    private final Entry revalidating;
+
+    // accessed from the connect session I/O thread only
+    private byte[] content;
+    private int length;
+    private boolean overflow;
+
+    private volatile boolean aborted;
+
+    /**
+     * @param revalidating  the stale cached response to revalidate, or null to fetch a new response
+     */
+    HttpResponseRecorder(HttpResponseCache cache, Fetch fetch, HttpAcceptSession request, Entry revalidating) {
+        this.cache = cache;
+        this.fetch = fetch;
+        this.request = request;
+        this.revalidating = revalidating;
+        this.content = new byte[0];
+    }
+
+    static HttpResponseRecorder getRecorder(IoSession session) {
+        return (HttpResponseRecorder) session.getAttribute(RECORDER_KEY);
+    }
+
+    HttpResponseCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Attaches to the connect session and, when revalidating, makes its request conditional.
+     */
+    void initialize(HttpConnectSession connectSession) {
+        connectSession.setAttribute(RECORDER_KEY, this);
+        if (revalidating != null) {
+            String etag = revalidating.getETag();
+            if (etag != null) {
+                connectSession.setWriteHeader("If-None-Match", etag);
+            }
+            String lastModified = revalidating.getLastModified();
+            if (lastModified != null) {
+                connectSession.setWriteHeader("If-Modified-Since", lastModified);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the origin confirmed that the revalidated response is still current, in which case the
+     * cached response is served instead of proxying the origin response.
+     */
+    boolean isNotModified(HttpSession response) {
+        return revalidating != null && response.getStatus() == REDIRECT_NOT_MODIFIED;
+    }
+
+    void record(Object message) {
+        if (aborted || overflow || content == null || !(message instanceof IoBufferEx)) {
+            return;
+        }
+
+        ByteBuffer buf = ((IoBufferEx) message).buf().duplicate();
+        int remaining = buf.remaining();
+        if (length + remaining > cache.getMaximumEntrySize()) {
+            // too large to cache, stop recording
+            overflow = true;
+            content = null;
+            return;
+        }
+
+        if (length + remaining > content.length) {
+            int capacity = Math.max(length + remaining, Math.min(content.length * 2, cache.getMaximumEntrySize()));
+            content = Arrays.copyOf(content, capacity);
+        }
+        buf.get(content, length, remaining);
+        length += remaining;
+    }
+
+    /**
+     * Abandons recording, releasing requests waiting for this response.
+     */
+    void abort() {
+        aborted = true;
+        content = null;
+        fetch.complete(null);
+    }
+
+    /**
+     * Completes a successful revalidation.
+     *
+     * @return the revalidated response to serve
+     */
+    Entry completeNotModified(HttpSession response) {
+        Entry entry = cache.revalidated(revalidating, response);
+        fetch.complete(entry);
+        return entry;
+    }
+
+    /**
+     * Completes recording once the origin response has ended.
+     *
+     * @param attached  whether the client was still attached, so that the response was read to its end
+     */
+    void complete(HttpSession response, boolean attached) {
+        if (aborted) {
+            return;
+        }
+
+        // without a Content-Length, only a response read to its end is known to be complete
+        String contentLength = response.getReadHeader("Content-Length");
+        boolean complete = (contentLength != null) ? contentLength.trim().equals(Integer.toString(length)) : attached;
+
+        Entry entry = null;
+        if (complete && !overflow) {
+            entry = cache.newEntry(fetch.getKey(), request, response, response.getReadHeaders(), content, length);
+        }
+
+        if (entry == null && revalidating != null && response.getStatus() == SUCCESS_OK) {
+            // the origin replaced the cached response with one that cannot be stored
+            cache.remove(fetch.getKey());
+        }
+
+        content = null;
+        fetch.complete(entry);
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.http.proxy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-size store of response bodies in a memory-mapped file, used by {@link HttpResponseCache} to
+ * hold more bodies than fit in the heap.
+ * <p>
+ * The file is divided into equal blocks and a body occupies as many blocks as it needs, not necessarily
+ * contiguous, so the store never fragments. Bodies are reference counted and their blocks are only reused
+ * once the cache has dropped them and every write of their content has completed.
+ */
+final class MappedBodyStore {
+
+    static final int DEFAULT_BLOCK_SIZE = 8 * 1024;
+
+    private final File file;
+    private final MappedByteBuffer mapping;
+    private final int blockSize;
+    private final int blockCount;
+
+    // guarded by "this"
+    private final ArrayDeque<Integer> freeBlocks;
+
+    MappedBodyStore(File file, long capacity, int blockSize) throws IOException {
+        int blockCount = (int) Math.min(capacity / blockSize, Integer.MAX_VALUE / blockSize);
+        if (blockCount <= 0) {
+            throw new IllegalArgumentException("Spill capacity smaller than a block: " + capacity);
+        }
+
+        this.file = file;
+        this.blockSize = blockSize;
+        this.blockCount = blockCount;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = raf.getChannel();
+            this.mapping = channel.map(MapMode.READ_WRITE, 0, (long) blockCount * blockSize);
+        }
+        this.freeBlocks = new ArrayDeque<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            freeBlocks.add(i);
+        }
+    }
+
+    synchronized int getFreeBlockCount() {
+        return freeBlocks.size();
+    }
+
+    int getBlockCount(int length) {
+        return (length + blockSize - 1) / blockSize;
+    }
+
+    /**
+     * Returns true if a body of the given length fits in the store once enough bodies have been freed.
+     */
+    boolean canStore(int length) {
+        return getBlockCount(length) <= blockCount;
+    }
+
+    /**
+     * Copies the given content into the store.
+     *
+     * @return the stored body, or null if there are not enough free blocks
+     */
+    MappedBody store(ByteBuffer content) {
+        int length = content.remaining();
+        int[] blocks = new int[getBlockCount(length)];
+        synchronized (this) {
+            if (freeBlocks.size() < blocks.length) {
+                return null;
+            }
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = freeBlocks.poll();
+            }
+        }
+
+        ByteBuffer source = content.duplicate();
+        for (int block : blocks) {
+            ByteBuffer target = mapping.duplicate();
+            int chunk = Math.min(blockSize, source.remaining());
+            target.position(block * blockSize);
+            ByteBuffer slice = source.duplicate();
+            slice.limit(slice.position() + chunk);
+            target.put(slice);
+            source.position(source.position() + chunk);
+        }
+
+        return new MappedBody(blocks, length);
+    }
+
+    void close() {
+        // the mapping is released when it becomes unreachable
+        file.delete();
+    }
+
+    private synchronized void free(int[] blocks) {
+        for (int block : blocks) {
+            freeBlocks.add(block);
+        }
+    }
+
+    /**
+     * Body held in mapped blocks. The creator holds the initial reference.
+     */
+    final class MappedBody implements HttpResponseCache.Body {
+        private final int[] blocks;
+        private final int length;
+        private final AtomicInteger references;
+
+        MappedBody(int[] blocks, int length) {
+            this.blocks = blocks;
+            this.length = length;
+            this.references = new AtomicInteger(1);
+        }
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+
+        @Override
+        public boolean retain() {
+            for (;;) {
+                int count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (references.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public void release() {
+            if (references.decrementAndGet() == 0) {
+                free(blocks);
+            }
+        }
+
+        /**
+         * Returns views of the mapped content, one per block. The caller must hold a reference until
+         * it no longer uses them.
+         */
+        @Override
+        public ByteBuffer[] getContent() {
+            ByteBuffer[] content = new ByteBuffer[blocks.length];
+            int remaining = length;
+            for (int i = 0; i < blocks.length; i++) {
+                ByteBuffer view = mapping.duplicate();
+                int chunk = Math.min(blockSize, remaining);
+                view.position(blocks[i] * blockSize);
+                view.limit(blocks[i] * blockSize + chunk);
+                content[i] = view.slice();
+                remaining -= chunk;
+            }
+            return content;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.http.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.kaazing.gateway.service.http.proxy.HttpResponseCache.Entry;
+import org.kaazing.gateway.service.http.proxy.HttpResponseCache.Fetch;
+import org.kaazing.gateway.service.http.proxy.HttpResponseCache.Waiter;
+import org.kaazing.gateway.transport.http.HttpMethod;
+import org.kaazing.gateway.transport.http.HttpSession;
+import org.kaazing.gateway.transport.http.HttpStatus;
+import org.kaazing.test.util.MethodExecutionTrace;
+
+public class HttpResponseCacheTest {
+    @Rule
+    public TestRule testExecutionTrace = new MethodExecutionTrace();
+
+    private static final Map<String, List<String>> NO_HEADERS = Collections.emptyMap();
+
+    private Mockery mockery;
+
+    @Before
+    public void setup() {
+        mockery = new Mockery() {
+            {
+                setImposteriser(ClassImposteriser.INSTANCE);
+            }
+        };
+    }
+
+    @Test
+    public void shouldParseCacheControlDirectives() {
+        HttpSession response = mockSession("response", HttpStatus.SUCCESS_OK,
+                "Cache-Control", "public, Max-Age=60, no-cache=\"Set-Cookie\"");
+
+        Map<String, String> cacheControl = HttpResponseCache.getCacheControl(response);
+        assertEquals(3, cacheControl.size());
+        assertEquals("", cacheControl.get("public"));
+        assertEquals("60", cacheControl.get("max-age"));
+        assertEquals("Set-Cookie", cacheControl.get("no-cache"));
+    }
+
+    @Test
+    public void shouldComputeFreshnessLifetime() {
+        HttpSession sharedMaxAge = mockSession("sharedMaxAge", HttpStatus.SUCCESS_OK,
+                "Cache-Control", "max-age=60, s-maxage=120");
+        assertEquals(120000L, HttpResponseCache.getFreshnessLifetime(sharedMaxAge, 0L));
+
+        HttpSession expires = mockSession("expires", HttpStatus.SUCCESS_OK,
+                "Date", "Sun, 06 Nov 1994 08:49:37 GMT",
+                "Expires", "Sun, 06 Nov 1994 08:59:37 GMT");
+        assertEquals(600000L, HttpResponseCache.getFreshnessLifetime(expires, 0L));
+
+        HttpSession invalidExpires = mockSession("invalidExpires", HttpStatus.SUCCESS_OK, "Expires", "0");
+        assertEquals(0L, HttpResponseCache.getFreshnessLifetime(invalidExpires, 0L));
+
+        HttpSession noCache = mockSession("noCache", HttpStatus.SUCCESS_OK, "Cache-Control", "no-cache, max-age=60");
+        assertEquals(0L, HttpResponseCache.getFreshnessLifetime(noCache, 0L));
+    }
+
+    @Test
+    public void shouldOnlyStoreSharedResponses() {
+        HttpResponseCache cache = new HttpResponseCache(1024, 1024, null);
+        HttpSession request = mockSession("request", null);
+        HttpSession authorized = mockSession("authorized", null, "Authorization", "Basic Zm9vOmJhcg==");
+
+        HttpSession cacheable = mockSession("cacheable", HttpStatus.SUCCESS_OK, "Cache-Control", "max-age=60");
+        assertNotNull(cache.newEntry("/a", request, cacheable, NO_HEADERS, new byte[0], 0));
+        assertNull(cache.newEntry("/a", authorized, cacheable, NO_HEADERS, new byte[0], 0));
+
+        HttpSession shared = mockSession("shared", HttpStatus.SUCCESS_OK, "Cache-Control", "public, max-age=60");
+        assertNotNull(cache.newEntry("/a", authorized, shared, NO_HEADERS, new byte[0], 0));
+
+        HttpSession validated = mockSession("validated", HttpStatus.SUCCESS_OK, "ETag", "\"v1\"");
+        assertNotNull(cache.newEntry("/a", request, validated, NO_HEADERS, new byte[0], 0));
+
+        HttpSession privateResponse = mockSession("private", HttpStatus.SUCCESS_OK,
+                "Cache-Control", "private, max-age=60");
+        assertNull(cache.newEntry("/a", request, privateResponse, NO_HEADERS, new byte[0], 0));
+
+        HttpSession cookie = mockSession("cookie", HttpStatus.SUCCESS_OK,
+                "Cache-Control", "max-age=60", "Set-Cookie", "id=1");
+        assertNull(cache.newEntry("/a", request, cookie, NO_HEADERS, new byte[0], 0));
+
+        HttpSession unvalidated = mockSession("unvalidated", HttpStatus.SUCCESS_OK);
+        assertNull(cache.newEntry("/a", request, unvalidated, NO_HEADERS, new byte[0], 0));
+
+        HttpSession notFound = mockSession("notFound", HttpStatus.CLIENT_NOT_FOUND, "Cache-Control", "max-age=60");
+        assertNull(cache.newEntry("/a", request, notFound, NO_HEADERS, new byte[0], 0));
+    }
+
+    @Test
+    public void shouldOnlyCacheGetRequests() {
+        final HttpSession get = mockSession("get", null);
+        final HttpSession post = mockSession("post", null);
+        final HttpSession range = mockSession("range", null, "Range", "bytes=0-9");
+        mockery.checking(new Expectations() {
+            {
+                allowing(get).getMethod();
+                will(returnValue(HttpMethod.GET));
+                allowing(get).getRequestURI();
+                will(returnValue(URI.create("/a?b=c")));
+                allowing(post).getMethod();
+                will(returnValue(HttpMethod.POST));
+                allowing(range).getMethod();
+                will(returnValue(HttpMethod.GET));
+            }
+        });
+
+        assertEquals("/a?b=c", HttpResponseCache.getKey(get));
+        assertNull(HttpResponseCache.getKey(post));
+        assertNull(HttpResponseCache.getKey(range));
+    }
+
+    @Test
+    public void shouldMatchVariants() {
+        HttpResponseCache cache = new HttpResponseCache(1024, 1024, null);
+        HttpSession gzip = mockSession("gzip", null, "Accept-Encoding", "gzip");
+        HttpSession identity = mockSession("identity", null);
+        HttpSession response = mockSession("response", HttpStatus.SUCCESS_OK,
+                "Cache-Control", "max-age=60", "Vary", "Accept-Encoding");
+
+        cache.put(cache.newEntry("/a", gzip, response, NO_HEADERS, new byte[0], 0));
+
+        assertNotNull(cache.get("/a", gzip));
+        assertNull(cache.get("/a", identity));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntries() {
+        HttpResponseCache cache = new HttpResponseCache(10, 10, null);
+        HttpSession request = mockSession("request", null);
+
+        cache.put(newEntry(cache, "/a", request, 4));
+        cache.put(newEntry(cache, "/b", request, 4));
+        assertNotNull(cache.get("/a", request));
+        cache.put(newEntry(cache, "/c", request, 4));
+
+        assertNotNull(cache.get("/a", request));
+        assertNull(cache.get("/b", request));
+        assertNotNull(cache.get("/c", request));
+        assertEquals(8L, cache.getResponseCacheSize());
+    }
+
+    @Test
+    public void shouldSpillEvictedEntries() throws Exception {
+        File file = File.createTempFile("HttpResponseCacheTest", ".spill");
+        MappedBodyStore spillStore = new MappedBodyStore(file, 2 * 1024, 1024);
+        HttpResponseCache cache = new HttpResponseCache(1024, 1024, spillStore);
+        HttpSession request = mockSession("request", null);
+
+        try {
+            cache.put(newEntry(cache, "/a", request, 1000));
+            cache.put(newEntry(cache, "/b", request, 1000));
+            cache.put(newEntry(cache, "/c", request, 1000));
+            assertEquals(2000L, cache.getSpilledSize());
+            assertEquals(0, spillStore.getFreeBlockCount());
+
+            // spilling /c drops the eldest spilled entry
+            cache.put(newEntry(cache, "/d", request, 1000));
+            assertNull(cache.get("/a", request));
+            assertEquals(3, cache.size());
+            assertEquals(3000L, cache.getResponseCacheSize());
+
+            Entry spilled = cache.get("/b", request);
+            assertNotNull(spilled);
+            assertEquals(1000, spilled.getBody().getContent()[0].remaining());
+
+            cache.clear();
+            assertEquals(2, spillStore.getFreeBlockCount());
+            assertEquals(0L, cache.getResponseCacheSize());
+        }
+        finally {
+            cache.close();
+        }
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentMisses() {
+        HttpResponseCache cache = new HttpResponseCache(1024, 1024, null);
+        HttpSession request = mockSession("request", null);
+        final Entry[] fetched = new Entry[1];
+        Waiter waiter = new Waiter() {
+            @Override
+            public void fetched(Entry entry) {
+                fetched[0] = entry;
+            }
+        };
+
+        Fetch fetch = cache.join("/a", waiter);
+        assertNotNull(fetch);
+        assertNull(cache.join("/a", waiter));
+
+        Entry entry = newEntry(cache, "/a", request, 4);
+        fetch.complete(entry);
+        assertSame(entry, fetched[0]);
+        assertSame(entry, cache.get("/a", request));
+        assertEquals(1L, cache.getResponseCacheMissCount());
+
+        // a completed fetch no longer coalesces
+        assertNotNull(cache.join("/a", waiter));
+        assertEquals(2L, cache.getResponseCacheMissCount());
+    }
+
+    @Test
+    public void shouldKeepBodyOnRevalidation() {
+        HttpResponseCache cache = new HttpResponseCache(1024, 1024, null);
+        HttpSession request = mockSession("request", null);
+        HttpSession notModified = mockSession("notModified", HttpStatus.REDIRECT_NOT_MODIFIED,
+                "Cache-Control", "max-age=60", "ETag", "\"v2\"");
+
+        Entry entry = newEntry(cache, "/a", request, 4);
+        cache.put(entry);
+        Entry revalidated = cache.revalidated(entry, notModified);
+        cache.put(revalidated);
+
+        assertSame(entry.getBody(), revalidated.getBody());
+        assertEquals("\"v2\"", revalidated.getETag());
+        assertTrue(revalidated.isFresh(System.currentTimeMillis()));
+        assertEquals(4L, cache.getResponseCacheSize());
+    }
+
+    @Test
+    public void shouldNotStoreHopByHopHeaders() {
+        Map<String, List<String>> headers = new HashMap<>();
+        headers.put("Cache-Control", Collections.singletonList("max-age=60"));
+        headers.put("Content-Type", Collections.singletonList("text/plain"));
+        headers.put("Content-Length", Collections.singletonList("4"));
+        headers.put("connection", Collections.singletonList("keep-alive, X-Origin-Hop"));
+        headers.put("Keep-Alive", Collections.singletonList("timeout=5"));
+        headers.put("Proxy-Connection", Collections.singletonList("keep-alive"));
+        headers.put("TE", Collections.singletonList("trailers"));
+        headers.put("Trailer", Collections.singletonList("Expires"));
+        headers.put("Transfer-Encoding", Collections.singletonList("chunked"));
+        headers.put("Upgrade", Collections.singletonList("websocket"));
+        headers.put("x-origin-hop", Collections.singletonList("1"));
+
+        Map<String, List<String>> stored = HttpResponseCache.copyHeaders(headers);
+        assertEquals(2, stored.size());
+        assertEquals(Collections.singletonList("max-age=60"), stored.get("Cache-Control"));
+        assertEquals(Collections.singletonList("text/plain"), stored.get("Content-Type"));
+    }
+
+    private Entry newEntry(HttpResponseCache cache, String key, HttpSession request, int length) {
+        HttpSession response = mockSession(key + "-response", HttpStatus.SUCCESS_OK,
+                "Cache-Control", "max-age=0", "ETag", "\"v1\"");
+        Map<String, List<String>> headers = new HashMap<>();
+        headers.put("ETag", Collections.singletonList("\"v1\""));
+        return cache.newEntry(key, request, response, headers, new byte[length], length);
+    }
+
+    private HttpSession mockSession(String name, final HttpStatus status, String... headers) {
+        final HttpSession session = mockery.mock(HttpSession.class, name);
+        final Map<String, String> headerMap = new HashMap<>();
+        for (int i = 0; i < headers.length; i += 2) {
+            headerMap.put(headers[i], headers[i + 1]);
+        }
+        mockery.checking(new Expectations() {
+            {
+                for (Map.Entry<String, String> header : headerMap.entrySet()) {
+                    allowing(session).getReadHeader(header.getKey());
+                    will(returnValue(header.getValue()));
+                    allowing(session).getReadHeaders(header.getKey());
+                    will(returnValue(Collections.singletonList(header.getValue())));
+                }
+                allowing(session).getReadHeader(with(any(String.class)));
+                will(returnValue(null));
+                allowing(session).getReadHeaders(with(any(String.class)));
+                will(returnValue(null));
+                allowing(session).getStatus();
+                will(returnValue(status));
+                allowing(session).getReason();
+                will(returnValue(status != null ? status.reason() : null));
+            }
+        });
+        return session;
+    }
+}
@@ -65,17 +65,29 @@ public abstract class AbstractProxyAcceptHandler extends AbstractProxyHandler {
     public void initServiceConnectManager(BridgeServiceFactory bridgeServiceFactory) {
         URI connectURI = connectURIs.iterator().next();
         serviceConnectManager = new ServiceConnectManager(getServiceContext(), getConnectHandler(),
-                bridgeServiceFactory, connectURI, getMaximumRecoveryInterval(), getPreparedConnectionCount());
+                bridgeServiceFactory, connectURI, getMaximumRecoveryInterval(), getPreparedConnectionCount(),
+                getPreparedConnectionMinimum(), getPreparedConnectionMaximum(), getPreparedConnectionTimeToLive());
     }
 
     public void startServiceConnectManager() {
         serviceConnectManager.start();
     }
 
+    public void stopServiceConnectManager() {
+        if (serviceConnectManager != null) {
+            serviceConnectManager.stop();
+        }
+    }
+
     public ConnectFuture getNextConnectFuture(final IoSessionInitializer<ConnectFuture> connectInitializer) {
         return serviceConnectManager.getNextConnectFuture(connectInitializer);
     }
 
+    public ConnectFuture getNextConnectFuture(IoSession acceptSession,
+                                              final IoSessionInitializer<ConnectFuture> connectInitializer) {
+        return serviceConnectManager.getNextConnectFuture(acceptSession, connectInitializer);
+    }
+
     @Override
     public void sessionOpened(IoSession session) {
         // guarantee strongly-typed buffers; this is the accept-side so the
@@ -95,4 +107,10 @@ public abstract class AbstractProxyAcceptHandler extends AbstractProxyHandler {
         super.setMaximumPendingBytes(maximumPendingBytes);
         connectHandler.setMaximumPendingBytes(maximumPendingBytes);
     }
+
+    @Override
+    void setTransportFlowControl(boolean transportFlowControl) {
+        super.setTransportFlowControl(transportFlowControl);
+        connectHandler.setTransportFlowControl(transportFlowControl);
+    }
 }
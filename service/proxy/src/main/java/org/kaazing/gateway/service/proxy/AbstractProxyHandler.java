@@ -26,10 +26,13 @@ import static java.lang.String.format;
 import java.io.IOException;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.filterchain.IoFilter;
+import org.apache.mina.core.filterchain.IoFilterChain;
 import org.apache.mina.core.future.IoFutureListener;
 import org.apache.mina.core.future.WriteFuture;
 import org.apache.mina.core.service.IoHandlerAdapter;
@@ -37,9 +40,12 @@ import org.apache.mina.core.session.AttributeKey;
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.write.WriteRequest;
 import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.service.proxy.ServiceConnectManager.HeartbeatFilter;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.IoSessionEx;
 import org.kaazing.mina.filter.util.WriteRequestFilterEx;
+import org.kaazing.mina.netty.ChannelIoPump;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,8 +62,13 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
     private int maximumPendingBytes;
     private int maximumTransferredBytes = -1; // default to unlimited
     private int thresholdPendingBytes;
+    private boolean transportFlowControl;
+    private boolean rawPump;
     private int maximumRecoveryInterval = 0;
     private int preparedConnectionCount = 0;
+    private int preparedConnectionMinimum = 0;
+    private int preparedConnectionMaximum = 0;
+    private int preparedConnectionTimeToLive = 0;
 
     @Override
     public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
@@ -136,6 +147,21 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
         }
     }
 
+    void setTransportFlowControl(boolean transportFlowControl) {
+        this.transportFlowControl = transportFlowControl;
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Proxy handler " + this + ": transport flow control " + (transportFlowControl ? "enabled" : "disabled")
+                    + ".");
+        }
+    }
+
+    void setRawPump(boolean rawPump) {
+        this.rawPump = rawPump;
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Proxy handler " + this + ": raw pump " + (rawPump ? "enabled" : "disabled") + ".");
+        }
+    }
+
     void setMaximumTransferredBytes(int maximumTransferredBytes) {
         this.maximumTransferredBytes = maximumTransferredBytes;
         if (LOGGER.isDebugEnabled()) {
@@ -165,6 +191,34 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
         return preparedConnectionCount;
     }
 
+    public void setPreparedConnectionLimits(int preparedConnectionMinimum, int preparedConnectionMaximum) {
+        this.preparedConnectionMinimum = preparedConnectionMinimum;
+        this.preparedConnectionMaximum = preparedConnectionMaximum;
+        if ( LOGGER.isDebugEnabled() ) {
+            LOGGER.debug("Proxy handler " + this + ": prepared.connection.minimum=" + preparedConnectionMinimum
+                    + ", prepared.connection.maximum=" + preparedConnectionMaximum + ".");
+        }
+    }
+
+    public int getPreparedConnectionMinimum() {
+        return preparedConnectionMinimum;
+    }
+
+    public int getPreparedConnectionMaximum() {
+        return preparedConnectionMaximum;
+    }
+
+    public void setPreparedConnectionTimeToLive(int preparedConnectionTimeToLive) {
+        this.preparedConnectionTimeToLive = preparedConnectionTimeToLive;
+        if ( LOGGER.isDebugEnabled() ) {
+            LOGGER.debug("Proxy handler " + this + ": prepared.connection.ttl=" + preparedConnectionTimeToLive + ".");
+        }
+    }
+
+    public int getPreparedConnectionTimeToLive() {
+        return preparedConnectionTimeToLive;
+    }
+
     // called by connect listener in proxy service handler
     protected void flushQueuedMessages(IoSession session, AttachedSessionManager attachedSessionManager) {
         Queue<Object> messageQueue = getMessageQueue(session);
@@ -179,6 +233,39 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
         return serviceContext;
     }
 
+    // Called once two attached sessions are ready. When both are plain tcp sessions with no filters other than
+    // those of the proxy itself, bytes are then moved directly between their channels (see ChannelIoPump),
+    // with the same maximum.pending.bytes limit, and no longer reach messageReceived. Must be called on the
+    // I/O thread of the sessions, after any messages queued on the session have been flushed.
+    protected boolean startRawPump(IoSession session, IoSession attachedSession) {
+        if (!rawPump || maximumTransferredBytes != -1 || !isFilterless(session) || !isFilterless(attachedSession)
+                || !ChannelIoPump.isPumpable(session) || !ChannelIoPump.isPumpable(attachedSession)) {
+            return false;
+        }
+
+        // messages received on the attached session before it was attached are still queued
+        AttachedSessionManager attachedSessionManager = getAttachedSessionManager(attachedSession);
+        if (attachedSessionManager != null) {
+            flushQueuedMessages(attachedSession, attachedSessionManager);
+        }
+
+        boolean started = ChannelIoPump.start(session, attachedSession, maximumPendingBytes);
+        if (started && LOGGER.isDebugEnabled()) {
+            LOGGER.debug("[" + session.getId() + "<->" + attachedSession.getId() + "] raw pump started");
+        }
+        return started;
+    }
+
+    private static boolean isFilterless(IoSession session) {
+        for (IoFilterChain.Entry entry : session.getFilterChain().getAll()) {
+            IoFilter filter = entry.getFilter();
+            if (!(filter instanceof DuplicateBufferFilter) && !(filter instanceof HeartbeatFilter)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void flushQueuedMessages(Queue<Object> messageQueue,
                                      IoSession session,
                                      AttachedSessionManager attachedSessionManager) {
@@ -225,6 +312,11 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
     // will be written. It maintains a total of the number of bytes of messages scheduled for write which
     // have not yet been written, and suspends reads on the source session when the number of bytes
     // scheduled for write exceeds the configured maximum.pending.bytes for the service.
+    //
+    // With transport flow control, the pending bytes are those the transport of the attached session reports
+    // as scheduled but not yet written, so no listener is needed per message. Suspending and resuming reads
+    // is decided on the I/O thread of the source session only, and only a write that completes while reads are
+    // suspended triggers a new decision.
     protected class AttachedSessionManager {
         private final IoSession attachedSession;
         private final AtomicInteger scheduledWriteBytes = new AtomicInteger(0);
@@ -234,6 +326,27 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
         // private throughput limit for this session
         private int sessionMaximumTransferredBytes = AbstractProxyHandler.this.maximumTransferredBytes;
 
+        // transport flow control, sourceReadSuspended and awaitedWriteFuture are confined to the source I/O thread
+        private final boolean transportFlowControl = AbstractProxyHandler.this.transportFlowControl;
+        private volatile IoSession sourceSession;
+        private volatile WriteFuture lastWriteFuture;
+        private boolean sourceReadSuspended;
+        private WriteFuture awaitedWriteFuture;
+        private final AtomicBoolean flowControlScheduled = new AtomicBoolean(false);
+        private final Runnable flowControlTask = new Runnable() {
+            @Override
+            public void run() {
+                flowControlScheduled.set(false);
+                updateFlowControl();
+            }
+        };
+        private final IoFutureListener<WriteFuture> drainListener = new IoFutureListener<WriteFuture>() {
+            @Override
+            public void operationComplete(WriteFuture future) {
+                scheduleFlowControl();
+            }
+        };
+
         AttachedSessionManager(IoSession attachedSession) {
             this.attachedSession = attachedSession;
         }
@@ -281,6 +394,11 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
                 break;
             }
 
+            if (transportFlowControl) {
+                writeMessageWithTransportFlowControl(sourceSession, message);
+                return;
+            }
+
             int newScheduledWriteBytes = scheduledWriteBytes.addAndGet(bytesWritten);
             if (newScheduledWriteBytes > maximumPendingBytes) {
                 if (LOGGER.isDebugEnabled()) {
@@ -319,6 +437,64 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
             });
         }
 
+        private void writeMessageWithTransportFlowControl(IoSession sourceSession, Object message) {
+            this.sourceSession = sourceSession;
+            lastWriteFuture = attachedSession.write(message);
+            if (attachedSession.getScheduledWriteBytes() > maximumPendingBytes) {
+                scheduleFlowControl();
+            }
+        }
+
+        // KG-2665: AbstractIoSession.suspendRead and resumeRead are not thread-safe, so they are only called
+        // from the I/O thread of the source session. Concurrent requests collapse into a single task.
+        private void scheduleFlowControl() {
+            if (flowControlScheduled.compareAndSet(false, true)) {
+                IoSession sourceSession = this.sourceSession;
+                Executor ioExecutor = (sourceSession instanceof IoSessionEx)
+                        ? ((IoSessionEx) sourceSession).getIoExecutor() : IoSessionEx.IMMEDIATE_EXECUTOR;
+                ioExecutor.execute(flowControlTask);
+            }
+        }
+
+        private void updateFlowControl() {
+            IoSession sourceSession = this.sourceSession;
+            long pendingBytes = attachedSession.getScheduledWriteBytes();
+            if (!sourceReadSuspended) {
+                if (pendingBytes > maximumPendingBytes) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("[" + sourceSession.getId() + "->" + attachedSession.getId() + ", "
+                                + Thread.currentThread().getName() + "] scheduledWriteBytes " + pendingBytes
+                                + " exceeds " + maximumPendingBytes + ", suspending reads on " + sourceSession);
+                    }
+                    sourceReadSuspended = true;
+                    sourceSession.suspendRead();
+                    awaitWrite();
+                }
+            }
+            else if (awaitedWriteFuture == null || awaitedWriteFuture.isDone()) {
+                // writes complete in order, so nothing is pending once the last write has completed
+                if (pendingBytes <= thresholdPendingBytes || awaitedWriteFuture == lastWriteFuture) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("[" + sourceSession.getId() + "->" + attachedSession.getId() + ", "
+                                + Thread.currentThread().getName() + "] scheduledWriteBytes " + pendingBytes
+                                + " <= " + thresholdPendingBytes + ", resuming reads on " + sourceSession);
+                    }
+                    awaitedWriteFuture = null;
+                    sourceReadSuspended = false;
+                    sourceSession.resumeRead();
+                }
+                else {
+                    awaitWrite();
+                }
+            }
+        }
+
+        private void awaitWrite() {
+            WriteFuture writeFuture = lastWriteFuture;
+            awaitedWriteFuture = writeFuture;
+            writeFuture.addListener(drainListener);
+        }
+
     }
 
     protected static class DuplicateBufferFilter extends WriteRequestFilterEx {
@@ -23,6 +23,7 @@ package org.kaazing.gateway.service.proxy;
 
 import static org.kaazing.gateway.service.util.ServiceUtils.getOptionalDataSizeProperty;
 import static org.kaazing.gateway.service.util.ServiceUtils.getOptionalIntProperty;
+import static org.kaazing.gateway.service.util.ServiceUtils.getOptionalProperty;
 
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -42,11 +43,23 @@ public abstract class AbstractProxyService<HandlerType extends AbstractProxyHand
     private static final String PROPERTY_MAXIMUM_PENDING_BYTES = "maximum.pending.bytes";
     private static final String PROPERTY_MAXIMUM_RECOVERY_INTERVAL = "maximum.recovery.interval";
     private static final String PROPERTY_PREPARED_CONNECTION_COUNT = "prepared.connection.count";
+    private static final String PROPERTY_PREPARED_CONNECTION_MINIMUM = "prepared.connection.minimum";
+    private static final String PROPERTY_PREPARED_CONNECTION_MAXIMUM = "prepared.connection.maximum";
+    private static final String PROPERTY_PREPARED_CONNECTION_TTL = "prepared.connection.ttl";
     private static final String PROPERTY_MAXIMUM_TRANSFERRED_BYTES = "internal.maximum.transferred.bytes";
+    private static final String PROPERTY_FLOW_CONTROL = "internal.flow.control";
+    private static final String PROPERTY_RAW_PUMP = "internal.raw.pump";
     private static final int PROPERTY_MAXIMUM_PENDING_BYTES_DEFAULT = 64000;
     private static final int PROPERTY_MAXIMUM_RECOVERY_INTERVAL_DEFAULT = 0;
     private static final int PROPERTY_PREPARED_CONNECTION_COUNT_DEFAULT = 0;
+    private static final int PROPERTY_PREPARED_CONNECTION_MINIMUM_DEFAULT = 0;
+    private static final int PROPERTY_PREPARED_CONNECTION_MAXIMUM_DEFAULT = 0;
+    private static final int PROPERTY_PREPARED_CONNECTION_TTL_DEFAULT = 0;
     private static final int PROPERTY_MAXIMUM_TRANSFERRED_BYTES_DEFAULT = -1;
+    private static final String PROPERTY_FLOW_CONTROL_DEFAULT = "listener";
+    private static final String PROPERTY_FLOW_CONTROL_TRANSPORT = "transport";
+    private static final String PROPERTY_RAW_PUMP_DEFAULT = "disabled";
+    private static final String PROPERTY_RAW_PUMP_ENABLED = "enabled";
     
     protected HandlerType handler;
     private ServiceContext serviceContext;
@@ -66,13 +79,22 @@ public abstract class AbstractProxyService<HandlerType extends AbstractProxyHand
         int maximumPendingBytes = getOptionalDataSizeProperty(properties, PROPERTY_MAXIMUM_PENDING_BYTES, PROPERTY_MAXIMUM_PENDING_BYTES_DEFAULT);
         int maximumRecoveryInterval = getOptionalIntProperty(properties, PROPERTY_MAXIMUM_RECOVERY_INTERVAL, PROPERTY_MAXIMUM_RECOVERY_INTERVAL_DEFAULT);
         int preparedConnectionCount = getOptionalIntProperty(properties, PROPERTY_PREPARED_CONNECTION_COUNT, PROPERTY_PREPARED_CONNECTION_COUNT_DEFAULT);
+        int preparedConnectionMinimum = getOptionalIntProperty(properties, PROPERTY_PREPARED_CONNECTION_MINIMUM, PROPERTY_PREPARED_CONNECTION_MINIMUM_DEFAULT);
+        int preparedConnectionMaximum = getOptionalIntProperty(properties, PROPERTY_PREPARED_CONNECTION_MAXIMUM, PROPERTY_PREPARED_CONNECTION_MAXIMUM_DEFAULT);
+        int preparedConnectionTimeToLive = getOptionalIntProperty(properties, PROPERTY_PREPARED_CONNECTION_TTL, PROPERTY_PREPARED_CONNECTION_TTL_DEFAULT);
         int maximumTransferredBytes = getOptionalDataSizeProperty(properties, PROPERTY_MAXIMUM_TRANSFERRED_BYTES, PROPERTY_MAXIMUM_TRANSFERRED_BYTES_DEFAULT);
+        String flowControl = getOptionalProperty(properties, PROPERTY_FLOW_CONTROL, PROPERTY_FLOW_CONTROL_DEFAULT);
+        String rawPump = getOptionalProperty(properties, PROPERTY_RAW_PUMP, PROPERTY_RAW_PUMP_DEFAULT);
         handler = createHandler();
         handler.setServiceContext(serviceContext);
         handler.setMaximumPendingBytes(maximumPendingBytes);
         handler.setMaximumTransferredBytes(maximumTransferredBytes);
+        handler.setTransportFlowControl(PROPERTY_FLOW_CONTROL_TRANSPORT.equalsIgnoreCase(flowControl));
+        handler.setRawPump(PROPERTY_RAW_PUMP_ENABLED.equalsIgnoreCase(rawPump));
         handler.setMaximumRecoveryInterval(maximumRecoveryInterval);
         handler.setPreparedConnectionCount(preparedConnectionCount);
+        handler.setPreparedConnectionLimits(preparedConnectionMinimum, preparedConnectionMaximum);
+        handler.setPreparedConnectionTimeToLive(preparedConnectionTimeToLive);
     }
 
     @Override
@@ -24,6 +24,7 @@ package org.kaazing.gateway.service.proxy;
 import java.net.URI;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -38,75 +39,207 @@ import org.apache.mina.core.session.IoSessionInitializer;
 import org.kaazing.gateway.service.ServiceContext;
 import org.kaazing.gateway.service.proxy.ServiceConnectManager.HeartbeatFilter;
 
+/**
+ * Pool of prepared connections owned by a single I/O thread.
+ * <p>
+ * With a fixed size, the pool keeps preparedConnectionCount connections ready. With an adaptive size, the pool keeps
+ * enough connections to cover the requests expected while a new connection is being established, estimated from moving
+ * averages of the interval between requests and of the connect latency, within the configured minimum and maximum.
+ * <p>
+ * After a failed pre-connect, prepared connections are re-established a few at a time, doubling the number of
+ * concurrent pre-connects after each success, so that a recovering backend is not hit by the whole pool at once.
+ */
 class ConnectionPool {
     private static final AttributeKey CONNECT_FUTURE_KEY = new AttributeKey(ServiceConnectManager.class, "connectFutureKey");
-    
+    private static final AttributeKey PREPARED_TIME_KEY = new AttributeKey(ServiceConnectManager.class, "preparedTimeKey");
+
+    // weight of the latest sample in the moving averages
+    private static final double SMOOTHING_FACTOR = 0.2;
+
     private final ServiceContext serviceContext;
     private final AbstractProxyHandler connectHandler;
     private final URI connectURI;
     private final HeartbeatFilter heartbeatFilter;
     private final IoFutureListener<ConnectFuture> connectListener;
     private final int preparedConnectionCount;
+    private final int minimumPreparedConnectionCount;
+    private final int maximumPreparedConnectionCount;
+    private final boolean adaptive;
+    private final long preparedConnectionTimeToLive;
 
     private final AtomicInteger currentPreparedConnectionCount;
+    private final AtomicInteger pendingPreparedConnectionCount;
     private final PreConnectFilter preConnectFilter;
     private final AtomicBoolean preConnectFlag;
     private final ConnectFutures connectFutures;
     private boolean active = false;
 
+    // concurrent pre-connects allowed, reduced to one after a failure and doubled after each success
+    private int preConnectWindow;
+
+    // moving averages in nanoseconds, updated on the I/O thread
+    private long lastRequestTime;
+    private double averageRequestInterval;
+    private double averageConnectLatency;
+
     /**
      * hearbeatFilter the only parameter that can be null
      */
     ConnectionPool(ServiceContext serviceContext, AbstractProxyHandler connectHandler, URI connectURI, HeartbeatFilter heartbeatFilter,
             IoFutureListener<ConnectFuture> connectListener, int preparedConnectionCount, boolean isThreadAligned) {
+        this(serviceContext, connectHandler, connectURI, heartbeatFilter, connectListener, preparedConnectionCount,
+                preparedConnectionCount, preparedConnectionCount, 0, isThreadAligned);
+    }
+
+    /**
+     * @param preparedConnectionCount  the initial number of prepared connections
+     * @param minimumPreparedConnectionCount  the minimum number of prepared connections when adaptive
+     * @param maximumPreparedConnectionCount  the maximum number of prepared connections, the pool is adaptive if
+     *                                        it differs from the minimum
+     * @param preparedConnectionTimeToLive  the time in milliseconds after which an unused prepared connection is
+     *                                      closed, or 0 to keep them
+     */
+    ConnectionPool(ServiceContext serviceContext, AbstractProxyHandler connectHandler, URI connectURI, HeartbeatFilter heartbeatFilter,
+            IoFutureListener<ConnectFuture> connectListener, int preparedConnectionCount, int minimumPreparedConnectionCount,
+            int maximumPreparedConnectionCount, long preparedConnectionTimeToLive, boolean isThreadAligned) {
         this.serviceContext = serviceContext;
         this.connectHandler = connectHandler;
         this.connectURI = connectURI;
         this.heartbeatFilter = heartbeatFilter;
         this.connectListener = connectListener;
-        this.preparedConnectionCount = preparedConnectionCount;
+        this.minimumPreparedConnectionCount = minimumPreparedConnectionCount;
+        this.maximumPreparedConnectionCount = maximumPreparedConnectionCount;
+        this.preparedConnectionCount = Math.max(minimumPreparedConnectionCount,
+                Math.min(preparedConnectionCount, maximumPreparedConnectionCount));
+        this.adaptive = minimumPreparedConnectionCount != maximumPreparedConnectionCount;
+        this.preparedConnectionTimeToLive = TimeUnit.MILLISECONDS.toNanos(preparedConnectionTimeToLive);
+        this.preConnectWindow = Math.max(1, maximumPreparedConnectionCount);
         preConnectFlag = new AtomicBoolean(false);
         currentPreparedConnectionCount = new AtomicInteger(0);
+        pendingPreparedConnectionCount = new AtomicInteger(0);
         preConnectFilter = new PreConnectFilter(this);
-        connectFutures = ConnectFutures.createConnectFutures(preparedConnectionCount, isThreadAligned);
+        connectFutures = ConnectFutures.createConnectFutures(maximumPreparedConnectionCount, isThreadAligned);
     }
 
     void start() {
         resume();
-        if (preparedConnectionCount > 0) {
+        if (maximumPreparedConnectionCount > 0) {
             fillPreConnects();
         }
     }
 
+    boolean hasPreparedConnection() {
+        return !connectFutures.isEmpty();
+    }
+
     ConnectFuture getNextConnectFuture(final IoSessionInitializer<ConnectFuture> connectInitializer) {
-        ConnectFuture future = connectFutures.pollFirstEntry();
+        long now = System.nanoTime();
+        if (lastRequestTime != 0) {
+            averageRequestInterval = average(averageRequestInterval, now - lastRequestTime);
+        }
+        lastRequestTime = now;
+
+        ConnectFuture future = pollPreparedConnection(now);
         if (future == null) {
             future = doConnect(false, connectInitializer);
-        } else {
-            currentPreparedConnectionCount.decrementAndGet();
-
-            // No longer a pre-connect, remove the pre-connect filter which is responsible for cleaning up zombie pre-connects
-            IoSession connectSession = future.getSession();
-            IoFilterChain filterChain = connectSession.getFilterChain();
-            if (filterChain.contains("PreConnectFilter")) {
-                filterChain.remove("PreConnectFilter");
-                connectSession.removeAttribute(CONNECT_FUTURE_KEY);
-            }
-
-            if (connectInitializer != null) {
-                connectInitializer.initializeSession(connectSession, future);
-            }
+        } else if (connectInitializer != null) {
+            connectInitializer.initializeSession(future.getSession(), future);
         }
         fillPreConnects();
         return future;
     }
 
+    /**
+     * Expires unused prepared connections and adjusts the number of prepared connections, called periodically
+     * on the I/O thread of the pool.
+     */
+    void maintain() {
+        long now = System.nanoTime();
+        ConnectFuture future;
+        while ((future = connectFutures.peekFirstEntry()) != null && !isUsable(future.getSession(), now)) {
+            closePreparedConnection(connectFutures.pollFirstEntry());
+        }
+
+        int target = getTargetPreparedConnectionCount(now);
+        while (currentPreparedConnectionCount.get() > target && (future = connectFutures.pollFirstEntry()) != null) {
+            closePreparedConnection(future);
+        }
+
+        fillPreConnects();
+    }
+
+    // for unit test use
+    int getCurrentPreparedConnectionCount() {
+        return currentPreparedConnectionCount.get();
+    }
+
+    // for unit test use
+    int getTargetPreparedConnectionCount() {
+        return getTargetPreparedConnectionCount(System.nanoTime());
+    }
+
+    private int getTargetPreparedConnectionCount(long now) {
+        if (!adaptive || lastRequestTime == 0 || averageConnectLatency == 0) {
+            return preparedConnectionCount;
+        }
+
+        // connections needed to serve the requests expected while a new one is established, plus one,
+        // using the time since the last request when longer so that the pool shrinks when requests stop
+        double requestInterval = Math.max(averageRequestInterval, now - lastRequestTime);
+        int needed = (requestInterval > 0) ? (int) Math.ceil(averageConnectLatency / requestInterval) + 1
+                                           : maximumPreparedConnectionCount;
+        return Math.max(minimumPreparedConnectionCount, Math.min(needed, maximumPreparedConnectionCount));
+    }
+
+    private ConnectFuture pollPreparedConnection(long now) {
+        ConnectFuture future;
+        while ((future = connectFutures.pollFirstEntry()) != null) {
+            if (isUsable(future.getSession(), now)) {
+                currentPreparedConnectionCount.decrementAndGet();
+                detachPreparedConnection(future.getSession());
+                return future;
+            }
+            closePreparedConnection(future);
+        }
+        return null;
+    }
+
+    private boolean isUsable(IoSession connectSession, long now) {
+        if (!connectSession.isConnected() || connectSession.isClosing()) {
+            return false;
+        }
+        if (preparedConnectionTimeToLive > 0) {
+            Long preparedTime = (Long) connectSession.getAttribute(PREPARED_TIME_KEY);
+            return preparedTime == null || now - preparedTime <= preparedConnectionTimeToLive;
+        }
+        return true;
+    }
+
+    private void closePreparedConnection(ConnectFuture future) {
+        currentPreparedConnectionCount.decrementAndGet();
+        IoSession connectSession = future.getSession();
+        detachPreparedConnection(connectSession);
+        connectSession.close(true);
+    }
+
+    // No longer a pre-connect, remove the pre-connect filter which is responsible for cleaning up zombie pre-connects
+    private void detachPreparedConnection(IoSession connectSession) {
+        IoFilterChain filterChain = connectSession.getFilterChain();
+        if (filterChain.contains("PreConnectFilter")) {
+            filterChain.remove("PreConnectFilter");
+            connectSession.removeAttribute(CONNECT_FUTURE_KEY);
+        }
+        connectSession.removeAttribute(PREPARED_TIME_KEY);
+    }
+
     private void fillPreConnects() {
         if (preConnectFlag.compareAndSet(false, true)) {
-            if (currentPreparedConnectionCount.get() < preparedConnectionCount) {
-                do {
-                    doConnect(true, null);
-                } while (isActive() && (currentPreparedConnectionCount.incrementAndGet() < preparedConnectionCount));
+            int target = getTargetPreparedConnectionCount(System.nanoTime());
+            while (isActive() && currentPreparedConnectionCount.get() < target
+                    && pendingPreparedConnectionCount.get() < preConnectWindow) {
+                currentPreparedConnectionCount.incrementAndGet();
+                pendingPreparedConnectionCount.incrementAndGet();
+                doConnect(true, null);
             }
             preConnectFlag.compareAndSet(true, false);
         }
@@ -143,9 +276,11 @@ class ConnectionPool {
     private void addConnectFuture(ConnectFuture future) {
         Object key = connectFutures.add(future);
         future.getSession().setAttributeIfAbsent(CONNECT_FUTURE_KEY, key);
+        future.getSession().setAttribute(PREPARED_TIME_KEY, System.nanoTime());
     }
 
     private ConnectFuture doConnect(final boolean preconnected, final IoSessionInitializer<ConnectFuture> connectInitializer) {
+        final long connectTime = System.nanoTime();
         ConnectFuture future = serviceContext.connect(connectURI, connectHandler, new IoSessionInitializer<ConnectFuture>() {
             @Override
             public void initializeSession(IoSession connectSession, ConnectFuture future) {
@@ -163,9 +298,13 @@ class ConnectionPool {
             @Override
             public void operationComplete(ConnectFuture future) {
                 if ( future.isConnected() ) {
+                    averageConnectLatency = average(averageConnectLatency, System.nanoTime() - connectTime);
                     if (preconnected) {
                         // Add the future as an attribute so if the connection goes down it can be removed from the map.
                         addConnectFuture(future);
+                        pendingPreparedConnectionCount.decrementAndGet();
+                        preConnectWindow = Math.min(preConnectWindow * 2, Math.max(1, maximumPreparedConnectionCount));
+                        fillPreConnects();
                     }
                 }
                 else {
@@ -173,6 +312,8 @@ class ConnectionPool {
                         // The connection failed, quiesce the connect manager and decrement the connection count
                         quiesce();
                         decrementConnectionCount();
+                        pendingPreparedConnectionCount.decrementAndGet();
+                        preConnectWindow = 1;
                     }
                 }
                 connectListener.operationComplete(future);
@@ -181,6 +322,10 @@ class ConnectionPool {
         return future;
     }
 
+    private static double average(double average, long sample) {
+        return (average == 0) ? sample : average + SMOOTHING_FACTOR * (sample - average);
+    }
+
     static class PreConnectFilter extends IoFilterAdapter {
         private final ConnectionPool connectManager;
         
@@ -209,6 +354,10 @@ class ConnectionPool {
 
         abstract ConnectFuture remove(Object key);
 
+        abstract boolean isEmpty();
+
+        abstract ConnectFuture peekFirstEntry();
+
         private static ConnectFutures createConnectFutures(int preparedConnectionCount, boolean isThreadAligned) {
             return preparedConnectionCount == 0 
                     ? EMPTY_CONNECT_FUTURES
@@ -229,6 +378,14 @@ class ConnectionPool {
             ConnectFuture remove(Object key) {
                 return null;
             }
+            @Override
+            boolean isEmpty() {
+                return true;
+            }
+            @Override
+            ConnectFuture peekFirstEntry() {
+                return null;
+            }
         };
     }
 
@@ -254,6 +411,15 @@ class ConnectionPool {
             connectFutures.put(key,  future);
             return key;
         }
+
+        boolean isEmpty() {
+            return connectFutures.isEmpty();
+        }
+
+        ConnectFuture peekFirstEntry() {
+            Entry<Long, ConnectFuture> entry = connectFutures.firstEntry();
+            return entry == null ? null : entry.getValue();
+        }
     }
 
     /**
@@ -297,6 +463,16 @@ class ConnectionPool {
             return removed;
         }
 
+        @Override
+        boolean isEmpty() {
+            return futures[firstIndex] == null;
+        }
+
+        @Override
+        ConnectFuture peekFirstEntry() {
+            return futures[firstIndex];
+        }
+
         /**
          * Advance firstIndex to the oldest entry still present, if any
          */
@@ -80,6 +80,12 @@ public class ProxyService extends AbstractProxyService<ProxyServiceHandler> {
         getHandler().startServiceConnectManager();
     }
 
+    @Override
+    public void stop() throws Exception {
+        super.stop();
+        getHandler().stopServiceConnectManager();
+    }
+
     // FIXME:  How should this be exposed to Management?  For now the service connect manager object is exposed through this method, but
     //         perhaps management could attach a listener that in turn gets passed to the handler and on to the connect manager...
     public ServiceConnectManager getServiceConnectManager() {
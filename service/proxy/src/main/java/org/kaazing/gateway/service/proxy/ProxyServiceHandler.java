@@ -70,7 +70,7 @@ public class ProxyServiceHandler extends AbstractProxyAcceptHandler {
             // see commented ProxyConnectManager below for implementation hint.
             // Note: simpler to randomize order into a copy before initial connect, then consume until no connectURI
             // alternatives left
-            ConnectFuture future = getNextConnectFuture(new IoSessionInitializer<ConnectFuture>() {
+            ConnectFuture future = getNextConnectFuture(acceptSession, new IoSessionInitializer<ConnectFuture>() {
                 @Override
                 public void initializeSession(IoSession connectSession, ConnectFuture future) {
                     if (acceptSession.isClosing()) {
@@ -128,6 +128,9 @@ public class ProxyServiceHandler extends AbstractProxyAcceptHandler {
                     for (ProxyServiceExtensionSpi extension : extensions) {
                         extension.proxiedConnectionEstablished(acceptSessionEx, connectedSessionEx);
                     }
+
+                    // after the extensions, which may add filters to either session
+                    startRawPump(acceptSession, connectedSession);
                 }
             } else {
                 logger.warn("Connection to " + getConnectURIs().iterator().next() + " failed ["+acceptSession+"->]");
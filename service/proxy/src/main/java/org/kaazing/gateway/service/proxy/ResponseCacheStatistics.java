@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.proxy;
+
+/**
+ * Statistics of a proxy service that answers requests from a response cache, exposed through management.
+ */
+public interface ResponseCacheStatistics {
+
+    /**
+     * @return the number of requests answered from the cache, including after successful revalidation
+     */
+    long getResponseCacheHitCount();
+
+    /**
+     * @return the number of cacheable requests forwarded to the origin because no usable response was cached
+     */
+    long getResponseCacheMissCount();
+
+    /**
+     * @return the number of response body bytes written from the cache
+     */
+    long getResponseCacheBytesServed();
+
+    /**
+     * @return the number of response body bytes currently held by the cache
+     */
+    long getResponseCacheSize();
+}
@@ -25,7 +25,8 @@ import static java.lang.String.format;
 
 import java.net.URI;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -37,6 +38,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.mina.core.filterchain.IoFilterAdapter;
 import org.apache.mina.core.future.ConnectFuture;
+import org.apache.mina.core.future.DefaultConnectFuture;
 import org.apache.mina.core.future.IoFutureListener;
 import org.apache.mina.core.service.IoHandlerAdapter;
 import org.apache.mina.core.session.IoSession;
@@ -49,6 +51,7 @@ import org.kaazing.gateway.transport.Transport;
 import org.kaazing.gateway.transport.TransportFactory;
 import org.kaazing.gateway.transport.nio.NioSocketAcceptor;
 import org.kaazing.gateway.util.scheduler.SchedulerProvider;
+import org.kaazing.mina.core.session.IoSessionEx;
 import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
 import org.slf4j.Logger;
 
@@ -83,6 +86,12 @@ public final class ServiceConnectManager {
 
     private HeartbeatFilter heartbeatFilter;
     private int preparedConnectionCount;
+    private int preparedConnectionMinimum;
+    private int preparedConnectionMaximum;
+    private final int preparedConnectionTimeToLive;
+
+    // periodic maintenance of the prepared connections, guarded by this
+    private ScheduledFuture<?> poolMaintenance;
 
     // some statistics provided by the ServiceConnectManager
     private AtomicLong lastSuccessfulConnectTime = new AtomicLong(0);
@@ -92,15 +101,40 @@ public final class ServiceConnectManager {
     private AtomicInteger heartbeatPingCount = new AtomicInteger(0);
     private AtomicInteger heartbeatPingSuccesses = new AtomicInteger(0);
     private AtomicInteger heartbeatPingFailures = new AtomicInteger(0);
+    private final ConnectLatency preparedConnectLatency = new ConnectLatency();
+    private final ConnectLatency onDemandConnectLatency = new ConnectLatency();
 
     private final ThreadLocal<ConnectionPool> connectionPool = new VicariousThreadLocal<>();
 
+    // I/O threads owning a connection pool, used to delegate to the worker of a given session
+    private final ConcurrentMap<Thread, Worker> poolWorkers = new ConcurrentHashMap<>();
+    private final AtomicInteger nextPoolWorker = new AtomicInteger(0);
+
     public ServiceConnectManager(ServiceContext service,
                                  AbstractProxyHandler connectHandler,
                                  BridgeServiceFactory bridgeServiceFactory,
                                  URI connectURI,
                                  int interval,
                                  final int preparedConnectionCount) {
+        this(service, connectHandler, bridgeServiceFactory, connectURI, interval, preparedConnectionCount, 0, 0, 0);
+    }
+
+    /**
+     * @param preparedConnectionMinimum  the minimum number of prepared connections when the pools are sized adaptively
+     * @param preparedConnectionMaximum  the maximum number of prepared connections, or 0 to keep preparedConnectionCount
+     *                                   prepared connections at all times
+     * @param preparedConnectionTimeToLive  the time in seconds after which an unused prepared connection is replaced,
+     *                                      or 0 to keep them until used
+     */
+    public ServiceConnectManager(ServiceContext service,
+                                 AbstractProxyHandler connectHandler,
+                                 BridgeServiceFactory bridgeServiceFactory,
+                                 URI connectURI,
+                                 int interval,
+                                 final int preparedConnectionCount,
+                                 final int preparedConnectionMinimum,
+                                 final int preparedConnectionMaximum,
+                                 final int preparedConnectionTimeToLive) {
         this.serviceCtx = service;
         this.connectHandler = connectHandler;
         this.connectURI = connectURI;
@@ -137,6 +171,35 @@ public final class ServiceConnectManager {
                               serviceCtx.getServiceType(), preparedConnectionCount));
         }
 
+        // Adaptive sizing keeps between prepared.connection.minimum and prepared.connection.maximum connections,
+        // starting from prepared.connection.count. The minimum is raised to the number of I/O threads for the same
+        // reason as prepared.connection.count above.
+        this.preparedConnectionMaximum = preparedConnectionMaximum;
+        this.preparedConnectionMinimum = preparedConnectionMinimum;
+        if (preparedConnectionMaximum > 0) {
+            if (preparedConnectionMinimum > 0 && preparedConnectionMinimum < workerCount) {
+                this.preparedConnectionMinimum = workerCount;
+                if (logger.isWarnEnabled()) {
+                    logger.warn(String.format(
+                            "Configured prepared.connection.minimum %d for %s service has been increased to number of IO threads %d",
+                            preparedConnectionMinimum, serviceCtx.getServiceType(), workerCount));
+                }
+            }
+            if (this.preparedConnectionMaximum < Math.max(this.preparedConnectionMinimum, workerCount)) {
+                this.preparedConnectionMaximum = Math.max(this.preparedConnectionMinimum, workerCount);
+                if (logger.isWarnEnabled()) {
+                    logger.warn(String.format(
+                            "Configured prepared.connection.maximum %d for %s service has been increased to %d",
+                            preparedConnectionMaximum, serviceCtx.getServiceType(), this.preparedConnectionMaximum));
+                }
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("%s service using adaptive prepared.connection.minimum=%d, prepared.connection.maximum=%d",
+                        serviceCtx.getServiceType(), this.preparedConnectionMinimum, this.preparedConnectionMaximum));
+            }
+        }
+        this.preparedConnectionTimeToLive = preparedConnectionTimeToLive;
+
         if (interval > 0) {
             heartbeatFilter = new HeartbeatFilter(interval);
         } else {
@@ -170,8 +233,13 @@ public final class ServiceConnectManager {
         assert preparedConnectionCount == 0 || preparedConnectionCount >= workers.length : "Prepared connection count must be 0, or >= number of IO threads";
         int minCountPerThread = preparedConnectionCount / workers.length;
         int remainder = preparedConnectionCount % workers.length;
-        for (Worker worker : workers) {
+        final boolean adaptive = preparedConnectionMaximum > 0;
+        int minimumPerThread = preparedConnectionMinimum / workers.length;
+        int minimumRemainder = preparedConnectionMinimum % workers.length;
+        final int maximum = adaptive ? (preparedConnectionMaximum + workers.length - 1) / workers.length : 0;
+        for (final Worker worker : workers) {
             final int count = remainder-- > 0 ? minCountPerThread + 1 : minCountPerThread;
+            final int minimum = minimumRemainder-- > 0 ? minimumPerThread + 1 : minimumPerThread;
             FutureTask<ConnectionPool> startConnectionPoolTask = new FutureTask<>(new Callable<ConnectionPool>() {
 
                 @Override
@@ -181,8 +249,10 @@ public final class ServiceConnectManager {
                         // the first time the pool is started is needs to be created, subsequent times it should just be started
                         // without re-creating.
                         currentPool = new ConnectionPool(serviceCtx, connectHandler, connectURI, heartbeatFilter,
-                                connectListener, count, true);
+                                connectListener, count, adaptive ? minimum : count, adaptive ? maximum : count,
+                                TimeUnit.SECONDS.toMillis(preparedConnectionTimeToLive), true);
                         connectionPool.set(currentPool);
+                        poolWorkers.put(Thread.currentThread(), worker);
                     }
                     currentPool.start();
                     return currentPool;
@@ -191,46 +261,152 @@ public final class ServiceConnectManager {
             });
             worker.executeInIoThread(startConnectionPoolTask);
         }
+
+        if ((adaptive || preparedConnectionTimeToLive > 0) && schedulerProvider != null) {
+            schedulePoolMaintenance(workers);
+        }
+    }
+
+    // Stop the connection manager, the prepared connections are no longer maintained.
+    public synchronized void stop() {
+        if (poolMaintenance != null) {
+            poolMaintenance.cancel(false);
+            poolMaintenance = null;
+        }
+    }
+
+    // Periodically expire and resize the prepared connections of every pool, on the I/O thread owning the pool
+    private synchronized void schedulePoolMaintenance(final Worker[] workers) {
+        if (poolMaintenance != null) {
+            // already scheduled by an earlier start
+            return;
+        }
+
+        final Runnable maintainConnectionPoolTask = new Runnable() {
+            @Override
+            public void run() {
+                ConnectionPool currentPool = connectionPool.get();
+                if (currentPool != null) {
+                    currentPool.maintain();
+                }
+            }
+        };
+        ScheduledExecutorService executor = schedulerProvider.getScheduler("PreparedConnectionMaintenance", false);
+        poolMaintenance = executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                for (Worker worker : workers) {
+                    worker.executeInIoThread(maintainConnectionPoolTask);
+                }
+            }
+        }, 1, 1, TimeUnit.SECONDS);
     }
 
     public ConnectFuture getNextConnectFuture(final IoSessionInitializer<ConnectFuture> connectInitializer) {
+        return getNextConnectFuture(null, connectInitializer);
+    }
+
+    /**
+     * Returns a connect future from the connection pool of the current I/O thread. When called from any other thread,
+     * the connect is delegated to the pool of the I/O thread of the given session (or to another pool if that thread
+     * has none) and the returned future completes once that pool hands out a connection, without blocking the caller.
+     *
+     * @param session  the session the connection is made for, or null
+     */
+    public ConnectFuture getNextConnectFuture(IoSession session, IoSessionInitializer<ConnectFuture> connectInitializer) {
+        long startTime = System.nanoTime();
         ConnectionPool pool = connectionPool.get();
-        if (pool == null) {
-            FutureTask<ConnectFuture> delegateGetConnectFuture = new FutureTask<>(new Callable<ConnectFuture>() {
+        if (pool != null) {
+            return getNextConnectFuture(pool, connectInitializer, startTime);
+        }
 
+        DelegatedConnectFuture future = new DelegatedConnectFuture(connectInitializer, startTime);
+        try {
+            getPoolWorker(session).executeInIoThread(future);
+        } catch (RuntimeException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(format("Failed to delegate connect to %s to an I/O thread", connectURI), e);
+            }
+            future.setException(e);
+        }
+        return future;
+    }
+
+    private ConnectFuture getNextConnectFuture(ConnectionPool pool, IoSessionInitializer<ConnectFuture> connectInitializer,
+                                               final long startTime) {
+        final ConnectLatency latency = pool.hasPreparedConnection() ? preparedConnectLatency : onDemandConnectLatency;
+        ConnectFuture future = pool.getNextConnectFuture(connectInitializer);
+        if (future.isDone()) {
+            if (future.isConnected()) {
+                latency.record(startTime);
+            }
+        } else {
+            future.addListener(new IoFutureListener<ConnectFuture>() {
                 @Override
-                public ConnectFuture call() {
-                    ConnectionPool delegatePool = connectionPool.get();
-                    if (delegatePool != null) {
-                        return delegatePool.getNextConnectFuture(connectInitializer);
+                public void operationComplete(ConnectFuture future) {
+                    if (future.isConnected()) {
+                        latency.record(startTime);
                     }
-                    return null;
                 }
             });
+        }
+        return future;
+    }
+
+    private Worker getPoolWorker(IoSession session) {
+        if (session instanceof IoSessionEx) {
+            Worker worker = poolWorkers.get(((IoSessionEx) session).getIoThread());
+            if (worker != null) {
+                return worker;
+            }
+        }
+        Worker[] workers = tcpAcceptor.getWorkers();
+        return workers[(nextPoolWorker.getAndIncrement() & Integer.MAX_VALUE) % workers.length];
+    }
+
+    /**
+     * Connect future completed from the connection pool of another I/O thread.
+     */
+    private final class DelegatedConnectFuture extends DefaultConnectFuture
+            implements Runnable, IoFutureListener<ConnectFuture> {
+        private final IoSessionInitializer<ConnectFuture> connectInitializer;
+        private final long startTime;
+
+        DelegatedConnectFuture(IoSessionInitializer<ConnectFuture> connectInitializer, long startTime) {
+            this.connectInitializer = connectInitializer;
+            this.startTime = startTime;
+        }
 
-            // try to reschedule on an IO Thread
-            Worker[] workers = tcpAcceptor.getWorkers();
-            int randomWorker = (int)(Math.random() * workers.length);
-            workers[randomWorker].executeInIoThread(delegateGetConnectFuture);
+        @Override
+        public void run() {
+            ConnectionPool pool = connectionPool.get();
+            if (pool == null) {
+                setException(new IllegalStateException(format("No connection pool to %s on thread %s", connectURI,
+                        Thread.currentThread().getName())));
+                return;
+            }
             try {
-                return delegateGetConnectFuture.get();
-            } catch (ExecutionException executionEX) {
-                if (logger.isDebugEnabled()) {
-                    logger.debug(format("Failed to get connectFuture to %s from delegate connection pool due to exception", connectURI), executionEX);
-                } else {
-                    logger.warn(format("Failed to get ConnectFuture to %s from delegate connection pool due to exception %s", connectURI, executionEX));
-                }
-                return null;
-            } catch (InterruptedException interruptedEx) {
-                if (logger.isDebugEnabled()) {
-                    logger.debug(format("Failed to get connectFuture to %s from delegate connection pool due to exception", connectURI), interruptedEx);
-                } else {
-                    logger.warn(format("Failed to get ConnectFuture to %s from delegate connection pool due to exception %s", connectURI, interruptedEx));
+                getNextConnectFuture(pool, connectInitializer, startTime).addListener(this);
+            } catch (RuntimeException e) {
+                setException(e);
+            }
+        }
+
+        @Override
+        public void operationComplete(ConnectFuture future) {
+            if (future.isConnected()) {
+                IoSession session = future.getSession();
+                setSession(session);
+                if (isCanceled()) {
+                    // canceled while the connection was being handed out
+                    session.close(true);
                 }
-                return null;
+            } else if (future.getException() != null) {
+                setException(future.getException());
+            } else {
+                cancel();
             }
         }
-        return pool.getNextConnectFuture(connectInitializer);
     }
 
     // for unit test use
@@ -525,6 +701,29 @@ public final class ServiceConnectManager {
         return heartbeat.heartbeatTask.get() != null;
     }
 
+    public long getPreparedConnectionsUsedCount() {
+        return preparedConnectLatency.getCount();
+    }
+
+    /**
+     * @return the average time in microseconds to obtain a prepared connection, including any delegation to another
+     *         I/O thread
+     */
+    public long getPreparedConnectionLatency() {
+        return preparedConnectLatency.getAverageLatency();
+    }
+
+    public long getOnDemandConnectionCount() {
+        return onDemandConnectLatency.getCount();
+    }
+
+    /**
+     * @return the average time in microseconds to establish a connection when no prepared connection was available
+     */
+    public long getOnDemandConnectionLatency() {
+        return onDemandConnectLatency.getAverageLatency();
+    }
+
     private void updateConnectTimes(boolean connected) {
         if (connected) {
             lastSuccessfulConnectTime.set(System.currentTimeMillis());
@@ -538,4 +737,23 @@ public final class ServiceConnectManager {
     //    End of the data exposed by the ServiceConnectManager
     // -----------------------------------------------------------
 
+    private static final class ConnectLatency {
+        private final AtomicLong count = new AtomicLong(0);
+        private final AtomicLong totalNanos = new AtomicLong(0);
+
+        void record(long startTime) {
+            totalNanos.addAndGet(System.nanoTime() - startTime);
+            count.incrementAndGet();
+        }
+
+        long getCount() {
+            return count.get();
+        }
+
+        long getAverageLatency() {
+            long count = this.count.get();
+            return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos.get() / count);
+        }
+    }
+
 }
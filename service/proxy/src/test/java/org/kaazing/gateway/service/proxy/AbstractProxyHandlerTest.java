@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.proxy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.mina.core.future.DefaultWriteFuture;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.session.AttributeKey;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.api.Invocation;
+import org.jmock.lib.action.CustomAction;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.service.proxy.AbstractProxyHandler.AttachedSessionManager;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+public class AbstractProxyHandlerTest {
+
+    private Mockery context;
+    private IoSessionEx sourceSession;
+    private IoSessionEx attachedSession;
+    private AtomicLong scheduledWriteBytes;
+
+    @Before
+    public void setup() {
+        context = new Mockery() {{
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }};
+        sourceSession = context.mock(IoSessionEx.class, "sourceSession");
+        attachedSession = context.mock(IoSessionEx.class, "attachedSession");
+        scheduledWriteBytes = new AtomicLong();
+
+        context.checking(new Expectations() {{
+            allowing(sourceSession).getId(); will(returnValue(1L));
+            allowing(attachedSession).getId(); will(returnValue(2L));
+            allowing(sourceSession).setAttribute(with(any(AttributeKey.class)), with(any(Object.class)));
+            allowing(attachedSession).setAttribute(with(any(AttributeKey.class)), with(any(Object.class)));
+            allowing(sourceSession).getIoExecutor(); will(returnValue(IoSessionEx.IMMEDIATE_EXECUTOR));
+            allowing(attachedSession).getScheduledWriteBytes(); will(new CustomAction("scheduledWriteBytes") {
+                @Override
+                public Object invoke(Invocation invocation) throws Throwable {
+                    return scheduledWriteBytes.get();
+                }
+            });
+        }});
+    }
+
+    @Test
+    public void shouldSuspendAndResumeReadsWithTransportFlowControl() throws Exception {
+        AbstractProxyHandler handler = new AbstractProxyHandler() { };
+        handler.setMaximumPendingBytes(100);
+        handler.setTransportFlowControl(true);
+        AttachedSessionManager attachedSessionManager = handler.attachSessions(sourceSession, attachedSession);
+
+        final DefaultWriteFuture firstWrite = new DefaultWriteFuture(attachedSession);
+        final DefaultWriteFuture secondWrite = new DefaultWriteFuture(attachedSession);
+        final DefaultWriteFuture thirdWrite = new DefaultWriteFuture(attachedSession);
+        context.checking(new Expectations() {{
+            oneOf(attachedSession).write(with(any(Object.class))); will(returnValue(firstWrite));
+            oneOf(attachedSession).write(with(any(Object.class))); will(returnValue(secondWrite));
+            oneOf(sourceSession).suspendRead();
+            oneOf(attachedSession).write(with(any(Object.class))); will(returnValue(thirdWrite));
+        }});
+
+        write(attachedSessionManager, 50);
+        write(attachedSessionManager, 150);
+        // message read before reads were suspended
+        write(attachedSessionManager, 200);
+        context.assertIsSatisfied();
+
+        // still above the resume threshold, wait for the last write
+        complete(firstWrite, 150);
+        complete(secondWrite, 100);
+        context.assertIsSatisfied();
+
+        context.checking(new Expectations() {{
+            oneOf(sourceSession).resumeRead();
+        }});
+        complete(thirdWrite, 0);
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void shouldResumeReadsOnceDrainedWithTransportFlowControl() throws Exception {
+        AbstractProxyHandler handler = new AbstractProxyHandler() { };
+        handler.setMaximumPendingBytes(100);
+        handler.setTransportFlowControl(true);
+        AttachedSessionManager attachedSessionManager = handler.attachSessions(sourceSession, attachedSession);
+
+        final DefaultWriteFuture write = new DefaultWriteFuture(attachedSession);
+        context.checking(new Expectations() {{
+            oneOf(attachedSession).write(with(any(Object.class))); will(returnValue(write));
+            oneOf(sourceSession).suspendRead();
+        }});
+        write(attachedSessionManager, 150);
+        context.assertIsSatisfied();
+
+        // transport still reports pending bytes, but the last write has completed
+        context.checking(new Expectations() {{
+            oneOf(sourceSession).resumeRead();
+        }});
+        complete(write, 150);
+        context.assertIsSatisfied();
+    }
+
+    private void write(AttachedSessionManager attachedSessionManager, long newScheduledWriteBytes) {
+        scheduledWriteBytes.set(newScheduledWriteBytes);
+        attachedSessionManager.writeMessage(sourceSession, SimpleBufferAllocator.BUFFER_ALLOCATOR.allocate(10));
+    }
+
+    private void complete(WriteFuture writeFuture, long newScheduledWriteBytes) {
+        scheduledWriteBytes.set(newScheduledWriteBytes);
+        writeFuture.setWritten();
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.mina.core.future.ConnectFuture;
+import org.apache.mina.core.future.DefaultConnectFuture;
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.session.DummySession;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.session.IoSessionInitializer;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.api.Invocation;
+import org.jmock.lib.action.CustomAction;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Test;
+import org.kaazing.gateway.service.ServiceContext;
+
+public class ConnectionPoolTest {
+
+    private static final IoFutureListener<ConnectFuture> NO_OP_LISTENER = new IoFutureListener<ConnectFuture>() {
+        @Override
+        public void operationComplete(ConnectFuture future) {
+        }
+    };
+
+    @Test
+    public void preConnectsShouldRampUpAfterFailure() throws Exception {
+        Mockery context = new Mockery() {{
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }};
+        final AbstractProxyHandler handler = context.mock(AbstractProxyHandler.class);
+        final ServiceContext service = context.mock(ServiceContext.class);
+        final URI connectURI = new URI("tcp://localhost:8051");
+        final List<DefaultConnectFuture> futures = new ArrayList<>();
+
+        context.checking(new Expectations() {
+            {
+                allowing(service).connect(with(connectURI), with(handler), with(any(IoSessionInitializer.class)));
+                will(new CustomAction("return next future (pending)") {
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        DefaultConnectFuture future = new DefaultConnectFuture();
+                        futures.add(future);
+                        return future;
+                    }
+                });
+            }
+        });
+
+        ConnectionPool pool = new ConnectionPool(service, handler, connectURI, null, NO_OP_LISTENER, 4, true);
+        pool.start();
+        assertEquals(4, futures.size());
+
+        // backend is down, every pre-connect fails
+        for (DefaultConnectFuture future : futures) {
+            future.setException(new IOException("Connection refused"));
+        }
+        assertEquals(0, pool.getCurrentPreparedConnectionCount());
+
+        // backend recovers, only one pre-connect is attempted at first
+        pool.start();
+        assertEquals(5, futures.size());
+
+        // each success doubles the number of concurrent pre-connects
+        futures.get(4).setSession(new DummySession());
+        assertEquals(7, futures.size());
+        futures.get(5).setSession(new DummySession());
+        assertEquals(8, futures.size());
+
+        // no more than the prepared connection count
+        futures.get(6).setSession(new DummySession());
+        futures.get(7).setSession(new DummySession());
+        assertEquals(8, futures.size());
+        assertEquals(4, pool.getCurrentPreparedConnectionCount());
+
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void expiredPreparedConnectionShouldNotBeHandedOut() throws Exception {
+        Mockery context = new Mockery() {{
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }};
+        final AbstractProxyHandler handler = context.mock(AbstractProxyHandler.class);
+        final ServiceContext service = context.mock(ServiceContext.class);
+        final URI connectURI = new URI("tcp://localhost:8051");
+        final List<IoSession> sessions = new ArrayList<>();
+
+        context.checking(new Expectations() {
+            {
+                allowing(service).connect(with(connectURI), with(handler), with(any(IoSessionInitializer.class)));
+                will(new CustomAction("return next future (fulfilled)") {
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        DefaultConnectFuture future = new DefaultConnectFuture();
+                        IoSession session = new DummySession();
+                        sessions.add(session);
+                        future.setSession(session);
+                        return future;
+                    }
+                });
+            }
+        });
+
+        ConnectionPool pool = new ConnectionPool(service, handler, connectURI, null, NO_OP_LISTENER, 1, 1, 1, 10, true);
+        pool.start();
+        assertEquals(1, sessions.size());
+
+        Thread.sleep(50);
+
+        ConnectFuture future = pool.getNextConnectFuture(null);
+        assertNotSame(sessions.get(0), future.getSession());
+        assertTrue("expired prepared connection should be closed", sessions.get(0).isClosing());
+
+        // a replacement pre-connect is established
+        assertEquals(3, sessions.size());
+        assertEquals(1, pool.getCurrentPreparedConnectionCount());
+
+        context.assertIsSatisfied();
+    }
+
+}
@@ -31,9 +31,14 @@ import java.net.URI;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.mina.core.future.ConnectFuture;
 import org.apache.mina.core.future.DefaultConnectFuture;
 import org.apache.mina.core.session.DummySession;
 import org.apache.mina.core.session.IoSessionInitializer;
@@ -51,6 +56,7 @@ import org.kaazing.gateway.transport.Transport;
 import org.kaazing.gateway.transport.TransportFactory;
 import org.kaazing.gateway.transport.nio.NioSocketAcceptor;
 import org.kaazing.gateway.util.scheduler.SchedulerProvider;
+import org.kaazing.mina.core.session.IoSessionEx;
 import org.slf4j.Logger;
 
 public class ServiceConnectManagerTest {
@@ -274,6 +280,8 @@ public class ServiceConnectManagerTest {
         {
             DefaultConnectFuture future = (DefaultConnectFuture)manager.getNextConnectFuture(null);
             try {
+                // completed asynchronously by the connection pool of the worker thread
+                future.awaitUninterruptibly();
                 assertTrue("pre-connected future should be connected", future.isConnected());
             } catch(Throwable t) {
                 t.printStackTrace();
@@ -376,6 +384,8 @@ public class ServiceConnectManagerTest {
         {
             DefaultConnectFuture future = (DefaultConnectFuture)manager.getNextConnectFuture(null);
             try {
+                // completed asynchronously by the connection pool of the worker thread
+                future.awaitUninterruptibly();
                 assertTrue("pre-connected future should be connected", future.isConnected());
 
                 // now close the session
@@ -390,6 +400,7 @@ public class ServiceConnectManagerTest {
         {
             DefaultConnectFuture future = (DefaultConnectFuture)manager.getNextConnectFuture(null);
             try {
+                future.awaitUninterruptibly();
                 assertTrue("second pre-connected future should be connected", future.isConnected());
             } catch(Throwable t) {
                 t.printStackTrace();
@@ -414,6 +425,139 @@ public class ServiceConnectManagerTest {
         context.assertIsSatisfied();
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getConnectFutureShouldDelegateToWorkerOfSession() throws Exception {
+        Mockery context = new Mockery() {{
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }};
+        context.setThreadingPolicy(new Synchroniser());
+        final AbstractProxyHandler handler = context.mock(AbstractProxyHandler.class);
+        final ServiceContext service = context.mock(ServiceContext.class);
+        final Logger logger = context.mock(Logger.class);
+        final BridgeServiceFactory bridgeServiceFactory = context.mock(BridgeServiceFactory.class);
+        final TransportFactory transportFactory = context.mock(TransportFactory.class);
+        final Transport transport = context.mock(Transport.class);
+        final NioSocketAcceptor acceptor = context.mock(NioSocketAcceptor.class);
+        final IoSessionEx acceptSession = context.mock(IoSessionEx.class);
+        final int IO_THREADS = 2;
+        final Worker[] workers = new Worker[IO_THREADS];
+        final ExecutorService[] threads = new ExecutorService[IO_THREADS];
+        final CompletionService<Throwable>[] executors = new CompletionService[IO_THREADS];
+        for (int i = 0; i < IO_THREADS; i++) {
+            workers[i] = context.mock(Worker.class, "worker" + (i + 1));
+            threads[i] = Executors.newFixedThreadPool(1);
+            executors[i] = new ExecutorCompletionService<>(threads[i]);
+        }
+        final Thread acceptThread = threads[1].submit(new Callable<Thread>() {
+            @Override
+            public Thread call() {
+                return Thread.currentThread();
+            }
+        }).get();
+
+        final URI CONNECT_URI = new URI("http://localhost:8051");
+        final Object threadAttributeKey = new Object();
+
+        context.checking(new Expectations() {
+            {
+                allowing(service).getLogger(); will(returnValue(logger));
+                allowing(service).getSchedulerProvider(); will(returnValue(null));
+                allowing(service).getProcessorCount(); will(returnValue(IO_THREADS));
+                allowing(logger).isDebugEnabled(); will(returnValue(false));
+                allowing(logger).isWarnEnabled(); will(returnValue(false));
+                allowing(logger).isTraceEnabled(); will(returnValue(false));
+                allowing(bridgeServiceFactory).getTransportFactory(); will(returnValue(transportFactory));
+                allowing(transportFactory).getTransport("tcp"); will(returnValue(transport));
+                allowing(transport).getAcceptor(); will(returnValue(acceptor));
+                allowing(acceptor).getWorkers(); will(returnValue(workers));
+                for (int i = 0; i < IO_THREADS; i++) {
+                    allowing(workers[i]).executeInIoThread(with(any(Runnable.class))); will(new ExecuteRunnable(executors[i]));
+                }
+                allowing(acceptSession).getIoThread(); will(returnValue(acceptThread));
+                allowing(service).connect(with(CONNECT_URI), with(handler), with(any(IoSessionInitializer.class)));
+                will(new CustomAction("return next future (fulfilled)") {
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        DefaultConnectFuture future = new DefaultConnectFuture();
+                        future.setSession(new DummySession());  // fulfills the connect future
+                        future.getSession().setAttribute(threadAttributeKey, Thread.currentThread());
+                        return future;
+                    }
+                });
+            }
+        });
+
+        final ServiceConnectManager manager = new ServiceConnectManager(service, handler, bridgeServiceFactory, CONNECT_URI,
+                0 /*interval*/, 0 /*prepared connections*/);
+        manager.start();
+        for (int i = 0; i < IO_THREADS; i++) {
+            assertNull(executors[i].take().get());
+        }
+
+        // simulates a connect requested off the I/O threads for a session owned by the second worker
+        ConnectFuture future = manager.getNextConnectFuture(acceptSession, null);
+        assertTrue("connect future should complete", future.awaitUninterruptibly(5000L));
+        assertTrue("connect future should be connected", future.isConnected());
+        assertSame(acceptThread, future.getSession().getAttribute(threadAttributeKey));
+        assertNull(executors[1].take().get());
+        assertEquals(1L, manager.getOnDemandConnectionCount());
+        assertEquals(0L, manager.getPreparedConnectionsUsedCount());
+
+        for (int i = 0; i < IO_THREADS; i++) {
+            threads[i].shutdownNow();
+        }
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void stopShouldCancelPoolMaintenance() throws Exception {
+        Mockery context = new Mockery() {{
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }};
+        final AbstractProxyHandler handler = context.mock(AbstractProxyHandler.class);
+        final ServiceContext service = context.mock(ServiceContext.class);
+        final Logger logger = context.mock(Logger.class);
+        final BridgeServiceFactory bridgeServiceFactory = context.mock(BridgeServiceFactory.class);
+        final TransportFactory transportFactory = context.mock(TransportFactory.class);
+        final Transport transport = context.mock(Transport.class);
+        final NioSocketAcceptor acceptor = context.mock(NioSocketAcceptor.class);
+        final Worker worker = context.mock(Worker.class, "worker");
+        final SchedulerProvider schedulerProvider = context.mock(SchedulerProvider.class);
+        final ScheduledExecutorService scheduler = context.mock(ScheduledExecutorService.class);
+        final ScheduledFuture<?> maintenance = context.mock(ScheduledFuture.class);
+        final URI CONNECT_URI = new URI("http://localhost:8051");
+
+        context.checking(new Expectations() {
+            {
+                allowing(service).getLogger(); will(returnValue(logger));
+                allowing(service).getSchedulerProvider(); will(returnValue(schedulerProvider));
+                allowing(service).getProcessorCount(); will(returnValue(1));
+                allowing(logger).isDebugEnabled(); will(returnValue(false));
+                allowing(logger).isWarnEnabled(); will(returnValue(false));
+                allowing(logger).isTraceEnabled(); will(returnValue(false));
+                allowing(bridgeServiceFactory).getTransportFactory(); will(returnValue(transportFactory));
+                allowing(transportFactory).getTransport("tcp"); will(returnValue(transport));
+                allowing(transport).getAcceptor(); will(returnValue(acceptor));
+                allowing(acceptor).getWorkers(); will(returnValue(new Worker[] { worker }));
+                allowing(worker).executeInIoThread(with(any(Runnable.class)));
+                oneOf(schedulerProvider).getScheduler("PreparedConnectionMaintenance", false); will(returnValue(scheduler));
+                oneOf(scheduler).scheduleWithFixedDelay(with(any(Runnable.class)), with(1L), with(1L), with(TimeUnit.SECONDS));
+                will(returnValue(maintenance));
+                oneOf(maintenance).cancel(false);
+            }
+        });
+
+        final ServiceConnectManager manager = new ServiceConnectManager(service, handler, bridgeServiceFactory, CONNECT_URI,
+                0 /*interval*/, 1 /*prepared connections*/, 0, 0, 60 /*prepared connection time to live*/);
+        manager.start();
+        manager.start();
+        manager.stop();
+        manager.stop();
+
+        context.assertIsSatisfied();
+    }
+
     private static class ExecuteRunnable extends CustomAction {
         private final CompletionService<Throwable> completionService;
 
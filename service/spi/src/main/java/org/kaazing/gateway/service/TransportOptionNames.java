@@ -66,6 +66,8 @@ public interface TransportOptionNames {
     String SSL_WANT_CLIENT_AUTH = "ssl.wantClientAuth";
     String SSL_NEED_CLIENT_AUTH = "ssl.needClientAuth";
     String SSL_KEY_SELECTOR = "ssl.keySelector";
+    String SSL_SESSION_CACHE_SIZE = "ssl.sessionCacheSize";
+    String SSL_SESSION_TIMEOUT = "ssl.sessionTimeout";
 
     String HTTP_SERVER_HEADER_ENABLED = "http.serverHeaderEnabled";
 
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.cluster;
+
+import java.io.Serializable;
+
+/**
+ * Load figure published by a cluster member for each of its balanced accept URIs, so that balancers
+ * can direct new connections to the least loaded balancee.
+ */
+public class BalanceeLoad implements Serializable {
+
+    private static final long serialVersionUID = -3169245186370227435L;
+
+    private final int sessionCount;
+    private final float cpuLoad;
+    private final long timestamp;
+    private final int publishInterval;
+
+    /**
+     * @param sessionCount     the number of sessions the balanced service is carrying
+     * @param cpuLoad          the system load average per processor, or a negative value if unavailable
+     * @param timestamp        the time in milliseconds since the epoch at which the load was measured
+     * @param publishInterval  the interval in milliseconds at which the member republishes its load
+     */
+    public BalanceeLoad(int sessionCount, float cpuLoad, long timestamp, int publishInterval) {
+        this.sessionCount = sessionCount;
+        this.cpuLoad = cpuLoad;
+        this.timestamp = timestamp;
+        this.publishInterval = publishInterval;
+    }
+
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    public float getCpuLoad() {
+        return cpuLoad;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getPublishInterval() {
+        return publishInterval;
+    }
+
+    /**
+     * A load is stale once the member has missed several publications, for example because it is
+     * shutting down, and should then be treated as unknown.
+     */
+    public boolean isStale(long currentTimeMillis) {
+        return currentTimeMillis - timestamp > 3L * publishInterval;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[sessions=%d, cpu=%.2f, timestamp=%d]", sessionCount, cpuLoad, timestamp);
+    }
+}
@@ -26,11 +26,11 @@ import org.kaazing.gateway.service.messaging.MessagingMessage;
 public interface MessageBuffer {
 
 	// TODO: this could return null for expired messages and possibly null them to clear storage     
-	MessageBufferEntry get(int id);	
+	MessageBufferEntry get(long id);	
     MessageBufferEntry add(MessagingMessage message);
-    MessageBufferEntry set(int index, MessagingMessage message);
-	int getYoungestId();
-	int getOldestId();
+    MessageBufferEntry set(long index, MessagingMessage message);
+	long getYoungestId();
+	long getOldestId();
 	int getCapacity();
 	
 	void addMessageBufferListener(MessageBufferListener listener);
@@ -27,18 +27,18 @@ import org.kaazing.gateway.service.messaging.MessagingMessage;
 
 public class MessageBufferEntry implements Serializable {
 
-    private static final long serialVersionUID = 1L;
-    private final int id;
+    private static final long serialVersionUID = 2L;
+    private final long id;
     private final MessagingMessage message;
     private final long expires;
 
-    public MessageBufferEntry(int id, MessagingMessage message) {
+    public MessageBufferEntry(long id, MessagingMessage message) {
         this.id = id;
         this.expires = 0;
         this.message = message;
     }
 
-    public int getId() {
+    public long getId() {
         return id;
     }
 
@@ -26,6 +26,7 @@ import static java.util.Collections.unmodifiableMap;
 import static java.util.EnumSet.allOf;
 import static java.util.EnumSet.complementOf;
 import static java.util.EnumSet.of;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.kaazing.gateway.resource.address.ResourceAddress.NEXT_PROTOCOL;
 import static org.kaazing.gateway.resource.address.ResourceAddress.QUALIFIER;
 import static org.kaazing.gateway.resource.address.ResourceAddress.TRANSPORT;
@@ -46,6 +47,11 @@ import static org.kaazing.gateway.transport.http.HttpStatus.CLIENT_NOT_FOUND;
 import static org.kaazing.gateway.transport.http.bridge.filter.HttpNextProtocolHeaderFilter.PROTOCOL_HTTPXE_1_1;
 import static org.kaazing.gateway.transport.http.bridge.filter.HttpProtocolFilter.PROTOCOL_HTTP_1_1;
 import static org.kaazing.gateway.transport.http.resource.HttpDynamicResourceFactory.newHttpDynamicResourceFactory;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_AUTHENTICATION_CACHE_MAXIMUM_SIZE;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_AUTHENTICATION_CACHE_TTL;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_LOGIN_QUEUE_SIZE;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_LOGIN_RETRY_AFTER;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_LOGIN_THREADS;
 
 import java.io.IOException;
 import java.net.SocketAddress;
@@ -53,6 +59,8 @@ import java.net.URI;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
 
@@ -70,6 +78,7 @@ import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.session.IoSessionInitializer;
 import org.kaazing.gateway.resource.address.Protocol;
 import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.resource.address.ResourceAddressCache;
 import org.kaazing.gateway.resource.address.ResourceAddressFactory;
 import org.kaazing.gateway.resource.address.ResourceOptions;
 import org.kaazing.gateway.security.auth.context.ResultAwareLoginContext;
@@ -96,6 +105,8 @@ import org.kaazing.gateway.transport.http.bridge.filter.HttpLoginSecurityFilter;
 import org.kaazing.gateway.transport.http.bridge.filter.HttpNextAddressFilter;
 import org.kaazing.gateway.transport.http.bridge.filter.HttpProtocolDecoderException;
 import org.kaazing.gateway.transport.http.bridge.filter.HttpSerializeRequestsFilter;
+import org.kaazing.gateway.transport.http.bridge.filter.HttpAuthenticationCache;
+import org.kaazing.gateway.transport.http.bridge.filter.HttpLoginExecutor;
 import org.kaazing.gateway.transport.http.bridge.filter.HttpSubjectSecurityFilter;
 import org.kaazing.gateway.transport.http.resource.HttpDynamicResource;
 import org.kaazing.gateway.transport.http.resource.HttpDynamicResourceFactory;
@@ -117,6 +128,9 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
 	
     static final TypedAttributeKey<DefaultHttpSession> SESSION_KEY = new TypedAttributeKey<>(HttpAcceptor.class, "session");
 
+    private static final TypedAttributeKey<ResourceAddress> HTTP_REMOTE_ADDRESS_KEY =
+            new TypedAttributeKey<>(HttpAcceptor.class, "httpRemoteAddress");
+
     private static final String FAULT_LOGGING_FILTER = HttpProtocol.NAME + "#fault";
     private static final String TRACE_LOGGING_FILTER = HttpProtocol.NAME + "#logging";
 
@@ -127,6 +141,11 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
 
     private BridgeServiceFactory bridgeServiceFactory;
     private ResourceAddressFactory addressFactory;
+    private ResourceAddressCache candidateAddresses;
+    private HttpAuthenticationCache authenticationCache;
+    private HttpLoginExecutor loginExecutor;
+    private int loginRetryAfter;
+    private Properties configuration;
     
     private IoFilter httpNextAddress;
 
@@ -226,12 +245,29 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
         this.addressFactory = resourceAddressFactory;
     }
 
+    @Resource(name = "configuration")
+    public void setConfiguration(Properties configuration) {
+        this.configuration = configuration;
+    }
+
     @Override
     public void init() {
         super.init();
 
+        candidateAddresses = new ResourceAddressCache(addressFactory);
+
+        Properties configuration = (this.configuration != null) ? this.configuration : System.getProperties();
+        int authenticationTimeToLive = HTTP_AUTHENTICATION_CACHE_TTL.getIntProperty(configuration);
+        int authenticationMaximumSize = HTTP_AUTHENTICATION_CACHE_MAXIMUM_SIZE.getIntProperty(configuration);
+        authenticationCache = new HttpAuthenticationCache(authenticationTimeToLive, SECONDS, authenticationMaximumSize);
+
+        int loginThreads = HTTP_LOGIN_THREADS.getIntProperty(configuration);
+        int loginQueueSize = HTTP_LOGIN_QUEUE_SIZE.getIntProperty(configuration);
+        loginExecutor = new HttpLoginExecutor(loginThreads, loginQueueSize);
+        loginRetryAfter = HTTP_LOGIN_RETRY_AFTER.getIntProperty(configuration);
+
         HttpNextAddressFilter httpNextAddress = new HttpNextAddressFilter();
-        httpNextAddress.setResourceAddressFactory(addressFactory);
+        httpNextAddress.setResourceAddressCache(candidateAddresses);
         httpNextAddress.setBindings(bindings);
         this.httpNextAddress = httpNextAddress;
         
@@ -243,6 +279,26 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
         return new DefaultTransportMetadata(HttpProtocol.NAME);
     }
 
+    public HttpAuthenticationCache getAuthenticationCache() {
+        return authenticationCache;
+    }
+
+    public ResourceAddressCache getAddressCache() {
+        return candidateAddresses;
+    }
+
+    public HttpLoginExecutor getLoginExecutor() {
+        return loginExecutor;
+    }
+
+    @Override
+    protected IoFuture dispose0() throws Exception {
+        if (loginExecutor != null) {
+            loginExecutor.shutdownNow();
+        }
+        return super.dispose0();
+    }
+
     @Override
     protected IoProcessorEx<DefaultHttpSession> initProcessor() {
         return new HttpAcceptProcessor();
@@ -262,6 +318,8 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
             logger.trace(format("binding: '%s' %s", address.getExternalURI(), address.getOption(NEXT_PROTOCOL)));
         }
 
+        invalidateAddresses();
+
         //
         // Bind the transport of the address.
         //
@@ -285,12 +343,41 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
         if (logger.isTraceEnabled()) {
             logger.trace(format("unbinding: '%s' %s", address.getExternalURI(), address.getOption(NEXT_PROTOCOL)));
         }
+        invalidateAddresses();
         ResourceAddress transport = address.getTransport();
         BridgeAcceptor acceptor = bridgeServiceFactory.newBridgeAcceptor(transport);
         return acceptor.unbind(transport);
     }
 
 
+    private void invalidateAddresses() {
+        // cached addresses may refer to transports of bindings that have changed
+        if (candidateAddresses != null) {
+            candidateAddresses.invalidate();
+        }
+
+        // realms may be reconfigured when services are rebound
+        if (authenticationCache != null) {
+            authenticationCache.invalidateAll();
+        }
+    }
+
+    // remote addresses qualify the remote transport address of the connection, so they are reused across requests
+    // on the same connection only, keeping per-connection addresses out of the shared address cache
+    private ResourceAddress newRemoteAddress(IoSessionEx session, URI externalURI, String nextProtocol) {
+        ResourceAddress remoteAddress = HTTP_REMOTE_ADDRESS_KEY.get(session);
+        if (remoteAddress == null ||
+                !remoteAddress.getExternalURI().equals(externalURI) ||
+                !Objects.equals(remoteAddress.getOption(NEXT_PROTOCOL), nextProtocol)) {
+            ResourceOptions options = ResourceOptions.FACTORY.newResourceOptions();
+            options.setOption(TRANSPORT, BridgeSession.REMOTE_ADDRESS.get(session));
+            options.setOption(NEXT_PROTOCOL, nextProtocol);
+            remoteAddress = addressFactory.newResourceAddress(externalURI, options);
+            HTTP_REMOTE_ADDRESS_KEY.set(session, remoteAddress);
+        }
+        return remoteAddress;
+    }
+
     private final IoHandler httpResourcesHandler = new IoHandlerAdapter<HttpAcceptSession>() {
 
         private final HttpDynamicResourceFactory dynamicResourceFactory = newHttpDynamicResourceFactory();
@@ -434,12 +521,8 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                 assert (localAddress != null);
 
 
-                ResourceAddress transportAddress = BridgeSession.REMOTE_ADDRESS.get(session);
-                ResourceOptions options = ResourceOptions.FACTORY.newResourceOptions();
-                options.setOption(TRANSPORT, transportAddress);
-                options.setOption(NEXT_PROTOCOL, localAddress.getOption(NEXT_PROTOCOL));
-
-                final ResourceAddress remoteAddress = addressFactory.newResourceAddress(httpRequest.getExternalURI(), options);
+                final ResourceAddress remoteAddress = newRemoteAddress(session, httpRequest.getExternalURI(),
+                        localAddress.getOption(NEXT_PROTOCOL));
 
                 // percolate subject
                 final Subject subject = httpRequest.getSubject();
@@ -582,6 +665,9 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                 // One instance of HttpSubjectSecurityFilter per session
                 HttpSubjectSecurityFilter filter = new HttpSubjectSecurityFilter(LoggerFactory.getLogger(SECURITY_LOGGER_NAME));
                 filter.setSchedulerProvider(schedulerProvider);
+                filter.setAuthenticationCache(authenticationCache);
+                filter.setLoginExecutor(loginExecutor);
+                filter.setLoginRetryAfter(loginRetryAfter);
                 chain.addLast(acceptFilter.filterName(), filter);
                 break;
             default:
@@ -53,9 +53,9 @@ public class HttpConnectProcessor extends BridgeConnectProcessor<DefaultHttpSess
 
     public static final IoBufferEx WRITE_COMPLETE = SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(ByteBuffer.allocate(0));
     private static final String FILTER_PREFIX = HttpProtocol.NAME + "#";
-    private final ThreadLocal<PersistentConnectionPool> persistentConnectionPool;
+    private final PersistentConnectionPool persistentConnectionPool;
 
-    HttpConnectProcessor(ThreadLocal<PersistentConnectionPool> persistentConnectionPool) {
+    HttpConnectProcessor(PersistentConnectionPool persistentConnectionPool) {
         this.persistentConnectionPool = persistentConnectionPool;
     }
 
@@ -241,7 +241,7 @@ public class HttpConnectProcessor extends BridgeConnectProcessor<DefaultHttpSess
             } else if (serverToClose) {
                 // Let server close transport session. Add idle filter to close the connection,
                 // in case server doesn't close it.
-                persistentConnectionPool.get().addIdleFilter(parent, keepAliveTimeout);
+                persistentConnectionPool.addIdleFilter(parent, keepAliveTimeout);
             }
         } else {
             if ("chunked".equals(session.getWriteHeader("Transfer-Encoding"))) {
@@ -267,7 +267,7 @@ public class HttpConnectProcessor extends BridgeConnectProcessor<DefaultHttpSess
             // TODO should we make sure that complete response is read before recycling ??
 
             // recycle the transport connection
-            persistentConnectionPool.get().recycle(parent, keepAliveTimeout);
+            persistentConnectionPool.recycle(parent, keepAliveTimeout);
         }
     }
 
@@ -34,6 +34,7 @@ import static org.kaazing.gateway.transport.http.HttpConnectFilter.PROTOCOL_HTTP
 import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_CONTENT_LENGTH;
 import static org.kaazing.gateway.transport.http.bridge.filter.HttpNextProtocolHeaderFilter.PROTOCOL_HTTPXE_1_1;
 import static org.kaazing.gateway.transport.http.bridge.filter.HttpProtocolFilter.PROTOCOL_HTTP_1_1;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_CONNECT_MAXIMUM_IDLE_CONNECTIONS;
 
 import java.net.Inet6Address;
 import java.net.InetAddress;
@@ -85,7 +86,6 @@ import org.kaazing.mina.core.buffer.IoBufferEx;
 import org.kaazing.mina.core.service.IoProcessorEx;
 import org.kaazing.mina.core.session.IoSessionEx;
 import org.kaazing.mina.netty.socket.nio.NioSocketChannelIoSession;
-import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -108,7 +108,7 @@ public class HttpConnector extends AbstractBridgeConnector<DefaultHttpSession> {
     private final Set<HttpConnectFilter> allConnectFilters;
     private BridgeServiceFactory bridgeServiceFactory;
     private ResourceAddressFactory addressFactory;
-    private final ThreadLocal<PersistentConnectionPool> persistentConnectionsStore;
+    private final PersistentConnectionPool persistentConnectionPool;
     private final ConcurrentHashSet<Executor> ioExecutors;
     private Properties configuration;
 
@@ -121,12 +121,7 @@ public class HttpConnector extends AbstractBridgeConnector<DefaultHttpSession> {
         connectFiltersByProtocol.put(PROTOCOL_HTTPXE_1_1, complementOf(of(CONTENT_LENGTH_ADJUSTMENT)));
         this.connectFiltersByProtocol = unmodifiableMap(connectFiltersByProtocol);
         this.allConnectFilters = allOf(HttpConnectFilter.class);
-        this.persistentConnectionsStore = new VicariousThreadLocal<PersistentConnectionPool>() {
-            @Override
-            protected PersistentConnectionPool initialValue() {
-                return new PersistentConnectionPool(logger);
-            }
-        };
+        this.persistentConnectionPool = new PersistentConnectionPool(logger);
         this.ioExecutors = new ConcurrentHashSet<>();
     }
     
@@ -143,11 +138,22 @@ public class HttpConnector extends AbstractBridgeConnector<DefaultHttpSession> {
     @Resource(name = "configuration")
     public void setConfiguration(Properties configuration) {
         this.configuration = configuration;
+        persistentConnectionPool.setMaximumIdleConnections(HTTP_CONNECT_MAXIMUM_IDLE_CONNECTIONS.getIntProperty(configuration));
+    }
+
+    // number of persistent connections currently pooled
+    public int getPersistentConnectionCount() {
+        return persistentConnectionPool.getSize();
+    }
+
+    // fraction of connects that reused a persistent connection
+    public double getPersistentConnectionReuseRate() {
+        return persistentConnectionPool.getReuseRate();
     }
 
     @Override
     protected IoProcessorEx<DefaultHttpSession> initProcessor() {
-        return new HttpConnectProcessor(persistentConnectionsStore);
+        return new HttpConnectProcessor(persistentConnectionPool);
     }
 
     @Override
@@ -171,16 +177,23 @@ public class HttpConnector extends AbstractBridgeConnector<DefaultHttpSession> {
             Executor ioExecutor = null;
             boolean ioAligned = isIoAligned();
             if (!ioAligned) {
-                ioExecutor = getIoExecutor();
+                // prefer a thread with a persistent connection to reuse
+                ioExecutor = persistentConnectionPool.getIoExecutor(transportAddress);
+                if (ioExecutor == null) {
+                    ioExecutor = getIoExecutor();
+                }
             }
 
-            if (ioAligned || ioExecutor == null) {
-                connectInternal0(connectFuture, address, handler, initializer);
+            if (ioAligned) {
+                connectInternal0(connectFuture, address, handler, initializer, true);
+            } else if (ioExecutor == null) {
+                // no I/O thread known yet, only unaligned connections can be reused here
+                connectInternal0(connectFuture, address, handler, initializer, false);
             } else {
                 ioExecutor.execute(new Runnable() {
                     @Override
                     public void run() {
-                        connectInternal0(connectFuture, address, handler, initializer);
+                        connectInternal0(connectFuture, address, handler, initializer, true);
                     }
                 });
             }
@@ -212,9 +225,12 @@ public class HttpConnector extends AbstractBridgeConnector<DefaultHttpSession> {
     }
 
     private <T extends ConnectFuture> void connectInternal0(ConnectFuture connectFuture,
-            final ResourceAddress address, final IoHandler handler, final IoSessionInitializer<T> initializer) {
+            final ResourceAddress address, final IoHandler handler, final IoSessionInitializer<T> initializer,
+            boolean ioThread) {
 
-        IoSession transportSession = persistentConnectionsStore.get().take(address.getTransport());
+        ResourceAddress transportAddress = address.getTransport();
+        IoSession transportSession = ioThread ? persistentConnectionPool.take(transportAddress)
+                                              : persistentConnectionPool.takeUnaligned(transportAddress);
         if (transportSession != null) {
             connectUsingExistingTransport(connectFuture, address, transportSession, handler, initializer);
         } else {
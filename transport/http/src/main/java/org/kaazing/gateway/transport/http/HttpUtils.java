@@ -34,6 +34,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -149,7 +150,7 @@ public class HttpUtils {
 			String etag = getETagHeaderValue(requestFile);
 			String ifNoneMatch = httpRequest.getHeader("If-None-Match");
 			String ifModifiedSince = httpRequest.getHeader("If-Modified-Since");
-			if (!hasBeenModified(requestFile, etag, ifNoneMatch, ifModifiedSince)) {
+			if (!hasBeenModified(requestFile.lastModified(), etag, ifNoneMatch, ifModifiedSince)) {
 				httpResponse.setHeader("ETag", etag);
 				httpResponse.setStatus(HttpStatus.REDIRECT_NOT_MODIFIED);
 			}
@@ -184,7 +185,7 @@ public class HttpUtils {
             String etag = getETagHeaderValue(requestFile);
             String ifNoneMatch = httpSession.getReadHeader("If-None-Match");
             String ifModifiedSince = httpSession.getReadHeader("If-Modified-Since");
-            if (!hasBeenModified(requestFile, etag, ifNoneMatch, ifModifiedSince)) {
+            if (!hasBeenModified(requestFile.lastModified(), etag, ifNoneMatch, ifModifiedSince)) {
                 httpSession.setWriteHeader("ETag", etag);
                 httpSession.setStatus(REDIRECT_NOT_MODIFIED);
             }
@@ -220,29 +221,37 @@ public class HttpUtils {
 	// TODO: should be able to remove this once we can send File down the pipe
 	public static IoBufferEx getBufferForFile(IoBufferAllocatorEx<?> allocator, File requestFile) throws IOException {
 		FileInputStream in = new FileInputStream(requestFile);
-		IoBufferEx out = allocator.wrap(allocator.allocate(in.available())).setAutoExpander(allocator);
 		try {
-		    int pos = out.position();
-		    byte[] buf = new byte[1024 * 8];
-		    int length;
-		    while ((length = in.read(buf)) > 0) {
-			out.put(buf, 0, length);
+		    // read straight into a buffer sized from the file, avoiding an intermediate copy
+		    FileChannel channel = in.getChannel();
+		    long size = channel.size();
+		    if (size > Integer.MAX_VALUE) {
+		        throw new IOException("File too large to buffer: " + requestFile);
 		    }
-		    out.position(pos);
+		    ByteBuffer nioBuf = allocator.allocate((int) size);
+		    int pos = nioBuf.position();
+		    while (nioBuf.hasRemaining() && channel.read(nioBuf) != -1) {
+		        // keep reading until buffer is full or end of file
+		    }
+		    nioBuf.limit(nioBuf.position());
+		    nioBuf.position(pos);
+		    return allocator.wrap(nioBuf);
 		} finally {
 		    in.close();
 		}
-
-		return out;
 	}
 	
 	public static boolean hasBeenModified(HttpSession session, String etag, File requestFile) {
+		return hasBeenModified(session, etag, requestFile.lastModified());
+	}
+
+	public static boolean hasBeenModified(HttpSession session, String etag, long lastModified) {
 		String ifNoneMatch = session.getReadHeader("If-None-Match");
 		String ifModifiedSince = session.getReadHeader("If-Modified-Since");
-		return hasBeenModified(requestFile, etag, ifNoneMatch, ifModifiedSince);
+		return hasBeenModified(lastModified, etag, ifNoneMatch, ifModifiedSince);
 	}
 
-	private static boolean hasBeenModified(File requestFile,
+	private static boolean hasBeenModified(long lastModified,
 			String eTag, String ifNoneMatch, String ifModifiedSince) {
 		// "*" indicates skip ETag check, just use if-modified-since semantics, if present
 		if (ifNoneMatch != null && !"*".equals(ifNoneMatch)) {
@@ -263,7 +272,6 @@ public class HttpUtils {
 			return true;
 		}
 		
-		long lastModified = requestFile.lastModified();
 		Date ifModifiedSinceDate = null;
 		
 		// parse date format
@@ -302,8 +310,10 @@ public class HttpUtils {
 	}
 	
 	public static String getETagHeaderValue(File requestFile) {
-		long lastModified = requestFile.lastModified();
-		String absolutePath = requestFile.getAbsolutePath();
+		return getETagHeaderValue(requestFile.getAbsolutePath(), requestFile.lastModified());
+	}
+
+	public static String getETagHeaderValue(String absolutePath, long lastModified) {
 		
 		// construct the MDS hash
 		ByteBuffer buf = ByteBuffer.allocate(16);
@@ -21,6 +21,9 @@
 
 package org.kaazing.gateway.transport.http;
 
+import static java.lang.Thread.currentThread;
+import static org.kaazing.mina.core.session.IoSessionEx.CURRENT_THREAD;
+
 import org.apache.mina.core.future.CloseFuture;
 import org.apache.mina.core.future.IoFutureListener;
 import org.apache.mina.core.session.IdleStatus;
@@ -31,31 +34,62 @@ import org.kaazing.gateway.transport.http.bridge.filter.HttpFilterAdapter;
 import org.kaazing.mina.core.session.IoSessionEx;
 import org.slf4j.Logger;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Deque;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /*
  * A pool for reusable persistent transport connections. HttpConnector
  * may pick one of the transport connections instead of creating a new
  * one while connecting to the origin server.
+ *
+ * Connections are kept by the I/O thread owning them, and only handed out
+ * on that thread, so a reused connection never hops threads. For each
+ * origin the most recently recycled connection is reused first, leaving
+ * the least recently used ones to expire after the keep-alive timeout.
+ * The pool can be used from any thread.
  */
 public class PersistentConnectionPool {
 
     private static final String IDLE_FILTER = HttpProtocol.NAME + "#idle";
 
-    // transport address -> set of persistent connections
-    private final Map<ResourceAddress, Set<IoSession>> connections;
+    // I/O thread -> persistent connections owned by that thread
+    private final ConcurrentMap<Thread, WorkerConnections> connections;
+
+    // transport address -> number of persistent connections, across all I/O threads
+    private final ConcurrentMap<ResourceAddress, AtomicInteger> connectionCounts;
+
     private final Logger logger;
     private final CloseListener closeListener;
     private final HttpConnectIdleFilter idleFilter;
+    private final AtomicInteger size;
+    private final AtomicLong reuseCount;
+    private final AtomicLong missCount;
+    private volatile int maximumIdleConnections;
 
     PersistentConnectionPool(Logger logger) {
-        this.connections = new HashMap<>();
+        this.connections = new ConcurrentHashMap<>();
+        this.connectionCounts = new ConcurrentHashMap<>();
         this.logger = logger;
         this.closeListener = new CloseListener(this);
         this.idleFilter = new HttpConnectIdleFilter(this, logger);
+        this.size = new AtomicInteger();
+        this.reuseCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.maximumIdleConnections = Integer.MAX_VALUE;
+    }
+
+    /*
+     * Sets the maximum number of persistent connections kept for each origin,
+     * further connections are closed instead of being recycled
+     */
+    void setMaximumIdleConnections(int maximumIdleConnections) {
+        this.maximumIdleConnections = maximumIdleConnections;
     }
 
     /*
@@ -64,69 +98,213 @@ public class PersistentConnectionPool {
      */
     public void recycle(IoSession session, Integer keepAliveTimeout) {
         assert keepAliveTimeout != null;
+        ResourceAddress address = BridgeSession.REMOTE_ADDRESS.get(session);
+        AtomicInteger count = getConnectionCount(address);
+        if (count.incrementAndGet() > maximumIdleConnections) {
+            count.decrementAndGet();
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("Closing http connect persistent connection %s, %d connections already pooled for %s",
+                        session, maximumIdleConnections, address));
+            }
+            session.close(false);
+            return;
+        }
+
         if (logger.isDebugEnabled()) {
             logger.debug(String.format("Recycling (adding to pool) http connect persistent connection %s", session));
         }
-        ResourceAddress address = BridgeSession.REMOTE_ADDRESS.get(session);
-        Set<IoSession> sessions = connections.get(address);
-        if (sessions == null) {
-            sessions = new HashSet<>();
-            connections.put(address, sessions);
-        }
-        sessions.add(session);
+        addIdleFilter(session, keepAliveTimeout);
+        getWorkerConnections((IoSessionEx) session).add(address, session);
+        size.incrementAndGet();
+
+        // after adding, so a session already closed is removed right away
         CloseFuture closeFuture = session.getCloseFuture();
         closeFuture.addListener(closeListener);
-        addIdleFilter(session, keepAliveTimeout);
     }
 
     /*
      * Returns an existing transport session for the resource address that can be reused
+     * on the current thread
      *
      * @return a reusable IoSession for the address
      *         otherwise null
      */
     public IoSession take(ResourceAddress address) {
-        Set<IoSession> sessions = connections.get(address);
-        if (sessions != null && !sessions.isEmpty()) {
-            IoSession session = sessions.iterator().next();
-            sessions.remove(session);
-
-            if (logger.isDebugEnabled()) {
-                logger.debug(String.format("Reusing (removing from pool) http connect persistent connection %s", session));
-            }
-            session.getCloseFuture().removeListener(closeListener);
-            session.getConfig().setBothIdleTime(0);
-            session.getFilterChain().remove(IDLE_FILTER);
-
-            return session;
+        IoSession session = take(connections.get(currentThread()), address);
+        if (session == null) {
+            // transport sessions not aligned with an I/O thread can be reused on any thread
+            session = take(connections.get(CURRENT_THREAD), address);
         }
-
-        return null;
+        if (session != null) {
+            reuseCount.incrementAndGet();
+        }
+        else {
+            missCount.incrementAndGet();
+        }
+        return session;
     }
 
     /*
-     * Returns an existing transport session for the given resource address
-     * that can be reused
+     * Returns an existing transport session not aligned with any I/O thread, for a
+     * connect that could not be dispatched to an I/O thread. Such a connect cannot use
+     * the connections owned by I/O threads, so it is not counted as a reuse or a miss.
      *
      * @return a reusable IoSession for the address
      *         otherwise null
      */
+    IoSession takeUnaligned(ResourceAddress address) {
+        return take(connections.get(CURRENT_THREAD), address);
+    }
+
+    private IoSession take(WorkerConnections workerConnections, ResourceAddress address) {
+        if (workerConnections != null) {
+            IoSession session;
+            while ((session = workerConnections.poll(address)) != null) {
+                connectionRemoved(address);
+                if (!session.isClosing()) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug(String.format("Reusing (removing from pool) http connect persistent connection %s", session));
+                    }
+                    session.getCloseFuture().removeListener(closeListener);
+                    session.getConfig().setBothIdleTime(0);
+                    session.getFilterChain().remove(IDLE_FILTER);
+
+                    return session;
+                }
+                // closed while idle, before its close listener removed it
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Removes the transport session from the pool, if present
+     */
     public void remove(IoSession session) {
         ResourceAddress address = BridgeSession.REMOTE_ADDRESS.get(session);
-        Set<IoSession> sessions = connections.get(address);
-        if (sessions != null && !sessions.isEmpty()) {
-            boolean removed = sessions.remove(session);
-            if (removed && logger.isDebugEnabled()) {
+        WorkerConnections workerConnections = connections.get(((IoSessionEx) session).getIoThread());
+        if (workerConnections != null && workerConnections.remove(address, session)) {
+            connectionRemoved(address);
+            if (logger.isDebugEnabled()) {
                 logger.debug(String.format("Removed http connect persistent connection %s", session));
             }
         }
     }
 
+    /*
+     * Returns the I/O executor of a thread holding a persistent connection for the
+     * resource address, so that a connect not aligned with any I/O thread can reuse it
+     *
+     * @return an I/O executor with a reusable IoSession for the address
+     *         otherwise null
+     */
+    Executor getIoExecutor(ResourceAddress address) {
+        for (Map.Entry<Thread, WorkerConnections> entry : connections.entrySet()) {
+            WorkerConnections workerConnections = entry.getValue();
+            if (entry.getKey() != CURRENT_THREAD && workerConnections.contains(address)) {
+                return workerConnections.ioExecutor;
+            }
+        }
+        return null;
+    }
+
     public void addIdleFilter(IoSession session, int keepAliveTimeout ) {
         session.getConfig().setBothIdleTime(keepAliveTimeout);
         session.getFilterChain().addLast(IDLE_FILTER, idleFilter);
     }
 
+    // number of persistent connections in the pool
+    public int getSize() {
+        return size.get();
+    }
+
+    // number of connects that reused a persistent connection
+    public long getReuseCount() {
+        return reuseCount.get();
+    }
+
+    // number of connects on an I/O thread that found no persistent connection to reuse
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    // fraction of connects that reused a persistent connection
+    public double getReuseRate() {
+        long reused = reuseCount.get();
+        long total = reused + missCount.get();
+        return (total == 0) ? 0.0 : (double) reused / total;
+    }
+
+    private AtomicInteger getConnectionCount(ResourceAddress address) {
+        AtomicInteger count = connectionCounts.get(address);
+        if (count == null) {
+            AtomicInteger newCount = new AtomicInteger();
+            count = connectionCounts.putIfAbsent(address, newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        return count;
+    }
+
+    private WorkerConnections getWorkerConnections(IoSessionEx session) {
+        Thread ioThread = session.getIoThread();
+        WorkerConnections workerConnections = connections.get(ioThread);
+        if (workerConnections == null) {
+            WorkerConnections newWorkerConnections = new WorkerConnections(session.getIoExecutor());
+            workerConnections = connections.putIfAbsent(ioThread, newWorkerConnections);
+            if (workerConnections == null) {
+                workerConnections = newWorkerConnections;
+            }
+        }
+        return workerConnections;
+    }
+
+    private void connectionRemoved(ResourceAddress address) {
+        getConnectionCount(address).decrementAndGet();
+        size.decrementAndGet();
+    }
+
+    /*
+     * Persistent connections owned by an I/O thread, most recently recycled first
+     */
+    private static final class WorkerConnections {
+        private final Executor ioExecutor;
+        private final ConcurrentMap<ResourceAddress, Deque<IoSession>> sessions;
+
+        WorkerConnections(Executor ioExecutor) {
+            this.ioExecutor = ioExecutor;
+            this.sessions = new ConcurrentHashMap<>();
+        }
+
+        void add(ResourceAddress address, IoSession session) {
+            Deque<IoSession> addressSessions = sessions.get(address);
+            if (addressSessions == null) {
+                Deque<IoSession> newAddressSessions = new ConcurrentLinkedDeque<>();
+                addressSessions = sessions.putIfAbsent(address, newAddressSessions);
+                if (addressSessions == null) {
+                    addressSessions = newAddressSessions;
+                }
+            }
+            addressSessions.offerFirst(session);
+        }
+
+        IoSession poll(ResourceAddress address) {
+            Deque<IoSession> addressSessions = sessions.get(address);
+            return (addressSessions != null) ? addressSessions.pollFirst() : null;
+        }
+
+        boolean remove(ResourceAddress address, IoSession session) {
+            Deque<IoSession> addressSessions = sessions.get(address);
+            return addressSessions != null && addressSessions.remove(session);
+        }
+
+        boolean contains(ResourceAddress address) {
+            Deque<IoSession> addressSessions = sessions.get(address);
+            return addressSessions != null && !addressSessions.isEmpty();
+        }
+    }
+
     /*
      * If a session is closed, it will be removed from this pool using this
      * CloseFuture listener
@@ -0,0 +1,489 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.mina.core.buffer.IoBuffer;
+
+/**
+ * Case-insensitive HTTP header map backed by a flat open-addressed table.
+ *
+ * Header values appended while decoding are kept as raw byte slices and only decoded into
+ * {@code String}s when the header is first read, so headers that are never looked at never
+ * allocate.  Well-known header names are interned rather than decoded per request.
+ *
+ * Iteration follows {@link HttpHeaderNameComparator} ordering, matching the {@code TreeMap}
+ * previously used for HTTP request headers.
+ */
+public final class HttpHeaderTable extends AbstractMap<String, List<String>> {
+
+    private static final String[] KNOWN_HEADER_NAMES = {
+        "Accept", "Accept-Charset", "Accept-Encoding", "Accept-Language", "Accept-Ranges", "Allow",
+        "Authorization", "Cache-Control", "Connection", "Content-Encoding", "Content-Language",
+        "Content-Length", "Content-Type", "Cookie", "Date", "Host", "If-Match", "If-Modified-Since",
+        "If-None-Match", "Max-Age", "Origin", "Pragma", "Proxy-Authenticate", "Referer",
+        "Sec-WebSocket-Extensions", "Sec-WebSocket-Key", "Sec-WebSocket-Protocol", "Sec-WebSocket-Version",
+        "Set-Cookie", "TE", "Transfer-Encoding", "Upgrade", "User-Agent", "Vary", "Via", "Warning",
+        "WWW-Authenticate", "X-Accept-Commands", "X-Create-Encoding", "X-Forwarded-For", "X-Next-Protocol",
+        "X-Origin", "X-Sequence-No", "X-WebSocket-Extensions", "X-WebSocket-Protocol", "X-WebSocket-Version"
+    };
+
+    // multiple values for these headers are comma separated
+    private static final String[] COMMA_SEPARATED_HEADER_NAMES = {
+        "Accept-Ranges", "Accept", "Accept-Charset", "Accept-Encoding", "Accept-Language", "Allow",
+        "Connection", "Content-Encoding", "Content-Language", "If-Match", "If-None-Match", "Cache-Control",
+        "Pragma", "Proxy-Authenticate", "Sec-WebSocket-Protocol", "Sec-WebSocket-Extensions",
+        "Sec-WebSocket-Version", "TE", "Transfer-Encoding", "Upgrade", "Vary", "Via", "Warning",
+        "WWW-Authenticate"
+    };
+
+    private static final String[] KNOWN_NAMES;
+    private static final int[] KNOWN_HASHES;
+    private static final boolean[] KNOWN_COMMA_SEPARATED;
+
+    static {
+        int capacity = Integer.highestOneBit(KNOWN_HEADER_NAMES.length) << 2;
+        KNOWN_NAMES = new String[capacity];
+        KNOWN_HASHES = new int[capacity];
+        KNOWN_COMMA_SEPARATED = new boolean[capacity];
+        List<String> commaSeparated = Arrays.asList(COMMA_SEPARATED_HEADER_NAMES);
+        for (String name : KNOWN_HEADER_NAMES) {
+            int hash = hash(name);
+            int index = hash & (capacity - 1);
+            while (KNOWN_NAMES[index] != null) {
+                index = (index + 1) & (capacity - 1);
+            }
+            KNOWN_NAMES[index] = name;
+            KNOWN_HASHES[index] = hash;
+            KNOWN_COMMA_SEPARATED[index] = commaSeparated.contains(name);
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private Header[] table = new Header[INITIAL_CAPACITY];
+    private int size;
+
+    // raw bytes of header values that have not been decoded yet
+    private byte[] data = new byte[512];
+    private int dataLength;
+
+    private EntrySet entrySet;
+
+    /**
+     * Decodes a header name, returning the interned name for well-known headers.
+     *
+     * @return the header name, or {@code null} if the name is not US-ASCII
+     */
+    public String decodeName(IoBuffer buffer) {
+        int length = buffer.remaining();
+        int offset = reserve(length);
+        buffer.get(data, offset, length);
+
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = data[i];
+            if (b < 0) {
+                return null;
+            }
+            hash = 31 * hash + toLowerCase((char) b);
+        }
+        hash = spread(hash);
+
+        int mask = KNOWN_NAMES.length - 1;
+        for (int index = hash & mask; KNOWN_NAMES[index] != null; index = (index + 1) & mask) {
+            String name = KNOWN_NAMES[index];
+            if (KNOWN_HASHES[index] == hash && matches(name, data, offset, length)) {
+                return name;
+            }
+        }
+
+        return new String(data, offset, length, US_ASCII);
+    }
+
+    /**
+     * Appends a raw header value, deferring decoding until the header is read.
+     *
+     * @throws CharacterCodingException if the value is not valid UTF-8
+     */
+    public void appendValue(String name, IoBuffer buffer) throws CharacterCodingException {
+        Header header = header(name);
+        int length = (buffer != null) ? buffer.remaining() : 0;
+        int offset = reserve(length);
+        if (length > 0) {
+            buffer.get(data, offset, length);
+        }
+
+        boolean ascii = true;
+        for (int i = offset; i < offset + length && ascii; i++) {
+            ascii = data[i] >= 0;
+        }
+
+        if (ascii && header.values == null) {
+            dataLength += length;
+            header.appendSlice(offset, length);
+        }
+        else {
+            // non-ASCII values are decoded eagerly so that malformed input is still rejected while decoding
+            String value = ascii ? new String(data, offset, length, US_ASCII)
+                                 : UTF_8.newDecoder().decode(ByteBuffer.wrap(data, offset, length)).toString();
+            header.addValue(value);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return (key instanceof String) && find((String) key) != null;
+    }
+
+    @Override
+    public List<String> get(Object key) {
+        Header header = (key instanceof String) ? find((String) key) : null;
+        return (header != null) ? header.getValue() : null;
+    }
+
+    @Override
+    public List<String> put(String key, List<String> value) {
+        if (key == null) {
+            throw new NullPointerException("key");
+        }
+        Header header = find(key);
+        if (header == null) {
+            header = insert(key, hash(key));
+            header.values = value;
+            return null;
+        }
+        return header.setValue(value);
+    }
+
+    @Override
+    public List<String> remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+
+        String name = (String) key;
+        int hash = hash(name);
+        int mask = table.length - 1;
+        for (int index = hash & mask; table[index] != null; index = (index + 1) & mask) {
+            Header header = table[index];
+            if (header.hash == hash && header.name.equalsIgnoreCase(name)) {
+                List<String> values = header.getValue();
+                delete(index);
+                return values;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(table, null);
+        size = 0;
+        dataLength = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, List<String>>> entrySet() {
+        EntrySet entrySet = this.entrySet;
+        if (entrySet == null) {
+            entrySet = this.entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private Header header(String name) {
+        Header header = find(name);
+        return (header != null) ? header : insert(name, hash(name));
+    }
+
+    private Header find(String name) {
+        int hash = hash(name);
+        int mask = table.length - 1;
+        for (int index = hash & mask; table[index] != null; index = (index + 1) & mask) {
+            Header header = table[index];
+            if (header.hash == hash && header.name.equalsIgnoreCase(name)) {
+                return header;
+            }
+        }
+        return null;
+    }
+
+    private Header insert(String name, int hash) {
+        if ((size + 1) * 4 > table.length * 3) {
+            Header[] oldTable = table;
+            table = new Header[oldTable.length << 1];
+            for (Header header : oldTable) {
+                if (header != null) {
+                    table[slot(header.hash)] = header;
+                }
+            }
+        }
+
+        Header header = new Header(name, hash);
+        table[slot(hash)] = header;
+        size++;
+        return header;
+    }
+
+    private int slot(int hash) {
+        int mask = table.length - 1;
+        int index = hash & mask;
+        while (table[index] != null) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void delete(int index) {
+        // backward shift deletion keeps probe sequences intact without tombstones
+        int mask = table.length - 1;
+        table[index] = null;
+        size--;
+        for (int next = (index + 1) & mask; table[next] != null; next = (next + 1) & mask) {
+            Header header = table[next];
+            int home = header.hash & mask;
+            if (((next - home) & mask) >= ((next - index) & mask)) {
+                table[index] = header;
+                table[next] = null;
+                index = next;
+            }
+        }
+    }
+
+    private int reserve(int length) {
+        if (dataLength + length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length << 1, dataLength + length));
+        }
+        return dataLength;
+    }
+
+    private static boolean matches(String name, byte[] bytes, int offset, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + toLowerCase(name.charAt(i));
+        }
+        return spread(hash);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static char toLowerCase(char c) {
+        if (c < 0x80) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+        // consistent with String.equalsIgnoreCase
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static boolean isCommaSeparated(String name, int hash) {
+        int mask = KNOWN_NAMES.length - 1;
+        for (int index = hash & mask; KNOWN_NAMES[index] != null; index = (index + 1) & mask) {
+            if (KNOWN_HASHES[index] == hash && KNOWN_NAMES[index].equalsIgnoreCase(name)) {
+                return KNOWN_COMMA_SEPARATED[index];
+            }
+        }
+        return false;
+    }
+
+    private final class Header implements Map.Entry<String, List<String>> {
+        private final String name;
+        private final int hash;
+        private final boolean commaSeparated;
+
+        // offset and length pairs of undecoded values
+        private int[] slices;
+        private int sliceCount;
+
+        // decoded values, once read
+        private List<String> values;
+
+        Header(String name, int hash) {
+            this.name = name;
+            this.hash = hash;
+            this.commaSeparated = isCommaSeparated(name, hash);
+        }
+
+        @Override
+        public String getKey() {
+            return name;
+        }
+
+        @Override
+        public List<String> getValue() {
+            if (values == null) {
+                List<String> values = new ArrayList<>(sliceCount);
+                for (int i = 0; i < sliceCount; i += 2) {
+                    String value = new String(data, slices[i], slices[i + 1], US_ASCII);
+                    if (commaSeparated) {
+                        for (String separatedValue : value.split(",")) {
+                            values.add(separatedValue.trim());
+                        }
+                    }
+                    else {
+                        values.add(value);
+                    }
+                }
+                this.values = values;
+                this.slices = null;
+                this.sliceCount = 0;
+            }
+            return values;
+        }
+
+        @Override
+        public List<String> setValue(List<String> value) {
+            List<String> oldValue = getValue();
+            values = value;
+            return oldValue;
+        }
+
+        void appendSlice(int offset, int length) {
+            if (slices == null) {
+                slices = new int[4];
+            }
+            else if (sliceCount == slices.length) {
+                slices = Arrays.copyOf(slices, sliceCount << 1);
+            }
+            slices[sliceCount++] = offset;
+            slices[sliceCount++] = length;
+        }
+
+        void addValue(String value) {
+            List<String> values = getValue();
+            if (commaSeparated) {
+                for (String separatedValue : value.split(",")) {
+                    values.add(separatedValue.trim());
+                }
+            }
+            else {
+                values.add(value);
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> that = (Map.Entry<?, ?>) o;
+            return name.equals(that.getKey()) && Objects.equals(getValue(), that.getValue());
+        }
+
+        @Override
+        public String toString() {
+            return name + "=" + getValue();
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, List<String>>> {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            HttpHeaderTable.this.clear();
+        }
+
+        @Override
+        public Iterator<Map.Entry<String, List<String>>> iterator() {
+            // sort a snapshot on demand, lookups never pay for ordering
+            final Header[] headers = new Header[size];
+            int count = 0;
+            for (Header header : table) {
+                if (header != null) {
+                    headers[count++] = header;
+                }
+            }
+            Arrays.sort(headers, (h1, h2) -> HttpHeaderNameComparator.INSTANCE.compare(h1.name, h2.name));
+
+            return new Iterator<Map.Entry<String, List<String>>>() {
+                private int index;
+                private Header last;
+
+                @Override
+                public boolean hasNext() {
+                    return index < headers.length;
+                }
+
+                @Override
+                public Map.Entry<String, List<String>> next() {
+                    if (index == headers.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return last = headers[index++];
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null) {
+                        throw new IllegalStateException();
+                    }
+                    HttpHeaderTable.this.remove(last.name);
+                    last = null;
+                }
+            };
+        }
+    }
+}
@@ -31,7 +31,6 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 import javax.security.auth.Subject;
 
@@ -294,7 +293,7 @@ public class HttpRequestMessage extends HttpStartMessage {
     }
 
 	protected Map<String, List<String>> createHeaders() {
-		return new TreeMap<>(HttpHeaderNameComparator.INSTANCE);
+		return new HttpHeaderTable();
 	}
 
 	@SuppressWarnings("deprecation")
@@ -158,6 +158,24 @@ public abstract class HttpStartMessage extends HttpMessage {
 		headers.putAll(newHeaders);
 	}
 
+	/**
+	 * Adopts the given header table as the headers of this message, without copying.
+	 */
+	public void setHeaderTable(HttpHeaderTable newHeaders) {
+		if (newHeaders == null) {
+			throw new NullPointerException("newHeaders");
+		}
+		headers = newHeaders;
+	}
+
+	/**
+	 * Returns the headers of this message as a header table, or {@code null} if they are not held in one.
+	 */
+	public HttpHeaderTable getHeaderTable() {
+		Map<String, List<String>> headers = getHeaders(false);
+		return (headers instanceof HttpHeaderTable) ? (HttpHeaderTable) headers : null;
+	}
+
 	public void putHeaders(Map<String, List<String>> newHeaders) {
 		Map<String, List<String>> headers = getHeaders(true);
 		headers.putAll(newHeaders);
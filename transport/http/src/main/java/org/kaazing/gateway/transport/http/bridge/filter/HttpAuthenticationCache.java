@@ -0,0 +1,310 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.security.auth.Subject;
+
+import org.kaazing.gateway.security.auth.DefaultLoginResult;
+import org.kaazing.gateway.server.spi.security.AuthenticationToken;
+
+/**
+ * Bounded cache of successful authentications, so that clients presenting the same authentication token
+ * to the same realm (for example when reconnecting) do not run the login module chain every time.
+ * <p/>
+ * Entries are keyed on the realm name and a SHA-256 digest of the authentication token, so raw tokens are
+ * never retained.  Each entry expires after the configured time to live, or sooner when the login result
+ * carries a session timeout.  Login modules consulting request-specific callbacks (e.g. the HTTP request)
+ * only see the request that populated the entry, which is why the cache is disabled unless a time to live
+ * is configured.
+ */
+public final class HttpAuthenticationCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private final long timeToLiveMillis;
+    private final int maximumSize;
+    private final LongSupplier clock;
+    private final ConcurrentMap<Key, Entry> entries;
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+
+    public HttpAuthenticationCache(long timeToLive, TimeUnit unit, int maximumSize) {
+        this(unit.toMillis(timeToLive), maximumSize, System::currentTimeMillis);
+    }
+
+    HttpAuthenticationCache(long timeToLiveMillis, int maximumSize, LongSupplier clock) {
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.maximumSize = maximumSize;
+        this.clock = clock;
+        this.entries = new ConcurrentHashMap<>();
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+    }
+
+    public boolean isEnabled() {
+        return timeToLiveMillis > 0L && maximumSize > 0;
+    }
+
+    /**
+     * Returns the unexpired authentication for the given token in the given realm, or null if none is cached.
+     */
+    public Entry get(String realmName, AuthenticationToken authToken) {
+        Key key = new Key(realmName, digest(authToken));
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= clock.getAsLong()) {
+            entries.remove(key, entry);
+            entry = null;
+        }
+
+        if (entry != null) {
+            hitCount.increment();
+        }
+        else {
+            missCount.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Caches a successful authentication of the given token in the given realm.
+     *
+     * @param subject  the authenticated subject, copied so that logging out of the originating login context
+     *                 does not clear the principals seen by later sessions, and made read-only as it is shared
+     *                 by every session reusing the authentication
+     * @return the cached entry, or null if the cache is disabled
+     */
+    public Entry put(String realmName,
+                     AuthenticationToken authToken,
+                     Subject subject,
+                     Collection<String> authorizedRoles,
+                     DefaultLoginResult loginResult) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        long now = clock.getAsLong();
+        long expiresAt = now + timeToLiveMillis;
+        Long sessionTimeout = loginResult.getSessionTimeout();
+        if (sessionTimeout != null && sessionTimeout > 0) {
+            expiresAt = Math.min(expiresAt, now + SECONDS.toMillis(sessionTimeout));
+        }
+
+        Subject cachedSubject = new Subject(true, subject.getPrincipals(), subject.getPublicCredentials(),
+                subject.getPrivateCredentials());
+        Collection<String> cachedRoles = Collections.unmodifiableSet(new LinkedHashSet<>(authorizedRoles));
+        Entry entry = new Entry(realmName, cachedSubject, cachedRoles, loginResult, expiresAt);
+
+        if (entries.size() >= maximumSize) {
+            evict(now);
+        }
+        entries.put(new Key(realmName, digest(authToken)), entry);
+        return entry;
+    }
+
+    public void invalidate(String realmName, AuthenticationToken authToken) {
+        entries.remove(new Key(realmName, digest(authToken)));
+    }
+
+    public void invalidateRealm(String realmName) {
+        entries.keySet().removeIf(key -> key.realmName.equals(realmName));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long lookups = hits + missCount.sum();
+        return (lookups != 0L) ? (double) hits / lookups : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [size=%d, hits=%d, misses=%d]", getClass().getSimpleName(),
+                entries.size(), getHitCount(), getMissCount());
+    }
+
+    private void evict(long now) {
+        // drop expired entries first, otherwise an arbitrary entry
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        if (entries.size() >= maximumSize) {
+            Iterator<Key> keys = entries.keySet().iterator();
+            if (keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+    }
+
+    private static byte[] digest(AuthenticationToken authToken) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+
+        update(digest, authToken.getScheme());
+        int size = authToken.size();
+        for (int i = 0; i < size; i++) {
+            update(digest, authToken.get(i));
+        }
+        return digest.digest();
+    }
+
+    private static void update(MessageDigest digest, String component) {
+        // length prefix keeps adjacent components from running together
+        if (component == null) {
+            digest.update((byte) 0);
+        }
+        else {
+            byte[] bytes = component.getBytes(UTF_8);
+            digest.update((byte) 1);
+            digest.update((byte) (bytes.length >>> 24));
+            digest.update((byte) (bytes.length >>> 16));
+            digest.update((byte) (bytes.length >>> 8));
+            digest.update((byte) bytes.length);
+            digest.update(bytes);
+        }
+    }
+
+    /**
+     * A cached successful authentication.
+     */
+    public static final class Entry {
+        private final String realmName;
+        private final Subject subject;
+        private final Collection<String> authorizedRoles;
+        private final Object authorizationAttachment;
+        private final Long sessionTimeout;
+        private final long expiresAt;
+
+        Entry(String realmName,
+              Subject subject,
+              Collection<String> authorizedRoles,
+              DefaultLoginResult loginResult,
+              long expiresAt) {
+            this.realmName = realmName;
+            this.subject = subject;
+            this.authorizedRoles = authorizedRoles;
+            this.authorizationAttachment = loginResult.getLoginAuthorizationAttachment();
+            this.sessionTimeout = loginResult.getSessionTimeout();
+            this.expiresAt = expiresAt;
+        }
+
+        public String getRealmName() {
+            return realmName;
+        }
+
+        public Subject getSubject() {
+            return subject;
+        }
+
+        public Collection<String> getAuthorizedRoles() {
+            return authorizedRoles;
+        }
+
+        /**
+         * Returns a new successful login result for a session reusing this authentication, carrying the
+         * authorization attachment and session timeout of the cached login.
+         */
+        public DefaultLoginResult newLoginResult() {
+            DefaultLoginResult loginResult = new DefaultLoginResult();
+            loginResult.setAuthorizationAttachment(authorizationAttachment);
+            if (sessionTimeout != null) {
+                loginResult.setSessionTimeout(sessionTimeout);
+            }
+            return loginResult;
+        }
+
+        /**
+         * @return the time in milliseconds since the epoch after which this entry is no longer used
+         */
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    private static final class Key {
+        private final String realmName;
+        private final byte[] digest;
+        private final int hashCode;
+
+        Key(String realmName, byte[] digest) {
+            if (realmName == null) {
+                throw new NullPointerException("realmName");
+            }
+            this.realmName = realmName;
+            this.digest = digest;
+            this.hashCode = 31 * realmName.hashCode() + Arrays.hashCode(digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return this.realmName.equals(that.realmName) &&
+                    Arrays.equals(this.digest, that.digest);
+        }
+    }
+}
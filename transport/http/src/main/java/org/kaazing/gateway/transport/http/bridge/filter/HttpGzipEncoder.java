@@ -21,19 +21,119 @@
 
 package org.kaazing.gateway.transport.http.bridge.filter;
 
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_GZIP_COMPRESSION_LEVEL;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_GZIP_SHARED_ENCODING;
+
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.zip.Deflater;
 
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
 
+/**
+ * Writes the frames of a long-lived gzip content stream (e.g. WSE and SSE downstreams).
+ * <p>
+ * Each frame is deflated and sync-flushed, so the client can inflate it without waiting for
+ * further frames.  By default, a session keeps one {@link Deflater} for its whole stream, so each
+ * frame is compressed against the previous ones.  When the encoding is shareable, each frame is
+ * compressed on its own instead, so the same encoded frame can be cached on a broadcast message
+ * and written to every session.  Compression level 0 writes stored (uncompressed) blocks.
+ */
 public class HttpGzipEncoder implements HttpContentWriter {
-	
+
+    private static final int DEFAULT_COMPRESSION_LEVEL =
+            HTTP_GZIP_COMPRESSION_LEVEL.getIntProperty(System.getProperties());
+
+    private static final boolean DEFAULT_SHAREABLE =
+            HTTP_GZIP_SHARED_ENCODING.getBooleanProperty(System.getProperties());
+
+    // extra output space for block headers and the sync flush marker
+    private static final int DEFLATE_FRAME_OVERHEAD = 64;
+
+    private static final ThreadLocal<Deflater> SHAREABLE_DEFLATER = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+    };
+
+    private final int compressionLevel;
+    private final boolean shareable;
+    private Deflater deflater;
+
+    /**
+     * Creates an encoder using the configured compression level and sharing.
+     */
+    public HttpGzipEncoder() {
+        this(DEFAULT_COMPRESSION_LEVEL, DEFAULT_SHAREABLE);
+    }
+
+    /**
+     * @param compressionLevel  0 to 9, or -1 for the {@link Deflater} default; 0 writes stored blocks
+     * @param shareable         whether each frame is compressed independently of the previous frames
+     */
+    public HttpGzipEncoder(int compressionLevel, boolean shareable) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+        this.shareable = shareable;
+    }
+
+    /**
+     * Returns whether the encoded frames are independent of the previous frames, so that
+     * they can be cached and written to any session.
+     */
+    public boolean isShareable() {
+        return shareable || compressionLevel == Deflater.NO_COMPRESSION;
+    }
+
     @Override
     public IoBufferEx write(IoBufferEx source, IoBufferAllocatorEx<?> allocator) {
-        return writeGzipped(source, allocator);
+        if (compressionLevel == Deflater.NO_COMPRESSION) {
+            return writeGzipped(source, allocator);
+        }
+
+        if (shareable) {
+            // frames never refer back to earlier ones, so pre-compressed padding can be spliced in
+            IoBufferEx padding = writeGzippedPadding(source, allocator);
+            if (padding != null) {
+                return padding;
+            }
+
+            Deflater frameDeflater = SHAREABLE_DEFLATER.get();
+            frameDeflater.reset();
+            frameDeflater.setLevel(compressionLevel);
+            return writeDeflated(frameDeflater, source, allocator);
+        }
+
+        // padding too goes through the stream deflater, keeping the client window in step with it
+        if (deflater == null) {
+            deflater = new Deflater(compressionLevel, true);
+        }
+        return writeDeflated(deflater, source, allocator);
     }
-    
+
+    /**
+     * Starts a new gzip stream, such as the next gzipped response on a persistent connection.
+     */
+    public void reset() {
+        if (deflater != null) {
+            deflater.reset();
+        }
+    }
+
+    /**
+     * Releases the deflater of this stream, if any.
+     */
+    public void dispose() {
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+    }
+
     public static final int GZIP_PREFIX_SIZE = 5;
 
     /*
@@ -46,12 +146,9 @@ public class HttpGzipEncoder implements HttpContentWriter {
         if (remaining == 0) {
         	return sourceIoBuf;
         }
-        // TODO: consider ability to share
-        if (source.hasArray() && source.array() == SSE_4K_PADDING_BYTES) {
-            return allocator.wrap(ByteBuffer.wrap(GZIPPED_SSE_4K_PADDING_BYTES));
-        }
-        if (source.hasArray() && source.array() == WSEB_4K_PADDING_BYTES) {
-            return allocator.wrap(ByteBuffer.wrap(GZIPPED_WSEB_4K_PADDING_BYTES));
+        IoBufferEx padding = writeGzippedPadding(sourceIoBuf, allocator);
+        if (padding != null) {
+            return padding;
         }
         
         // We don't implement Gzip - instead simply prepend gzip preamble
@@ -114,6 +211,59 @@ public class HttpGzipEncoder implements HttpContentWriter {
         }
     }
 	
+    /*
+     * Padding is pre-compressed on its own, so it can only be written into a deflate stream
+     * whose later blocks do not refer back to earlier data
+     */
+    private static IoBufferEx writeGzippedPadding(IoBufferEx sourceIoBuf, IoBufferAllocatorEx<?> allocator) {
+        ByteBuffer source = sourceIoBuf.buf();
+        if (source.hasArray() && source.array() == SSE_4K_PADDING_BYTES) {
+            return allocator.wrap(ByteBuffer.wrap(GZIPPED_SSE_4K_PADDING_BYTES));
+        }
+        if (source.hasArray() && source.array() == WSEB_4K_PADDING_BYTES) {
+            return allocator.wrap(ByteBuffer.wrap(GZIPPED_WSEB_4K_PADDING_BYTES));
+        }
+        return null;
+    }
+
+    /*
+     * Deflated frame, sync-flushed so that it ends on a byte boundary
+     */
+    private static IoBufferEx writeDeflated(Deflater deflater, IoBufferEx sourceIoBuf, IoBufferAllocatorEx<?> allocator) {
+        ByteBuffer source = sourceIoBuf.buf();
+        int remaining = source.remaining();
+        if (remaining == 0) {
+            return sourceIoBuf;
+        }
+
+        // Note: read without moving the source position, it may be shared with other threads
+        if (source.hasArray()) {
+            deflater.setInput(source.array(), source.arrayOffset() + source.position(), remaining);
+        }
+        else {
+            byte[] input = new byte[remaining];
+            source.duplicate().get(input);
+            deflater.setInput(input);
+        }
+
+        byte[] output = new byte[remaining + (remaining >> 3) + DEFLATE_FRAME_OVERHEAD];
+        int length = 0;
+        do {
+            if (length == output.length) {
+                output = Arrays.copyOf(output, output.length << 1);
+            }
+            length += deflater.deflate(output, length, output.length - length, Deflater.SYNC_FLUSH);
+        } while (length == output.length || !deflater.needsInput());
+
+        ByteBuffer newSource = allocator.allocate(length);
+        int offset = newSource.position();
+        newSource.put(output, 0, length);
+        newSource.flip();
+        newSource.position(offset);
+
+        return allocator.wrap(newSource, sourceIoBuf.flags());
+    }
+
     /*
      * GZip Content-Encoding
      */
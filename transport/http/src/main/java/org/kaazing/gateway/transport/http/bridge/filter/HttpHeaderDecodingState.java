@@ -21,15 +21,6 @@
 
 package org.kaazing.gateway.transport.http.bridge.filter;
 
-import java.nio.charset.Charset;
-import java.nio.charset.CharsetDecoder;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
-import java.util.TreeSet;
-
 import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.filter.codec.ProtocolDecoderException;
 import org.apache.mina.filter.codec.ProtocolDecoderOutput;
@@ -37,53 +28,14 @@ import org.apache.mina.filter.codec.statemachine.CrLfDecodingState;
 import org.apache.mina.filter.codec.statemachine.DecodingState;
 import org.apache.mina.filter.codec.statemachine.LinearWhitespaceSkippingState;
 import org.kaazing.gateway.transport.DecodingStateMachine;
-import org.kaazing.gateway.transport.http.bridge.HttpHeaderNameComparator;
+import org.kaazing.gateway.transport.http.bridge.HttpHeaderTable;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.filter.codec.statemachine.ConsumeToCrLfDecodingState;
 import org.kaazing.mina.filter.codec.statemachine.ConsumeToTerminatorDecodingState;
 
 public abstract class HttpHeaderDecodingState extends DecodingStateMachine {
-    private static final Set<String> COMMA_SEPARATED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
-    static {
-        COMMA_SEPARATED_HEADERS.add("Accept-Ranges");
-        COMMA_SEPARATED_HEADERS.add("Accept");
-        COMMA_SEPARATED_HEADERS.add("Accept-Charset");
-        COMMA_SEPARATED_HEADERS.add("Accept-Encoding");
-        COMMA_SEPARATED_HEADERS.add("Accept-Language");
-        COMMA_SEPARATED_HEADERS.add("Allow");
-
-        COMMA_SEPARATED_HEADERS.add("Connection");
-        COMMA_SEPARATED_HEADERS.add("Content-Encoding");
-        COMMA_SEPARATED_HEADERS.add("Content-Language");
-        COMMA_SEPARATED_HEADERS.add("If-Match");
-        COMMA_SEPARATED_HEADERS.add("If-None-Match");
-        COMMA_SEPARATED_HEADERS.add("Cache-Control");
-        COMMA_SEPARATED_HEADERS.add("Pragma");
-        COMMA_SEPARATED_HEADERS.add("Proxy-Authenticate");
-
-        COMMA_SEPARATED_HEADERS.add("Sec-WebSocket-Protocol");
-        COMMA_SEPARATED_HEADERS.add("Sec-WebSocket-Extensions");
-        COMMA_SEPARATED_HEADERS.add("Sec-WebSocket-Version");
-
-        COMMA_SEPARATED_HEADERS.add("TE");
-        COMMA_SEPARATED_HEADERS.add("Transfer-Encoding");
-        COMMA_SEPARATED_HEADERS.add("Upgrade");
-        COMMA_SEPARATED_HEADERS.add("Vary");
-        COMMA_SEPARATED_HEADERS.add("Via");
-        COMMA_SEPARATED_HEADERS.add("Warning");
-        COMMA_SEPARATED_HEADERS.add("WWW-Authenticate");
-    }
-    
-	private static final String HEADER_WEBSOCKET_KEY_PREFIX = "Sec-WebSocket-Key";
-
-	private static final Charset US_ASCII = Charset.forName("US-ASCII");
-	private static final Charset UTF_8 = Charset.forName("UTF-8");
-
-	private final CharsetDecoder asciiDecoder = US_ASCII.newDecoder();
-	private final CharsetDecoder utf8Decoder = UTF_8.newDecoder();
-
 	// use list to preserve header value ordering
-	private Map<String, List<String>> headers;
+	private HttpHeaderTable headers;
 	private String lastHeaderName;
 
 	private final DecodingState FIND_EMPTY_LINE = new CrLfDecodingState() {
@@ -108,7 +60,10 @@ public abstract class HttpHeaderDecodingState extends DecodingStateMachine {
 		    if (buffer == null || !buffer.hasRemaining()) {
 		        throw new ProtocolDecoderException("Invalid header name in the request");
 		    }
-			lastHeaderName = buffer.getString(asciiDecoder);
+			lastHeaderName = headers.decodeName(buffer);
+			if (lastHeaderName == null) {
+			    throw new ProtocolDecoderException("Invalid header name in the request");
+			}
 			return AFTER_READ_HEADER_NAME;
 		}
 	};
@@ -124,22 +79,8 @@ public abstract class HttpHeaderDecodingState extends DecodingStateMachine {
         @Override
         protected DecodingState finishDecode(IoBuffer buffer,
                                              ProtocolDecoderOutput out) throws Exception {
-            String value = buffer.getString(utf8Decoder);
-            List<String> values = headers.get(lastHeaderName);
-            if (values == null) {
-                values = new ArrayList<>();
-                headers.put(lastHeaderName, values);
-            }
-
-            if (COMMA_SEPARATED_HEADERS.contains(lastHeaderName)) {
-                // multiple values for the same header has comma separator
-                String[] separatedValues = value.split(",");
-                for (String separatedValue : separatedValues) {
-                    values.add(separatedValue.trim());
-                }
-            } else {
-                values.add(value);
-            }
+            // comma separated values are split when the header is first read
+            headers.appendValue(lastHeaderName, buffer);
 
             return AFTER_READ_HEADER_VALUE;
         }
@@ -171,6 +112,6 @@ public abstract class HttpHeaderDecodingState extends DecodingStateMachine {
 	}
 
     private void initHeaders() {
-        headers = new TreeMap<>(HttpHeaderNameComparator.INSTANCE);
+        headers = new HttpHeaderTable();
     }
 }
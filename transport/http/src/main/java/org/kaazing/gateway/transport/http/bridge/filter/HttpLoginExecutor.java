@@ -0,0 +1,232 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs login module chains off the I/O threads, with a dedicated bounded thread pool per realm.
+ * <p/>
+ * Logins used to share the gateway background task scheduler, so slow login modules during a reconnect
+ * storm delayed unrelated background work.  Each realm now has its own pool and bounded queue; when the
+ * queue is full {@link #execute(String, Runnable)} refuses the login so the caller can fail fast.
+ */
+public final class HttpLoginExecutor {
+
+    private final int threadsPerRealm;
+    private final int queueCapacity;
+    private final ConcurrentMap<String, RealmExecutor> executors;
+    private final Histogram queueDepth;
+    private final Histogram loginLatency;
+    private final LongAdder rejectedCount;
+    private volatile boolean shutdown;
+
+    public HttpLoginExecutor(int threadsPerRealm, int queueCapacity) {
+        if (threadsPerRealm <= 0) {
+            throw new IllegalArgumentException("threadsPerRealm must be positive");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be positive");
+        }
+        this.threadsPerRealm = threadsPerRealm;
+        this.queueCapacity = queueCapacity;
+        this.executors = new ConcurrentHashMap<>();
+        this.queueDepth = new Histogram();
+        this.loginLatency = new Histogram();
+        this.rejectedCount = new LongAdder();
+    }
+
+    /**
+     * Queues a login task for the given realm.
+     *
+     * @return false if the realm's login queue is full, or the executor has been shut down
+     */
+    public boolean execute(String realmName, final Runnable loginTask) {
+        if (shutdown) {
+            rejectedCount.increment();
+            return false;
+        }
+
+        String key = (realmName != null) ? realmName : "";
+        RealmExecutor executor = executors.get(key);
+        if (executor == null) {
+            executor = new RealmExecutor(key);
+            RealmExecutor existing = executors.putIfAbsent(key, executor);
+            if (existing != null) {
+                executor = existing;
+            }
+        }
+
+        queueDepth.record(executor.getQueue().size());
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    long startTime = System.nanoTime();
+                    try {
+                        loginTask.run();
+                    }
+                    finally {
+                        loginLatency.record(NANOSECONDS.toMillis(System.nanoTime() - startTime));
+                    }
+                }
+            });
+            return true;
+        }
+        catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            return false;
+        }
+    }
+
+    /**
+     * @return the number of logins waiting for a thread in the given realm
+     */
+    public int getQueueDepth(String realmName) {
+        RealmExecutor executor = executors.get((realmName != null) ? realmName : "");
+        return (executor != null) ? executor.getQueue().size() : 0;
+    }
+
+    /**
+     * @return the distribution of realm queue depths observed as logins were submitted
+     */
+    public Histogram getQueueDepthHistogram() {
+        return queueDepth;
+    }
+
+    /**
+     * @return the distribution of login module chain execution times, in milliseconds
+     */
+    public Histogram getLoginLatencyHistogram() {
+        return loginLatency;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public void shutdownNow() {
+        shutdown = true;
+        for (RealmExecutor executor : executors.values()) {
+            executor.shutdownNow();
+        }
+        executors.clear();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [realms=%d, rejected=%d, queueDepth=%s, loginLatency=%s]",
+                getClass().getSimpleName(), executors.size(), getRejectedCount(), queueDepth, loginLatency);
+    }
+
+    private final class RealmExecutor extends ThreadPoolExecutor {
+
+        RealmExecutor(final String realmName) {
+            super(threadsPerRealm, threadsPerRealm, 60L, SECONDS, new ArrayBlockingQueue<Runnable>(queueCapacity),
+                  new ThreadFactory() {
+                      final AtomicInteger threadNumber = new AtomicInteger(1);
+                      final String namePrefix = "loginmodule-" + realmName + "-";
+
+                      @Override
+                      public Thread newThread(Runnable r) {
+                          Thread thread = new Thread(r, namePrefix + threadNumber.getAndIncrement());
+                          thread.setDaemon(true);
+                          return thread;
+                      }
+                  });
+            // realms that see no logins should not hold on to threads
+            allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * Lock-free histogram of non-negative values with power-of-two bucket boundaries.
+     */
+    public static final class Histogram {
+
+        private static final int BUCKETS = 64;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+
+        public void record(long value) {
+            long v = Math.max(value, 0L);
+            counts.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(v));
+            count.increment();
+            sum.add(v);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getMean() {
+            long n = count.sum();
+            return (n != 0L) ? (double) sum.sum() / n : 0.0;
+        }
+
+        /**
+         * @return an upper bound of the value at the given percentile (0 to 100)
+         */
+        public long getValueAtPercentile(double percentile) {
+            long n = count.sum();
+            if (n == 0L) {
+                return 0L;
+            }
+
+            long threshold = (long) Math.ceil(n * percentile / 100.0);
+            long seen = 0L;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += counts.get(bucket);
+                if (seen >= threshold && seen != 0L) {
+                    return (bucket == 0) ? 0L : (1L << bucket) - 1L;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        /**
+         * @return the number of recorded values in bucket i, covering [2^(i-1), 2^i - 1], with bucket 0 holding zero
+         */
+        public long getBucketCount(int bucket) {
+            return counts.get(bucket);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[count=%d, mean=%.1f, p50=%d, p99=%d]",
+                    getCount(), getMean(), getValueAtPercentile(50), getValueAtPercentile(99));
+        }
+    }
+}
@@ -142,6 +142,15 @@ public abstract class HttpLoginSecurityFilter extends HttpBaseSecurityFilter {
      */
     private HttpChallengeFactory challengeFactory = HttpChallengeFactories.create();
 
+    /**
+     * Successful authentications shared by all sessions of the acceptor, or null if none.
+     */
+    private HttpAuthenticationCache authenticationCache;
+
+    public void setAuthenticationCache(HttpAuthenticationCache authenticationCache) {
+        this.authenticationCache = authenticationCache;
+    }
+
 
 
     /**
@@ -310,7 +319,37 @@ public abstract class HttpLoginSecurityFilter extends HttpBaseSecurityFilter {
 
         ResultAwareLoginContext loginContext = null;
 
-        if ( rolesAreSufficient ) {
+        final HttpAuthenticationCache authenticationCache = this.authenticationCache;
+        final String realmName = address.getOption(HttpResourceAddress.REALM_NAME);
+        final boolean cacheable = !rolesAreSufficient && realmName != null &&
+                                  authenticationCache != null && authenticationCache.isEnabled();
+
+        if ( cacheable ) {
+            HttpAuthenticationCache.Entry entry = authenticationCache.get(realmName, authToken);
+            if ( entry != null &&
+                 (entry.getAuthorizedRoles().containsAll(requireRoles) ||
+                  isSubjectAutomaticallyAuthorized(entry.getSubject(), requireRoles)) ) {
+                try {
+                    // each session gets its own login result, as login results are mutable
+                    loginResult = entry.newLoginResult();
+                    loginContext = newCachedLoginContext(entry, loginResult);
+                    subject = entry.getSubject();
+                    authorizedRoles = entry.getAuthorizedRoles();
+                    rolesAreSufficient = true;
+                    if ( loggerEnabled() ) {
+                        log("Login not required - authentication is cached; [%s].", authToken);
+                    }
+                } catch (LoginException e) {
+                    loginContext = null;
+                    loginResult = null;
+                    if ( loggerEnabled() ) {
+                        log("Cached authentication unusable.", e);
+                    }
+                }
+            }
+        }
+
+        if ( rolesAreSufficient && loginContext == null ) {
             if ( loggerEnabled() ) {
                 log("Login not required - subject has sufficient required roles; [%s].", authToken);
             }
@@ -383,6 +422,10 @@ public abstract class HttpLoginSecurityFilter extends HttpBaseSecurityFilter {
                     return false;
                 }
 
+                if ( cacheable && resultType == LoginResult.Type.SUCCESS ) {
+                    authenticationCache.put(realmName, authToken, subject, authorizedRoles, loginResult);
+                }
+
             } catch (Exception e) {
                 loginOK = false;
 
@@ -435,6 +478,18 @@ public abstract class HttpLoginSecurityFilter extends HttpBaseSecurityFilter {
         return loginOK;
     }
 
+    /**
+     * Creates a login context for a session reusing a cached authentication.  The cached subject is shared
+     * between sessions, so logging out of this context runs only the {@link YesLoginModule}, which leaves
+     * the subject untouched.
+     */
+    private static ResultAwareLoginContext newCachedLoginContext(HttpAuthenticationCache.Entry entry,
+                                                                 DefaultLoginResult loginResult)
+            throws LoginException {
+        return new ResultAwareLoginContext("LOGIN_CONTEXT_CACHED", entry.getSubject(), null,
+                                           new SuccessConfiguration(), loginResult);
+    }
+
     private String sendChallengeResponse(NextFilter nextFilter, IoSession session, HttpRequestMessage httpRequest,  DefaultLoginResult loginResult) {
         ResourceAddress localAddress = httpRequest.getLocalAddress();
         Object[] challengeData = loginResult == null ? null : loginResult.getLoginChallengeData();
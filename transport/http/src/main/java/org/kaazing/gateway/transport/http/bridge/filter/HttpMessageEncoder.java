@@ -67,12 +67,28 @@ abstract class HttpMessageEncoder<T extends HttpStartMessage> extends ProtocolEn
 	protected final CharsetEncoder asciiEncoder;
 
 	protected static final HttpChunkedEncoder chunkedEncoder = new HttpChunkedEncoder();
-	protected static final HttpGzipEncoder gzipEncoder = new HttpGzipEncoder();
+
+	protected final HttpGzipEncoder gzipEncoder;
+	private final MessageEncoder<HttpContentMessage> gzippedEncoder;
+	private final MessageEncoder<HttpContentMessage> chunkedGzippedEncoder;
 
     protected HttpMessageEncoder(CachingMessageEncoder cachingEncoder, IoBufferAllocatorEx<?> allocator) {
+        this(cachingEncoder, allocator, new HttpGzipEncoder());
+    }
+
+    protected HttpMessageEncoder(CachingMessageEncoder cachingEncoder, IoBufferAllocatorEx<?> allocator,
+                                 HttpGzipEncoder gzipEncoder) {
         this.cachingEncoder = cachingEncoder;
         this.allocator = allocator;
 		this.asciiEncoder = US_ASCII.newEncoder();
+		this.gzipEncoder = gzipEncoder;
+		this.gzippedEncoder = new GzippedContentMessageEncoder(false);
+		this.chunkedGzippedEncoder = new GzippedContentMessageEncoder(true);
+	}
+
+	@Override
+	public void dispose(IoSession session) throws Exception {
+	    gzipEncoder.dispose();
 	}
 
 	public final void encode(IoSession session, Object message,
@@ -120,18 +136,19 @@ abstract class HttpMessageEncoder<T extends HttpStartMessage> extends ProtocolEn
             MessageEncoder<HttpContentMessage> contentMessageEncoder;
             if (isGzipped) {
                 if (isChunked) {
-                    contentMessageEncoder = HttpContentMessageEncoder.CHUNKED_GZIPPED;
+                    contentMessageEncoder = chunkedGzippedEncoder;
                 }
                 else {
-                    contentMessageEncoder = HttpContentMessageEncoder.GZIPPED;
+                    contentMessageEncoder = gzippedEncoder;
                 }
             }
             else { // must be chunked
                 contentMessageEncoder = HttpContentMessageEncoder.CHUNKED;
             }
 
+            // a stateful gzip stream encodes each frame for this session only
             IoBufferEx content;
-            if (httpContent.hasCache()) {
+            if (httpContent.hasCache() && (!isGzipped || gzipEncoder.isShareable())) {
                 content = cachingEncoder.encode(contentMessageEncoder, httpContent, allocator, FLAG_NONE);
             }
             else {
@@ -164,18 +181,19 @@ abstract class HttpMessageEncoder<T extends HttpStartMessage> extends ProtocolEn
 			MessageEncoder<HttpContentMessage> contentMessageEncoder;
 			if (isGzipped) {
 				if (isChunked) {
-					contentMessageEncoder = HttpContentMessageEncoder.CHUNKED_GZIPPED;
+					contentMessageEncoder = chunkedGzippedEncoder;
 				}
 				else {
-					contentMessageEncoder = HttpContentMessageEncoder.GZIPPED;
+					contentMessageEncoder = gzippedEncoder;
 				}
 			}
 			else { // must be chunked
 				contentMessageEncoder = HttpContentMessageEncoder.CHUNKED;
 			}
 
+			// a stateful gzip stream encodes each frame for this session only
 			IoBufferEx content;
-			if (httpContent.hasCache()) {
+			if (httpContent.hasCache() && (!isGzipped || gzipEncoder.isShareable())) {
 				content = cachingEncoder.encode(contentMessageEncoder, httpContent, allocator, FLAG_NONE);
 			}
 			else {
@@ -253,20 +271,6 @@ abstract class HttpMessageEncoder<T extends HttpStartMessage> extends ProtocolEn
 	        }
 		},
 
-		GZIPPED {
-			@Override
-			public IoBufferEx encode(IoBufferAllocatorEx<?> allocator, HttpContentMessage httpContent, int flags) {
-			    // No cache or cache miss - encode
-				IoBufferEx content = httpContent.asBuffer();
-
-			    if (content.remaining() > 0) {
-				    content = gzipEncoder.write(content, allocator);
-		        }
-
-				return content;
-			}
-		},
-
 		CHUNKED {
 			@Override
 			public IoBufferEx encode(IoBufferAllocatorEx<?> allocator, HttpContentMessage httpContent, int flags) {
@@ -278,23 +282,31 @@ abstract class HttpMessageEncoder<T extends HttpStartMessage> extends ProtocolEn
 
 				return content;
 			}
-		},
+		}
+	}
 
-		CHUNKED_GZIPPED {
-			@Override
-			public IoBufferEx encode(IoBufferAllocatorEx<?> allocator, HttpContentMessage httpContent, int flags) {
-				IoBufferEx content = httpContent.asBuffer();
+	private final class GzippedContentMessageEncoder implements MessageEncoder<HttpContentMessage> {
 
-			    if (content.remaining() > 0) {
-				    content = gzipEncoder.write(content, allocator);
-		        }
+	    private final boolean chunked;
 
-			    if (content.hasRemaining()) {
-				    content = chunkedEncoder.write(content, allocator);
-		        }
+	    GzippedContentMessageEncoder(boolean chunked) {
+	        this.chunked = chunked;
+	    }
 
-				return content;
-			}
-		}
+	    @Override
+	    public IoBufferEx encode(IoBufferAllocatorEx<?> allocator, HttpContentMessage httpContent, int flags) {
+	        // No cache or cache miss - encode
+	        IoBufferEx content = httpContent.asBuffer();
+
+	        if (content.remaining() > 0) {
+	            content = gzipEncoder.write(content, allocator);
+	        }
+
+	        if (chunked && content.hasRemaining()) {
+	            content = chunkedEncoder.write(content, allocator);
+	        }
+
+	        return content;
+	    }
 	}
 }
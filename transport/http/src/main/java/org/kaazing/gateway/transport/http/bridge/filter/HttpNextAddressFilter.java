@@ -22,8 +22,6 @@
 package org.kaazing.gateway.transport.http.bridge.filter;
 
 import static java.lang.String.format;
-import static org.kaazing.gateway.resource.address.ResourceAddress.NEXT_PROTOCOL;
-import static org.kaazing.gateway.resource.address.ResourceAddress.TRANSPORT;
 import static org.kaazing.gateway.transport.BridgeSession.LOCAL_ADDRESS;
 import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_HOST;
 import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_X_NEXT_PROTOCOL;
@@ -37,8 +35,7 @@ import org.apache.mina.core.future.IoFutureListener;
 import org.apache.mina.core.future.WriteFuture;
 import org.apache.mina.core.session.IoSession;
 import org.kaazing.gateway.resource.address.ResourceAddress;
-import org.kaazing.gateway.resource.address.ResourceAddressFactory;
-import org.kaazing.gateway.resource.address.ResourceOptions;
+import org.kaazing.gateway.resource.address.ResourceAddressCache;
 import org.kaazing.gateway.transport.Bindings;
 import org.kaazing.gateway.transport.Bindings.Binding;
 import org.kaazing.gateway.transport.http.HttpBindings.HttpBinding;
@@ -49,11 +46,11 @@ import org.kaazing.mina.core.write.DefaultWriteRequestEx;
 
 public class HttpNextAddressFilter extends HttpFilterAdapter<IoSession> {
 
-    private ResourceAddressFactory addressFactory;
+    private ResourceAddressCache addressCache;
     private Bindings<HttpBinding> bindings;
 
-    public void setResourceAddressFactory(ResourceAddressFactory addressFactory) {
-        this.addressFactory = addressFactory;
+    public void setResourceAddressCache(ResourceAddressCache addressCache) {
+        this.addressCache = addressCache;
     }
     
     public void setBindings(Bindings<HttpBinding> bindings) {
@@ -62,8 +59,8 @@ public class HttpNextAddressFilter extends HttpFilterAdapter<IoSession> {
 
     @Override
     public void onPreAdd(IoFilterChain parent, String name, NextFilter nextFilter) throws Exception {
-        if (addressFactory == null) {
-            throw new NullPointerException("addressFactory");
+        if (addressCache == null) {
+            throw new NullPointerException("addressCache");
         }
         if (bindings == null) {
             throw new NullPointerException("pathMapsByAddress");
@@ -136,11 +133,7 @@ public class HttpNextAddressFilter extends HttpFilterAdapter<IoSession> {
             throw new NullPointerException("transport");
         }
 
-        ResourceOptions options = ResourceOptions.FACTORY.newResourceOptions();
-        options.setOption(NEXT_PROTOCOL, nextProtocol);
-        options.setOption(TRANSPORT, transport);
-
-        return addressFactory.newResourceAddress(candidateURI, options);
+        return addressCache.newResourceAddress(candidateURI, transport, nextProtocol);
     }
 
 }
@@ -46,6 +46,7 @@ import org.kaazing.gateway.transport.http.HttpMethod;
 import org.kaazing.gateway.transport.http.HttpUtils;
 import org.kaazing.gateway.transport.http.HttpVersion;
 import org.kaazing.gateway.transport.http.bridge.HttpContentMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpHeaderTable;
 import org.kaazing.gateway.transport.http.bridge.HttpRequestMessage;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
@@ -127,8 +128,7 @@ public class HttpRequestDecodingState extends DecodingStateMachine {
 			HttpMethod method = (HttpMethod) childProducts.get(0);
 			URI requestURI = (URI) childProducts.get(1);
 			HttpVersion version = (HttpVersion) childProducts.get(2);
-			Map<String, List<String>> headers = (Map<String, List<String>>) childProducts
-					.get(3);
+			HttpHeaderTable headers = (HttpHeaderTable) childProducts.get(3);
 			Set<HttpCookie> cookies = (Set<HttpCookie>) childProducts.get(4);
 
             // KG-11218 - rfc2616 - 5.2: If Request-URI is an absoluteURI, the host is part of the 
@@ -178,7 +178,7 @@ public class HttpRequestDecodingState extends DecodingStateMachine {
 			httpRequest.setMethod(method);
 			httpRequest.setRequestURI(requestURI);
 			httpRequest.setVersion(version);
-			httpRequest.setHeaders(headers);
+			httpRequest.setHeaderTable(headers);
 			httpRequest.setCookies(cookies);
            
 	        // default the content-type based on query parameter for XDR which cannot specify content-type request header
@@ -305,7 +305,6 @@ public class HttpRequestDecodingState extends DecodingStateMachine {
 
 	private final DecodingState READ_HEADERS = new HttpHeaderDecodingState(allocator) {
 		@Override
-		@SuppressWarnings("unchecked")
 		protected DecodingState finishDecode(List<Object> childProducts,
 				ProtocolDecoderOutput out) throws Exception {
 
@@ -313,7 +312,7 @@ public class HttpRequestDecodingState extends DecodingStateMachine {
                 return this;
             }
 
-		    Map<String, List<String>> headers = (Map<String, List<String>>)childProducts.get(0);
+		    HttpHeaderTable headers = (HttpHeaderTable) childProducts.get(0);
 			List<String> cookieHeaderValues = headers.get("Cookie");
             Set<HttpCookie> cookies = parseCookies(cookieHeaderValues);
 
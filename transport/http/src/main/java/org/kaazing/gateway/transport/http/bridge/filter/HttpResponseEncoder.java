@@ -61,6 +61,10 @@ public final class HttpResponseEncoder extends HttpMessageEncoder<HttpResponseMe
         super(cachingEncoder, allocator);
     }
 
+    HttpResponseEncoder(CachingMessageEncoder cachingEncoder, IoBufferAllocatorEx<?> allocator, HttpGzipEncoder gzipEncoder) {
+        super(cachingEncoder, allocator, gzipEncoder);
+    }
+
     @Override
     protected void encode(IoSessionEx session, HttpMessage httpMessage, ProtocolEncoderOutput out) throws Exception {
         switch (httpMessage.getKind()) {
@@ -91,6 +95,9 @@ public final class HttpResponseEncoder extends HttpMessageEncoder<HttpResponseMe
         // Insert GZIP Start of Frame if necessary
         if (isGzipped) {
             buf.put(HttpGzipEncoder.GZIP_START_OF_FRAME_BYTES);
+
+            // content of a previous response on this connection is not part of the new stream
+            gzipEncoder.reset();
         }
 
         HttpContentMessage httpContent = httpResponse.getContent();
@@ -58,6 +58,8 @@ import org.kaazing.gateway.transport.http.security.HttpRequestMessageCallbackHan
 import org.kaazing.gateway.transport.http.security.auth.token.AuthenticationTokenExtractor;
 import org.kaazing.gateway.transport.http.security.auth.token.DefaultAuthenticationTokenExtractor;
 import org.kaazing.gateway.util.scheduler.SchedulerProvider;
+import org.kaazing.mina.core.future.DefaultWriteFutureEx;
+import org.kaazing.mina.core.write.DefaultWriteRequestEx;
 import org.slf4j.Logger;
 
 
@@ -79,12 +81,23 @@ public class HttpSubjectSecurityFilter extends HttpLoginSecurityFilter {
     public static final String AUTH_SCHEME_NEGOTIATE = "Negotiate";
 
 
+    public static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    /**
+     * Seconds clients are asked to wait before retrying when the login queue is full.
+     */
+    public static final int DEFAULT_LOGIN_RETRY_AFTER = 5;
+
     static final AttributeKey NEW_SESSION_COOKIE_KEY = new AttributeKey(HttpSubjectSecurityFilter.class, "sessionCookie");
 
     private final AuthorizationMap authorizationMap;
 
     private ScheduledExecutorService scheduler;
 
+    private HttpLoginExecutor loginExecutor;
+
+    private int loginRetryAfter = DEFAULT_LOGIN_RETRY_AFTER;
+
     public HttpSubjectSecurityFilter() {
         this(null);
     }
@@ -101,6 +114,17 @@ public class HttpSubjectSecurityFilter extends HttpLoginSecurityFilter {
         this.scheduler = provider.getScheduler("loginmodule", false);
     }
 
+    /**
+     * Runs logins on the given per-realm executor rather than the shared background scheduler.
+     */
+    public void setLoginExecutor(HttpLoginExecutor loginExecutor) {
+        this.loginExecutor = loginExecutor;
+    }
+
+    public void setLoginRetryAfter(int loginRetryAfter) {
+        this.loginRetryAfter = loginRetryAfter;
+    }
+
     // --------------------------------------------------------
     // Security code for subject-security LEGACY
 
@@ -203,12 +227,8 @@ public class HttpSubjectSecurityFilter extends HttpLoginSecurityFilter {
             logger.trace("HttpSubjectSecurityFilter calling login().");
         }
 
-        // Suspend incoming events into this filter. Will resume after LoginContext.login() completion
-        suspendIncoming(session);
-
-        // Schedule LoginContext.login() execution using a separate thread
         LoginContextTask loginContextTask = new LoginContextTask(nextFilter, session, httpRequest, authToken, additionalCallbacks);
-        scheduler.execute(loginContextTask);
+        executeLogin(realmName, loginContextTask);
     }
 
     protected MutableHttpCookie getSessionCookie(HttpRequestMessage httpRequest) {
@@ -492,12 +512,37 @@ public class HttpSubjectSecurityFilter extends HttpLoginSecurityFilter {
         // check for such things.
         authToken.setScheme(expectedChallengeScheme);
 
+        LoginContextTask loginContextTask = new LoginContextTask(nextFilter, session, httpRequest, authToken, null);
+        executeLogin(realmName, loginContextTask);
+    }
+
+    private void executeLogin(String realmName, LoginContextTask loginContextTask) {
+        IoSession session = loginContextTask.session;
+
         // Suspend incoming events into this filter. Will resume after LoginContext.login() completion
         suspendIncoming(session);
 
         // Schedule LoginContext.login() execution using a separate thread
-        LoginContextTask loginContextTask = new LoginContextTask(nextFilter, session, httpRequest, authToken, null);
-        scheduler.execute(loginContextTask);
+        if (loginExecutor == null) {
+            scheduler.execute(loginContextTask);
+        }
+        else if (!loginExecutor.execute(realmName, loginContextTask)) {
+            // fail fast rather than queue behind slow login modules
+            if (loggerEnabled()) {
+                logger.trace(String.format("Login queue full for realm '%s'; rejecting login for session %s",
+                        realmName, session));
+            }
+
+            HttpRequestMessage httpRequest = loginContextTask.httpRequest;
+            HttpResponseMessage httpResponse = new HttpResponseMessage();
+            httpResponse.setVersion(httpRequest.getVersion());
+            httpResponse.setStatus(HttpStatus.SERVER_SERVICE_UNAVAILABLE);
+            httpResponse.setHeader(RETRY_AFTER_HEADER, Integer.toString(loginRetryAfter));
+            loginContextTask.nextFilter.filterWrite(session,
+                    new DefaultWriteRequestEx(httpResponse, new DefaultWriteFutureEx(session)));
+
+            super.resumeIncoming(session);
+        }
     }
 
     // Task for running LoginContext.login() in a separate thread(other than I/O thread)
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http;
+
+import static java.lang.Thread.currentThread;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.resource.address.ResourceAddressFactory.newResourceAddressFactory;
+
+import java.net.URI;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.mina.core.session.IoSession;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.transport.BridgeSession;
+import org.kaazing.mina.core.session.DummySessionEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.slf4j.LoggerFactory;
+
+public class PersistentConnectionPoolTest {
+
+    private static final Executor IO_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private PersistentConnectionPool pool;
+    private ResourceAddress address;
+
+    @Before
+    public void init() throws Exception {
+        pool = new PersistentConnectionPool(LoggerFactory.getLogger(PersistentConnectionPoolTest.class));
+        address = newResourceAddressFactory().newResourceAddress(URI.create("tcp://localhost:8000"));
+    }
+
+    @Test
+    public void shouldReuseMostRecentConnectionOnOwningThreadOnly() throws Exception {
+        IoSession first = newSession(currentThread(), IO_EXECUTOR);
+        IoSession second = newSession(currentThread(), IO_EXECUTOR);
+        pool.recycle(first, 30);
+        pool.recycle(second, 30);
+        assertEquals(2, pool.getSize());
+        assertSame(IO_EXECUTOR, pool.getIoExecutor(address));
+
+        assertNull(takeOnOtherThread());
+
+        assertSame(second, pool.take(address));
+        assertSame(first, pool.take(address));
+        assertNull(pool.take(address));
+        assertEquals(0, pool.getSize());
+        assertEquals(0.5, pool.getReuseRate(), 0.0);
+    }
+
+    @Test
+    public void shouldCloseConnectionsBeyondMaximumIdle() throws Exception {
+        pool.setMaximumIdleConnections(1);
+        IoSession first = newSession(currentThread(), IO_EXECUTOR);
+        IoSession second = newSession(currentThread(), IO_EXECUTOR);
+        pool.recycle(first, 30);
+        pool.recycle(second, 30);
+
+        assertTrue("connection beyond maximum idle should be closed", second.isClosing());
+        assertEquals(1, pool.getSize());
+        assertSame(first, pool.take(address));
+    }
+
+    @Test
+    public void shouldReuseUnalignedConnectionOnAnyThread() throws Exception {
+        IoSession session = newSession(IoSessionEx.CURRENT_THREAD, IoSessionEx.IMMEDIATE_EXECUTOR);
+        pool.recycle(session, 30);
+        assertNull(pool.getIoExecutor(address));
+
+        assertSame(session, takeOnOtherThread());
+    }
+
+    @Test
+    public void shouldNotCountUnalignedLookupsAsMisses() throws Exception {
+        IoSession session = newSession(IoSessionEx.CURRENT_THREAD, IoSessionEx.IMMEDIATE_EXECUTOR);
+        pool.recycle(session, 30);
+
+        assertSame(session, pool.takeUnaligned(address));
+        assertNull(pool.takeUnaligned(address));
+        assertEquals(0, pool.getReuseCount());
+        assertEquals(0, pool.getMissCount());
+
+        assertNull(pool.take(address));
+        assertEquals(1, pool.getMissCount());
+        assertEquals(0.0, pool.getReuseRate(), 0.0);
+    }
+
+    private IoSession newSession(Thread ioThread, Executor ioExecutor) {
+        IoSession session = new DummySessionEx(ioThread, ioExecutor);
+        BridgeSession.REMOTE_ADDRESS.set(session, address);
+        return session;
+    }
+
+    private IoSession takeOnOtherThread() throws InterruptedException {
+        final AtomicReference<IoSession> taken = new AtomicReference<>();
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                taken.set(pool.take(address));
+            }
+        };
+        thread.start();
+        thread.join();
+        return taken.get();
+    }
+
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.CharacterCodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.junit.Test;
+
+public class HttpHeaderTableTest {
+
+    @Test
+    public void shouldInternKnownHeaderNames() throws Exception {
+        HttpHeaderTable headers = new HttpHeaderTable();
+        assertSame("Sec-WebSocket-Key", headers.decodeName(wrap("Sec-WebSocket-Key")));
+        assertEquals("sec-websocket-key", headers.decodeName(wrap("sec-websocket-key")));
+        assertEquals("X-Custom", headers.decodeName(wrap("X-Custom")));
+    }
+
+    @Test
+    public void shouldRejectNonAsciiHeaderName() throws Exception {
+        HttpHeaderTable headers = new HttpHeaderTable();
+        assertNull(headers.decodeName(wrap("X-Café")));
+    }
+
+    @Test
+    public void shouldLookupHeadersIgnoringCase() throws Exception {
+        HttpHeaderTable headers = new HttpHeaderTable();
+        headers.appendValue("Upgrade", wrap("websocket"));
+        headers.appendValue("X-Custom", wrap("a, b"));
+
+        assertTrue(headers.containsKey("upgrade"));
+        assertEquals(Arrays.asList("websocket"), headers.get("UPGRADE"));
+        assertEquals(Arrays.asList("a, b"), headers.get("x-custom"));
+        assertNull(headers.get("Connection"));
+    }
+
+    @Test
+    public void shouldSplitCommaSeparatedValues() throws Exception {
+        HttpHeaderTable headers = new HttpHeaderTable();
+        headers.appendValue("Connection", wrap("keep-alive, Upgrade"));
+        headers.appendValue("connection", wrap("close"));
+
+        assertEquals(1, headers.size());
+        assertEquals(Arrays.asList("keep-alive", "Upgrade", "close"), headers.get("Connection"));
+
+        headers.appendValue("Connection", wrap("TE"));
+        assertEquals(Arrays.asList("keep-alive", "Upgrade", "close", "TE"), headers.get("Connection"));
+    }
+
+    @Test
+    public void shouldDecodeUtf8Values() throws Exception {
+        HttpHeaderTable headers = new HttpHeaderTable();
+        headers.appendValue("X-Name", wrap("café"));
+        assertEquals(Arrays.asList("café"), headers.get("X-Name"));
+    }
+
+    @Test(expected = CharacterCodingException.class)
+    public void shouldRejectMalformedValues() throws Exception {
+        HttpHeaderTable headers = new HttpHeaderTable();
+        headers.appendValue("X-Name", IoBuffer.wrap(new byte[] { 'a', (byte) 0xc3 }));
+    }
+
+    @Test
+    public void shouldIterateInHeaderNameOrder() throws Exception {
+        HttpHeaderTable headers = new HttpHeaderTable();
+        Map<String, List<String>> expected = new TreeMap<>(HttpHeaderNameComparator.INSTANCE);
+        for (int i = 0; i < 100; i++) {
+            String name = "X-Header-" + i;
+            headers.appendValue(name, wrap(Integer.toString(i)));
+            expected.put(name, new ArrayList<>(Collections.singletonList(Integer.toString(i))));
+        }
+
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(headers.keySet()));
+        assertEquals(expected, headers);
+        assertEquals(headers, expected);
+        assertEquals(expected.hashCode(), headers.hashCode());
+    }
+
+    @Test
+    public void shouldRemoveHeaders() throws Exception {
+        HttpHeaderTable headers = new HttpHeaderTable();
+        for (int i = 0; i < 100; i++) {
+            headers.appendValue("X-Header-" + i, wrap(Integer.toString(i)));
+        }
+
+        for (int i = 0; i < 100; i += 2) {
+            assertEquals(Arrays.asList(Integer.toString(i)), headers.remove("x-header-" + i));
+        }
+        for (Iterator<String> iterator = headers.keySet().iterator(); iterator.hasNext();) {
+            if (iterator.next().endsWith("1")) {
+                iterator.remove();
+            }
+        }
+
+        assertEquals(40, headers.size());
+        for (int i = 0; i < 100; i++) {
+            boolean present = (i % 2 != 0) && (i % 10 != 1);
+            assertEquals(present, headers.containsKey("X-Header-" + i));
+        }
+    }
+
+    @Test
+    public void shouldReplaceValuesKeepingOriginalName() throws Exception {
+        HttpHeaderTable headers = new HttpHeaderTable();
+        headers.appendValue("Host", wrap("Example.com"));
+
+        List<String> values = Arrays.asList("example.com");
+        assertEquals(Arrays.asList("Example.com"), headers.put("host", values));
+        assertSame(values, headers.get("HOST"));
+        assertEquals(Collections.singleton("Host"), headers.keySet());
+
+        headers.clear();
+        assertFalse(headers.containsKey("Host"));
+        assertTrue(headers.isEmpty());
+    }
+
+    private static IoBuffer wrap(String value) {
+        return IoBuffer.wrap(value.getBytes(UTF_8));
+    }
+
+}
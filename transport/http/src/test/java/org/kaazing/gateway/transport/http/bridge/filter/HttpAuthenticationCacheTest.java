@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.util.Collections.singleton;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.security.auth.Subject;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.security.auth.DefaultLoginResult;
+import org.kaazing.gateway.security.auth.token.DefaultAuthenticationToken;
+import org.kaazing.gateway.server.spi.security.LoginResult;
+
+public class HttpAuthenticationCacheTest {
+
+    private AtomicLong clock;
+    private HttpAuthenticationCache cache;
+    private Subject subject;
+    private DefaultLoginResult loginResult;
+
+    @Before
+    public void setUp() {
+        clock = new AtomicLong(1000L);
+        cache = new HttpAuthenticationCache(60000L, 2, clock::get);
+        subject = new Subject();
+        subject.getPrincipals().add(new RolePrincipal("AUTHORIZED"));
+        loginResult = new DefaultLoginResult();
+        loginResult.success();
+    }
+
+    @Test
+    public void shouldBeDisabledWithoutTimeToLive() {
+        HttpAuthenticationCache cache = new HttpAuthenticationCache(0, TimeUnit.SECONDS, 1024);
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.put("demo", token("Basic", "am9lOndlbGNvbWU="), subject, singleton("AUTHORIZED"), loginResult));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldReuseAuthenticationForSameRealmAndToken() {
+        assertTrue(cache.isEnabled());
+        cache.put("demo", token("Basic", "am9lOndlbGNvbWU="), subject, singleton("AUTHORIZED"), loginResult);
+
+        HttpAuthenticationCache.Entry entry = cache.get("demo", token("Basic", "am9lOndlbGNvbWU="));
+
+        assertNotNull(entry);
+        assertEquals(singleton("AUTHORIZED"), entry.getAuthorizedRoles());
+        assertEquals(subject.getPrincipals(), entry.getSubject().getPrincipals());
+        assertEquals(1L, cache.getHitCount());
+        assertEquals(0L, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldMissForOtherRealmOrToken() {
+        cache.put("demo", token("Basic", "am9lOndlbGNvbWU="), subject, singleton("AUTHORIZED"), loginResult);
+
+        assertNull(cache.get("other", token("Basic", "am9lOndlbGNvbWU=")));
+        assertNull(cache.get("demo", token("Basic", "am9lOndyb25n")));
+        assertNull(cache.get("demo", token("Negotiate", "am9lOndlbGNvbWU=")));
+        assertNull(cache.get("demo", token("Basic", "am9lOndlbGNv", "bWU=")));
+        assertEquals(0L, cache.getHitCount());
+        assertEquals(4L, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldNotShareSubjectWithLoginContext() {
+        cache.put("demo", token("Basic", "am9lOndlbGNvbWU="), subject, singleton("AUTHORIZED"), loginResult);
+
+        // logging out of the originating login context clears its subject
+        subject.getPrincipals().clear();
+
+        HttpAuthenticationCache.Entry entry = cache.get("demo", token("Basic", "am9lOndlbGNvbWU="));
+        assertNotSame(subject, entry.getSubject());
+        assertEquals(1, entry.getSubject().getPrincipals().size());
+    }
+
+    @Test
+    public void shouldShareReadOnlySubject() {
+        cache.put("demo", token("Basic", "am9lOndlbGNvbWU="), subject, singleton("AUTHORIZED"), loginResult);
+
+        HttpAuthenticationCache.Entry entry = cache.get("demo", token("Basic", "am9lOndlbGNvbWU="));
+        assertTrue(entry.getSubject().isReadOnly());
+        try {
+            entry.getSubject().getPrincipals().add(new RolePrincipal("OTHER"));
+            fail("cached subject should be read-only");
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldCreateLoginResultForEachHit() {
+        Object attachment = new Object();
+        loginResult.setAuthorizationAttachment(attachment);
+        loginResult.setSessionTimeout(30L);
+        cache.put("demo", token("Basic", "am9lOndlbGNvbWU="), subject, singleton("AUTHORIZED"), loginResult);
+
+        HttpAuthenticationCache.Entry entry = cache.get("demo", token("Basic", "am9lOndlbGNvbWU="));
+        DefaultLoginResult loginResult1 = entry.newLoginResult();
+        DefaultLoginResult loginResult2 = entry.newLoginResult();
+
+        assertNotSame(loginResult, loginResult1);
+        assertNotSame(loginResult1, loginResult2);
+        assertEquals(LoginResult.Type.SUCCESS, loginResult1.getType());
+        assertSame(attachment, loginResult1.getLoginAuthorizationAttachment());
+        assertEquals(Long.valueOf(30L), loginResult1.getSessionTimeout());
+
+        // a session changing its login result does not affect later sessions
+        loginResult1.clearTimeouts();
+        assertEquals(Long.valueOf(30L), loginResult2.getSessionTimeout());
+    }
+
+    @Test
+    public void shouldExpireAfterTimeToLive() {
+        cache.put("demo", token("Basic", "am9lOndlbGNvbWU="), subject, singleton("AUTHORIZED"), loginResult);
+
+        clock.addAndGet(59999L);
+        assertNotNull(cache.get("demo", token("Basic", "am9lOndlbGNvbWU=")));
+
+        clock.addAndGet(1L);
+        assertNull(cache.get("demo", token("Basic", "am9lOndlbGNvbWU=")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldExpireAfterSessionTimeout() {
+        loginResult.setSessionTimeout(10L);
+        HttpAuthenticationCache.Entry entry =
+                cache.put("demo", token("Basic", "am9lOndlbGNvbWU="), subject, singleton("AUTHORIZED"), loginResult);
+        assertEquals(11000L, entry.getExpiresAt());
+
+        clock.addAndGet(10000L);
+        assertNull(cache.get("demo", token("Basic", "am9lOndlbGNvbWU=")));
+    }
+
+    @Test
+    public void shouldInvalidate() {
+        cache.put("demo", token("Basic", "am9lOndlbGNvbWU="), subject, singleton("AUTHORIZED"), loginResult);
+        cache.put("other", token("Basic", "am9lOndlbGNvbWU="), subject, singleton("AUTHORIZED"), loginResult);
+
+        cache.invalidate("demo", token("Basic", "am9lOndlbGNvbWU="));
+        assertNull(cache.get("demo", token("Basic", "am9lOndlbGNvbWU=")));
+        assertNotNull(cache.get("other", token("Basic", "am9lOndlbGNvbWU=")));
+
+        cache.invalidateRealm("other");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldEvictExpiredEntriesFirstWhenFull() {
+        cache.put("demo", token("Basic", "b2xkOmVudHJ5"), subject, singleton("AUTHORIZED"), loginResult);
+        clock.addAndGet(30000L);
+        loginResult = new DefaultLoginResult();
+        loginResult.setSessionTimeout(1L);
+        cache.put("demo", token("Basic", "c2hvcnQ6bGl2ZWQ="), subject, singleton("AUTHORIZED"), loginResult);
+        clock.addAndGet(1000L);
+
+        cache.put("demo", token("Basic", "bmV3OmVudHJ5"), subject, singleton("AUTHORIZED"), loginResult);
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("demo", token("Basic", "b2xkOmVudHJ5")));
+        assertNotNull(cache.get("demo", token("Basic", "bmV3OmVudHJ5")));
+    }
+
+    private static DefaultAuthenticationToken token(String scheme, String... components) {
+        DefaultAuthenticationToken token = new DefaultAuthenticationToken();
+        token.setScheme(scheme);
+        for (String component : components) {
+            token.add(component);
+        }
+        return token;
+    }
+
+    private static final class RolePrincipal implements Principal {
+        private final String name;
+
+        RolePrincipal(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.transport.http.bridge.filter.HttpLoginExecutor.Histogram;
+
+public class HttpLoginExecutorTest {
+
+    private HttpLoginExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new HttpLoginExecutor(1, 1);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldRejectLoginWhenRealmQueueIsFull() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(2);
+
+        Runnable blockingLogin = new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.countDown();
+            }
+        };
+
+        assertTrue(executor.execute("demo", blockingLogin));
+        assertTrue(started.await(10, SECONDS));
+        assertTrue(executor.execute("demo", blockingLogin));
+        assertEquals(1, executor.getQueueDepth("demo"));
+
+        assertFalse(executor.execute("demo", blockingLogin));
+        assertEquals(1L, executor.getRejectedCount());
+
+        release.countDown();
+        assertTrue(finished.await(10, SECONDS));
+    }
+
+    @Test
+    public void shouldNotShareQueueBetweenRealms() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch otherRealm = new CountDownLatch(1);
+
+        Runnable blockingLogin = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        assertTrue(executor.execute("demo", blockingLogin));
+        assertTrue(executor.execute("demo", blockingLogin));
+
+        assertTrue(executor.execute("other", new Runnable() {
+            @Override
+            public void run() {
+                otherRealm.countDown();
+            }
+        }));
+        assertTrue(otherRealm.await(10, SECONDS));
+
+        release.countDown();
+    }
+
+    @Test
+    public void shouldRejectLoginAfterShutdown() {
+        executor.shutdownNow();
+
+        assertFalse(executor.execute("demo", new Runnable() {
+            @Override
+            public void run() {
+            }
+        }));
+    }
+
+    @Test
+    public void shouldRecordHistogramPercentiles() {
+        Histogram histogram = new Histogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(3L);
+        }
+        histogram.record(1000L);
+
+        assertEquals(100L, histogram.getCount());
+        assertEquals(99L, histogram.getBucketCount(2));
+        assertEquals(3L, histogram.getValueAtPercentile(50));
+        assertEquals(3L, histogram.getValueAtPercentile(99));
+        assertEquals(1023L, histogram.getValueAtPercentile(100));
+        assertEquals(0L, new Histogram().getValueAtPercentile(50));
+    }
+}
@@ -444,4 +444,53 @@ public class HttpRequestDecoderTest {
         assertFalse(in.hasRemaining());
     }
 
+    @Test
+    public void shouldDecodeWebSocketUpgradeRequestHeaders() throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        ProtocolDecoder decoder = new HttpRequestDecoder();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+
+        ByteBuffer in = ByteBuffer.wrap(("GET /echo HTTP/1.1\r\n" +
+                                         "Host: Localhost:8000\r\n" +
+                                         "Connection: keep-alive, Upgrade\r\n" +
+                                         "Pragma: no-cache\r\n" +
+                                         "Cache-Control: no-cache\r\n" +
+                                         "Upgrade: websocket\r\n" +
+                                         "Origin: http://Localhost:8000\r\n" +
+                                         "Sec-WebSocket-Version: 13\r\n" +
+                                         "User-Agent: Mozilla/5.0 (X11; Linux x86_64)\r\n" +
+                                         "Accept-Encoding: gzip, deflate, br\r\n" +
+                                         "Accept-Language: en-US,en;q=0.9\r\n" +
+                                         "Cookie: KSSOID=0123456789abcdef\r\n" +
+                                         "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+                                         "Sec-WebSocket-Extensions: permessage-deflate; client_max_window_bits\r\n" +
+                                         "Sec-WebSocket-Protocol: chat, superchat\r\n" +
+                                         "Referer: http://Localhost:8000/index.html\r\n" +
+                                         "Accept: */*\r\n" +
+                                         "X-Forwarded-For: 192.168.0.1\r\n" +
+                                         "x-custom-header: a, b\r\n" +
+                                         "Authorization: Basic am9lOndlbGNvbWU=\r\n" +
+                                         "Date: Tue, 15 Nov 1994 08:12:31 GMT\r\n" +
+                                         "\r\n").getBytes());
+
+        IoBufferEx buf = allocator.wrap(in);
+        decoder.decode(session, (IoBuffer) buf, session.getDecoderOutput());
+
+        assertFalse(session.getDecoderOutputQueue().isEmpty());
+        HttpRequestMessage httpRequest = (HttpRequestMessage) session.getDecoderOutputQueue().poll();
+        assertEquals(20, httpRequest.getHeaders().size());
+        assertEquals(Arrays.asList("localhost:8000"), httpRequest.getHeaderValues("host"));
+        assertEquals(Arrays.asList("keep-alive", "Upgrade"), httpRequest.getHeaderValues("Connection"));
+        assertEquals(Arrays.asList("http://localhost:8000"), httpRequest.getHeaderValues("Origin"));
+        assertEquals(Arrays.asList("chat", "superchat"), httpRequest.getHeaderValues("sec-websocket-protocol"));
+        assertEquals(Arrays.asList("a, b"), httpRequest.getHeaderValues("X-Custom-Header"));
+        assertEquals("dGhlIHNhbXBsZSBub25jZQ==", httpRequest.getHeader("Sec-WebSocket-Key"));
+        assertEquals(Collections.singleton(new DefaultHttpCookie("KSSOID", "0123456789abcdef")), httpRequest.getCookies());
+        assertTrue(httpRequest.getHeaderTable() != null);
+
+        assertTrue(session.getDecoderOutputQueue().isEmpty());
+        decoder.finishDecode(session, session.getDecoderOutput());
+        assertFalse(in.hasRemaining());
+    }
+
 }
@@ -21,14 +21,20 @@
 
 package org.kaazing.gateway.transport.http.bridge.filter;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.transport.bridge.CachingMessageEncoder.IO_MESSAGE_ENCODER;
 import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_SHARED;
 import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_ZERO_COPY;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Collections;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.apache.mina.filter.codec.ProtocolEncoder;
 import org.apache.mina.filter.codec.ProtocolEncoderOutput;
@@ -368,4 +374,145 @@ public class HttpResponseEncoderTest {
         assertEquals(expected, buf);
     }
 
+    @Test
+    public void encodeContentGzippedDeflated() throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        HttpGzipEncoder gzipEncoder = new HttpGzipEncoder(Deflater.DEFAULT_COMPRESSION, false);
+        ProtocolEncoder encoder = new HttpResponseEncoder(IO_MESSAGE_ENCODER, allocator, gzipEncoder);
+        ProtocolEncoderOutput encoderOut = session.getEncoderOutput();
+
+        String text = "{\"symbol\":\"KZNG\",\"price\":42.00,\"volume\":1000}";
+        Inflater inflater = new Inflater(true);
+        int[] encodedSizes = new int[2];
+        for (int i = 0; i < encodedSizes.length; i++) {
+            IoBufferEx data = allocator.wrap(ByteBuffer.wrap(text.getBytes()));
+            HttpContentMessage httpContent = new HttpContentMessage(data, false, false, true);
+
+            encoder.encode(session, httpContent, encoderOut);
+            encoderOut.mergeAll();
+
+            IoBufferEx buf = (IoBufferEx) session.getEncoderOutputQueue().poll();
+            encodedSizes[i] = buf.remaining();
+            assertEquals(text, inflate(inflater, buf));
+        }
+
+        // the second frame refers back to the first one
+        assertTrue(encodedSizes[1] < encodedSizes[0]);
+        encoder.dispose(session);
+    }
+
+    @Test
+    public void encodeContentGzippedShareable() throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        ProtocolEncoderOutput encoderOut = session.getEncoderOutput();
+
+        String text = "{\"symbol\":\"KZNG\",\"price\":42.00,\"volume\":1000}";
+        IoBufferEx[] encoded = new IoBufferEx[2];
+        for (int i = 0; i < encoded.length; i++) {
+            HttpGzipEncoder gzipEncoder = new HttpGzipEncoder(Deflater.DEFAULT_COMPRESSION, true);
+            ProtocolEncoder encoder = new HttpResponseEncoder(IO_MESSAGE_ENCODER, allocator, gzipEncoder);
+            IoBufferEx data = allocator.wrap(ByteBuffer.wrap(text.getBytes()));
+            HttpContentMessage httpContent = new HttpContentMessage(data, false, false, true);
+
+            encoder.encode(session, httpContent, encoderOut);
+            encoderOut.mergeAll();
+
+            encoded[i] = (IoBufferEx) session.getEncoderOutputQueue().poll();
+            assertEquals(text, inflate(new Inflater(true), encoded[i].duplicate()));
+        }
+
+        // independently compressed frames are the same for every session
+        assertEquals(encoded[0], encoded[1]);
+    }
+
+    @Test
+    public void encodeContentGzippedDeflatedWithPadding() throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        HttpGzipEncoder gzipEncoder = new HttpGzipEncoder(Deflater.DEFAULT_COMPRESSION, false);
+        ProtocolEncoder encoder = new HttpResponseEncoder(IO_MESSAGE_ENCODER, allocator, gzipEncoder);
+        ProtocolEncoderOutput encoderOut = session.getEncoderOutput();
+
+        byte[] text = "{\"symbol\":\"KZNG\",\"price\":42.00,\"volume\":1000}".getBytes();
+        byte[][] frames = new byte[][] { text, HttpGzipEncoder.WSEB_4K_PADDING_BYTES, text, text };
+
+        // the client inflates all the frames of the stream with the same inflater
+        Inflater inflater = new Inflater(true);
+        for (byte[] frame : frames) {
+            IoBufferEx data = allocator.wrap(ByteBuffer.wrap(frame));
+            HttpContentMessage httpContent = new HttpContentMessage(data, false, false, true);
+
+            encoder.encode(session, httpContent, encoderOut);
+            encoderOut.mergeAll();
+
+            IoBufferEx buf = (IoBufferEx) session.getEncoderOutputQueue().poll();
+            assertArrayEquals(frame, inflateBytes(inflater, buf));
+        }
+        encoder.dispose(session);
+    }
+
+    @Test
+    public void encodeHttpResponseGzippedDeflatedKeepAlive() throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        HttpGzipEncoder gzipEncoder = new HttpGzipEncoder(Deflater.DEFAULT_COMPRESSION, false);
+        ProtocolEncoder encoder = new HttpResponseEncoder(IO_MESSAGE_ENCODER, allocator, gzipEncoder);
+        ProtocolEncoderOutput encoderOut = session.getEncoderOutput();
+
+        byte[] text = "{\"symbol\":\"KZNG\",\"price\":42.00,\"volume\":1000}".getBytes();
+        for (int i = 0; i < 2; i++) {
+            HttpResponseMessage httpResponse = new HttpResponseMessage();
+            httpResponse.setVersion(HttpVersion.HTTP_1_1);
+            httpResponse.setStatus(HttpStatus.SUCCESS_OK);
+            httpResponse.setBlockPadding(true);
+            IoBufferEx data = allocator.wrap(ByteBuffer.wrap(text));
+            httpResponse.setContent(new HttpContentMessage(data, false, false, true));
+
+            encoder.encode(session, httpResponse, encoderOut);
+            encoderOut.mergeAll();
+
+            // each response on the connection starts a new gzip stream, inflated by a new inflater
+            IoBufferEx buf = (IoBufferEx) session.getEncoderOutputQueue().poll();
+            skipHeaders(buf);
+            byte[] gzipHeader = new byte[HttpGzipEncoder.GZIP_START_OF_FRAME_BYTES.length];
+            buf.get(gzipHeader);
+            assertArrayEquals(HttpGzipEncoder.GZIP_START_OF_FRAME_BYTES, gzipHeader);
+            assertArrayEquals(text, inflateBytes(new Inflater(true), buf));
+        }
+        encoder.dispose(session);
+    }
+
+    private static void skipHeaders(IoBufferEx buf) {
+        int matched = 0;
+        byte[] endOfHeaders = "\r\n\r\n".getBytes();
+        while (matched < endOfHeaders.length) {
+            matched = (buf.get() == endOfHeaders[matched]) ? matched + 1 : 0;
+        }
+    }
+
+    private static byte[] inflateBytes(Inflater inflater, IoBufferEx buf) throws Exception {
+        byte[] input = new byte[buf.remaining()];
+        buf.get(input);
+        inflater.setInput(input);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1024];
+        int length;
+        while ((length = inflater.inflate(chunk)) > 0) {
+            output.write(chunk, 0, length);
+        }
+        return output.toByteArray();
+    }
+
+    private static String inflate(Inflater inflater, IoBufferEx buf) throws Exception {
+        byte[] input = new byte[buf.remaining()];
+        buf.get(input);
+        inflater.setInput(input);
+
+        byte[] output = new byte[1024];
+        int length = inflater.inflate(output);
+        return new String(output, 0, length);
+    }
 }
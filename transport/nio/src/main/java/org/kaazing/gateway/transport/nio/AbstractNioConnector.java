@@ -30,10 +30,13 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.URI;
+import java.util.Collection;
 import java.util.Properties;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 import org.apache.mina.core.future.ConnectFuture;
 import org.apache.mina.core.future.DefaultConnectFuture;
@@ -48,6 +51,8 @@ import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.session.IoSessionInitializer;
 import org.apache.mina.core.write.WriteRequest;
 import org.apache.mina.transport.socket.nio.NioSocketSessionEx;
+import org.kaazing.gateway.resource.address.CachingNameResolver;
+import org.kaazing.gateway.resource.address.NameResolver;
 import org.kaazing.gateway.resource.address.ResourceAddress;
 import org.kaazing.gateway.resource.address.ResourceAddressFactory;
 import org.kaazing.gateway.transport.BridgeConnectHandler;
@@ -158,8 +163,6 @@ public abstract class AbstractNioConnector implements BridgeConnector {
 
     // THIS IS A BUG IN JAVA, should not need two methods just to capture the type
     protected <T extends ConnectFuture> ConnectFuture connectInternal(final ResourceAddress address, final IoHandler handler, final IoSessionInitializer<T> initializer) {
-        ConnectFuture future;
-
         // TODO: throw exception if address contains more then one resource
         ResourceAddress transport = address.getTransport();
         if (transport != null) {
@@ -189,7 +192,56 @@ public abstract class AbstractNioConnector implements BridgeConnector {
         }
 
         final URI resource = address.getResource();
-        final InetSocketAddress inetAddress = new InetSocketAddress(resource.getHost(), resource.getPort());
+        NameResolver resolver = CachingNameResolver.getDefaultNameResolver();
+        if (!(resolver instanceof CachingNameResolver)) {
+            return connectInternal(address, new InetSocketAddress(resource.getHost(), resource.getPort()), handler,
+                    initializer);
+        }
+
+        // look up the host name without blocking the calling thread, cached addresses are connected to directly
+        CompletableFuture<Collection<InetAddress>> resolved = ((CachingNameResolver) resolver).resolve(resource.getHost());
+        if (resolved.isDone() && !resolved.isCompletedExceptionally()) {
+            InetAddress inetAddress = resolved.join().iterator().next();
+            return connectInternal(address, new InetSocketAddress(inetAddress, resource.getPort()), handler, initializer);
+        }
+
+        final DefaultConnectFuture resolvedConnectFuture = new DefaultConnectFuture();
+        resolved.whenComplete(new BiConsumer<Collection<InetAddress>, Throwable>() {
+            @Override
+            public void accept(Collection<InetAddress> inetAddresses, Throwable cause) {
+                if (cause != null) {
+                    resolvedConnectFuture.setException(cause);
+                    return;
+                }
+
+                InetSocketAddress inetAddress = new InetSocketAddress(inetAddresses.iterator().next(), resource.getPort());
+                ConnectFuture future = connectInternal(address, inetAddress, handler, initializer);
+                future.addListener(new IoFutureListener<ConnectFuture>() {
+                    @Override
+                    public void operationComplete(ConnectFuture future) {
+                        if (future.isConnected()) {
+                            resolvedConnectFuture.setSession(future.getSession());
+                        }
+                        else if (future.isCanceled()) {
+                            resolvedConnectFuture.cancel();
+                        }
+                        else {
+                            resolvedConnectFuture.setException(future.getException());
+                        }
+                    }
+                });
+            }
+        });
+
+        return resolvedConnectFuture;
+    }
+
+    private <T extends ConnectFuture> ConnectFuture connectInternal(final ResourceAddress address,
+                                                                    final InetSocketAddress inetAddress,
+                                                                    final IoHandler handler,
+                                                                    final IoSessionInitializer<T> initializer) {
+        ConnectFuture future;
+        final URI resource = address.getResource();
 
         if (logger.isTraceEnabled()) {
         	logger.trace(format("AbstractNioConnector.connectInternal(), resource: %s", resource));
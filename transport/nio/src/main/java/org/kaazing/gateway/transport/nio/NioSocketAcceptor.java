@@ -25,6 +25,8 @@ import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.kaazing.gateway.transport.AbstractBridgeService.*;
 import static org.kaazing.gateway.transport.nio.NioSystemProperty.DEBUG_NIOWORKER_POOL;
 import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_BACKLOG;
+import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_BUFFER_POOL;
+import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_BUFFER_POOL_DIRECT;
 import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_IP_TOS;
 import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_KEEP_ALIVE;
 import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_MAXIMUM_READ_BUFFER_SIZE;
@@ -64,6 +66,8 @@ import org.jboss.netty.channel.socket.nio.WorkerPool;
 import org.jboss.netty.util.ExternalResourceReleasable;
 import org.jboss.netty.util.internal.ExecutorUtil;
 import org.kaazing.mina.core.service.IoAcceptorEx;
+import org.kaazing.mina.netty.ChannelIoBufferAllocator;
+import org.kaazing.mina.netty.ChannelIoBufferPool;
 import org.kaazing.mina.netty.socket.nio.DefaultNioSocketChannelIoSessionConfig;
 import org.kaazing.mina.netty.socket.nio.NioSocketChannelIoAcceptor;
 import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
@@ -126,6 +130,8 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
     }
 
     private final AtomicReference<DistributedNioWorkerPool> currentWorkerPool = new AtomicReference<>();
+    private volatile ChannelIoBufferPool bufferPool;
+
     public NioSocketAcceptor(Properties configuration) {
         super(configuration, LoggerFactory.getLogger(LOGGER_NAME));
     }
@@ -157,6 +163,8 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
         String sendBufferSize = TCP_SEND_BUFFER_SIZE.getProperty(configuration);
         String linger = TCP_SO_LINGER.getProperty(configuration);
         String ipTypeOfService = TCP_IP_TOS.getProperty(configuration);
+        boolean bufferPool = Boolean.parseBoolean(TCP_BUFFER_POOL.getProperty(configuration));
+        boolean bufferPoolDirect = Boolean.parseBoolean(TCP_BUFFER_POOL_DIRECT.getProperty(configuration));
 
         NioSocketChannelIoAcceptor acceptor;
 
@@ -233,6 +241,12 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
             logger.debug("IP_TOS for TCP acceptor: {}", ipTypeOfService);
         }
 
+        if (bufferPool) {
+            this.bufferPool = new ChannelIoBufferPool(bufferPoolDirect);
+            acceptor.setBufferAllocator(new ChannelIoBufferAllocator(this.bufferPool));
+            logger.debug("BUFFER_POOL setting for TCP acceptor: {}, direct: {}", bufferPool, bufferPoolDirect);
+        }
+
         acceptor.setReuseAddress(reuseAddress);
         acceptor.getSessionConfig().setReuseAddress(reuseAddress);
 
@@ -240,6 +254,15 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
     }
 
 
+    /**
+     * Returns the pool of write buffers, with its hit and miss counts.
+     *
+     * @return <tt>null</tt> unless buffer pooling is enabled for TCP accepts
+     */
+    public ChannelIoBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
     public Worker[] getWorkers() {
         // KG-10074: if only non-TCP binds, worker pool may not yet be initialized (causing NPE below)
         initIfNecessary();
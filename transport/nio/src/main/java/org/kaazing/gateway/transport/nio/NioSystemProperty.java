@@ -44,6 +44,10 @@ public enum NioSystemProperty {
     TCP_MAXIMUM_READ_BUFFER_SIZE("org.kaazing.gateway.server.transport.tcp.MAXIMUM_READ_BUFFER_SIZE"),
     TCP_WRITE_TIMEOUT("org.kaazing.gateway.server.transport.tcp.WRITE_TIMEOUT"),
 
+    // Pooled write buffers (ChannelIoBufferPool), per TCP acceptor
+    TCP_BUFFER_POOL("org.kaazing.gateway.server.transport.tcp.BUFFER_POOL", "false"), // true or false
+    TCP_BUFFER_POOL_DIRECT("org.kaazing.gateway.server.transport.tcp.BUFFER_POOL_DIRECT", "false"), // true or false
+
     // Socket Channel Config options (SocketChannelIoSessionConfig)
     TCP_REUSE_ADDRESS("org.kaazing.gateway.server.transport.tcp.REUSE_ADDRESS", "true"),
     TCP_NO_DELAY("org.kaazing.gateway.server.transport.tcp.TCP_NO_DELAY"),
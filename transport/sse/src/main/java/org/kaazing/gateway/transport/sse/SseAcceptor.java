@@ -76,9 +76,11 @@ import org.kaazing.gateway.transport.sse.bridge.filter.SseAcceptCodecFilter;
 import org.kaazing.gateway.transport.sse.bridge.filter.SseBuffer;
 import org.kaazing.gateway.transport.sse.bridge.filter.SseBufferAllocator;
 import org.kaazing.gateway.util.scheduler.SchedulerProvider;
+import org.kaazing.gateway.util.scheduler.SessionTask;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.future.UnbindFuture;
 import org.kaazing.mina.core.service.IoProcessorEx;
+import org.kaazing.mina.core.session.IoSessionEx;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -133,7 +135,7 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
 
     @Resource(name = "schedulerProvider")
     public void setSchedulerProvider(SchedulerProvider provider) {
-        this.scheduler = provider.getScheduler("KeepAlive-Sse", true);
+        this.scheduler = provider.getTimer("KeepAlive-Sse");
     }
 
     @Override
@@ -604,7 +606,7 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
         return false;
     }
 
-    private class AttachParentCommand implements Runnable {
+    private class AttachParentCommand implements SessionTask {
 
         private final SseSession sseSession;
         private final BridgeSession parent;
@@ -626,9 +628,14 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
             // sure that the connection does not get stalled
             scheduler.schedule(new FlushCommand(sseSession), TIME_TO_FIRST_WRITE_MILLIS, TimeUnit.MILLISECONDS);
         }
+
+        @Override
+        public IoSessionEx getSession() {
+            return sseSession;
+        }
     }
 
-    private class FlushCommand implements Runnable {
+    private class FlushCommand implements SessionTask {
 
         private final SseSession session;
 
@@ -646,10 +653,15 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
             }
         }
 
+        @Override
+        public IoSessionEx getSession() {
+            return session;
+        }
+
     }
 
     // close session if reconnect timer elapses and no parent has been attached
-    private class TimeoutCommand implements Runnable {
+    private class TimeoutCommand implements SessionTask {
 
         private SseSession sseSession;
 
@@ -669,5 +681,10 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
                 }
             }
         }
+
+        @Override
+        public IoSessionEx getSession() {
+            return sseSession;
+        }
     }
 }
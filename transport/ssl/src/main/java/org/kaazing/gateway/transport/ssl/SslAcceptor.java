@@ -28,11 +28,14 @@ import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.PROTOC
 import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.ENCRYPTION_ENABLED;
 import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.KEY_SELECTOR;
 import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.NEED_CLIENT_AUTH;
+import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.SESSION_CACHE_SIZE;
+import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.SESSION_TIMEOUT;
 import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.WANT_CLIENT_AUTH;
 import static org.kaazing.gateway.transport.BridgeSession.LOCAL_ADDRESS;
 import static org.kaazing.gateway.transport.BridgeSession.NEXT_PROTOCOL_KEY;
 import static org.kaazing.gateway.transport.BridgeSession.REMOTE_ADDRESS;
 import static java.lang.String.format;
+import static org.kaazing.gateway.transport.ssl.SslSystemProperty.HANDSHAKE_THREADS;
 
 import java.net.URI;
 import java.security.KeyStoreException;
@@ -43,12 +46,14 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Properties;
 import java.util.SortedSet;
 import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 
 import org.kaazing.gateway.security.KeySelector;
 import org.kaazing.gateway.transport.TransportKeySelector;
@@ -91,6 +96,8 @@ import org.kaazing.gateway.transport.ssl.bridge.filter.SslCipherSelectionFilter;
 import org.kaazing.gateway.transport.ssl.bridge.filter.SslClientHelloDecoder;
 import org.kaazing.gateway.transport.ssl.bridge.filter.SslClientHelloEncoder;
 import org.kaazing.gateway.transport.ssl.bridge.filter.SslFilter;
+import org.kaazing.gateway.transport.ssl.bridge.filter.SslHandshakeExecutor;
+import org.kaazing.gateway.transport.ssl.bridge.filter.SslSessionStatistics;
 import org.kaazing.gateway.transport.ExceptionLoggingFilter;
 import org.kaazing.gateway.transport.ObjectLoggingFilter;
 import org.kaazing.gateway.transport.TypedAttributeKey;
@@ -128,6 +135,13 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
     private ResourceAddressFactory resourceAddressFactory;
     private BridgeServiceFactory bridgeServiceFactory;
     private VirtualHostKeySelector vhostKeySelector;
+    private Properties configuration;
+    private SslHandshakeExecutor handshakeExecutor;
+    private final SslSessionStatistics sessionStatistics = new SslSessionStatistics();
+
+    // explicitly configured server session cache settings, shared by all bindings
+    private Integer sessionCacheSize;
+    private Integer sessionTimeout;
 
     // TODO: SslBindings like HttpBindings
     
@@ -140,6 +154,11 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
         this.bridgeServiceFactory = bridgeServiceFactory;
     }
 
+    @Resource(name = "configuration")
+    public void setConfiguration(Properties configuration) {
+        this.configuration = configuration;
+    }
+
     @Resource(name = "resourceAddressFactory")
     public void setResourceAddressFactory(ResourceAddressFactory factory) {
         this.resourceAddressFactory = factory;
@@ -176,6 +195,30 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
         }
     }
 
+    @Override
+    protected IoFuture dispose0() throws Exception {
+        if (handshakeExecutor != null) {
+            handshakeExecutor.shutdown();
+        }
+        return super.dispose0();
+    }
+
+    /**
+     * Returns the executor running SSL handshake tasks, with its handshake metrics.
+     *
+     * @return <tt>null</tt> if handshake tasks run on the I/O threads.
+     */
+    public SslHandshakeExecutor getHandshakeExecutor() {
+        return handshakeExecutor;
+    }
+
+    /**
+     * Returns the counts of full and resumed handshakes, showing how effective the SSL session cache is.
+     */
+    public SslSessionStatistics getSessionStatistics() {
+        return sessionStatistics;
+    }
+
     @Override
     public TransportMetadata getTransportMetadata() {
         return new DefaultTransportMetadata(SslProtocol.NAME);
@@ -185,6 +228,11 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
     protected void init() {
         super.init();
 
+        int handshakeThreads = (configuration != null) ? HANDSHAKE_THREADS.getIntProperty(configuration) : 0;
+        if (handshakeThreads > 0) {
+            handshakeExecutor = new SslHandshakeExecutor("ssl_handshake_accept", handshakeThreads);
+        }
+
         try {
             sslContext = sslContextFactory.newInstance();
 
@@ -247,6 +295,8 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
         // Create our SslFilter instance, and configure it based on the
         // resource address.
         SslFilter sslFilter = new SslFilter(sslContext, false, logger);
+        sslFilter.setHandshakeExecutor(handshakeExecutor);
+        sslFilter.setSessionStatistics(sessionStatistics);
 
         IoSession session = filterChain.getSession();
 
@@ -370,6 +420,8 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
+
+            configureSessionCache(address);
         }
 
         // JRF: this looks like we're breaking the transport abstraction by assuming that SSL is always over TCP
@@ -451,6 +503,35 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
         return acceptor.unbind(transportAddress);
     }
 
+    // the server session cache is shared by all the SSL bindings of this acceptor, so
+    // bindings configuring it must agree rather than the last bound address winning
+    private synchronized void configureSessionCache(ResourceAddress address) {
+        Integer newSessionCacheSize = address.getOption(SESSION_CACHE_SIZE);
+        Integer newSessionTimeout = address.getOption(SESSION_TIMEOUT);
+        checkSessionCacheOption(address, "ssl.session.cache.size", sessionCacheSize, newSessionCacheSize);
+        checkSessionCacheOption(address, "ssl.session.timeout", sessionTimeout, newSessionTimeout);
+
+        SSLSessionContext sessionContext = sslContext.getServerSessionContext();
+        if (newSessionCacheSize != null) {
+            sessionContext.setSessionCacheSize(newSessionCacheSize);
+            sessionCacheSize = newSessionCacheSize;
+        }
+        if (newSessionTimeout != null) {
+            sessionContext.setSessionTimeout(newSessionTimeout);
+            sessionTimeout = newSessionTimeout;
+        }
+    }
+
+    private static void checkSessionCacheOption(ResourceAddress address, String name, Integer value,
+                                                Integer newValue) {
+        if (value != null && newValue != null && !value.equals(newValue)) {
+            throw new IllegalArgumentException(String.format(
+                    "Accept option %s %d for %s conflicts with %d configured by another service, "
+                    + "the TLS session cache is shared by all services", name, newValue, address.getExternalURI(),
+                    value));
+        }
+    }
+
     private IoHandler secureBridgeHandler = new BridgeHandler(true);
 
     private BridgeHandler unsecureBridgeHandler = new BridgeHandler(false);
@@ -29,6 +29,7 @@ import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.NEED_C
 import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.WANT_CLIENT_AUTH;
 import static org.kaazing.gateway.transport.BridgeSession.LOCAL_ADDRESS;
 import static java.lang.String.format;
+import static org.kaazing.gateway.transport.ssl.SslSystemProperty.HANDSHAKE_THREADS;
 
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -36,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Properties;
 import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
@@ -45,6 +47,7 @@ import javax.net.ssl.SSLContext;
 import org.apache.mina.core.filterchain.IoFilterChain;
 import org.apache.mina.core.future.ConnectFuture;
 import org.apache.mina.core.future.DefaultConnectFuture;
+import org.apache.mina.core.future.IoFuture;
 import org.apache.mina.core.future.IoFutureListener;
 import org.apache.mina.core.service.IoHandler;
 import org.apache.mina.core.service.TransportMetadata;
@@ -74,6 +77,7 @@ import org.kaazing.gateway.transport.TransportKeySelector;
 import org.kaazing.gateway.transport.TypedAttributeKey;
 import org.kaazing.gateway.transport.ssl.bridge.filter.SslCertificateSelectionFilter;
 import org.kaazing.gateway.transport.ssl.bridge.filter.SslFilter;
+import org.kaazing.gateway.transport.ssl.bridge.filter.SslHandshakeExecutor;
 import org.kaazing.gateway.transport.ssl.cert.VirtualHostKeySelector;
 import org.kaazing.gateway.util.ssl.SslCipherSuites;
 import org.kaazing.mina.core.service.IoProcessorEx;
@@ -100,11 +104,18 @@ public class SslConnector extends AbstractBridgeConnector<SslSession> {
     private SslCertificateSelectionFilter certificateSelection;
     private ResourceAddressFactory resourceAddressFactory;
     private VirtualHostKeySelector vhostKeySelector;
+    private Properties configuration;
+    private SslHandshakeExecutor handshakeExecutor;
 
     public SslConnector() {
         super(new DefaultIoSessionConfigEx());
     }
 
+    @Resource(name = "configuration")
+    public void setConfiguration(Properties configuration) {
+        this.configuration = configuration;
+    }
+
     @Resource(name = "resourceAddressFactory")
     public void setResourceAddressFactory(ResourceAddressFactory resourceAddressFactory) {
         this.resourceAddressFactory = resourceAddressFactory;
@@ -147,6 +158,23 @@ public class SslConnector extends AbstractBridgeConnector<SslSession> {
 
     }
 
+    @Override
+    protected IoFuture dispose0() throws Exception {
+        if (handshakeExecutor != null) {
+            handshakeExecutor.shutdown();
+        }
+        return super.dispose0();
+    }
+
+    /**
+     * Returns the executor running SSL handshake tasks, with its handshake metrics.
+     *
+     * @return <tt>null</tt> if handshake tasks run on the I/O threads.
+     */
+    public SslHandshakeExecutor getHandshakeExecutor() {
+        return handshakeExecutor;
+    }
+
     @Override
     public TransportMetadata getTransportMetadata() {
         return new DefaultTransportMetadata(SslProtocol.NAME);
@@ -156,6 +184,11 @@ public class SslConnector extends AbstractBridgeConnector<SslSession> {
     protected void init() {
         super.init();
 
+        int handshakeThreads = (configuration != null) ? HANDSHAKE_THREADS.getIntProperty(configuration) : 0;
+        if (handshakeThreads > 0) {
+            handshakeExecutor = new SslHandshakeExecutor("ssl_handshake_connect", handshakeThreads);
+        }
+
         try {
             sslContext = sslContextFactory.newInstance();
         }
@@ -188,6 +221,7 @@ public class SslConnector extends AbstractBridgeConnector<SslSession> {
                 // Create our SslFilter instance, and configure it based on the
                 // resource address.
                 SslFilter sslFilter = new SslFilter(sslContext, true, logger);
+                sslFilter.setHandshakeExecutor(handshakeExecutor);
                 sslFilter.setUseClientMode(true);
 
                 boolean wantClientAuth = address.getOption(WANT_CLIENT_AUTH);
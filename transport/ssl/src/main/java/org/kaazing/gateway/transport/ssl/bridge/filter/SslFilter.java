@@ -172,6 +172,9 @@ public class SslFilter extends IoFilterAdapter {
 
     private String[] enabledProtocols;
 
+    private SslHandshakeExecutor handshakeExecutor;
+    private SslSessionStatistics sessionStatistics;
+
     /**
      * Creates a new SSL filter using the specified {@link SSLContext}.
      * The handshake will start immediately.
@@ -358,6 +361,41 @@ public class SslFilter extends IoFilterAdapter {
         this.enabledProtocols = protocols;
     }
 
+    /**
+     * Returns the executor running SSLEngine delegated tasks during handshakes.
+     *
+     * @return <tt>null</tt> means 'run delegated tasks on the I/O thread.'
+     */
+    public SslHandshakeExecutor getHandshakeExecutor() {
+        return handshakeExecutor;
+    }
+
+    /**
+     * Sets the executor running SSLEngine delegated tasks during handshakes.  Reads are
+     * suspended on the session while its delegated tasks are running.
+     *
+     * @param handshakeExecutor <tt>null</tt> means 'run delegated tasks on the I/O thread.'
+     */
+    public void setHandshakeExecutor(SslHandshakeExecutor handshakeExecutor) {
+        this.handshakeExecutor = handshakeExecutor;
+    }
+
+    /**
+     * Returns the statistics counting full and resumed handshakes.
+     *
+     * @return <tt>null</tt> if handshakes are not counted.
+     */
+    public SslSessionStatistics getSessionStatistics() {
+        return sessionStatistics;
+    }
+
+    /**
+     * Sets the statistics counting full and resumed handshakes.
+     */
+    public void setSessionStatistics(SslSessionStatistics sessionStatistics) {
+        this.sessionStatistics = sessionStatistics;
+    }
+
     @Override
     public void onPreAdd(IoFilterChain parent, String name,
             NextFilter nextFilter) throws SSLException {
@@ -630,6 +668,51 @@ public class SslFilter extends IoFilterAdapter {
         handler.flushScheduledEvents();
     }
 
+    void resumeHandshake(IoSession session, Throwable taskFailure) {
+        SslHandler handler = (SslHandler) session.getAttribute(SSL_HANDLER);
+        if (handler == null || handler.getParent() != this) {
+            // session closed while the delegated tasks were running
+            return;
+        }
+
+        if (taskFailure != null) {
+            SSLException newSsle = new SSLHandshakeException("SSL handshake failed.");
+            newSsle.initCause(taskFailure);
+            session.getFilterChain().fireExceptionCaught(newSsle);
+            session.close(true);
+            return;
+        }
+
+        NextFilter nextFilter = (NextFilter) session.getAttribute(NEXT_FILTER);
+        try {
+            synchronized (handler) {
+                handler.resumeHandshake(nextFilter);
+                if (handler.isHandshakeComplete()) {
+                    handler.flushPreHandshakeEvents();
+                }
+                handler.writeNetBuffer(nextFilter);
+
+                // the resumed handshake may not have unwrapped any application data
+                if (handler.isAppBufferAvailable()) {
+                    handleAppDataRead(nextFilter, handler);
+                }
+            }
+
+            handler.flushScheduledEvents();
+        } catch (SSLException ssle) {
+            SSLException newSsle = new SSLHandshakeException("SSL handshake failed.");
+            newSsle.initCause(ssle);
+            session.getFilterChain().fireExceptionCaught(newSsle);
+        } finally {
+            // the resumed handshake may have delegated further tasks, leaving reads suspended
+            synchronized (handler) {
+                if (!handler.isDelegatedTasksPending()) {
+                    session.resumeRead();
+                }
+            }
+        }
+    }
+
     private WriteFuture initiateClosure(NextFilter nextFilter, IoSession session)
             throws SSLException {
         SslHandler handler = getSslSessionHandler(session);
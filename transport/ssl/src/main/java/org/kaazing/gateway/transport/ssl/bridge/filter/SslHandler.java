@@ -101,6 +101,8 @@ class SslHandler {
     private boolean initialHandshakeComplete;
     private boolean handshakeComplete;
     private boolean writingEncryptedData;
+    private boolean delegatedTasksPending;
+    private long handshakeStartTime;
     private final IoBufferAllocatorEx<?> allocator;
 
     /**
@@ -270,6 +272,8 @@ class SslHandler {
         */
 
         sslEngine = null;
+        delegatedTasksPending = false;
+        handshakeStartTime = 0L;
         preHandshakeEventQueue.clear();
     }
 
@@ -551,6 +555,15 @@ class SslHandler {
      * Perform any handshaking processing.
      */
     public void handshake(NextFilter nextFilter) throws SSLException {
+        if (delegatedTasksPending) {
+            // handshake resumes on the I/O thread when the delegated tasks complete
+            return;
+        }
+
+        if (handshakeStartTime == 0L) {
+            handshakeStartTime = System.nanoTime();
+        }
+
         for (;;) {
             switch (handshakeStatus) {
                 case FINISHED :
@@ -558,6 +571,16 @@ class SslHandler {
                             SslFilter.SSL_SESSION, sslEngine.getSession());
                     handshakeComplete = true;
 
+                    SslHandshakeExecutor handshakeExecutor = parent.getHandshakeExecutor();
+                    if (handshakeExecutor != null) {
+                        handshakeExecutor.handshakeCompleted(System.nanoTime() - handshakeStartTime);
+                    }
+                    SslSessionStatistics sessionStatistics = parent.getSessionStatistics();
+                    if (sessionStatistics != null) {
+                        sessionStatistics.handshakeCompleted(sslEngine.getSession());
+                    }
+                    handshakeStartTime = 0L;
+            
                     if (logger.isDebugEnabled()) {
                         SSLSession sslSession = sslEngine.getSession();
                         logger.debug(String.format("SSL session ID %s on transport session #%d %s: cipher %s, app buffer size %d, packet buffer size %d", 
@@ -576,6 +599,11 @@ class SslHandler {
                     return;
                     
                 case NEED_TASK :
+                    SslHandshakeExecutor executor = parent.getHandshakeExecutor();
+                    if (executor != null) {
+                        delegateTasks(executor);
+                        return;
+                    }
                     handshakeStatus = doTasks();
                     break;
                     
@@ -785,6 +813,79 @@ class SslHandler {
         return res;
     }
 
+    /**
+     * Continues the handshake after the delegated tasks have completed, on the I/O thread.
+     */
+    void resumeHandshake(NextFilter nextFilter) throws SSLException {
+        if (sslEngine == null) {
+            // destroyed while the delegated tasks were running
+            return;
+        }
+
+        delegatedTasksPending = false;
+        handshakeStatus = sslEngine.getHandshakeStatus();
+        handshake(nextFilter);
+
+        // Application data may have arrived along with the handshake
+        if (handshakeComplete) {
+            decrypt(nextFilter);
+        }
+    }
+
+    /**
+     * Runs the outstanding handshake tasks on the handshake executor, suspending reads until
+     * the handshake resumes on the I/O thread.
+     */
+    private void delegateTasks(SslHandshakeExecutor executor) {
+        final List<Runnable> tasks = new ArrayList<>();
+        Runnable runnable;
+        while ((runnable = sslEngine.getDelegatedTask()) != null) {
+            tasks.add(runnable);
+        }
+
+        delegatedTasksPending = true;
+        session.suspendRead();
+
+        final boolean client = parent.isUseClientMode();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Throwable failure = null;
+
+                // key managers select certificates for the current session
+                SslCertificateSelectionFilter.setCurrentSession(session, client);
+                try {
+                    for (Runnable task : tasks) {
+                        task.run();
+                    }
+                }
+                catch (Throwable t) {
+                    failure = t;
+                }
+                finally {
+                    SslCertificateSelectionFilter.setCurrentSession(null, client);
+
+                    // always resume, otherwise reads stay suspended and the session hangs
+                    final Throwable cause = failure;
+                    session.getIoExecutor().execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            parent.resumeHandshake(session, cause);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    boolean isDelegatedTasksPending() {
+        return delegatedTasksPending;
+    }
+
+    boolean isAppBufferAvailable() {
+        return appBuffer != null;
+    }
+
     /**
      * Do all the outstanding handshake tasks in the current Thread.
      */
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.ssl.bridge.filter;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs SSLEngine delegated tasks (e.g. key exchange) off the I/O threads, so that a burst of
+ * handshakes does not stall the other sessions of an I/O worker, and keeps handshake metrics.
+ */
+public class SslHandshakeExecutor {
+
+    private final ExecutorService executor;
+    private final AtomicInteger queueDepth;
+    private final AtomicLong handshakeCount;
+    private final AtomicLong handshakeNanos;
+    private final AtomicLong maximumHandshakeNanos;
+
+    public SslHandshakeExecutor(final String name, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            final AtomicInteger threadNumber = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name + "-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.queueDepth = new AtomicInteger();
+        this.handshakeCount = new AtomicLong();
+        this.handshakeNanos = new AtomicLong();
+        this.maximumHandshakeNanos = new AtomicLong();
+    }
+
+    /**
+     * Returns the number of handshakes waiting for, or running, delegated tasks.
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Returns the number of completed handshakes.
+     */
+    public long getHandshakeCount() {
+        return handshakeCount.get();
+    }
+
+    /**
+     * Returns the average time from start to completion of a handshake.
+     */
+    public long getAverageHandshakeLatency(TimeUnit unit) {
+        long count = handshakeCount.get();
+        return (count == 0L) ? 0L : unit.convert(handshakeNanos.get() / count, NANOSECONDS);
+    }
+
+    /**
+     * Returns the longest time from start to completion of a handshake.
+     */
+    public long getMaximumHandshakeLatency(TimeUnit unit) {
+        return unit.convert(maximumHandshakeNanos.get(), NANOSECONDS);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void execute(final Runnable tasks) {
+        queueDepth.incrementAndGet();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        tasks.run();
+                    }
+                    finally {
+                        queueDepth.decrementAndGet();
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            // shut down, run on the calling thread instead so the handshake still resumes
+            queueDepth.decrementAndGet();
+            tasks.run();
+        }
+    }
+
+    void handshakeCompleted(long nanos) {
+        handshakeCount.incrementAndGet();
+        handshakeNanos.addAndGet(nanos);
+        long maximum;
+        while (nanos > (maximum = maximumHandshakeNanos.get())) {
+            if (maximumHandshakeNanos.compareAndSet(maximum, nanos)) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.ssl.bridge.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * Counts full and abbreviated (resumed) SSL handshakes, to show how effective the SSL session
+ * cache is.  A resumed handshake completes with an {@link SSLSession} that an earlier handshake
+ * already completed with, so each session is marked when its first handshake completes.
+ */
+public class SslSessionStatistics {
+
+    private static final String HANDSHAKE_COMPLETED_KEY = SslSessionStatistics.class.getName() + ".handshakeCompleted";
+
+    private final AtomicLong fullHandshakes = new AtomicLong();
+    private final AtomicLong resumedHandshakes = new AtomicLong();
+
+    /**
+     * Returns the number of handshakes that negotiated a new SSL session.
+     */
+    public long getFullHandshakeCount() {
+        return fullHandshakes.get();
+    }
+
+    /**
+     * Returns the number of handshakes that resumed a cached SSL session.
+     */
+    public long getResumedHandshakeCount() {
+        return resumedHandshakes.get();
+    }
+
+    /**
+     * Returns the fraction of handshakes that resumed a cached SSL session.
+     *
+     * @return <tt>0.0</tt> if no handshakes have completed yet
+     */
+    public double getResumptionRatio() {
+        long resumed = resumedHandshakes.get();
+        long total = resumed + fullHandshakes.get();
+        return (total == 0L) ? 0.0 : (double) resumed / total;
+    }
+
+    void handshakeCompleted(SSLSession sslSession) {
+        if (sslSession.getValue(HANDSHAKE_COMPLETED_KEY) != null) {
+            resumedHandshakes.incrementAndGet();
+        }
+        else {
+            sslSession.putValue(HANDSHAKE_COMPLETED_KEY, Boolean.TRUE);
+            fullHandshakes.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.ssl.bridge.filter;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SslHandshakeExecutorTest {
+
+    private SslHandshakeExecutor executor;
+
+    @Before
+    public void setup() {
+        executor = new SslHandshakeExecutor("ssl_handshake_test", 1);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldTrackQueueDepth() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(2);
+        Runnable blocking = new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                completed.countDown();
+            }
+        };
+        Runnable queued = new Runnable() {
+            @Override
+            public void run() {
+                completed.countDown();
+            }
+        };
+
+        executor.execute(blocking);
+        executor.execute(queued);
+        assertTrue(started.await(5, SECONDS));
+        assertEquals(2, executor.getQueueDepth());
+
+        release.countDown();
+        assertTrue(completed.await(5, SECONDS));
+        for (int i = 0; i < 100 && executor.getQueueDepth() != 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    public void shouldRunTasksInlineWhenShutdown() throws Exception {
+        executor.shutdown();
+
+        final Thread caller = Thread.currentThread();
+        final boolean[] ranInline = new boolean[1];
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ranInline[0] = Thread.currentThread() == caller;
+            }
+        });
+
+        assertTrue(ranInline[0]);
+        assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    public void shouldTrackHandshakeLatency() throws Exception {
+        executor.handshakeCompleted(MILLISECONDS.toNanos(10));
+        executor.handshakeCompleted(MILLISECONDS.toNanos(30));
+
+        assertEquals(2, executor.getHandshakeCount());
+        assertEquals(20, executor.getAverageHandshakeLatency(MILLISECONDS));
+        assertEquals(MILLISECONDS.toNanos(30), executor.getMaximumHandshakeLatency(NANOSECONDS));
+    }
+}
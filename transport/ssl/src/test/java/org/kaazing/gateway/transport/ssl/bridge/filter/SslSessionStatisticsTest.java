@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.ssl.bridge.filter;
+
+import static org.junit.Assert.assertEquals;
+
+import javax.net.ssl.SSLSession;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.junit.Test;
+
+public class SslSessionStatisticsTest {
+
+    @Test
+    public void shouldCountFirstHandshakeOfSessionAsFull() {
+        Mockery context = new Mockery();
+        final SSLSession sslSession = context.mock(SSLSession.class);
+
+        context.checking(new Expectations() {{
+            oneOf(sslSession).getValue(with(any(String.class))); will(returnValue(null));
+            oneOf(sslSession).putValue(with(any(String.class)), with(equal(Boolean.TRUE)));
+        }});
+
+        SslSessionStatistics statistics = new SslSessionStatistics();
+        statistics.handshakeCompleted(sslSession);
+
+        context.assertIsSatisfied();
+        assertEquals(1L, statistics.getFullHandshakeCount());
+        assertEquals(0L, statistics.getResumedHandshakeCount());
+        assertEquals(0.0, statistics.getResumptionRatio(), 0.0);
+    }
+
+    @Test
+    public void shouldCountLaterHandshakesOfSessionAsResumed() {
+        Mockery context = new Mockery();
+        final SSLSession fullSession = context.mock(SSLSession.class, "fullSession");
+        final SSLSession resumedSession = context.mock(SSLSession.class, "resumedSession");
+
+        context.checking(new Expectations() {{
+            oneOf(fullSession).getValue(with(any(String.class))); will(returnValue(null));
+            oneOf(fullSession).putValue(with(any(String.class)), with(equal(Boolean.TRUE)));
+            exactly(3).of(resumedSession).getValue(with(any(String.class))); will(returnValue(Boolean.TRUE));
+        }});
+
+        SslSessionStatistics statistics = new SslSessionStatistics();
+        statistics.handshakeCompleted(fullSession);
+        statistics.handshakeCompleted(resumedSession);
+        statistics.handshakeCompleted(resumedSession);
+        statistics.handshakeCompleted(resumedSession);
+
+        context.assertIsSatisfied();
+        assertEquals(1L, statistics.getFullHandshakeCount());
+        assertEquals(3L, statistics.getResumedHandshakeCount());
+        assertEquals(0.75, statistics.getResumptionRatio(), 0.0);
+    }
+}
@@ -31,7 +31,11 @@ public abstract class WsMessage extends Message {
         BINARY, TEXT, CONTINUATION, CLOSE, COMMAND, PING, PONG
     }
 
+    /** RSV1 bit of the frame header, set by the permessage-deflate extension on compressed messages */
+    public static final int RSV1 = 0x40;
+
     private final boolean fin;
+    private int rsv;
 
     public abstract Kind getKind();
 
@@ -57,6 +61,17 @@ public abstract class WsMessage extends Message {
         return fin;
     }
 
+    /**
+     * Returns the RSV bits of the frame header (as masked by {@link #RSV1} etc.), reserved for extensions.
+     */
+    public int getRsv() {
+        return rsv;
+    }
+
+    public void setRsv(int rsv) {
+        this.rsv = rsv;
+    }
+
     @Override
     public int hashCode() {
         return buf.hashCode();
@@ -32,7 +32,13 @@ public enum WsSystemProperty {
 
     // transports
     WS_ENABLED_TRANSPORTS("org.kaazing.gateway.transport.ws.ENABLED_TRANSPORTS"),
-    WSE_IDLE_TIMEOUT("org.kaazing.gateway.transport.wse.IDLE_TIMEOUT", "60");
+    WSE_IDLE_TIMEOUT("org.kaazing.gateway.transport.wse.IDLE_TIMEOUT", "60"),
+
+    // permessage-deflate extension (RFC 7692)
+    PERMESSAGE_DEFLATE_ENABLED("org.kaazing.gateway.transport.ws.PERMESSAGE_DEFLATE_ENABLED", "false"),
+    PERMESSAGE_DEFLATE_COMPRESSION_LEVEL("org.kaazing.gateway.transport.ws.PERMESSAGE_DEFLATE_COMPRESSION_LEVEL", "-1"),
+    // compress broadcast messages once for all sessions, forces server_no_context_takeover
+    PERMESSAGE_DEFLATE_SHARED("org.kaazing.gateway.transport.ws.PERMESSAGE_DEFLATE_SHARED", "false");
 
     private final String name;
     private final String defaultValue;
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.ws.bridge.extensions.deflate;
+
+import org.apache.mina.core.filterchain.IoFilter;
+import org.kaazing.gateway.transport.ws.extension.ExtensionHeader;
+import org.kaazing.gateway.transport.ws.extension.ExtensionHeaderBuilder;
+import org.kaazing.gateway.transport.ws.extension.WebSocketExtension;
+
+/**
+ * permessage-deflate extension (RFC 7692), compressing the payload of WebSocket data messages.
+ */
+public final class PerMessageDeflateExtension extends WebSocketExtension {
+    static final String EXTENSION_TOKEN = "permessage-deflate";
+
+    static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+    static final String SERVER_MAX_WINDOW_BITS = "server_max_window_bits";
+    static final String CLIENT_MAX_WINDOW_BITS = "client_max_window_bits";
+
+    // java.util.zip always deflates with a 32K sliding window
+    static final int MAX_WINDOW_BITS = 15;
+
+    private final ExtensionHeader extension;
+    private final boolean serverNoContextTakeover;
+    private final boolean clientNoContextTakeover;
+    private final int compressionLevel;
+    private final boolean shared;
+    private final int maxMessageSize;
+
+    PerMessageDeflateExtension(boolean serverNoContextTakeover, boolean clientNoContextTakeover,
+                               boolean serverMaxWindowBits, int compressionLevel, boolean shared, int maxMessageSize) {
+        ExtensionHeaderBuilder extension = new ExtensionHeaderBuilder(EXTENSION_TOKEN);
+        if (serverNoContextTakeover) {
+            extension.appendParameter(SERVER_NO_CONTEXT_TAKEOVER);
+        }
+        if (clientNoContextTakeover) {
+            extension.appendParameter(CLIENT_NO_CONTEXT_TAKEOVER);
+        }
+        if (serverMaxWindowBits) {
+            extension.appendParameter(SERVER_MAX_WINDOW_BITS, Integer.toString(MAX_WINDOW_BITS));
+        }
+        this.extension = extension.done();
+        this.serverNoContextTakeover = serverNoContextTakeover;
+        this.clientNoContextTakeover = clientNoContextTakeover;
+        this.compressionLevel = compressionLevel;
+        this.shared = shared && serverNoContextTakeover;
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    @Override
+    public ExtensionHeader getExtensionHeader() {
+        return extension;
+    }
+
+    @Override
+    public IoFilter getFilter() {
+        return new PerMessageDeflateFilter(serverNoContextTakeover, clientNoContextTakeover, compressionLevel, shared,
+                maxMessageSize);
+    }
+
+}
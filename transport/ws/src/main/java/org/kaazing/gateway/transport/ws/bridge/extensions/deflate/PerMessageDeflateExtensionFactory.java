@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.ws.bridge.extensions.deflate;
+
+import static org.kaazing.gateway.transport.ws.WsSystemProperty.PERMESSAGE_DEFLATE_COMPRESSION_LEVEL;
+import static org.kaazing.gateway.transport.ws.WsSystemProperty.PERMESSAGE_DEFLATE_ENABLED;
+import static org.kaazing.gateway.transport.ws.WsSystemProperty.PERMESSAGE_DEFLATE_SHARED;
+import static org.kaazing.gateway.transport.ws.bridge.extensions.deflate.PerMessageDeflateExtension.CLIENT_MAX_WINDOW_BITS;
+import static org.kaazing.gateway.transport.ws.bridge.extensions.deflate.PerMessageDeflateExtension.CLIENT_NO_CONTEXT_TAKEOVER;
+import static org.kaazing.gateway.transport.ws.bridge.extensions.deflate.PerMessageDeflateExtension.MAX_WINDOW_BITS;
+import static org.kaazing.gateway.transport.ws.bridge.extensions.deflate.PerMessageDeflateExtension.SERVER_MAX_WINDOW_BITS;
+import static org.kaazing.gateway.transport.ws.bridge.extensions.deflate.PerMessageDeflateExtension.SERVER_NO_CONTEXT_TAKEOVER;
+
+import java.net.ProtocolException;
+import java.util.Properties;
+
+import org.kaazing.gateway.resource.address.ws.WsResourceAddress;
+import org.kaazing.gateway.transport.ws.extension.ExtensionHeader;
+import org.kaazing.gateway.transport.ws.extension.ExtensionParameter;
+import org.kaazing.gateway.transport.ws.extension.WebSocketExtension;
+import org.kaazing.gateway.transport.ws.extension.WebSocketExtensionFactorySpi;
+
+public final class PerMessageDeflateExtensionFactory extends WebSocketExtensionFactorySpi {
+
+    // emulated WebSocket frames have no RSV1 bit to mark compressed messages
+    private static final String WSN_SCHEME_NAME = "wsn";
+    private static final String WSN_SSL_SCHEME_NAME = "wsn+ssl";
+
+    private final boolean enabled;
+    private final int compressionLevel;
+    private final boolean shared;
+
+    public PerMessageDeflateExtensionFactory() {
+        this(System.getProperties());
+    }
+
+    PerMessageDeflateExtensionFactory(Properties configuration) {
+        this.enabled = Boolean.parseBoolean(PERMESSAGE_DEFLATE_ENABLED.getProperty(configuration));
+        this.compressionLevel = PERMESSAGE_DEFLATE_COMPRESSION_LEVEL.getIntProperty(configuration);
+        this.shared = Boolean.parseBoolean(PERMESSAGE_DEFLATE_SHARED.getProperty(configuration));
+    }
+
+    @Override
+    public String getExtensionName() {
+        return PerMessageDeflateExtension.EXTENSION_TOKEN;
+    }
+
+    @Override
+    public ExtensionOrderCategory getOrderCategory() {
+        return ExtensionOrderCategory.NETWORK;
+    }
+
+    /**
+     * Accepts the offer unless it has unknown or invalid parameters, or asks for a smaller server window than
+     * java.util.zip can deflate with, in which case the offer is declined (RFC 7692 section 5).  Offers on
+     * addresses other than native WebSocket are always declined.
+     */
+    @Override
+    public WebSocketExtension negotiate(ExtensionHeader requestedExtension, WsResourceAddress address)
+            throws ProtocolException {
+        if (!enabled) {
+            return null;
+        }
+
+        String scheme = address.getResource().getScheme();
+        if (!WSN_SCHEME_NAME.equals(scheme) && !WSN_SSL_SCHEME_NAME.equals(scheme)) {
+            return null;
+        }
+
+        // shared compression of broadcast messages requires each message to be compressed on its own
+        boolean serverNoContextTakeover = shared;
+        boolean clientNoContextTakeover = false;
+        boolean serverMaxWindowBits = false;
+
+        for (ExtensionParameter parameter : requestedExtension.getParameters()) {
+            String name = parameter.getName();
+            String value = parameter.getValue();
+            switch (name) {
+            case SERVER_NO_CONTEXT_TAKEOVER:
+                if (value != null) {
+                    return null;
+                }
+                serverNoContextTakeover = true;
+                break;
+            case CLIENT_NO_CONTEXT_TAKEOVER:
+                if (value != null) {
+                    return null;
+                }
+                clientNoContextTakeover = true;
+                break;
+            case SERVER_MAX_WINDOW_BITS:
+                if (parseWindowBits(value) != MAX_WINDOW_BITS) {
+                    return null;
+                }
+                serverMaxWindowBits = true;
+                break;
+            case CLIENT_MAX_WINDOW_BITS:
+                // inflating with the largest window handles any window the client deflates with
+                if (value != null && parseWindowBits(value) == -1) {
+                    return null;
+                }
+                break;
+            default:
+                return null;
+            }
+        }
+
+        return new PerMessageDeflateExtension(serverNoContextTakeover, clientNoContextTakeover, serverMaxWindowBits,
+                compressionLevel, shared, address.getOption(WsResourceAddress.MAX_MESSAGE_SIZE));
+    }
+
+    private static int parseWindowBits(String value) {
+        if (value == null) {
+            return -1;
+        }
+        if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            int windowBits = Integer.parseInt(value);
+            return (windowBits >= 8 && windowBits <= MAX_WINDOW_BITS) ? windowBits : -1;
+        }
+        catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+}
@@ -0,0 +1,363 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.ws.bridge.extensions.deflate;
+
+import static org.kaazing.gateway.transport.ws.WsMessage.RSV1;
+import static org.kaazing.gateway.transport.ws.bridge.filter.WsFrameDecoder.ALLOWED_RSV_BITS;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+import org.kaazing.gateway.transport.ws.WsBinaryMessage;
+import org.kaazing.gateway.transport.ws.WsCloseMessage;
+import org.kaazing.gateway.transport.ws.WsContinuationMessage;
+import org.kaazing.gateway.transport.ws.WsFilterAdapter;
+import org.kaazing.gateway.transport.ws.WsMessage;
+import org.kaazing.gateway.transport.ws.WsTextMessage;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.core.write.DefaultWriteRequestEx;
+
+/**
+ * This filter is used when the permessage-deflate extension is active, to inflate received messages that have RSV1
+ * set, and to deflate the data messages being written.
+ * <p>
+ * When the server does not take over its compression context from one message to the next, each message is compressed
+ * on its own.  The compressed payload of a broadcast message is then cached on the message and shared by all the
+ * sessions, so that each message is compressed only once.
+ */
+class PerMessageDeflateFilter extends WsFilterAdapter {
+
+    // RFC 7692 section 7.2.1: the sync flush marker is removed from the end of each compressed message
+    private static final byte[] TAIL_BYTES = { (byte) 0x00, (byte) 0x00, (byte) 0xff, (byte) 0xff };
+
+    private static final String CACHE_KEY = PerMessageDeflateExtension.EXTENSION_TOKEN;
+
+    private static final int MESSAGE_TOO_BIG = 1009;
+
+    // extra output space for block headers and the sync flush marker
+    private static final int DEFLATE_OVERHEAD = 64;
+
+    private static final ThreadLocal<Deflater> SHARED_DEFLATER = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+    };
+
+    private final boolean serverNoContextTakeover;
+    private final boolean clientNoContextTakeover;
+    private final int compressionLevel;
+    private final boolean shared;
+    private final int maxMessageSize;
+
+    private IoBufferAllocatorEx<?> allocator;
+    private Deflater deflater;
+    private Inflater inflater;
+    private boolean receivingCompressed;
+    private long receivedMessageSize;
+    private boolean sendingCompressed;
+
+    // reused for inflating each received frame, grows as needed
+    private byte[] inflated = new byte[1024];
+
+    PerMessageDeflateFilter(boolean serverNoContextTakeover, boolean clientNoContextTakeover, int compressionLevel,
+                            boolean shared, int maxMessageSize) {
+        this.serverNoContextTakeover = serverNoContextTakeover;
+        this.clientNoContextTakeover = clientNoContextTakeover;
+        this.compressionLevel = compressionLevel;
+        this.shared = shared;
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    @Override
+    public void onPreAdd(IoFilterChain parent, String name, NextFilter nextFilter) throws Exception {
+        IoSessionEx sessionEx = (IoSessionEx) parent.getSession();
+        allocator = sessionEx.getBufferAllocator();
+        ALLOWED_RSV_BITS.set(sessionEx, RSV1);
+    }
+
+    @Override
+    public void onPostRemove(IoFilterChain parent, String name, NextFilter nextFilter) throws Exception {
+        ALLOWED_RSV_BITS.remove(parent.getSession());
+        dispose();
+    }
+
+    @Override
+    public void sessionClosed(NextFilter nextFilter, IoSession session) throws Exception {
+        dispose();
+        super.sessionClosed(nextFilter, session);
+    }
+
+    @Override
+    protected void wsTextReceived(NextFilter nextFilter, IoSession session, WsTextMessage wsText) throws Exception {
+        if ((wsText.getRsv() & RSV1) == 0) {
+            super.wsTextReceived(nextFilter, session, wsText);
+            return;
+        }
+
+        receivingCompressed = true;
+        IoBufferEx payload = inflate(nextFilter, session, wsText);
+        if (payload != null) {
+            super.wsTextReceived(nextFilter, session, new WsTextMessage(payload, wsText.isFin()));
+        }
+    }
+
+    @Override
+    protected void wsBinaryReceived(NextFilter nextFilter, IoSession session, WsBinaryMessage wsBinary) throws Exception {
+        if ((wsBinary.getRsv() & RSV1) == 0) {
+            super.wsBinaryReceived(nextFilter, session, wsBinary);
+            return;
+        }
+
+        receivingCompressed = true;
+        IoBufferEx payload = inflate(nextFilter, session, wsBinary);
+        if (payload != null) {
+            super.wsBinaryReceived(nextFilter, session, new WsBinaryMessage(payload, wsBinary.isFin()));
+        }
+    }
+
+    @Override
+    protected void wsContinuationReceived(NextFilter nextFilter, IoSession session, WsContinuationMessage wsCont)
+            throws Exception {
+        if (!receivingCompressed) {
+            super.wsContinuationReceived(nextFilter, session, wsCont);
+            return;
+        }
+
+        IoBufferEx payload = inflate(nextFilter, session, wsCont);
+        if (payload != null) {
+            super.wsContinuationReceived(nextFilter, session, new WsContinuationMessage(payload, wsCont.isFin()));
+        }
+    }
+
+    @Override
+    protected Object doFilterWriteWsText(NextFilter nextFilter, IoSession session, WriteRequest writeRequest,
+                                         WsTextMessage wsText) throws Exception {
+        IoBufferEx payload = deflate(wsText);
+        if (payload == null) {
+            return wsText;
+        }
+
+        WsTextMessage compressed = new WsTextMessage(payload, wsText.isFin());
+        compressed.setRsv(RSV1);
+        return compressed;
+    }
+
+    @Override
+    protected Object doFilterWriteWsBinary(NextFilter nextFilter, IoSession session, WriteRequest writeRequest,
+                                           WsBinaryMessage wsBinary) throws Exception {
+        IoBufferEx payload = deflate(wsBinary);
+        if (payload == null) {
+            return wsBinary;
+        }
+
+        WsBinaryMessage compressed = new WsBinaryMessage(payload, wsBinary.isFin());
+        compressed.setRsv(RSV1);
+        return compressed;
+    }
+
+    @Override
+    protected Object doFilterWriteWsCont(NextFilter nextFilter, IoSession session, WriteRequest writeRequest,
+                                         WsContinuationMessage wsCont) throws Exception {
+        if (!sendingCompressed) {
+            return wsCont;
+        }
+
+        sendingCompressed = !wsCont.isFin();
+        IoBufferEx payload = deflate(deflater(), wsCont.getBytes(), wsCont.isFin(), 0);
+        if (wsCont.isFin() && serverNoContextTakeover) {
+            deflater.reset();
+        }
+        return new WsContinuationMessage(payload, wsCont.isFin());
+    }
+
+    /*
+     * Returns the compressed payload of the first frame of a data message,
+     * or null if the message is to be sent uncompressed
+     */
+    private IoBufferEx deflate(WsMessage message) {
+        IoBufferEx payload = message.getBytes();
+        if (message.getRsv() != 0 || !payload.hasRemaining()) {
+            return null;
+        }
+
+        boolean fin = message.isFin();
+        if (shared && fin && message.hasCache()) {
+            ConcurrentMap<String, IoBufferEx> cache = message.getCache();
+            IoBufferEx compressed = cache.get(CACHE_KEY);
+            if (compressed == null) {
+                Deflater sharedDeflater = SHARED_DEFLATER.get();
+                sharedDeflater.reset();
+                sharedDeflater.setLevel(compressionLevel);
+                IoBufferEx newCompressed = deflate(sharedDeflater, payload, true, IoBufferEx.FLAG_SHARED);
+                compressed = cache.putIfAbsent(CACHE_KEY, newCompressed);
+                if (compressed == null) {
+                    compressed = newCompressed;
+                }
+            }
+            return compressed;
+        }
+
+        sendingCompressed = !fin;
+        IoBufferEx compressed = deflate(deflater(), payload, fin, 0);
+        if (fin && serverNoContextTakeover) {
+            deflater.reset();
+        }
+        return compressed;
+    }
+
+    private IoBufferEx deflate(Deflater deflater, IoBufferEx payload, boolean fin, int flags) {
+        ByteBuffer source = payload.buf();
+        int remaining = source.remaining();
+
+        // Note: read without moving the payload position, it may be shared with other sessions
+        if (source.hasArray()) {
+            deflater.setInput(source.array(), source.arrayOffset() + source.position(), remaining);
+        }
+        else {
+            byte[] input = new byte[remaining];
+            source.duplicate().get(input);
+            deflater.setInput(input);
+        }
+
+        byte[] output = new byte[remaining + (remaining >> 3) + DEFLATE_OVERHEAD];
+        int length = 0;
+        do {
+            if (length == output.length) {
+                output = Arrays.copyOf(output, output.length << 1);
+            }
+            length += deflater.deflate(output, length, output.length - length, Deflater.SYNC_FLUSH);
+        } while (length == output.length || !deflater.needsInput());
+
+        if (fin) {
+            length -= TAIL_BYTES.length;
+        }
+
+        return wrap(output, length, flags);
+    }
+
+    /*
+     * Returns the inflated payload, or null if the connection is failed
+     */
+    private IoBufferEx inflate(NextFilter nextFilter, IoSession session, WsMessage message) {
+        boolean fin = message.isFin();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+
+        IoBufferEx payload = message.getBytes();
+        byte[] input = new byte[payload.remaining()];
+        payload.buf().duplicate().get(input);
+
+        int length;
+        try {
+            inflater.setInput(input);
+            length = inflate(0);
+            if (fin && !inflater.finished()) {
+                inflater.setInput(TAIL_BYTES);
+                length = inflate(length);
+            }
+        }
+        catch (DataFormatException e) {
+            failConnection(nextFilter, session, WsCloseMessage.PROTOCOL_ERROR);
+            return null;
+        }
+
+        receivedMessageSize += length;
+        if (maxMessageSize > 0 && receivedMessageSize > maxMessageSize) {
+            failConnection(nextFilter, session, new WsCloseMessage(MESSAGE_TOO_BIG, null));
+            return null;
+        }
+
+        if (fin) {
+            receivingCompressed = false;
+            receivedMessageSize = 0L;
+            if (clientNoContextTakeover || inflater.finished()) {
+                inflater.reset();
+            }
+        }
+
+        return wrap(inflated, length, IoBufferEx.FLAG_NONE);
+    }
+
+    /*
+     * Inflates the current input after the first length bytes of the inflated buffer, growing it as needed
+     */
+    private int inflate(int length) throws DataFormatException {
+        for (;;) {
+            if (length == inflated.length) {
+                inflated = Arrays.copyOf(inflated, inflated.length << 1);
+            }
+            int inflatedLength = inflater.inflate(inflated, length, inflated.length - length);
+            length += inflatedLength;
+            if (inflatedLength == 0 && (inflater.needsInput() || inflater.finished() || inflater.needsDictionary())) {
+                return length;
+            }
+            if (maxMessageSize > 0 && receivedMessageSize + length > maxMessageSize) {
+                // stop inflating, the connection will be failed
+                return length;
+            }
+        }
+    }
+
+    private IoBufferEx wrap(byte[] bytes, int length, int flags) {
+        ByteBuffer buf = allocator.allocate(length, flags);
+        int offset = buf.position();
+        buf.put(bytes, 0, length);
+        buf.flip();
+        buf.position(offset);
+        return allocator.wrap(buf, flags);
+    }
+
+    private Deflater deflater() {
+        if (deflater == null) {
+            deflater = new Deflater(compressionLevel, true);
+        }
+        return deflater;
+    }
+
+    private void dispose() {
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+
+    private void failConnection(NextFilter nextFilter, IoSession session, WsCloseMessage close) {
+        nextFilter.filterWrite(session, new DefaultWriteRequestEx(close));
+        session.close(false);
+    }
+
+}
@@ -30,9 +30,11 @@ import java.nio.ByteBuffer;
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.filter.codec.ProtocolDecoderException;
 import org.apache.mina.filter.codec.ProtocolDecoderOutput;
+import org.kaazing.gateway.transport.TypedAttributeKey;
 import org.kaazing.gateway.transport.ws.WsBinaryMessage;
 import org.kaazing.gateway.transport.ws.WsCloseMessage;
 import org.kaazing.gateway.transport.ws.WsContinuationMessage;
+import org.kaazing.gateway.transport.ws.WsMessage;
 import org.kaazing.gateway.transport.ws.WsMessage.Kind;
 import org.kaazing.gateway.transport.ws.WsPingMessage;
 import org.kaazing.gateway.transport.ws.WsPongMessage;
@@ -44,6 +46,12 @@ import org.kaazing.mina.filter.codec.CumulativeProtocolDecoderEx;
 
 public class WsFrameDecoder extends CumulativeProtocolDecoderEx {
 
+    /**
+     * RSV bits allowed on the data frames of a session by its negotiated extensions (e.g. permessage-deflate).
+     */
+    public static final TypedAttributeKey<Integer> ALLOWED_RSV_BITS =
+            new TypedAttributeKey<>(WsFrameDecoder.class, "allowedRsvBits", 0);
+
     private final int maxMessageSize;
     private BinaryTextMessageDecoder binaryTextDecoder = DEFAULT_BINARY_TEXT_DECODER;
     private boolean prevDataFin = true;
@@ -63,7 +71,6 @@ public class WsFrameDecoder extends CumulativeProtocolDecoderEx {
         in.mark();
 
         byte opcodeByte = in.get();
-        validateRSV(opcodeByte);
 
         int i = (opcodeByte & 0x0f);
         Opcode opcode;
@@ -75,6 +82,9 @@ public class WsFrameDecoder extends CumulativeProtocolDecoderEx {
             throw new ProtocolDecoderException("Unrecognized WebSocket frame opcode: " + i + " on session " + session.getLocalAddress(), e);
         }
 
+        int rsv = opcodeByte & 0x70;
+        validateRSV(session, rsv, opcode);
+
         // FIN bit validation for opcode
         boolean fin = (opcodeByte & 0x80) != 0;
         validateOpcodeUsingFin(opcode, fin);
@@ -133,17 +143,17 @@ public class WsFrameDecoder extends CumulativeProtocolDecoderEx {
 
         switch (opcode) {
             case CONTINUATION:
-                binaryTextDecoder.decodeWsMessage(buf, CONTINUATION, fin, out);
+                binaryTextDecoder.decodeWsMessage(buf, CONTINUATION, fin, rsv, out);
                 prevDataFin = fin;
                 currentMessageSize = currentMessageSizeCandidate;
                 break;
             case BINARY:
-                binaryTextDecoder.decodeWsMessage(buf, BINARY, fin, out);
+                binaryTextDecoder.decodeWsMessage(buf, BINARY, fin, rsv, out);
                 prevDataFin = fin;
                 currentMessageSize = currentMessageSizeCandidate;
                 break;
             case TEXT:
-                binaryTextDecoder.decodeWsMessage(buf, TEXT, fin, out);
+                binaryTextDecoder.decodeWsMessage(buf, TEXT, fin, rsv, out);
                 prevDataFin = fin;
                 currentMessageSize = currentMessageSizeCandidate;
                 break;
@@ -198,17 +208,22 @@ public class WsFrameDecoder extends CumulativeProtocolDecoderEx {
         }
     }
 
-    // Validates RSV bits
-    private void validateRSV(byte opcodeByte) throws ProtocolDecoderException {
-        if ((opcodeByte & 0x70) != 0) {
-            // We don't support for negotiated extensions that deal with RSV bits
-            if ((opcodeByte & 0x40) != 0) {
+    // Validates RSV bits, which are only allowed on data frames by negotiated extensions
+    private void validateRSV(IoSession session, int rsv, Opcode opcode) throws ProtocolDecoderException {
+        if (rsv != 0) {
+            int allowedRsv = 0;
+            if (opcode == Opcode.TEXT || opcode == Opcode.BINARY) {
+                allowedRsv = ALLOWED_RSV_BITS.get(session);
+            }
+
+            int unexpectedRsv = rsv & ~allowedRsv;
+            if ((unexpectedRsv & 0x40) != 0) {
                 throw new ProtocolDecoderException("RSV1 is set");
             }
-            if ((opcodeByte & 0x20) != 0) {
+            if ((unexpectedRsv & 0x20) != 0) {
                 throw new ProtocolDecoderException("RSV2 is set");
             }
-            if ((opcodeByte & 0x10) != 0) {
+            if ((unexpectedRsv & 0x10) != 0) {
                 throw new ProtocolDecoderException("RSV3 is set");
             }
         }
@@ -289,25 +304,28 @@ public class WsFrameDecoder extends CumulativeProtocolDecoderEx {
     }
 
     private interface BinaryTextMessageDecoder {
-        void decodeWsMessage(IoBufferEx payload, Kind messageKind, boolean fin, ProtocolDecoderOutput out);
+        void decodeWsMessage(IoBufferEx payload, Kind messageKind, boolean fin, int rsv, ProtocolDecoderOutput out);
     }
 
     private static final BinaryTextMessageDecoder DEFAULT_BINARY_TEXT_DECODER = new BinaryTextMessageDecoder() {
         @Override
-        public void decodeWsMessage(IoBufferEx payload, Kind messageKind, boolean fin, ProtocolDecoderOutput out) {
+        public void decodeWsMessage(IoBufferEx payload, Kind messageKind, boolean fin, int rsv, ProtocolDecoderOutput out) {
+            WsMessage message;
             switch(messageKind) {
             case CONTINUATION:
-                out.write(new WsContinuationMessage(payload, fin));
+                message = new WsContinuationMessage(payload, fin);
                 break;
             case BINARY:
-                out.write(new WsBinaryMessage(payload, fin));
+                message = new WsBinaryMessage(payload, fin);
                 break;
             case TEXT:
-                out.write(new WsTextMessage(payload, fin));
+                message = new WsTextMessage(payload, fin);
                 break;
             default:
-                assert false;
+                throw new AssertionError(messageKind);
             }
+            message.setRsv(rsv);
+            out.write(message);
         }
     };
 
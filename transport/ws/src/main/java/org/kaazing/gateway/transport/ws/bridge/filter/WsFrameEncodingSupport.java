@@ -237,6 +237,9 @@ public class WsFrameEncodingSupport {
     private static byte doEncodeOpcode(byte b, WsMessage message) {
         Kind kind = message.getKind();
 
+        // RSV bits negotiated by extensions (e.g. permessage-deflate)
+        b |= message.getRsv();
+
         switch (kind) {
         case CONTINUATION:
             b |= Opcode.CONTINUATION.getCode();
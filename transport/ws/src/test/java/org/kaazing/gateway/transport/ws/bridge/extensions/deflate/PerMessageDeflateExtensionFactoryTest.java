@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.kaazing.gateway.transport.ws.bridge.extensions.deflate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.resource.address.ResourceAddressFactory;
+import org.kaazing.gateway.resource.address.ws.WsResourceAddress;
+import org.kaazing.gateway.transport.ws.extension.ExtensionHeader;
+import org.kaazing.gateway.transport.ws.extension.ExtensionHeaderBuilder;
+
+public class PerMessageDeflateExtensionFactoryTest {
+    private static final String extensionName = "permessage-deflate";
+
+    WsResourceAddress address;
+    PerMessageDeflateExtensionFactory factory;
+
+    @Before
+    public void setUp() {
+        URI addressURI = URI.create("wsn://localhost:2020/");
+        Map<String, Object> options = new HashMap<>();
+        address = (WsResourceAddress) ResourceAddressFactory.newResourceAddressFactory().newResourceAddress(addressURI, options);
+
+        Properties configuration = new Properties();
+        configuration.setProperty("org.kaazing.gateway.transport.ws.PERMESSAGE_DEFLATE_ENABLED", "true");
+        factory = new PerMessageDeflateExtensionFactory(configuration);
+    }
+
+    @Test
+    public void negotiateShouldAcceptOfferWithoutParameters() throws Exception {
+        ExtensionHeader requested = new ExtensionHeaderBuilder(extensionName).done();
+        PerMessageDeflateExtension extension = (PerMessageDeflateExtension) factory.negotiate(requested, address);
+        assertEquals(extensionName, extension.getExtensionHeader().toString());
+    }
+
+    @Test
+    public void negotiateShouldAcceptContextTakeoverParameters() throws Exception {
+        ExtensionHeader requested = new ExtensionHeaderBuilder(
+                "permessage-deflate; client_max_window_bits; server_no_context_takeover; client_no_context_takeover").done();
+        PerMessageDeflateExtension extension = (PerMessageDeflateExtension) factory.negotiate(requested, address);
+        assertEquals("permessage-deflate; server_no_context_takeover; client_no_context_takeover",
+                extension.getExtensionHeader().toString());
+    }
+
+    @Test
+    public void negotiateShouldAcceptLargestServerWindow() throws Exception {
+        ExtensionHeader requested = new ExtensionHeaderBuilder("permessage-deflate; server_max_window_bits=15").done();
+        PerMessageDeflateExtension extension = (PerMessageDeflateExtension) factory.negotiate(requested, address);
+        assertEquals("permessage-deflate; server_max_window_bits=15", extension.getExtensionHeader().toString());
+    }
+
+    @Test
+    public void negotiateShouldDeclineSmallerServerWindow() throws Exception {
+        ExtensionHeader requested = new ExtensionHeaderBuilder("permessage-deflate; server_max_window_bits=10").done();
+        assertNull(factory.negotiate(requested, address));
+    }
+
+    @Test
+    public void negotiateShouldDeclineInvalidClientWindow() throws Exception {
+        ExtensionHeader requested = new ExtensionHeaderBuilder("permessage-deflate; client_max_window_bits=16").done();
+        assertNull(factory.negotiate(requested, address));
+    }
+
+    @Test
+    public void negotiateShouldDeclineUnknownParameter() throws Exception {
+        ExtensionHeader requested = new ExtensionHeaderBuilder("permessage-deflate; unknown").done();
+        assertNull(factory.negotiate(requested, address));
+    }
+
+    @Test
+    public void negotiateShouldForceServerNoContextTakeoverWhenShared() throws Exception {
+        Properties configuration = new Properties();
+        configuration.setProperty("org.kaazing.gateway.transport.ws.PERMESSAGE_DEFLATE_ENABLED", "true");
+        configuration.setProperty("org.kaazing.gateway.transport.ws.PERMESSAGE_DEFLATE_SHARED", "true");
+        factory = new PerMessageDeflateExtensionFactory(configuration);
+
+        ExtensionHeader requested = new ExtensionHeaderBuilder(extensionName).done();
+        PerMessageDeflateExtension extension = (PerMessageDeflateExtension) factory.negotiate(requested, address);
+        assertEquals("permessage-deflate; server_no_context_takeover", extension.getExtensionHeader().toString());
+    }
+
+    @Test
+    public void negotiateShouldDeclineForEmulatedAddress() throws Exception {
+        URI addressURI = URI.create("wse://localhost:2020/");
+        Map<String, Object> options = new HashMap<>();
+        WsResourceAddress wseAddress =
+                (WsResourceAddress) ResourceAddressFactory.newResourceAddressFactory().newResourceAddress(addressURI, options);
+
+        ExtensionHeader requested = new ExtensionHeaderBuilder(extensionName).done();
+        assertNull(factory.negotiate(requested, wseAddress));
+    }
+
+    @Test
+    public void negotiateShouldDeclineWhenDisabled() throws Exception {
+        factory = new PerMessageDeflateExtensionFactory(new Properties());
+
+        ExtensionHeader requested = new ExtensionHeaderBuilder(extensionName).done();
+        assertNull(factory.negotiate(requested, address));
+    }
+
+}
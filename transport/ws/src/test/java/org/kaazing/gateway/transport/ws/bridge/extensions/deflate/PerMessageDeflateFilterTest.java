@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.kaazing.gateway.transport.ws.bridge.extensions.deflate;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.transport.ws.WsMessage.RSV1;
+import static org.kaazing.mina.core.buffer.SimpleBufferAllocator.BUFFER_ALLOCATOR;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+import org.apache.mina.core.filterchain.IoFilter.NextFilter;
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kaazing.gateway.transport.test.Expectations;
+import org.kaazing.gateway.transport.ws.WsMessage;
+import org.kaazing.gateway.transport.ws.WsTextMessage;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.core.write.DefaultWriteRequestEx;
+
+public class PerMessageDeflateFilterTest {
+    private static final String TEXT =
+            "{\"symbol\":\"KZNG\",\"price\":42.00},{\"symbol\":\"KZNG\",\"price\":42.01},{\"symbol\":\"KZNG\",\"price\":42.02}";
+
+    @Rule
+    public JUnitRuleMockery context = new JUnitRuleMockery();
+
+    private final IoFilterChain filterChain = context.mock(IoFilterChain.class, "filterChain");
+    final IoSessionEx session = context.mock(IoSessionEx.class);
+    final NextFilter nextFilter = context.mock(NextFilter.class);
+
+    @Before
+    public void before() throws Exception {
+        context.checking(new Expectations() {
+            {
+                allowing(filterChain).getSession(); will(returnValue(session));
+                allowing(session).getBufferAllocator(); will(returnValue(BUFFER_ALLOCATOR));
+                allowing(session).setAttribute(with(any(Object.class)), with(any(Object.class)));
+            }
+        });
+    }
+
+    @Test
+    public void shouldDeflateWrittenAndInflateReceivedTextMessage() throws Exception {
+        PerMessageDeflateFilter filter = newFilter(false, false);
+        WsTextMessage message = newTextMessage();
+        final DefaultWriteRequestEx writeRequest = new DefaultWriteRequestEx(message);
+
+        context.checking(new Expectations() {
+            {
+                oneOf(nextFilter).filterWrite(session, writeRequest);
+            }
+        });
+
+        filter.filterWrite(nextFilter, session, writeRequest);
+
+        WsMessage compressed = (WsMessage) writeRequest.getMessage();
+        assertEquals(RSV1, compressed.getRsv());
+        assertTrue(compressed.getBytes().remaining() < TEXT.length());
+
+        // the peer inflates with the same raw deflate format
+        PerMessageDeflateFilter peer = newFilter(false, false);
+        final WsTextMessage expected = newTextMessage();
+        context.checking(new Expectations() {
+            {
+                oneOf(nextFilter).messageReceived(session, expected);
+            }
+        });
+
+        peer.messageReceived(nextFilter, session, compressed);
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void shouldNotInflateReceivedUncompressedTextMessage() throws Exception {
+        PerMessageDeflateFilter filter = newFilter(false, false);
+        final WsTextMessage message = newTextMessage();
+
+        context.checking(new Expectations() {
+            {
+                oneOf(nextFilter).messageReceived(session, message);
+            }
+        });
+
+        filter.messageReceived(nextFilter, session, message);
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void shouldShareCompressedPayloadOfBroadcastMessage() throws Exception {
+        WsTextMessage message = newTextMessage();
+        message.initCache();
+
+        final DefaultWriteRequestEx writeRequest1 = new DefaultWriteRequestEx(message);
+        final DefaultWriteRequestEx writeRequest2 = new DefaultWriteRequestEx(message);
+        context.checking(new Expectations() {
+            {
+                oneOf(nextFilter).filterWrite(session, writeRequest1);
+                oneOf(nextFilter).filterWrite(session, writeRequest2);
+            }
+        });
+
+        newFilter(true, true).filterWrite(nextFilter, session, writeRequest1);
+        newFilter(true, true).filterWrite(nextFilter, session, writeRequest2);
+
+        WsMessage compressed1 = (WsMessage) writeRequest1.getMessage();
+        WsMessage compressed2 = (WsMessage) writeRequest2.getMessage();
+        assertEquals(RSV1, compressed1.getRsv());
+        assertSame(compressed1.getBytes(), compressed2.getBytes());
+        context.assertIsSatisfied();
+    }
+
+    private PerMessageDeflateFilter newFilter(boolean serverNoContextTakeover, boolean shared) throws Exception {
+        PerMessageDeflateFilter filter = new PerMessageDeflateFilter(serverNoContextTakeover, false,
+                Deflater.DEFAULT_COMPRESSION, shared, 0);
+        filter.onPreAdd(filterChain, "permessage-deflate", nextFilter);
+        return filter;
+    }
+
+    private static WsTextMessage newTextMessage() {
+        return new WsTextMessage(BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(TEXT.getBytes(UTF_8))));
+    }
+
+}
@@ -65,6 +65,7 @@ import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.session.IoSessionInitializer;
 import org.kaazing.gateway.resource.address.Protocol;
 import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.resource.address.ResourceAddressCache;
 import org.kaazing.gateway.resource.address.ResourceAddressFactory;
 import org.kaazing.gateway.resource.address.ResourceOption;
 import org.kaazing.gateway.resource.address.ResourceOptions;
@@ -174,6 +175,7 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
     private ScheduledExecutorService scheduler;
     private BridgeServiceFactory bridgeServiceFactory;
     private ResourceAddressFactory resourceAddressFactory;
+    private ResourceAddressCache resourceAddressCache;
     private WebSocketExtensionFactory webSocketExtensionFactory;
 
     private final List<IoSessionIdleTracker> sessionInactivityTrackers
@@ -210,6 +212,7 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
     @Resource(name = "resourceAddressFactory")
     public void setResourceAddressFactory(ResourceAddressFactory resourceAddressFactory) {
         this.resourceAddressFactory = resourceAddressFactory;
+        this.resourceAddressCache = new ResourceAddressCache(resourceAddressFactory);
     }
 
     @Resource(name = "ws.acceptor")
@@ -219,7 +222,7 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
 
     @Resource(name = "schedulerProvider")
     public void setSchedulerProvider(SchedulerProvider provider) {
-        this.scheduler = provider.getScheduler("KeepAlive-Wseb", true);
+        this.scheduler = provider.getTimer("KeepAlive-Wseb");
     }
 
     @Override
@@ -264,6 +267,7 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
     @Override
     protected <T extends IoFuture> void bindInternal(final ResourceAddress address, IoHandler handler,
                                                      final BridgeSessionInitializer<T> initializer) {
+        resourceAddressCache.invalidate();
         try {
             bindCookiesHandler(address.findTransport("http[http/1.1]"));
 
@@ -388,6 +392,7 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
     @Override
     protected UnbindFuture unbindInternal(ResourceAddress address, IoHandler handler,
             BridgeSessionInitializer<? extends IoFuture> initializer) {
+        resourceAddressCache.invalidate();
 
         final ResourceAddress transportAddress = address.getTransport();
         URI transportURI = transportAddress.getExternalURI();
@@ -902,14 +907,13 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
                 resource = truncateURI(resource, CREATE_MIXED_TEXT_ESCAPED_SUFFIX);
             }
 
-            ResourceOptions options = ResourceOptions.FACTORY.newResourceOptions();
-            options.setOption(TRANSPORT, session.getLocalAddress().resolve(resource.getPath()));
-            options.setOption(NEXT_PROTOCOL, nextProtocol);
+            // the http local address is the bound address, so cached candidates are reused across create requests
+            ResourceAddress transport = resourceAddressCache.resolve(session.getLocalAddress(), resource.getPath());
 
             URI wseLocalAddressLocation = modifyURIScheme(resource, "ws");
 
-            ResourceAddress candidate = resourceAddressFactory.newResourceAddress(
-                    wseLocalAddressLocation, options);
+            ResourceAddress candidate = resourceAddressCache.newResourceAddress(
+                    wseLocalAddressLocation, transport, nextProtocol);
 
             Binding binding = bindings.getBinding(candidate);
 
@@ -63,6 +63,7 @@ import org.kaazing.gateway.transport.ws.extension.WebSocketExtension;
 import org.kaazing.gateway.transport.wseb.filter.WsebBufferAllocator;
 import org.kaazing.gateway.transport.wseb.filter.WsebEncodingCodecFilter;
 import org.kaazing.gateway.transport.wseb.filter.WsebEncodingCodecFilter.EscapeTypes;
+import org.kaazing.gateway.util.scheduler.SessionTask;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
 import org.kaazing.mina.core.service.IoProcessorEx;
@@ -519,7 +520,7 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
     }
 
     // close session if reconnect timer elapses and no parent has been attached
-    private static class TimeoutCommand implements Runnable {
+    private static class TimeoutCommand implements SessionTask {
 
         private volatile WsebSession session;
 
@@ -541,6 +542,11 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
                 }
             }
         }
+
+        @Override
+        public IoSessionEx getSession() {
+            return session;
+        }
     }
 
     public void setEncodeEscapeType(WsebEncodingCodecFilter.EscapeTypes escape) {
@@ -621,7 +627,7 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
         return Long.valueOf(0L).equals(session.getAttribute(WsebAcceptor.CLIENT_BUFFER_KEY));
     }
 
-    private class AttachParentCommand implements Runnable {
+    private class AttachParentCommand implements SessionTask {
 
         private final WsebSession wsebSession;
         private final long flushDelayMillis;
@@ -644,9 +650,14 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
             scheduler.schedule(new FlushCommand(wsebSession), flushDelayMillis * 4, TimeUnit.MILLISECONDS);
             scheduler.schedule(new FlushCommand(wsebSession), flushDelayMillis * 8, TimeUnit.MILLISECONDS);
         }
+
+        @Override
+        public IoSessionEx getSession() {
+            return wsebSession;
+        }
     }
 
-    private class FlushCommand implements Runnable {
+    private class FlushCommand implements SessionTask {
 
         private final WsebSession session;
 
@@ -662,6 +673,11 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
             }
         }
 
+        @Override
+        public IoSessionEx getSession() {
+            return session;
+        }
+
     }
 
     // When sequence no are not used (for e.g old clients) and
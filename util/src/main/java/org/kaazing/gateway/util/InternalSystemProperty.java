@@ -42,6 +42,36 @@ public enum InternalSystemProperty {
     WSE_IDLE_TIMEOUT
             ("org.kaazing.gateway.server.transport.wse.IDLE_TIMEOUT", "60"),
 
+    // gzip Content-Encoding of emulated downstreams, 0 (stored blocks) to 9, or -1 for the zlib default
+    HTTP_GZIP_COMPRESSION_LEVEL
+            ("org.kaazing.gateway.server.transport.http.GZIP_COMPRESSION_LEVEL", "0"),
+
+    // compress each gzip frame independently so that broadcast frames are compressed once for all sessions
+    HTTP_GZIP_SHARED_ENCODING
+            ("org.kaazing.gateway.server.transport.http.GZIP_SHARED_ENCODING", "false"),
+
+    // seconds successful authentications are reused for the same token and realm, 0 disables the cache
+    HTTP_AUTHENTICATION_CACHE_TTL
+            ("org.kaazing.gateway.server.transport.http.AUTHENTICATION_CACHE_TTL", "0"),
+
+    HTTP_AUTHENTICATION_CACHE_MAXIMUM_SIZE
+            ("org.kaazing.gateway.server.transport.http.AUTHENTICATION_CACHE_MAXIMUM_SIZE", "1024"),
+
+    // login module chains run on a dedicated pool per realm, failing fast with 503 once the queue is full
+    HTTP_LOGIN_THREADS
+            ("org.kaazing.gateway.server.transport.http.LOGIN_THREADS", Integer.toString(getRuntime().availableProcessors())),
+
+    HTTP_LOGIN_QUEUE_SIZE
+            ("org.kaazing.gateway.server.transport.http.LOGIN_QUEUE_SIZE", "1024"),
+
+    // seconds sent in Retry-After when the login queue is full
+    HTTP_LOGIN_RETRY_AFTER
+            ("org.kaazing.gateway.server.transport.http.LOGIN_RETRY_AFTER", "5"),
+
+    // persistent connections kept for reuse by the http connector for each origin server
+    HTTP_CONNECT_MAXIMUM_IDLE_CONNECTIONS
+            ("org.kaazing.gateway.server.transport.http.CONNECT_MAXIMUM_IDLE_CONNECTIONS", "64"),
+
     // We are deliberately changing the default that Netty uses (availableProcessors() * 2):
     TCP_PROCESSOR_COUNT
             ("org.kaazing.gateway.server.transport.tcp.PROCESSOR_COUNT", Integer.toString(getRuntime().availableProcessors())),
@@ -51,6 +81,14 @@ public enum InternalSystemProperty {
             ("org.kaazing.gateway.server.util.scheduler.BACKGROUND_TASK_THREADS",
                     Integer.toString(getRuntime().availableProcessors())),
 
+    // Hashed wheel timers for per-session timeouts, one wheel per I/O worker by default
+    TIMER_SHARDS
+            ("org.kaazing.gateway.server.util.scheduler.TIMER_SHARDS",
+                    Integer.toString(getRuntime().availableProcessors())),
+
+    TIMER_TICK_MILLIS
+            ("org.kaazing.gateway.server.util.scheduler.TIMER_TICK_MILLIS", "10"),
+
     // These Buffer sizes were used by Mina. I'm pretty sure they no longer apply.
     TCP_READ_BUFFER_SIZE
             ("org.kaazing.gateway.server.transport.tcp.READ_BUFFER_SIZE"),
@@ -89,6 +127,23 @@ public enum InternalSystemProperty {
     TCP_IP_TOS
             ("org.kaazing.gateway.server.transport.tcp.IP_TOS"),
 
+    // resource addresses, host names are looked up off the I/O threads and cached (true or false)
+    DNS_CACHE_ENABLED
+            ("org.kaazing.gateway.resource.address.DNS_CACHE_ENABLED", "true"),
+
+    // seconds lookups are cached, following networkaddress.cache.ttl and networkaddress.cache.negative.ttl by default
+    DNS_CACHE_TTL
+            ("org.kaazing.gateway.resource.address.DNS_CACHE_TTL"),
+
+    DNS_CACHE_NEGATIVE_TTL
+            ("org.kaazing.gateway.resource.address.DNS_CACHE_NEGATIVE_TTL"),
+
+    DNS_CACHE_MAXIMUM_SIZE
+            ("org.kaazing.gateway.resource.address.DNS_CACHE_MAXIMUM_SIZE", "4096"),
+
+    DNS_RESOLVER_THREADS
+            ("org.kaazing.gateway.resource.address.DNS_RESOLVER_THREADS", "4"),
+
     // services
     BROADCAST_SERVICE_MAXIMUM_PENDING_BYTES
             ("org.kaazing.gateway.server.service.broadcast.MAXIMUM_PENDING_BYTES"),
@@ -96,6 +151,18 @@ public enum InternalSystemProperty {
     BROADCAST_SERVICE_DISCONNECT_CLIENTS_ON_RECONNECT
             ("org.kaazing.gateway.server.service.broadcast.DISCONNECT_CLIENTS_ON_RECONNECT"), // true or false
 
+    // bytes of file content each directory service keeps in memory, 0 disables the cache
+    DIRECTORY_SERVICE_FILE_CACHE_SIZE
+            ("org.kaazing.gateway.server.service.directory.FILE_CACHE_SIZE", "33554432"),
+
+    // largest file kept in memory by the directory service, larger files are streamed from disk
+    DIRECTORY_SERVICE_FILE_CACHE_MAXIMUM_ENTRY_SIZE
+            ("org.kaazing.gateway.server.service.directory.FILE_CACHE_MAXIMUM_ENTRY_SIZE", "262144"),
+
+    // milliseconds between load publications of balanced services, 0 disables load-aware balancing
+    BALANCEE_LOAD_PUBLISH_INTERVAL
+            ("org.kaazing.gateway.server.service.balancer.LOAD_PUBLISH_INTERVAL", "5000"),
+
     // management
     MANAGEMENT_SESSION_THRESHOLD
             ("org.kaazing.gateway.management.SESSION_THRESHOLD", "500"),
@@ -21,7 +21,10 @@
 
 package org.kaazing.gateway.util.scheduler;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.kaazing.gateway.util.InternalSystemProperty.BACKGROUND_TASK_THREADS;
+import static org.kaazing.gateway.util.InternalSystemProperty.TIMER_SHARDS;
+import static org.kaazing.gateway.util.InternalSystemProperty.TIMER_TICK_MILLIS;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -36,6 +39,13 @@ public class SchedulerProvider {
     private final List<ManagedScheduledExecutorService> schedulers = new ArrayList<>(10);
     private final ManagedScheduledExecutorService sharedScheduler;
     private final List<String> sharedUsages = new ArrayList<>(10);
+    private final List<TimerScheduledExecutorService> timers = new ArrayList<>(10);
+    private final int timerShards;
+    private final long timerTickMillis;
+
+    // hashed wheels shared by all timer schedulers, created on first use
+    private TimerWheels timerWheels;
+    private final List<String> timerUsages = new ArrayList<>(10);
 
     public SchedulerProvider() {
         this(new Properties());
@@ -44,6 +54,8 @@ public class SchedulerProvider {
     public SchedulerProvider(Properties configuration) {
         int corePoolSize = BACKGROUND_TASK_THREADS.getIntProperty(configuration);
         sharedScheduler = new ManagedScheduledExecutorService(corePoolSize, "gtwy_bg_tasks", true);
+        timerShards = TIMER_SHARDS.getIntProperty(configuration);
+        timerTickMillis = TIMER_TICK_MILLIS.getIntProperty(configuration);
     }
 
 
@@ -68,10 +80,34 @@ public class SchedulerProvider {
         }
     }
 
+    /*
+     * @param purpose  short description of the purpose of the timer
+     *
+     * @return a scheduler backed by hashed wheel timers shared with all other timers of this provider, appropriate
+     *         for large numbers of per-session timeouts that are usually cancelled, and whose tasks are short and
+     *         non-blocking. Tasks fire within one tick of their scheduled time. Shutting it down cancels its own
+     *         tasks only.
+     */
+    public synchronized ScheduledExecutorService getTimer(final String purpose) {
+        if (timerWheels == null) {
+            timerWheels = new TimerWheels("gtwy_timer", timerShards, timerTickMillis, MILLISECONDS);
+        }
+        TimerScheduledExecutorService timer = new TimerScheduledExecutorService(timerWheels);
+        timerUsages.add(purpose);
+        timers.add(timer);
+        return timer;
+    }
+
     public synchronized void shutdownNow() {
         for (ManagedScheduledExecutorService scheduler : schedulers) {
             scheduler.shutdownImmediate();
         }
+        for (TimerScheduledExecutorService timer : timers) {
+            timer.shutdownNow();
+        }
+        if (timerWheels != null) {
+            timerWheels.stop();
+        }
     }
 
     /**
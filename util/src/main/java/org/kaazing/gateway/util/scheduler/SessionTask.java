@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.util.scheduler;
+
+import org.kaazing.mina.core.session.IoSessionEx;
+
+/**
+ * A task concerning a single session. Schedulers obtained from {@link SchedulerProvider#getTimer(String)}
+ * time it on the timer shard of the session's I/O thread.
+ */
+public interface SessionTask extends Runnable {
+
+    /**
+     * @return the session the task is for, or null if it no longer applies to a session
+     */
+    IoSessionEx getSession();
+
+}
@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.util.scheduler;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import static java.util.Collections.newSetFromMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.netty.util.HashedWheelTimer;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+/**
+ * ScheduledExecutorService backed by hashed wheel timers, suited to large numbers of short lived,
+ * frequently cancelled per-session timeouts. Scheduling and cancelling are constant time, at the cost
+ * of firing within one tick of the requested delay.
+ *
+ * The wheels are owned by the SchedulerProvider and shared by all of its timer schedulers. A task goes on the
+ * wheel that {@link TimerWheels} assigns to the I/O thread of the session a {@link SessionTask} is for, or otherwise
+ * to the scheduling thread, so that the timeouts of each I/O worker land on the same wheel. Tasks run on the
+ * wheel thread, so they must be short and non-blocking.
+ *
+ * Shutting down a scheduler cancels its own pending tasks only, and it terminates once none of its tasks are
+ * running. The wheels are stopped by {@link TimerWheels#stop()}.
+ */
+class TimerScheduledExecutorService extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final TimerWheels wheels;
+
+    // scheduled tasks that have not yet completed, or been cancelled
+    private final Set<TimerFuture<?>> pending;
+
+    // guards shutdown and running, notified on termination
+    private final Object lock;
+    private volatile boolean shutdown;
+    private int running;
+
+    TimerScheduledExecutorService(TimerWheels wheels) {
+        this.wheels = wheels;
+        this.pending = newSetFromMap(new ConcurrentHashMap<TimerFuture<?>, Boolean>());
+        this.lock = new Object();
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        TimerFuture<Object> future = new TimerFuture<>(Executors.callable(command), unit.toNanos(delay), 0L,
+                timer(command));
+        future.schedule();
+        return future;
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        TimerFuture<V> future = new TimerFuture<>(callable, unit.toNanos(delay), 0L, timer(callable));
+        future.schedule();
+        return future;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive: " + period);
+        }
+        TimerFuture<Object> future = new TimerFuture<>(Executors.callable(command), unit.toNanos(initialDelay),
+                unit.toNanos(period), timer(command));
+        future.schedule();
+        return future;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("delay must be positive: " + delay);
+        }
+        TimerFuture<Object> future = new TimerFuture<>(Executors.callable(command), unit.toNanos(initialDelay),
+                -unit.toNanos(delay), timer(command));
+        future.schedule();
+        return future;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0L, NANOSECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        shutdownNow();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        synchronized (lock) {
+            shutdown = true;
+            if (running == 0) {
+                lock.notifyAll();
+            }
+        }
+
+        // the wheels are shared, so only release this scheduler's own timeouts
+        List<Runnable> unprocessed = new ArrayList<>();
+        for (TimerFuture<?> future : pending) {
+            pending.remove(future);
+            Timeout timeout = future.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            unprocessed.add(future);
+        }
+        return unprocessed;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        synchronized (lock) {
+            return shutdown && running == 0;
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            while (!shutdown || running != 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    return false;
+                }
+                NANOSECONDS.timedWait(lock, remaining);
+            }
+            return true;
+        }
+    }
+
+    private HashedWheelTimer timer(Object task) {
+        Thread thread = null;
+        if (task instanceof SessionTask) {
+            IoSessionEx session = ((SessionTask) task).getSession();
+            if (session != null && session.isIoAligned()) {
+                thread = session.getIoThread();
+            }
+        }
+        if (thread == null) {
+            thread = Thread.currentThread();
+        }
+        return wheels.timer(thread);
+    }
+
+    private boolean beforeRun() {
+        synchronized (lock) {
+            if (shutdown) {
+                return false;
+            }
+            running++;
+            return true;
+        }
+    }
+
+    private void afterRun() {
+        synchronized (lock) {
+            running--;
+            if (running == 0 && shutdown) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private final class TimerFuture<V> extends FutureTask<V> implements ScheduledFuture<V>, TimerTask {
+
+        // zero for one shot, positive for fixed rate, negative for fixed delay
+        private final long period;
+        private final HashedWheelTimer timer;
+        private volatile long deadline;
+        private volatile Timeout timeout;
+
+        TimerFuture(Callable<V> callable, long delayNanos, long period, HashedWheelTimer timer) {
+            super(callable);
+            this.period = period;
+            this.timer = timer;
+            this.deadline = System.nanoTime() + delayNanos;
+        }
+
+        void schedule() {
+            if (shutdown) {
+                throw new RejectedExecutionException("Timer has been shut down");
+            }
+
+            pending.add(this);
+            timeout = timer.newTimeout(this, Math.max(0L, deadline - System.nanoTime()), NANOSECONDS);
+            if (isCancelled()) {
+                pending.remove(this);
+                timeout.cancel();
+            }
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            if (!beforeRun()) {
+                // shut down since the timeout was scheduled
+                return;
+            }
+            try {
+                run();
+            }
+            finally {
+                afterRun();
+            }
+        }
+
+        @Override
+        public void run() {
+            if (period == 0L) {
+                pending.remove(this);
+                super.run();
+            }
+            else if (runAndReset() && !shutdown) {
+                deadline = (period > 0L) ? deadline + period : System.nanoTime() - period;
+                try {
+                    schedule();
+                }
+                catch (RejectedExecutionException e) {
+                    // shut down while running
+                    pending.remove(this);
+                }
+            }
+            else {
+                pending.remove(this);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            Timeout timeout = this.timeout;
+            if (cancelled) {
+                pending.remove(this);
+            }
+            if (cancelled && timeout != null) {
+                // releases the wheel slot instead of leaving the task behind until it expires
+                timeout.cancel();
+            }
+            return cancelled;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            if (o == this) {
+                return 0;
+            }
+            long diff = getDelay(NANOSECONDS) - o.getDelay(NANOSECONDS);
+            return (diff < 0) ? -1 : (diff > 0) ? 1 : 0;
+        }
+    }
+}
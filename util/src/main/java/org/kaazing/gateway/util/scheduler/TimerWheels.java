@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.util.scheduler;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.netty.util.HashedWheelTimer;
+
+/**
+ * Hashed wheel timers shared by the timer schedulers of a SchedulerProvider.
+ *
+ * Each thread that timeouts are scheduled for, usually an I/O worker, is assigned a wheel the first time it is
+ * seen, round robin over the wheels. With at least as many wheels as I/O workers, no two workers share a wheel.
+ */
+final class TimerWheels {
+
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private final HashedWheelTimer[] timers;
+
+    // wheel assigned to each thread, weak so that exited threads are released
+    private final Map<Thread, HashedWheelTimer> assignedTimers;
+    private int nextTimer;
+
+    // avoids the lookup when scheduling for the current thread
+    private final ThreadLocal<HashedWheelTimer> currentTimer;
+
+    TimerWheels(final String name, int shards, long tickDuration, TimeUnit unit) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("shards must be positive: " + shards);
+        }
+
+        ThreadFactory threadFactory = new ThreadFactory() {
+            final AtomicInteger poolNumber = new AtomicInteger(1);
+            final String namePrefix = name + "-";
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, namePrefix + poolNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        this.timers = new HashedWheelTimer[shards];
+        for (int i = 0; i < shards; i++) {
+            timers[i] = new HashedWheelTimer(threadFactory, tickDuration, unit, TICKS_PER_WHEEL);
+        }
+        this.assignedTimers = new WeakHashMap<>();
+        this.currentTimer = new ThreadLocal<HashedWheelTimer>() {
+            @Override
+            protected HashedWheelTimer initialValue() {
+                return assign(Thread.currentThread());
+            }
+        };
+    }
+
+    /**
+     * Returns the wheel assigned to the given thread.
+     */
+    HashedWheelTimer timer(Thread thread) {
+        return (thread == Thread.currentThread()) ? currentTimer.get() : assign(thread);
+    }
+
+    // waits for each wheel thread to terminate, unless called from one
+    void stop() {
+        for (HashedWheelTimer timer : timers) {
+            timer.stop();
+        }
+    }
+
+    private HashedWheelTimer assign(Thread thread) {
+        synchronized (assignedTimers) {
+            HashedWheelTimer timer = assignedTimers.get(thread);
+            if (timer == null) {
+                timer = timers[nextTimer];
+                nextTimer = (nextTimer + 1) % timers.length;
+                assignedTimers.put(thread, timer);
+            }
+            return timer;
+        }
+    }
+}
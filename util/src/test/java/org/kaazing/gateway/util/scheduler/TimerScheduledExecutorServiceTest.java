@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.util.scheduler;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimerScheduledExecutorServiceTest {
+
+    private TimerWheels wheels;
+    private TimerScheduledExecutorService timer;
+
+    @Before
+    public void setup() {
+        wheels = new TimerWheels("test-timer", 2, 10, MILLISECONDS);
+        timer = new TimerScheduledExecutorService(wheels);
+    }
+
+    @After
+    public void tearDown() {
+        timer.shutdownNow();
+        wheels.stop();
+    }
+
+    @Test
+    public void shouldRunScheduledTask() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        ScheduledFuture<?> future = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                ran.countDown();
+            }
+        }, 20, MILLISECONDS);
+
+        assertTrue(ran.await(5, SECONDS));
+        future.get(5, SECONDS);
+        assertTrue(future.isDone());
+    }
+
+    @Test
+    public void shouldNotRunCancelledTask() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        ScheduledFuture<?> future = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        }, 50, MILLISECONDS);
+
+        assertTrue(future.cancel(false));
+        assertTrue(future.isCancelled());
+        Thread.sleep(150);
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void shouldRunPeriodicTaskUntilCancelled() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(3);
+        ScheduledFuture<?> future = timer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                ran.countDown();
+            }
+        }, 0, 10, MILLISECONDS);
+
+        assertTrue(ran.await(5, SECONDS));
+        assertTrue(future.cancel(false));
+        assertFalse(future.cancel(false));
+    }
+
+    @Test
+    public void shouldBeShutdown() throws Exception {
+        timer.shutdownNow();
+        assertTrue(timer.isShutdown());
+        assertTrue(timer.awaitTermination(1, SECONDS));
+        assertTrue(timer.isTerminated());
+    }
+
+    @Test
+    public void shouldAwaitTerminationOfRunningTask() throws Exception {
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                running.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, 0, MILLISECONDS);
+        assertTrue(running.await(5, SECONDS));
+
+        timer.shutdownNow();
+        assertFalse(timer.isTerminated());
+        assertFalse(timer.awaitTermination(50, MILLISECONDS));
+
+        release.countDown();
+        assertTrue(timer.awaitTermination(5, SECONDS));
+        assertTrue(timer.isTerminated());
+    }
+
+    @Test
+    public void shutdownShouldOnlyCancelOwnTasks() throws Exception {
+        TimerScheduledExecutorService otherTimer = new TimerScheduledExecutorService(wheels);
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch ran = new CountDownLatch(1);
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        }, 50, MILLISECONDS);
+        otherTimer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                ran.countDown();
+            }
+        }, 50, MILLISECONDS);
+
+        assertEquals(1, timer.shutdownNow().size());
+        assertTrue(ran.await(5, SECONDS));
+        assertEquals(0, runs.get());
+        assertFalse(otherTimer.isShutdown());
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.util.scheduler;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jboss.netty.util.HashedWheelTimer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimerWheelsTest {
+
+    private TimerWheels wheels;
+
+    @Before
+    public void setup() {
+        wheels = new TimerWheels("test-timer", 4, 10, MILLISECONDS);
+    }
+
+    @After
+    public void tearDown() {
+        wheels.stop();
+    }
+
+    @Test
+    public void shouldAssignEachThreadItsOwnWheel() {
+        Set<HashedWheelTimer> timers = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            timers.add(wheels.timer(new Thread()));
+        }
+        assertEquals(4, timers.size());
+    }
+
+    @Test
+    public void shouldKeepWheelOfThread() {
+        Thread thread = new Thread();
+        HashedWheelTimer timer = wheels.timer(thread);
+        assertNotSame(timer, wheels.timer(new Thread()));
+        assertSame(timer, wheels.timer(thread));
+    }
+
+    @Test
+    public void shouldAssignCurrentThreadSameWheelFromOtherThreads() throws Exception {
+        final Thread current = Thread.currentThread();
+        final HashedWheelTimer[] timers = new HashedWheelTimer[1];
+        Thread other = new Thread() {
+            @Override
+            public void run() {
+                timers[0] = wheels.timer(current);
+            }
+        };
+        other.start();
+        other.join();
+
+        assertSame(timers[0], wheels.timer(current));
+    }
+}